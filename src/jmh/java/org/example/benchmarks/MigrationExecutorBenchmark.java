@@ -0,0 +1,76 @@
+package org.example.benchmarks;
+
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность {@link MigrationExecutor#applyMigration} на встроенной базе H2 в режиме PostgreSQL.
+ * <p>
+ * Абсолютные значения не совпадают с PostgreSQL, но позволяют сравнивать релизы и пакетный режим
+ * с построчным на одном и том же стенде.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationExecutorBenchmark {
+
+    @Param({"0", "100"})
+    public int batchSize;
+
+    @Param({"100"})
+    public int insertsPerMigration;
+
+    private Connection connection;
+    private MigrationExecutor executor;
+    private int version;
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:migration-bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS items (id INT PRIMARY KEY, name VARCHAR(100), note TEXT)");
+        }
+        executor = new MigrationExecutor(connection, new MigrationFileReader(), batchSize);
+        executor.initializeSchemaTable();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void applyMigration() throws SQLException, IOException {
+        version++;
+        executor.applyMigration(Integer.toString(version), "bench",
+                SyntheticScripts.inserts(version, insertsPerMigration), "V" + version + "__rollback.sql");
+        executor.flushBatch();
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.benchmarks;
+
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение каталога и чтение с хешированием синтетического дерева миграций разного размера.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationFileReaderBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int fileCount;
+
+    @Param({"1", "8"})
+    public int loaderThreads;
+
+    private Path root;
+    private MigrationFileReader reader;
+
+    @Setup(Level.Trial)
+    public void createTree() throws IOException {
+        root = Files.createTempDirectory("migration-bench");
+        Path migrations = Files.createDirectory(root.resolve("migrations"));
+        Path rollbacks = Files.createDirectory(root.resolve("rollbacks"));
+        for (int i = 1; i <= fileCount; i++) {
+            Files.writeString(migrations.resolve("V" + i + "__synthetic_" + i + ".sql"),
+                    SyntheticScripts.script(i, 20), StandardCharsets.UTF_8);
+        }
+        reader = new MigrationFileReader(migrations, rollbacks, new MigrationFileLoader(loaderThreads));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws IOException {
+        SyntheticScripts.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public MigrationCatalog buildCatalog() throws IOException {
+        return reader.getMigrationCatalog();
+    }
+
+    @Benchmark
+    public MigrationCatalog buildCatalogAndHash() throws IOException {
+        MigrationCatalog catalog = reader.getMigrationCatalog();
+        reader.preload(catalog.getFiles());
+        return catalog;
+    }
+}
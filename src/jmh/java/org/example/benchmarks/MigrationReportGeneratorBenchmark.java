@@ -0,0 +1,68 @@
+package org.example.benchmarks;
+
+import org.example.migrations.report.MigrationReport;
+import org.example.migrations.report.MigrationReportGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись отчетов CSV и JSON для больших списков отчетов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationReportGeneratorBenchmark {
+
+    @Param({"1000", "100000"})
+    public int reportCount;
+
+    private final MigrationReportGenerator generator = new MigrationReportGenerator();
+    private List<MigrationReport> reports;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void createReports() throws IOException {
+        reports = new ArrayList<>(reportCount);
+        for (int i = 0; i < reportCount; i++) {
+            reports.add(new MigrationReport(Integer.toString(i), "synthetic_" + i, i % 10 != 0,
+                    "2024-01-01T00:00:00", i % 10 != 0 ? null : "failure " + i, "tenant_" + i % 100));
+        }
+        directory = Files.createTempDirectory("report-bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReports() throws IOException {
+        SyntheticScripts.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void csv() throws IOException {
+        generator.generateCsvReport(reports, directory.resolve("report.csv").toString());
+    }
+
+    @Benchmark
+    public void json() throws IOException {
+        generator.generateJsonReport(reports, directory.resolve("report.json").toString());
+    }
+}
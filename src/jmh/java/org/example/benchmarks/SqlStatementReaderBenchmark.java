@@ -0,0 +1,53 @@
+package org.example.benchmarks;
+
+import org.example.migrations.sql.SqlStatementReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбиение больших сценариев на отдельные выражения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlStatementReaderBenchmark {
+
+    @Param({"1000", "100000"})
+    public int statementCount;
+
+    private String script;
+
+    @Setup
+    public void createScript() {
+        script = SyntheticScripts.script(1, statementCount);
+    }
+
+    @Benchmark
+    public int split(Blackhole blackhole) throws IOException {
+        int count = 0;
+        try (SqlStatementReader reader = SqlStatementReader.of(script)) {
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
+                blackhole.consume(statement);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Генерирует синтетические SQL-сценарии для бенчмарков.
+ */
+final class SyntheticScripts {
+
+    private SyntheticScripts() {
+    }
+
+    /**
+     * Формирует сценарий из DDL, DML, комментариев и функции в долларовых кавычках.
+     *
+     * @param seed число, от которого зависят имена объектов
+     * @param inserts количество INSERT-выражений
+     * @return текст сценария
+     */
+    static String script(int seed, int inserts) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("-- synthetic migration ").append(seed).append('\n');
+        sql.append("CREATE TABLE IF NOT EXISTS items_").append(seed)
+                .append(" (id INT PRIMARY KEY, name VARCHAR(100), note TEXT);\n");
+        sql.append("/* block comment; with a semicolon */\n");
+        sql.append("CREATE OR REPLACE FUNCTION touch_").append(seed)
+                .append("() RETURNS INT AS $body$ BEGIN RETURN 1; END; $body$ LANGUAGE plpgsql;\n");
+        sql.append(inserts(seed, inserts));
+        return sql.toString();
+    }
+
+    /**
+     * Формирует последовательность INSERT-выражений в таблицу items.
+     *
+     * @param seed смещение идентификаторов
+     * @param count количество выражений
+     * @return текст выражений
+     */
+    static String inserts(int seed, int count) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int id = seed * count + i;
+            sql.append("INSERT INTO items (id, name, note) VALUES (").append(id)
+                    .append(", 'item; ").append(id).append("', 'it''s -- not a comment');\n");
+        }
+        return sql.toString();
+    }
+
+    static void deleteRecursively(Path root) throws IOException {
+        if (root == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -43,4 +43,263 @@ public class PropertiesUtils {
     public String getPassword() {
         return properties.getProperty("db.password");
     }
+
+    /**
+     * Возвращает размер JDBC-пакета для DML-выражений миграций и записей в applied_migration.
+     *
+     * @return размер пакета; значение 0 или 1 отключает пакетный режим
+     */
+    public int getBatchSize() {
+        return getInt("migration.batch.size", 0);
+    }
+
+    /**
+     * Возвращает число миграций, которые могут применяться одновременно с учетом зависимостей
+     * из директив {@code -- depends-on:}.
+     *
+     * @return степень параллелизма; 1 означает последовательное применение в одной транзакции
+     */
+    public int getMigrationParallelism() {
+        return getInt("migration.parallelism", 1);
+    }
+
+    /**
+     * Возвращает интервал опроса прогресса долгих операций в миграциях вне транзакции.
+     *
+     * @return интервал в миллисекундах, по умолчанию 5 секунд
+     */
+    public long getProgressIntervalMillis() {
+        return getLong("migration.progress.interval", 5_000);
+    }
+
+    /**
+     * Возвращает число потоков для параллельного чтения и хеширования файлов миграций.
+     *
+     * @return число потоков загрузки, по умолчанию 8
+     */
+    public int getLoaderThreads() {
+        return getInt("migration.loader.threads", 8);
+    }
+
+    /**
+     * Возвращает путь к локальному кэшу контрольных сумм файлов миграций.
+     *
+     * @return путь к файлу кэша, по умолчанию {@code .migration-checksums}
+     */
+    public String getManifestPath() {
+        return properties.getProperty("migration.manifest.path", ".migration-checksums");
+    }
+
+    /**
+     * Возвращает максимальный размер встроенного пула соединений.
+     *
+     * @return размер пула; 0 означает работу без пула
+     */
+    public int getPoolSize() {
+        return getInt("db.pool.size", 0);
+    }
+
+    public int getPoolValidationTimeoutSeconds() {
+        return getInt("db.pool.validation.timeout", 5);
+    }
+
+    public long getPoolIdleTimeoutMillis() {
+        return getLong("db.pool.idle.timeout", 600_000);
+    }
+
+    public long getPoolAcquireTimeoutMillis() {
+        return getLong("db.pool.acquire.timeout", 30_000);
+    }
+
+    /**
+     * Возвращает список целей для применения миграций к нескольким схемам или базам данных.
+     *
+     * @return имена схем и JDBC URL через запятую или null, если список не задан
+     */
+    public String getTargets() {
+        return properties.getProperty("migration.targets");
+    }
+
+    /**
+     * Возвращает запрос для поиска схем-целей; имена схем берутся из первого столбца результата.
+     *
+     * @return текст запроса или null, если поиск не используется
+     */
+    public String getTargetsQuery() {
+        return properties.getProperty("migration.targets.query");
+    }
+
+    /**
+     * Возвращает число целей, к которым миграции применяются одновременно.
+     *
+     * @return степень параллелизма, по умолчанию 4
+     */
+    public int getFanoutParallelism() {
+        return getInt("migration.fanout.parallelism", 4);
+    }
+
+    /**
+     * Возвращает поведение при ошибке одной из целей: {@code fail-fast} или {@code continue}.
+     *
+     * @return значение политики, по умолчанию {@code fail-fast}
+     */
+    public String getFanoutPolicy() {
+        return properties.getProperty("migration.fanout.policy", "fail-fast");
+    }
+
+    /**
+     * Возвращает режим фиксации транзакций: {@code single}, {@code per-migration} или {@code grouped}.
+     *
+     * @return режим, по умолчанию {@code single}
+     */
+    public String getTransactionMode() {
+        return properties.getProperty("migration.transaction.mode", "single");
+    }
+
+    /**
+     * Возвращает число миграций, после которого фиксируется группа в режиме {@code grouped}.
+     *
+     * @return размер группы, по умолчанию 50; 0 - без ограничения по числу
+     */
+    public int getTransactionGroupSize() {
+        return getInt("migration.transaction.group.size", 50);
+    }
+
+    /**
+     * Возвращает время (мс), после которого фиксируется группа в режиме {@code grouped}.
+     *
+     * @return время группы, по умолчанию 0 - без ограничения по времени
+     */
+    public long getTransactionGroupMillis() {
+        return getLong("migration.transaction.group.millis", 0);
+    }
+
+    /**
+     * Возвращает максимальное число попыток применения миграции после временных ошибок.
+     *
+     * @return число попыток, включая первую; по умолчанию 3 в режимах per-migration и grouped и 1 (без повторов)
+     * в режиме single, где точка сохранения перед каждой миграцией создает вложенную транзакцию внутри одной общей
+     */
+    public int getRetryAttempts() {
+        String mode = getTransactionMode().trim();
+        return getInt("migration.retry.attempts", mode.isEmpty() || mode.equalsIgnoreCase("single") ? 1 : 3);
+    }
+
+    /**
+     * Возвращает паузу перед первым повтором миграции.
+     *
+     * @return пауза в миллисекундах, по умолчанию 100
+     */
+    public long getRetryBackoffMillis() {
+        return getLong("migration.retry.backoff", 100);
+    }
+
+    /**
+     * Возвращает максимальную паузу между повторами миграции.
+     *
+     * @return пауза в миллисекундах, по умолчанию 5000
+     */
+    public long getRetryMaxBackoffMillis() {
+        return getLong("migration.retry.backoff.max", 5_000);
+    }
+
+    /**
+     * Возвращает коды SQLState, после которых миграция повторяется.
+     *
+     * @return список кодов через запятую или null для кодов по умолчанию
+     */
+    public String getRetrySqlStates() {
+        return properties.getProperty("migration.retry.sqlstates");
+    }
+
+    /**
+     * Возвращает lock_timeout выражений миграции.
+     *
+     * @return время в миллисекундах; 0 - значение сервера
+     */
+    public long getStatementLockTimeoutMillis() {
+        return getLong("migration.statement.lock.timeout", 0);
+    }
+
+    /**
+     * Возвращает statement_timeout выражений миграции.
+     *
+     * @return время в миллисекундах; 0 - значение сервера
+     */
+    public long getStatementTimeoutMillis() {
+        return getLong("migration.statement.timeout", 0);
+    }
+
+    /**
+     * Возвращает стратегию блокировки миграций: {@code advisory} или {@code table}.
+     *
+     * @return стратегия блокировки, по умолчанию {@code advisory}
+     */
+    public String getLockStrategy() {
+        return properties.getProperty("migration.lock.strategy", "advisory");
+    }
+
+    /**
+     * Возвращает максимальное время ожидания блокировки, занятой другим процессом.
+     *
+     * @return время ожидания в миллисекундах, по умолчанию 60 секунд
+     */
+    public long getLockWaitMillis() {
+        return getLong("migration.lock.wait", 60_000);
+    }
+
+    /**
+     * Возвращает срок аренды табличной блокировки, по истечении которого она считается брошенной.
+     *
+     * @return срок аренды в миллисекундах, по умолчанию 5 минут
+     */
+    public long getLockLeaseMillis() {
+        return getLong("migration.lock.lease", 300_000);
+    }
+
+    /**
+     * Возвращает источник сценариев миграций: {@code auto}, {@code filesystem}, {@code classpath}, {@code index} или {@code bundle}.
+     *
+     * @return вид источника, по умолчанию {@code auto}
+     */
+    public String getMigrationSource() {
+        return properties.getProperty("migration.source", "auto");
+    }
+
+    /**
+     * Возвращает путь к двоичному пакету миграций для источника {@code bundle} и {@code auto}.
+     *
+     * @return путь к файлу пакета, по умолчанию migrations.bundle в рабочем каталоге
+     */
+    public String getBundlePath() {
+        return properties.getProperty("migration.bundle.path", "migrations.bundle");
+    }
+
+    /**
+     * Возвращает путь файла, в который сохраняются метрики миграций после команд migrate и migrate-all.
+     *
+     * @return путь к файлу .json или текстовому файлу в формате Prometheus; null, если метрики не сохраняются
+     */
+    public String getMetricsPath() {
+        return properties.getProperty("migration.metrics.path");
+    }
+
+    /**
+     * Возвращает интервал опроса pg_stat_activity для оценки времени ожидания блокировок выражениями миграций.
+     *
+     * @return интервал в миллисекундах, по умолчанию 0 - опрос выключен
+     */
+    public long getLockWaitSampleMillis() {
+        return getLong("migration.metrics.lockwait.interval", 0);
+    }
+
+    private long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
 }
\ No newline at end of file
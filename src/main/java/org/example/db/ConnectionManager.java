@@ -1,18 +1,23 @@
 package org.example.db;
 
 import org.example.configuration.PropertiesUtils;
+import org.example.migrations.tenant.MigrationTarget;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 /**
  * Управляет соединениями с базами данных с помощью свойств конфигурации.
  * <p>
  * Класс ConnectionManager предоставляет метод для установки соединения с базой данных.
  * используя учетные данные и URL, указанные в конфигурации PropertiesUtils.
+ * Если задан параметр {@code db.pool.size}, соединения выдаются из встроенного {@link ConnectionPool}.
+ * Соединения без пула сопровождаются собственным {@link StatementCache}, который закрывается вместе с ними.
  * </p>
  */
-public class ConnectionManager {
+public class ConnectionManager implements AutoCloseable {
     private final PropertiesUtils config;
+    private ConnectionPool pool;
     /**
      * Конструирует экземпляр  ConnectionManager с указанной утилитой конфигурации.
      *
@@ -33,6 +38,83 @@ public class ConnectionManager {
      * @throws SQLException при возникновении ошибки доступа к базе данных
      */
     public Connection connect() throws SQLException {
-        return DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword());
+        if (config.getPoolSize() > 0) {
+            return getPool().getConnection();
+        }
+        return StatementCache.attach(DriverManager.getConnection(config.getUrl(), connectionProperties(config.getUrl())));
+    }
+
+    /**
+     * Устанавливает соединение с целью миграции.
+     * <p>
+     * Для схемы основной базы данных соединение берется так же, как в {@link #connect()}, и для него
+     * устанавливается схема; для отдельной базы данных открывается прямое соединение с теми же
+     * учетными данными.
+     * </p>
+     *
+     * @param target схема или база данных, к которой применяются миграции
+     * @return объект Connection, настроенный на цель
+     * @throws SQLException при возникновении ошибки доступа к базе данных
+     */
+    public Connection connect(MigrationTarget target) throws SQLException {
+        Connection connection = target.getUrl() == null
+                ? connect()
+                : StatementCache.attach(DriverManager.getConnection(target.getUrl(), connectionProperties(target.getUrl())));
+        if (target.getSchema() != null) {
+            try {
+                connection.setSchema(target.getSchema());
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Возвращает пул соединений, создавая его при первом обращении.
+     *
+     * @return пул соединений, настроенный параметрами {@code db.pool.*}
+     */
+    public synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(config.getUrl(), connectionProperties(config.getUrl()), Math.max(1, config.getPoolSize()),
+                    config.getPoolValidationTimeoutSeconds(), config.getPoolIdleTimeoutMillis(),
+                    config.getPoolAcquireTimeoutMillis());
+        }
+        return pool;
+    }
+
+    /**
+     * Закрывает пул соединений, если он был создан.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * Формирует свойства соединения.
+     * <p>
+     * Если включен пакетный режим и используется драйвер PostgreSQL, добавляется параметр
+     * {@code reWriteBatchedInserts}, благодаря которому драйвер объединяет пакет INSERT-выражений
+     * в многострочные INSERT и отправляет их за меньшее число обращений к серверу.
+     * </p>
+     */
+    private Properties connectionProperties(String url) {
+        Properties properties = new Properties();
+        if (config.getUsername() != null) {
+            properties.setProperty("user", config.getUsername());
+        }
+        if (config.getPassword() != null) {
+            properties.setProperty("password", config.getPassword());
+        }
+        if (config.getBatchSize() > 1 && url.startsWith("jdbc:postgresql:")) {
+            properties.setProperty("reWriteBatchedInserts", "true");
+        }
+        return properties;
     }
 }
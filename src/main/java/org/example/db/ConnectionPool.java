@@ -0,0 +1,288 @@
+package org.example.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Небольшой встроенный пул соединений.
+ * <p>
+ * Пул ограничивает число одновременно открытых соединений, проверяет соединение перед выдачей,
+ * если оно простаивало дольше короткого окна, и закрывает соединения, простаивающие дольше заданного
+ * времени. Каждое физическое соединение сопровождается собственным {@link StatementCache}, который
+ * переживает возврат соединения в пул, поэтому служебные запросы подготавливаются один раз.
+ * </p>
+ * <p>
+ * Выдаваемые соединения являются обертками: {@code close()} возвращает соединение в пул,
+ * откатывая незавершенную транзакцию и восстанавливая режим автофиксации и исходную схему.
+ * </p>
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int validationTimeoutSeconds;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledEntry> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private static final class PooledEntry {
+        private final Connection connection;
+        private final StatementCache statementCache;
+        private volatile long lastUsedMillis;
+        private String originalSchema;
+        private boolean schemaChanged;
+
+        private PooledEntry(Connection connection) {
+            this.connection = connection;
+            this.statementCache = new StatementCache(connection);
+            this.lastUsedMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Создает пул соединений.
+     *
+     * @param url JDBC URL базы данных
+     * @param connectionProperties свойства соединения, включая имя пользователя и пароль
+     * @param maxSize максимальное число одновременно открытых соединений
+     * @param validationTimeoutSeconds время ожидания проверки соединения ({@link Connection#isValid(int)})
+     * @param idleTimeoutMillis время простоя, после которого соединение закрывается
+     * @param acquireTimeoutMillis максимальное время ожидания свободного соединения
+     */
+    public ConnectionPool(String url, Properties connectionProperties, int maxSize, int validationTimeoutSeconds,
+                          long idleTimeoutMillis, long acquireTimeoutMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+        }
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Выдает соединение из пула, при необходимости открывая новое.
+     *
+     * @return соединение, которое возвращается в пул вызовом {@code close()}
+     * @throws SQLException, если пул закрыт, свободное соединение не появилось вовремя или соединение не удалось открыть
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeoutMillis + " ms waiting for a pooled connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+        try {
+            return new PooledConnection(borrow());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections always use the configured credentials");
+    }
+
+    private PooledEntry borrow() throws SQLException {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (isUsable(entry)) {
+                return entry;
+            }
+            discard(entry);
+        }
+        logger.debug("Opening new pooled connection to {}", url);
+        return new PooledEntry(DriverManager.getConnection(url, connectionProperties));
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastUsedMillis < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return entry.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        try {
+            if (!entry.connection.isClosed() && !entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            if (entry.schemaChanged && !entry.connection.isClosed()) {
+                entry.connection.setSchema(entry.originalSchema);
+                entry.schemaChanged = false;
+            }
+            entry.lastUsedMillis = System.currentTimeMillis();
+            if (closed || entry.connection.isClosed()) {
+                discard(entry);
+            } else {
+                idle.offerFirst(entry);
+            }
+        } catch (SQLException e) {
+            logger.warn("Discarding pooled connection after failed reset: {}", e.getMessage());
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> iterator = idle.descendingIterator();
+        while (iterator.hasNext()) {
+            PooledEntry entry = iterator.next();
+            if (now - entry.lastUsedMillis >= idleTimeoutMillis && idle.remove(entry)) {
+                logger.debug("Closing connection idle for {} ms", now - entry.lastUsedMillis);
+                discard(entry);
+            }
+        }
+    }
+
+    private static void discard(PooledEntry entry) {
+        entry.statementCache.close();
+        try {
+            entry.connection.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close pooled connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Обертка над физическим соединением пула: {@code close()} возвращает соединение в пул,
+     * а {@code unwrap(StatementCache.class)} дает доступ к кэшу подготовленных выражений.
+     */
+    private final class PooledConnection extends DelegatingConnection {
+        private final PooledEntry entry;
+        private boolean returned;
+
+        private PooledConnection(PooledEntry entry) {
+            super(entry.connection, entry.statementCache);
+            this.entry = entry;
+        }
+
+        @Override
+        protected Connection delegate() throws SQLException {
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            return entry.connection;
+        }
+
+        @Override
+        public void close() {
+            if (!returned) {
+                returned = true;
+                release(entry);
+            }
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return returned || entry.connection.isClosed();
+        }
+
+        @Override
+        public void setSchema(String schema) throws SQLException {
+            if (!returned && !entry.schemaChanged) {
+                entry.originalSchema = entry.connection.getSchema();
+                entry.schemaChanged = true;
+            }
+            delegate().setSchema(schema);
+        }
+
+        @Override
+        public String toString() {
+            return "Pooled" + entry.connection;
+        }
+    }
+
+    /**
+     * Закрывает пул и все простаивающие соединения. Выданные соединения закрываются при возврате.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ConnectionPool is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
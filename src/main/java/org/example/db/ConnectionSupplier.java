@@ -0,0 +1,23 @@
+package org.example.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Источник дополнительных соединений с той же базой данных и схемой, что и основное соединение.
+ * <p>
+ * Полученное соединение принадлежит вызывающему коду и должно быть закрыто после использования;
+ * соединение из пула при этом возвращается в пул.
+ * </p>
+ */
+@FunctionalInterface
+public interface ConnectionSupplier {
+
+    /**
+     * Открывает соединение или берет его из пула.
+     *
+     * @return соединение с базой данных
+     * @throws SQLException при возникновении ошибки доступа к базе данных
+     */
+    Connection get() throws SQLException;
+}
@@ -0,0 +1,118 @@
+package org.example.db;
+
+import org.postgresql.PGStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш подготовленных выражений одного соединения.
+ * <p>
+ * Служебные запросы инструмента (запись в applied_migration, работа с блокировкой и т.п.) выполняются
+ * многократно с одним и тем же текстом. Кэш возвращает уже подготовленное выражение, а для драйвера
+ * PostgreSQL сразу включает серверную подготовку ({@code prepareThreshold = 1}), поэтому сервер
+ * разбирает и планирует каждый запрос один раз за время жизни соединения.
+ * Выражения, полученные из кэша, нельзя закрывать: ими владеет кэш.
+ * </p>
+ */
+public class StatementCache implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+
+    /**
+     * Создает кэш для указанного соединения.
+     *
+     * @param connection физическое соединение, на котором подготавливаются выражения
+     */
+    public StatementCache(Connection connection) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > DEFAULT_CAPACITY) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Оборачивает соединение, открытое без пула, так что все компоненты получают через
+     * {@link #forConnection(Connection)} один кэш, а {@code close()} закрывает кэш вместе с соединением.
+     *
+     * @param connection физическое соединение
+     * @return соединение с собственным кэшем подготовленных выражений
+     */
+    public static Connection attach(Connection connection) {
+        return new DelegatingConnection(connection, new StatementCache(connection));
+    }
+
+    /**
+     * Возвращает кэш, связанный с соединением пула или с соединением из {@link #attach(Connection)},
+     * либо новый кэш для прочих соединений.
+     *
+     * @param connection соединение с базой данных
+     * @return кэш подготовленных выражений для этого соединения
+     * @throws SQLException, если соединение недоступно
+     */
+    public static StatementCache forConnection(Connection connection) throws SQLException {
+        if (connection.isWrapperFor(StatementCache.class)) {
+            return connection.unwrap(StatementCache.class);
+        }
+        return new StatementCache(connection);
+    }
+
+    /**
+     * Возвращает подготовленное выражение для указанного SQL, подготавливая его при первом обращении.
+     * Параметры и пакет ранее использованного выражения очищаются.
+     *
+     * @param sql текст запроса
+     * @return подготовленное выражение, которым владеет кэш
+     * @throws SQLException, если выражение не удалось подготовить
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            statement.clearBatch();
+            return statement;
+        }
+        statement = connection.prepareStatement(sql);
+        if (statement.isWrapperFor(PGStatement.class)) {
+            statement.unwrap(PGStatement.class).setPrepareThreshold(1);
+        }
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Закрывает все закэшированные выражения.
+     */
+    @Override
+    public synchronized void close() {
+        Iterator<PreparedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            closeQuietly(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close cached statement: {}", e.getMessage());
+        }
+    }
+}
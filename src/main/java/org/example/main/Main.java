@@ -3,15 +3,22 @@ package org.example.main;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.configuration.PropertiesUtils;
-import org.example.db.ConnectionManager;
 import org.example.migrations.MigrationExecutor;
 import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.plan.MigrationPlanner;
+import org.example.migrations.plan.StatementPlan;
 import org.example.migrations.MigrationTool;
+import org.example.migrations.report.MigrationReport;
+import org.example.migrations.report.MigrationReportWriter;
+import org.example.migrations.tenant.MigrationTarget;
+import org.example.migrations.tenant.TenantMigrationRunner;
+import org.example.migrations.watch.MigrationWatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.*;
-import java.sql.Connection;
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -23,6 +30,10 @@ import java.util.Scanner;
  * - Устанавливает соединение с базой данных.
  * - Выполняет миграции и откаты с помощью MigrationTool.
  * </p>
+ * <p>
+ * Интерактивный режим предназначен для ручной работы; для запуска из скриптов и контейнеров
+ * используется неинтерактивная точка входа {@link MigrationCLI}.
+ * </p>
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -40,28 +51,26 @@ public class Main {
     public static void main(String[] args) {
 
         PropertiesUtils config = new PropertiesUtils();
-        ConnectionManager connectionManager = new ConnectionManager(config);
-        MigrationFileReader migrationFileReader = new MigrationFileReader();
-
-        try {
 
-            // Установите соединение с базой данных
-            Connection connection = connectionManager.connect();
-            logger.info("db is connected");
-
-            // Инициализация инструментов миграции
-            MigrationExecutor migrationExecutor = new MigrationExecutor(connection, new MigrationFileReader());
-            MigrationTool migrationTool = new MigrationTool(migrationExecutor, connection);
+        // Установите соединение с базой данных и инициализируйте инструменты миграции
+        try (MigrationSession session = MigrationSession.open(config)) {
+            MigrationFileReader migrationFileReader = session.getMigrationFileReader();
+            MigrationExecutor migrationExecutor = session.getMigrationExecutor();
+            MigrationTool migrationTool = session.getMigrationTool();
             //CLI
             Scanner scanner = new Scanner(System.in);
             while (true) {
-                System.out.println("Enter command (migrate/rollback/status/exit): ");
+                System.out.println("Enter command (migrate/migrate-all/plan/rollback/status/validate/watch/exit): ");
                 String command = scanner.nextLine().trim().toLowerCase();
 
                 switch (command) {
                     case "migrate":
                         try {
-                            migrationTool.executeMigration();
+                            try {
+                                migrationTool.executeMigration();
+                            } finally {
+                                session.writeMetrics();
+                            }
                             System.out.println("Migrations applied successfully.");
                         } catch (SQLException e) {
                             System.err.println("Migration failed: " + e.getMessage());
@@ -70,6 +79,52 @@ public class Main {
                         }
                         break;
 
+                    case "migrate-all":
+                        try {
+                            List<MigrationTarget> targets = session.getTargets();
+                            TenantMigrationRunner runner = session.createTenantRunner();
+                            int failed;
+                            try (MigrationReportWriter reportWriter = MigrationReportWriter.open(
+                                    Paths.get(MigrationTool.CSV_REPORT_PATH), Paths.get(MigrationTool.JSON_REPORT_PATH))) {
+                                failed = runner.migrateAll(targets, reportWriter);
+                            }
+                            session.writeMetrics();
+                            System.out.println("Migrated " + targets.size() + " targets, failed: " + failed);
+                        } catch (SQLException | IOException e) {
+                            System.err.println("Fan-out migration failed: " + e.getMessage());
+                        }
+                        break;
+
+                    case "plan":
+                        try {
+                            List<StatementPlan> plans = migrationTool.plan();
+                            double totalCost = 0;
+                            int blocking = 0;
+                            int notExplained = 0;
+                            for (StatementPlan plan : plans) {
+                                System.out.println(plan);
+                                if (plan.getEstimatedCost() != null) {
+                                    totalCost += plan.getEstimatedCost();
+                                }
+                                if (plan.getLockLevel().blocksWrites()) {
+                                    blocking++;
+                                }
+                                if (plan.getNote() != null && plan.getNote().contains(MigrationPlanner.NOT_EXPLAINED)) {
+                                    notExplained++;
+                                }
+                            }
+                            System.out.printf("%d statements, total estimated cost %.2f, %d block writes%n",
+                                    plans.size(), totalCost, blocking);
+                            if (notExplained > 0) {
+                                System.out.printf("%d statements not explained: schema changes are not executed while"
+                                        + " planning, so statements on tables or columns created by earlier pending"
+                                        + " migrations cannot be estimated%n", notExplained);
+                            }
+                        } catch (SQLException | IOException e) {
+                            System.err.println("Planning failed: " + e.getMessage());
+                        }
+                        break;
+
                     case "rollback":
                         try {
                             migrationTool.executeRollback();
@@ -90,6 +145,52 @@ public class Main {
                         }
                         break;
 
+                    case "validate":
+                        try {
+                            List<MigrationReport> failures = migrationTool.validate().stream()
+                                    .filter(report -> !report.isSuccess())
+                                    .toList();
+                            if (failures.isEmpty()) {
+                                System.out.println("Validation passed: applied migrations match the scripts on disk.");
+                            } else {
+                                for (MigrationReport failure : failures) {
+                                    System.err.println("V" + failure.getVersion() + ": " + failure.getErrorMessage());
+                                }
+                            }
+                        } catch (SQLException | IOException e) {
+                            System.err.println("Validation failed: " + e.getMessage());
+                        }
+                        break;
+
+                    case "watch":
+                        try (MigrationReportWriter reportWriter = MigrationReportWriter.open(
+                                Paths.get(MigrationTool.CSV_REPORT_PATH), Paths.get(MigrationTool.JSON_REPORT_PATH), 1)) {
+                            Thread watchThread;
+                            try (MigrationWatcher watcher = new MigrationWatcher(migrationTool, migrationFileReader,
+                                    reportWriter, MigrationWatcher.DEFAULT_DEBOUNCE_MILLIS)) {
+                                watchThread = new Thread(() -> {
+                                    try {
+                                        watcher.run();
+                                    } catch (IOException e) {
+                                        logger.error("Migration watcher failed: {}", e.getMessage(), e);
+                                    }
+                                }, "migration-watch");
+                                watchThread.setDaemon(true);
+                                watchThread.start();
+                                System.out.println("Watching " + migrationFileReader.getMigrationDir()
+                                        + " for new migrations. Press Enter to stop.");
+                                scanner.nextLine();
+                            }
+                            // Отчеты закрываются только после завершения последнего цикла наблюдателя
+                            watchThread.join();
+                        } catch (IOException e) {
+                            System.err.println("Watch mode failed: " + e.getMessage());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        break;
+
                     case "exit":
                         System.out.println("Exiting...");
                         return;
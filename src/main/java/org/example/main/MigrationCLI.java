@@ -0,0 +1,190 @@
+package org.example.main;
+
+import org.example.configuration.PropertiesUtils;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationType;
+import org.example.migrations.report.MigrationReport;
+import org.example.migrations.sql.SqlStatementKind;
+import org.example.migrations.sql.SqlStatementReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.OptionSpec;
+import picocli.CommandLine.ParseResult;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Неинтерактивная точка входа для запуска из скриптов и контейнеров инициализации.
+ * <p>
+ * Команды {@code migrate}, {@code rollback --to <версия>}, {@code status}, {@code validate} и {@code catalog}
+ * описываются через программную модель picocli ({@link CommandSpec}) без аннотаций, поэтому при запуске
+ * не выполняется разбор аннотаций через рефлексию, а для native-image не нужна конфигурация рефлексии.
+ * Команда {@code catalog} не подключается к базе данных и используется также как обучающий запуск AppCDS.
+ * Код завершения: 0 - успех, 1 - ошибка миграции или проверки, 2 - неверные аргументы.
+ * </p>
+ */
+public final class MigrationCLI {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationCLI.class);
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private MigrationCLI() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(execute(args));
+    }
+
+    /**
+     * Разбирает аргументы и выполняет команду.
+     *
+     * @param args аргументы командной строки
+     * @return код завершения
+     */
+    public static int execute(String[] args) {
+        CommandLine commandLine = new CommandLine(createSpec());
+        commandLine.setExecutionStrategy(MigrationCLI::run);
+        return commandLine.execute(args);
+    }
+
+    /**
+     * Строит модель команд без аннотаций.
+     *
+     * @return корневая команда со всеми подкомандами
+     */
+    public static CommandSpec createSpec() {
+        CommandSpec spec = command("migration", "Applies and inspects database migrations.");
+        spec.version("Database_Migration 1.0-SNAPSHOT");
+        spec.addOption(OptionSpec.builder("-V", "--version").versionHelp(true)
+                .description("Print version information and exit.").build());
+        spec.addSubcommand("migrate", command("migrate", "Apply all pending migrations."));
+        spec.addSubcommand("rollback", command("rollback", "Roll back to the given version.")
+                .addOption(OptionSpec.builder("--to").paramLabel("VERSION").type(String.class).required(true)
+                        .description("Version to roll back to; newer migrations are reverted.").build()));
+        spec.addSubcommand("status", command("status", "Print the current database version."));
+        spec.addSubcommand("validate", command("validate",
+                "Check that applied migrations match the scripts on disk."));
+        spec.addSubcommand("catalog", command("catalog",
+                "Parse the local migration scripts and print them without connecting to the database."));
+        return spec;
+    }
+
+    private static CommandSpec command(String name, String description) {
+        CommandSpec spec = CommandSpec.create().name(name);
+        spec.usageMessage().description(description);
+        spec.addOption(OptionSpec.builder("-h", "--help").usageHelp(true)
+                .description("Show this help message and exit.").build());
+        return spec;
+    }
+
+    private static int run(ParseResult parseResult) {
+        Integer helpExitCode = CommandLine.executeHelpRequest(parseResult);
+        if (helpExitCode != null) {
+            return helpExitCode;
+        }
+        ParseResult subcommand = parseResult.subcommand();
+        if (subcommand == null) {
+            parseResult.commandSpec().commandLine().usage(System.err);
+            return EXIT_USAGE;
+        }
+
+        if ("catalog".equals(subcommand.commandSpec().name())) {
+            try {
+                return catalog(MigrationSession.createFileReader(new PropertiesUtils()));
+            } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+                logger.error("Command catalog failed: {}", e.getMessage(), e);
+                System.err.println("catalog failed: " + e.getMessage());
+                return EXIT_FAILURE;
+            }
+        }
+
+        try (MigrationSession session = MigrationSession.open(new PropertiesUtils())) {
+            return switch (subcommand.commandSpec().name()) {
+                case "migrate" -> migrate(session);
+                case "rollback" -> rollback(session, subcommand.matchedOptionValue("--to", ""));
+                case "status" -> status(session);
+                case "validate" -> validate(session);
+                default -> throw new IllegalStateException("Unknown command: " + subcommand.commandSpec().name());
+            };
+        } catch (SQLException | IOException e) {
+            logger.error("Command {} failed: {}", subcommand.commandSpec().name(), e.getMessage(), e);
+            System.err.println(subcommand.commandSpec().name() + " failed: " + e.getMessage());
+            return EXIT_FAILURE;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return EXIT_USAGE;
+        }
+    }
+
+    private static int migrate(MigrationSession session) throws SQLException, IOException {
+        try {
+            session.getMigrationTool().executeMigration();
+        } finally {
+            session.writeMetrics();
+        }
+        System.out.println("Migrations applied successfully.");
+        return EXIT_OK;
+    }
+
+    private static int rollback(MigrationSession session, String targetVersion) throws SQLException, IOException {
+        session.getMigrationTool().executeRollback(targetVersion);
+        System.out.println("Rollback to version " + targetVersion + " completed successfully.");
+        return EXIT_OK;
+    }
+
+    private static int status(MigrationSession session) throws SQLException {
+        String currentVersion = session.getMigrationExecutor().getCurrentVersion();
+        System.out.println("Current database version: " + (currentVersion != null ? currentVersion : "none"));
+        return EXIT_OK;
+    }
+
+    /**
+     * Разбирает сценарии локального каталога так же, как при применении, и печатает их версии, число
+     * выражений по видам и контрольные суммы.
+     */
+    private static int catalog(MigrationFileReader migrationFileReader) throws IOException {
+        MigrationCatalog catalog = migrationFileReader.getMigrationCatalog();
+        for (MigrationFile migrationFile : catalog.getFiles()) {
+            int statements = 0;
+            int ddl = 0;
+            if (migrationFile.getType() == MigrationType.SQL) {
+                try (SqlStatementReader reader = migrationFile.openStatements()) {
+                    String sql;
+                    while ((sql = reader.nextStatement()) != null) {
+                        statements++;
+                        if (SqlStatementKind.of(sql) == SqlStatementKind.DDL) {
+                            ddl++;
+                        }
+                    }
+                }
+            }
+            System.out.println(migrationFile + "\t" + migrationFile.getType() + "\t" + statements + " statements ("
+                    + ddl + " DDL)\t" + (migrationFile.isTransactional() ? "transactional" : "non-transactional")
+                    + "\t" + migrationFile.getChecksum());
+        }
+        System.out.println(catalog.getFiles().size() + " migrations, catalog digest " + catalog.getDigest());
+        return EXIT_OK;
+    }
+
+    private static int validate(MigrationSession session) throws SQLException, IOException {
+        List<MigrationReport> failures = session.getMigrationTool().validate().stream()
+                .filter(report -> !report.isSuccess())
+                .toList();
+        if (failures.isEmpty()) {
+            System.out.println("Validation passed: applied migrations match the scripts on disk.");
+            return EXIT_OK;
+        }
+        for (MigrationReport failure : failures) {
+            System.err.println("V" + failure.getVersion() + ": " + failure.getErrorMessage());
+        }
+        return EXIT_FAILURE;
+    }
+}
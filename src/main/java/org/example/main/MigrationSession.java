@@ -0,0 +1,177 @@
+package org.example.main;
+
+import org.example.configuration.PropertiesUtils;
+import org.example.db.ConnectionManager;
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.MigrationTool;
+import org.example.migrations.OutOfTransactionExecutor;
+import org.example.migrations.RetryPolicy;
+import org.example.migrations.TransactionPolicy;
+import org.example.migrations.fileReader.ChecksumManifest;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationSource;
+import org.example.migrations.lock.MigrationLockFactory;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.parallel.ParallelMigrationScheduler;
+import org.example.migrations.tenant.MigrationTarget;
+import org.example.migrations.tenant.TenantMigrationRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Компоненты миграции, собранные по application.properties: соединение, устройство чтения файлов,
+ * исполнители, блокировка и метрики. Общие для интерактивного {@link Main} и {@link MigrationCLI}.
+ */
+final class MigrationSession implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationSession.class);
+
+    private final PropertiesUtils config;
+    private final ConnectionManager connectionManager;
+    private final MigrationFileReader migrationFileReader;
+    private final MigrationLockFactory lockFactory;
+    private final MigrationMetrics metrics;
+    private final Connection connection;
+    private final MigrationExecutor migrationExecutor;
+    private final MigrationTool migrationTool;
+    private final MigrationOptions options;
+
+    private MigrationSession(PropertiesUtils config, ConnectionManager connectionManager, MigrationMetrics metrics,
+                             Connection connection) {
+        this.config = config;
+        this.connectionManager = connectionManager;
+        this.metrics = metrics;
+        this.connection = connection;
+        this.migrationFileReader = createFileReader(config);
+        this.lockFactory = new MigrationLockFactory(config.getLockStrategy(),
+                config.getLockWaitMillis(), config.getLockLeaseMillis());
+        this.migrationExecutor = new MigrationExecutor(connection, migrationFileReader, config.getBatchSize(), metrics);
+        OutOfTransactionExecutor outOfTransactionExecutor = new OutOfTransactionExecutor(
+                connectionManager::connect, migrationFileReader, config.getProgressIntervalMillis(), metrics);
+        ParallelMigrationScheduler scheduler = config.getMigrationParallelism() > 1
+                ? new ParallelMigrationScheduler(connectionManager::connect, migrationFileReader,
+                        config.getMigrationParallelism(), config.getBatchSize(), outOfTransactionExecutor, metrics)
+                : null;
+        this.options = MigrationOptions.builder()
+                .scheduler(scheduler)
+                .outOfTransactionExecutor(outOfTransactionExecutor)
+                .transactionPolicy(TransactionPolicy.of(config.getTransactionMode(),
+                        config.getTransactionGroupSize(), config.getTransactionGroupMillis()))
+                .retryPolicy(new RetryPolicy(config.getRetryAttempts(), config.getRetryBackoffMillis(),
+                        config.getRetryMaxBackoffMillis(), config.getStatementLockTimeoutMillis(),
+                        config.getStatementTimeoutMillis(), RetryPolicy.parseSqlStates(config.getRetrySqlStates())))
+                .build();
+        this.migrationTool = new MigrationTool(migrationExecutor, connection, migrationFileReader,
+                lockFactory.create(connection, connectionManager::connect), options);
+    }
+
+    /**
+     * Создает устройство чтения миграций по параметрам источника; соединение с базой данных не требуется.
+     *
+     * @param config параметры приложения
+     * @return устройство чтения миграций
+     */
+    static MigrationFileReader createFileReader(PropertiesUtils config) {
+        ChecksumManifest checksumManifest = ChecksumManifest.load(Paths.get(config.getManifestPath()));
+        return new MigrationFileReader(
+                MigrationSource.create(config.getMigrationSource(), Paths.get(config.getBundlePath()),
+                        MigrationSession.class.getClassLoader()),
+                new MigrationFileLoader(config.getLoaderThreads(), checksumManifest));
+    }
+
+    /**
+     * Открывает соединение с основной базой данных и собирает компоненты миграции.
+     *
+     * @param config параметры приложения
+     * @return открытая сессия
+     * @throws SQLException, если не удалось подключиться к базе данных
+     */
+    static MigrationSession open(PropertiesUtils config) throws SQLException {
+        ConnectionManager connectionManager = new ConnectionManager(config);
+        MigrationMetrics metrics = new MigrationMetrics(connectionManager::connect, config.getLockWaitSampleMillis());
+        try {
+            Connection connection = connectionManager.connect();
+            logger.info("db is connected");
+            return new MigrationSession(config, connectionManager, metrics, connection);
+        } catch (SQLException | RuntimeException e) {
+            metrics.close();
+            connectionManager.close();
+            throw e;
+        }
+    }
+
+    PropertiesUtils getConfig() {
+        return config;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    MigrationFileReader getMigrationFileReader() {
+        return migrationFileReader;
+    }
+
+    MigrationExecutor getMigrationExecutor() {
+        return migrationExecutor;
+    }
+
+    MigrationTool getMigrationTool() {
+        return migrationTool;
+    }
+
+    /**
+     * Собирает цели команды migrate-all из migration.targets и migration.targets.query.
+     *
+     * @return цели миграции
+     * @throws SQLException, если запрос поиска схем не удалось выполнить
+     */
+    List<MigrationTarget> getTargets() throws SQLException {
+        List<MigrationTarget> targets = MigrationTarget.parseList(config.getTargets());
+        if (config.getTargetsQuery() != null) {
+            targets.addAll(TenantMigrationRunner.discoverSchemas(connection, config.getTargetsQuery()));
+        }
+        return targets;
+    }
+
+    /**
+     * Создает исполнитель миграций для нескольких целей с параметрами fan-out из конфигурации.
+     *
+     * @return исполнитель миграций для нескольких целей
+     */
+    TenantMigrationRunner createTenantRunner() {
+        return new TenantMigrationRunner(connectionManager::connect, migrationFileReader,
+                config.getFanoutParallelism(), TenantMigrationRunner.FailurePolicy.parse(config.getFanoutPolicy()),
+                config.getBatchSize(), lockFactory, metrics, options);
+    }
+
+    /**
+     * Сохраняет накопленные метрики миграций, если задан параметр migration.metrics.path.
+     *
+     * @throws IOException, если файл метрик не удалось записать
+     */
+    void writeMetrics() throws IOException {
+        if (config.getMetricsPath() != null) {
+            metrics.writeTo(Paths.get(config.getMetricsPath()));
+            logger.info("Migration metrics written to {}", config.getMetricsPath());
+        }
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Failed to close the connection: {}", e.getMessage());
+        }
+        connectionManager.close();
+    }
+}
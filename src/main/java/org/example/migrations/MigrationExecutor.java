@@ -1,11 +1,33 @@
 package org.example.migrations;
 
+import org.example.db.StatementCache;
+import org.example.migrations.copy.CopyMigrationLoader;
+import org.example.migrations.fileReader.Checksums;
+import org.example.migrations.fileReader.MigrationFile;
 import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationVersion;
+import org.example.migrations.lock.TableMigrationLock;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.metrics.MigrationStats;
+import org.example.migrations.metrics.MigrationTimer;
+import org.example.migrations.metrics.StatementTimer;
+import org.example.migrations.rollback.RollbackJournal;
+import org.example.migrations.sql.SqlStatementKind;
+import org.example.migrations.sql.SqlStatementReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 /**
  * Управляет выполнением миграций и откатов баз данных.
  * <p>
@@ -14,8 +36,34 @@ import java.util.List;
  * </p>
  */
 public class MigrationExecutor {
+    private static final String INSERT_VERSION_SQL =
+            "INSERT INTO applied_migration (version, description, applied_at, rollback_file, checksum, rollback_journal, "
+                    + "version_key) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_CURRENT_VERSION_SQL =
+            "SELECT version FROM applied_migration WHERE version_key IS NOT NULL ORDER BY version_key DESC LIMIT 1";
+    private static final String RELATION_EXISTS_SQL = "SELECT to_regclass(?) IS NOT NULL";
+    private static final String COLUMN_EXISTS_SQL = """
+            SELECT EXISTS (SELECT 1 FROM pg_attribute
+                           WHERE attrelid = to_regclass(?) AND attname = ? AND attnum > 0 AND NOT attisdropped)
+            """;
+    private static final String SELECT_SCHEMA_STATE_SQL =
+            "SELECT version, catalog_digest, last_run_at FROM schema_state WHERE schema_name = current_schema()";
+    private static final String UPSERT_SCHEMA_STATE_SQL = """
+            INSERT INTO schema_state (schema_name, version, catalog_digest, last_run_at)
+            VALUES (current_schema(), ?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT (schema_name) DO UPDATE
+            SET version = EXCLUDED.version, catalog_digest = EXCLUDED.catalog_digest, last_run_at = EXCLUDED.last_run_at
+            """;
+    /** SQLState PostgreSQL для обращения к несуществующей таблице. */
+    private static final String UNDEFINED_TABLE = "42P01";
+
     private final Connection connection;
     MigrationFileReader fileReader;
+    private final int batchSize;
+    private final MigrationMetrics metrics;
+    private StatementCache statementCache;
+    private PreparedStatement pendingVersionInserts;
+    private int pendingVersionCount;
     private static final Logger logger = LoggerFactory.getLogger(MigrationExecutor.class);
     /**
      * Конструирует MigrationExecutor с указанным подключением к базе данных и устройством чтения файлов.
@@ -24,14 +72,56 @@ public class MigrationExecutor {
      * @param fileReader устройство чтения файлов для чтения файлов миграции и отката
      */
     public MigrationExecutor(Connection connection, MigrationFileReader fileReader) {
+        this(connection, fileReader, 0);
+    }
+    /**
+     * Конструирует MigrationExecutor с пакетным режимом выполнения.
+     * <p>
+     * Если размер пакета больше 1, подряд идущие DML-выражения миграции и записи о примененных версиях
+     * отправляются на сервер через {@code addBatch}/{@code executeBatch}. Записи о версиях накапливаются
+     * между миграциями, поэтому перед фиксацией транзакции необходимо вызвать {@link #flushBatch()}.
+     * Измерения такого исполнителя не накапливаются ({@link MigrationMetrics#DISABLED}).
+     * </p>
+     *
+     * @param connection соединение с базой данных для выполнения SQL-команд
+     * @param fileReader устройство чтения файлов для чтения файлов миграции и отката
+     * @param batchSize максимальное число выражений в одном пакете; 0 или 1 отключает пакетный режим
+     */
+    public MigrationExecutor(Connection connection, MigrationFileReader fileReader, int batchSize) {
+        this(connection, fileReader, batchSize, MigrationMetrics.DISABLED);
+    }
+    /**
+     * Конструирует MigrationExecutor, записывающий измерения миграций и выражений в указанные метрики.
+     *
+     * @param connection соединение с базой данных для выполнения SQL-команд
+     * @param fileReader устройство чтения файлов для чтения файлов миграции и отката
+     * @param batchSize максимальное число выражений в одном пакете; 0 или 1 отключает пакетный режим
+     * @param metrics метрики, общие для всех исполнителей процесса
+     */
+    public MigrationExecutor(Connection connection, MigrationFileReader fileReader, int batchSize,
+                             MigrationMetrics metrics) {
         this.connection = connection;
         this.fileReader = fileReader;
+        this.batchSize = batchSize;
+        this.metrics = metrics;
+    }
+    /**
+     * Возвращает метрики, в которые записываются измерения этого исполнителя.
+     *
+     * @return метрики миграций
+     */
+    public MigrationMetrics getMetrics() {
+        return metrics;
     }
     /**
      * Инициализирует таблицу отслеживания схемы, если она еще не существует.
      * <p>
      * В этой таблице хранится информация о примененных миграциях, включая версию, описание, временную метку приложения,
-     * и файл отката, связанный с каждой миграцией.
+     * файл отката, связанный с каждой миграцией, и контрольную сумму примененного сценария.
+     * В таблицу, созданную предыдущими версиями инструмента, столбцы checksum, rollback_journal и version_key
+     * добавляются автоматически. Столбец version_key с индексом хранит числовой ключ сортировки версии
+     * ({@link MigrationVersion#toSortKey()}); для записей без ключа он заполняется один раз.
+     * Вместе с ней создается таблица schema_state с головной записью состояния каждой схемы.
      * </p>
      *
      * @throws SQLException, если при создании таблицы возникла ошибка базы данных.
@@ -42,26 +132,117 @@ public class MigrationExecutor {
                     version VARCHAR(50) PRIMARY KEY,
                     description VARCHAR(255),
                     applied_at TIMESTAMP,
-                    rollback_file VARCHAR(255)
+                    rollback_file VARCHAR(255),
+                    checksum VARCHAR(64)
+                );
+                """;
+        String addChecksumSql = "ALTER TABLE applied_migration ADD COLUMN IF NOT EXISTS checksum VARCHAR(64)";
+        String addJournalSql = "ALTER TABLE applied_migration ADD COLUMN IF NOT EXISTS rollback_journal BYTEA";
+        String addVersionKeySql = "ALTER TABLE applied_migration ADD COLUMN IF NOT EXISTS version_key INTEGER ARRAY";
+        String versionKeyIndexSql =
+                "CREATE INDEX IF NOT EXISTS applied_migration_version_key ON applied_migration (version_key)";
+        String schemaStateSql = """
+                CREATE TABLE IF NOT EXISTS schema_state (
+                    schema_name VARCHAR(63) PRIMARY KEY,
+                    version VARCHAR(50),
+                    catalog_digest VARCHAR(64),
+                    last_run_at TIMESTAMP
                 );
                 """;
         try (Statement statement = connection.createStatement()) {
             statement.execute(sql);
+            statement.execute(addChecksumSql);
+            statement.execute(addJournalSql);
+            statement.execute(addVersionKeySql);
+            statement.execute(versionKeyIndexSql);
+            statement.execute(schemaStateSql);
         }
+        backfillVersionKeys();
+    }
+
+    /**
+     * Заполняет version_key для записей, добавленных до появления столбца. Поиск таких записей
+     * выполняется по индексу version_key, поэтому после заполнения запрос не возвращает строк.
+     */
+    private void backfillVersionKeys() throws SQLException {
+        List<String> versions = new ArrayList<>();
+        try (ResultSet resultSet = prepare("SELECT version FROM applied_migration WHERE version_key IS NULL")
+                .executeQuery()) {
+            while (resultSet.next()) {
+                versions.add(resultSet.getString("version"));
+            }
+        }
+        if (versions.isEmpty()) {
+            return;
+        }
+        PreparedStatement preparedStatement = prepare("UPDATE applied_migration SET version_key = ? WHERE version = ?");
+        for (String version : versions) {
+            preparedStatement.setArray(1, versionKey(MigrationVersion.parse(version)));
+            preparedStatement.setString(2, version);
+            preparedStatement.addBatch();
+        }
+        preparedStatement.executeBatch();
+        logger.info("Filled version_key for {} applied migrations", versions.size());
+    }
+
+    private Array versionKey(MigrationVersion version) throws SQLException {
+        return connection.createArrayOf("integer", version.toSortKey());
+    }
+
+    /**
+     * Читает головную запись schema_state для текущей схемы соединения одним запросом.
+     * <p>
+     * Если таблица schema_state еще не создана, возвращается null. Метод следует вызывать в режиме
+     * автофиксации: в открытой транзакции PostgreSQL ошибка обращения к несуществующей таблице
+     * прерывает транзакцию.
+     * </p>
+     *
+     * @return состояние схемы или null, если запись отсутствует
+     * @throws SQLException, если при чтении произошла ошибка базы данных
+     */
+    public SchemaState readSchemaState() throws SQLException {
+        try (ResultSet resultSet = prepare(SELECT_SCHEMA_STATE_SQL).executeQuery()) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            Timestamp lastRunAt = resultSet.getTimestamp("last_run_at");
+            return new SchemaState(resultSet.getString("version"), resultSet.getString("catalog_digest"),
+                    lastRunAt != null ? lastRunAt.toLocalDateTime() : null);
+        } catch (SQLException e) {
+            if (UNDEFINED_TABLE.equals(e.getSQLState())) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Записывает головную запись schema_state для текущей схемы соединения.
+     * Вызывается в транзакции, фиксирующей применение миграций.
+     *
+     * @param version текущая версия схемы или null, если миграции не применялись
+     * @param catalogDigest отпечаток каталога, с которым выполнялся запуск
+     * @throws SQLException, если запись не удалось сохранить
+     */
+    public void updateSchemaState(MigrationVersion version, String catalogDigest) throws SQLException {
+        PreparedStatement preparedStatement = prepare(UPSERT_SCHEMA_STATE_SQL);
+        preparedStatement.setString(1, version != null ? version.toString() : null);
+        preparedStatement.setString(2, catalogDigest);
+        preparedStatement.executeUpdate();
+    }
+
+    /**
+     * Удаляет головную запись schema_state текущей схемы, например после отката,
+     * чтобы следующий запуск выполнил полную проверку состояния.
+     *
+     * @throws SQLException, если запись не удалось удалить
+     */
+    public void clearSchemaState() throws SQLException {
+        prepare("DELETE FROM schema_state WHERE schema_name = current_schema()").executeUpdate();
     }
     //-------------------------------------
     public void initializeMigrationLockTable() throws SQLException {
-        String sql = """
-                CREATE TABLE IF NOT EXISTS migration_lock (
-                      id INT PRIMARY KEY,
-                      locked BOOLEAN NOT NULL,
-                      locked_at TIMESTAMP,
-                      locked_by VARCHAR(255)
-                  );
-                """;
-        try (Statement statement = connection.createStatement()) {
-            statement.execute(sql);
-        }
+        TableMigrationLock.initializeTable(connection);
     }
 
 
@@ -72,15 +253,48 @@ public class MigrationExecutor {
      * @throws SQLException, если при получении версий произошла ошибка базы данных
      */
     public List<String> getAppliedMigrations() throws SQLException {
-        String sql = "SELECT version FROM applied_migration ORDER BY version";
-        try (Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sql)) {
+        List<String> appliedMigrations = new ArrayList<>();
+        for (MigrationVersion version : getAppliedVersions()) {
+            appliedMigrations.add(version.toString());
+        }
+        return appliedMigrations;
+    }
+    /**
+     * Получает разобранные версии всех примененных миграций.
+     * <p>
+     * Столбец version хранится как строка, поэтому сортировка выполняется по числовому ключу version_key,
+     * а не по строковому значению.
+     * </p>
+     *
+     * @return версии примененных миграций в порядке возрастания
+     * @throws SQLException, если при получении версий произошла ошибка базы данных
+     */
+    public List<MigrationVersion> getAppliedVersions() throws SQLException {
+        String sql = "SELECT version FROM applied_migration ORDER BY version_key";
+        try (ResultSet resultSet = prepare(sql).executeQuery()) {
+
+            List<MigrationVersion> appliedVersions = new ArrayList<>();
+            while (resultSet.next()) {
+                appliedVersions.add(MigrationVersion.parse(resultSet.getString("version")));
+            }
+            return appliedVersions;
+        }
+    }
+    /**
+     * Получает контрольные суммы, сохраненные при применении миграций.
+     *
+     * @return отображение версии на контрольную сумму; для миграций, примененных без контрольной суммы, значение null
+     * @throws SQLException, если при чтении таблицы произошла ошибка базы данных
+     */
+    public Map<MigrationVersion, String> getAppliedChecksums() throws SQLException {
+        String sql = "SELECT version, checksum FROM applied_migration";
+        try (ResultSet resultSet = prepare(sql).executeQuery()) {
 
-            List<String> appliedMigrations = new java.util.ArrayList<>();
+            Map<MigrationVersion, String> checksums = new TreeMap<>();
             while (resultSet.next()) {
-                appliedMigrations.add(resultSet.getString("version"));
+                checksums.put(MigrationVersion.parse(resultSet.getString("version")), resultSet.getString("checksum"));
             }
-            return appliedMigrations;
+            return checksums;
         }
     }
     /**
@@ -90,15 +304,89 @@ public class MigrationExecutor {
      * @throws SQLException, если при получении версии произошла ошибка базы данных
      */
     public String getCurrentVersion() throws SQLException{
-        String sql = "SELECT version FROM applied_migration ORDER BY version DESC LIMIT 1";
-        try (Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sql)) {
-
-            if (resultSet.next()) {
-                return resultSet.getString("version");
+        MigrationVersion currentVersion = readCurrentVersion();
+        return currentVersion == null ? null : currentVersion.toString();
+    }
+    /**
+     * Получает текущую версию схемы из головной записи schema_state.
+     * <p>
+     * Запись удаляется в начале каждого запуска, который применяет миграции, и записывается заново
+     * при его успешном завершении, поэтому имеющаяся запись всегда соответствует applied_migration.
+     * Если записи нет (первый запуск, прерванный запуск или откат), версия определяется
+     * через {@link #findCurrentVersion()}.
+     * </p>
+     *
+     * @return текущая версия схемы или null, если миграции не применялись
+     * @throws SQLException, если при получении версии произошла ошибка базы данных
+     */
+    public MigrationVersion readCurrentVersion() throws SQLException {
+        SchemaState state = readSchemaState();
+        if (state == null) {
+            return findCurrentVersion();
+        }
+        return state.getVersion() != null ? MigrationVersion.parse(state.getVersion()) : null;
+    }
+    /**
+     * Определяет текущую версию схемы, ничего не создавая и не изменяя в базе данных.
+     * <p>
+     * Используется при планировании: отсутствующие таблицы schema_state и applied_migration означают, что
+     * миграции не применялись, а версии applied_migration сравниваются в памяти, поэтому столбец version_key,
+     * который добавляет {@link #initializeSchemaTable()}, не требуется.
+     * </p>
+     *
+     * @return текущая версия схемы или null, если миграции не применялись
+     * @throws SQLException, если при чтении произошла ошибка базы данных
+     */
+    public MigrationVersion peekCurrentVersion() throws SQLException {
+        SchemaState state = readSchemaState();
+        if (state != null) {
+            return state.getVersion() != null ? MigrationVersion.parse(state.getVersion()) : null;
+        }
+        MigrationVersion current = null;
+        try (ResultSet resultSet = prepare("SELECT version FROM applied_migration").executeQuery()) {
+            while (resultSet.next()) {
+                MigrationVersion version = MigrationVersion.parse(resultSet.getString("version"));
+                if (version.isNewerThan(current)) {
+                    current = version;
+                }
             }
-            return null;
+        } catch (SQLException e) {
+            if (UNDEFINED_TABLE.equals(e.getSQLState())) {
+                return null;
+            }
+            throw e;
         }
+        return current;
+    }
+    /**
+     * Получает текущую версию схемы базы данных как разобранную версию.
+     * <p>
+     * Текущей считается наибольшая по числовому сравнению версия, так что {@code 10} новее {@code 2}.
+     * Она читается одной строкой по индексу version_key, без чтения всей таблицы applied_migration.
+     * </p>
+     *
+     * @return текущая версия схемы или null, если миграции не применялись
+     * @throws SQLException, если при получении версии произошла ошибка базы данных
+     */
+    public MigrationVersion findCurrentVersion() throws SQLException {
+        try (ResultSet resultSet = prepare(SELECT_CURRENT_VERSION_SQL).executeQuery()) {
+            return resultSet.next() ? MigrationVersion.parse(resultSet.getString("version")) : null;
+        }
+    }
+    /**
+     * Удаляет из applied_migration записи о всех версиях новее целевой.
+     * <p>
+     * Версии сравниваются численно по ключу version_key, а удаление выполняется одним выражением.
+     * </p>
+     *
+     * @param targetVersion версия, к которой выполняется откат
+     * @return число удаленных записей
+     * @throws SQLException, если при удалении произошла ошибка базы данных
+     */
+    public int removeAppliedMigrationsAfter(MigrationVersion targetVersion) throws SQLException {
+        PreparedStatement preparedStatement = prepare("DELETE FROM applied_migration WHERE version_key > ?");
+        preparedStatement.setArray(1, versionKey(targetVersion));
+        return preparedStatement.executeUpdate();
     }
     /**
      * Проверяет, заблокирован ли в данный момент процесс миграции, запрашивая таблицу `migration_lock`.
@@ -112,8 +400,7 @@ public class MigrationExecutor {
 
     public boolean isLocked() throws SQLException {
         String sql = "SELECT locked FROM migration_lock WHERE id = 1";
-        try (Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sql)) {
+        try (ResultSet resultSet = prepare(sql).executeQuery()) {
             if (resultSet.next()) {
                 return resultSet.getBoolean("locked");
             }
@@ -135,16 +422,14 @@ public class MigrationExecutor {
         String insertSql = "INSERT INTO migration_lock (id, locked, locked_at, locked_by) VALUES (1, TRUE, CURRENT_TIMESTAMP, ?)";
         String updateSql = "UPDATE migration_lock SET locked = TRUE, locked_at = CURRENT_TIMESTAMP, locked_by = ? WHERE id = 1";
 
-        try (Statement checkStatement = connection.createStatement();
-             ResultSet resultSet = checkStatement.executeQuery(checkSql)) {
+        boolean exists;
+        try (ResultSet resultSet = prepare(checkSql).executeQuery()) {
             resultSet.next();
-            boolean exists = resultSet.getInt(1) > 0;
-
-            try (PreparedStatement preparedStatement = connection.prepareStatement(exists ? updateSql : insertSql)) {
-                preparedStatement.setString(1, lockedBy);
-                preparedStatement.executeUpdate();
-            }
+            exists = resultSet.getInt(1) > 0;
         }
+        PreparedStatement preparedStatement = prepare(exists ? updateSql : insertSql);
+        preparedStatement.setString(1, lockedBy);
+        preparedStatement.executeUpdate();
     }
     /**
      * Разблокирует процесс миграции, обновляя статус блокировки в таблице `migration_lock`.
@@ -157,10 +442,8 @@ public class MigrationExecutor {
      * @throws SQLException, если при взаимодействии с базой данных произошла ошибка.
      */
     public void unlockMigration() throws SQLException {
-        String sql = "UPDATE migration_lock SET locked = FALSE, locked_at = NULL, locked_by = NULL WHERE id = 1";
-        try (Statement statement = connection.createStatement()) {
-            statement.executeUpdate(sql);
-        }
+        String sql = "UPDATE migration_lock SET locked = FALSE, locked_at = NULL, locked_by = NULL, lease_until = NULL WHERE id = 1";
+        prepare(sql).executeUpdate();
     }
     /**
      * Применяет миграцию к базе данных.
@@ -174,19 +457,209 @@ public class MigrationExecutor {
      * @param rollbackFile имя файла отката, связанного с этой миграцией
      * @throws SQLException если при применении миграции возникла ошибка базы данных
      */
-    public void applyMigration(String version, String description, String sql, String rollback_file) throws SQLException {
-            try (Statement statement = connection.createStatement()) {
-                statement.execute(sql);
+    public void applyMigration(String version, String description, String sql, String rollbackFile) throws SQLException {
+        try (SqlStatementReader statements = SqlStatementReader.of(sql)) {
+            String checksum = Checksums.sha256(new ByteArrayInputStream(sql.getBytes(StandardCharsets.UTF_8)));
+            applyMigration(version, description, checksum, statements, rollbackFile);
+        } catch (IOException e) {
+            throw new SQLException("Failed to parse migration script for version " + version, e);
+        }
+    }
+    /**
+     * Применяет миграцию из файла в зависимости от ее вида: SQL-сценарий выполняется потоково по одному
+     * выражению, файл с данными загружается через COPY. Затем миграция записывается в таблицу отслеживания схем.
+     *
+     * @param migrationFile файл миграции
+     * @return измерения миграции
+     * @throws SQLException если при применении миграции возникла ошибка базы данных
+     * @throws IOException если файл не удалось прочитать
+     */
+    public MigrationStats applyMigration(MigrationFile migrationFile) throws SQLException, IOException {
+        switch (migrationFile.getType()) {
+            case SQL -> {
+                // Контрольная сумма запрашивается после выполнения: она вычисляется при чтении выражений
+                try (SqlStatementReader statements = migrationFile.openStatements()) {
+                    return applyMigration(migrationFile.getVersion(), migrationFile.getDescription(),
+                            migrationFile::getChecksum, statements, migrationFile.getRollbackFileName());
+                }
             }
+            case CSV, TSV -> {
+                MigrationTimer timer = metrics.startMigration(migrationFile.getVersion(),
+                        migrationFile.getDescription(), connection);
+                boolean success = false;
+                MigrationStats stats;
+                try {
+                    StatementTimer statementTimer = timer.startStatement(1, "COPY " + migrationFile.getDescription());
+                    long rows = -1;
+                    try {
+                        rows = new CopyMigrationLoader(connection).load(migrationFile);
+                    } finally {
+                        statementTimer.stop(rows);
+                    }
+                    // Контрольная сумма вычислена при передаче данных в COPY, файл повторно не читается
+                    recordMigration(migrationFile.getVersion(), migrationFile.getDescription(),
+                            migrationFile.getChecksum(), migrationFile.getRollbackFileName());
+                    success = true;
+                } finally {
+                    stats = timer.stop(success);
+                }
+                return stats;
+            }
+            default -> throw new IllegalArgumentException(
+                    "Migration " + migrationFile + " of type " + migrationFile.getType() + " cannot be applied in a transaction");
+        }
+    }
+    /**
+     * Применяет миграцию к базе данных, выполняя выражения сценария по одному по мере их чтения.
+     * <p>
+     * Сценарий не загружается в память целиком: каждое выражение отправляется на сервер сразу после разбора,
+     * после чего таблица отслеживания схем обновляется метаданными миграции. Вместе с ними сохраняется
+     * {@link RollbackJournal} с обратными выражениями, если все выражения миграции удалось обратить.
+     * </p>
+     *
+     * @param version версия миграции
+     * @param description краткое описание миграции
+     * @param checksum контрольная сумма сценария, сохраняемая для последующей проверки
+     * @param statements потоковый источник выражений сценария миграции
+     * @param rollbackFile имя файла отката, связанного с этой миграцией
+     * @return измерения миграции
+     * @throws SQLException если при применении миграции возникла ошибка базы данных
+     * @throws IOException если при чтении сценария возникла ошибка
+     */
+    public MigrationStats applyMigration(String version, String description, String checksum,
+                                         SqlStatementReader statements, String rollbackFile)
+            throws SQLException, IOException {
+        return applyMigration(version, description, () -> checksum, statements, rollbackFile);
+    }
 
-            String insertVersionSql = "INSERT INTO applied_migration (version, description, applied_at, rollback_file) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement preparedStatement = connection.prepareStatement(insertVersionSql)) {
-                preparedStatement.setInt(1, Integer.parseInt(version));
-                preparedStatement.setString(2, description);
-                preparedStatement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-                preparedStatement.setString(4, rollback_file);
-                preparedStatement.executeUpdate();
+    private MigrationStats applyMigration(String version, String description, ChecksumSource checksum,
+                                          SqlStatementReader statements, String rollbackFile)
+            throws SQLException, IOException {
+        MigrationTimer timer = metrics.startMigration(version, description, connection);
+        RollbackJournal journal = new RollbackJournal();
+        boolean success = false;
+        MigrationStats stats;
+        try {
+            executeStatements(statements, timer, journal);
+            if (!journal.isComplete()) {
+                logger.info("Migration {} cannot be reverted automatically, rollback requires a rollback script",
+                        version);
+                logger.debug("Migration {} irreversible statement: {}", version, journal.getIrreversibleStatement());
             }
+            recordMigration(version, description, checksum.get(), rollbackFile,
+                    journal.isComplete() ? journal.toBytes() : null);
+            success = true;
+        } finally {
+            stats = timer.stop(success);
+        }
+        return stats;
+    }
+    /**
+     * Добавляет запись о примененной миграции в таблицу отслеживания схем, не выполняя сценарий.
+     * <p>
+     * Используется миграциями, которые изменяют данные собственными средствами, например порционными
+     * обновлениями. В пакетном режиме запись отправляется на сервер вместе с пакетом.
+     * </p>
+     *
+     * @param version версия миграции
+     * @param description краткое описание миграции
+     * @param checksum контрольная сумма файла миграции
+     * @param rollbackFile имя файла отката, связанного с этой миграцией
+     * @throws SQLException если запись не удалось добавить
+     */
+    public void recordMigration(String version, String description, String checksum, String rollbackFile)
+            throws SQLException {
+        recordMigration(version, description, checksum, rollbackFile, null);
+    }
+    /**
+     * Добавляет запись о примененной миграции вместе с журналом обратных выражений.
+     *
+     * @param version версия миграции
+     * @param description краткое описание миграции
+     * @param checksum контрольная сумма файла миграции
+     * @param rollbackFile имя файла отката, связанного с этой миграцией
+     * @param rollbackJournal сериализованный {@link RollbackJournal} или null, если миграцию откатывает только сценарий
+     * @throws SQLException если запись не удалось добавить
+     */
+    public void recordMigration(String version, String description, String checksum, String rollbackFile,
+                                byte[] rollbackJournal) throws SQLException {
+        if (isBatchEnabled()) {
+            if (pendingVersionInserts == null) {
+                pendingVersionInserts = prepare(INSERT_VERSION_SQL);
+            }
+            bindVersion(pendingVersionInserts, version, description, rollbackFile, checksum, rollbackJournal);
+            pendingVersionInserts.addBatch();
+            if (++pendingVersionCount >= batchSize) {
+                flushBatch();
+            }
+            return;
+        }
+        PreparedStatement preparedStatement = prepare(INSERT_VERSION_SQL);
+        bindVersion(preparedStatement, version, description, rollbackFile, checksum, rollbackJournal);
+        preparedStatement.executeUpdate();
+    }
+    /**
+     * Отправляет на сервер накопленные записи о примененных версиях.
+     * <p>
+     * В пакетном режиме метод необходимо вызвать перед фиксацией транзакции. Без пакетного режима
+     * вызов ничего не делает.
+     * </p>
+     *
+     * @throws SQLException, если при выполнении пакета возникла ошибка базы данных
+     */
+    public void flushBatch() throws SQLException {
+        if (pendingVersionInserts == null) {
+            return;
+        }
+        try {
+            if (pendingVersionCount > 0) {
+                pendingVersionInserts.executeBatch();
+                logger.debug("Recorded {} applied versions in one batch", pendingVersionCount);
+            }
+        } finally {
+            pendingVersionInserts = null;
+            pendingVersionCount = 0;
+        }
+    }
+
+    /**
+     * Отбрасывает накопленные, но еще не отправленные записи о примененных версиях.
+     * Вызывается при откате транзакции, чтобы они не попали в следующий пакет.
+     *
+     * @throws SQLException, если не удалось очистить пакет подготовленного выражения
+     */
+    public void clearBatch() throws SQLException {
+        if (pendingVersionInserts == null) {
+            return;
+        }
+        try {
+            pendingVersionInserts.clearBatch();
+        } finally {
+            pendingVersionInserts = null;
+            pendingVersionCount = 0;
+        }
+    }
+
+    /**
+     * Возвращает подготовленное выражение для служебного запроса из кэша соединения.
+     * Такие выражения не закрываются после использования: ими владеет кэш.
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        if (statementCache == null) {
+            statementCache = StatementCache.forConnection(connection);
+        }
+        return statementCache.prepare(sql);
+    }
+
+    private void bindVersion(PreparedStatement preparedStatement, String version, String description, String rollbackFile,
+                             String checksum, byte[] rollbackJournal) throws SQLException {
+        preparedStatement.setString(1, version);
+        preparedStatement.setString(2, description);
+        preparedStatement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+        preparedStatement.setString(4, rollbackFile);
+        preparedStatement.setString(5, checksum);
+        preparedStatement.setBytes(6, rollbackJournal);
+        preparedStatement.setArray(7, versionKey(MigrationVersion.parse(version)));
     }
     /**
      * Откатывает миграцию из базы данных.
@@ -195,18 +668,160 @@ public class MigrationExecutor {
      * </p>
      *
      * @param version версия миграции для отката
-     * @param description краткое описание цели отката
-     * @param sql сценарий SQL, который необходимо выполнить для отката
+     * @param statements потоковый источник выражений сценария отката
      * @throws SQLException, если при применении отката возникла ошибка базы данных
+     * @throws IOException, если при чтении сценария возникла ошибка
+     */
+    public void rollbackMigration(String version, SqlStatementReader statements) throws SQLException, IOException {
+        logger.info("Rolling back version: " + version);
+        executeStatements(statements, null, null);
+        logger.info("Rollback SQL applied for version: " + version);
+    }
+
+    /**
+     * Получает журналы обратных выражений миграций новее целевой версии.
+     * <p>
+     * Журналы читаются только для версий новее целевой: отбор выполняется по индексу version_key.
+     * </p>
+     *
+     * @param targetVersion версия, к которой выполняется откат
+     * @return отображение версии на сериализованный {@link RollbackJournal} от новой версии к старой;
+     *         для миграций без полного журнала значение null
+     * @throws SQLException, если при чтении таблицы произошла ошибка базы данных
+     */
+    public NavigableMap<MigrationVersion, byte[]> getRollbackJournalsAfter(MigrationVersion targetVersion)
+            throws SQLException {
+        String sql = "SELECT version, rollback_journal FROM applied_migration WHERE version_key > ? "
+                + "ORDER BY version_key DESC";
+        PreparedStatement preparedStatement = prepare(sql);
+        preparedStatement.setArray(1, versionKey(targetVersion));
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            NavigableMap<MigrationVersion, byte[]> journals = new TreeMap<>(Comparator.reverseOrder());
+            while (resultSet.next()) {
+                journals.put(MigrationVersion.parse(resultSet.getString("version")),
+                        resultSet.getBytes("rollback_journal"));
+            }
+            return journals;
+        }
+    }
+
+    /**
+     * Выполняет обратные выражения из журналов одним JDBC-пакетом.
+     *
+     * @param statements выражения отката в порядке выполнения
+     * @throws SQLException, если выражение отката завершилось ошибкой
      */
-    public void rollbackMigration( String version, String description, String sql) throws SQLException {
-        logger.info("Rolling back version: " + sql);
-        logger.info("SQL to execute: " + sql);
+    public void replayRollbackJournal(List<String> statements) throws SQLException {
+        if (statements.isEmpty()) {
+            return;
+        }
         try (Statement statement = connection.createStatement()) {
-            statement.execute(description);
+            for (String sql : statements) {
+                logger.debug("Rollback SQL to execute: {}", sql);
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
         }
-        logger.info("Rollback SQL applied for version: " + sql);
+        logger.info("Replayed {} rollback statements from journals in one batch", statements.size());
     }
-}
 
+    /**
+     * Выполняет выражения сценария по одному. В пакетном режиме подряд идущие DML-выражения
+     * группируются в пакеты; любое другое выражение сначала отправляет накопленный пакет,
+     * чтобы сохранить порядок выполнения. Каждое выражение или пакет измеряется, если задан измеритель,
+     * и для каждого выражения записывается обратное, если задан журнал.
+     */
+    private void executeStatements(SqlStatementReader statements, MigrationTimer timer, RollbackJournal journal)
+            throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            int number = 0;
+            int batched = 0;
+            String sql;
+            while ((sql = statements.nextStatement()) != null) {
+                number++;
+                logger.debug("SQL to execute: {}", sql);
+                if (journal != null) {
+                    journal.record(sql, this::exists);
+                }
+                if (isBatchEnabled() && SqlStatementKind.isBatchable(sql)) {
+                    statement.addBatch(sql);
+                    if (++batched >= batchSize) {
+                        executeBatch(statement, number - batched + 1, batched, timer);
+                        batched = 0;
+                    }
+                    continue;
+                }
+                if (batched > 0) {
+                    executeBatch(statement, number - batched, batched, timer);
+                    batched = 0;
+                }
+                execute(statement, number, sql, timer);
+            }
+            if (batched > 0) {
+                executeBatch(statement, number - batched + 1, batched, timer);
+            }
+        }
+    }
+
+    /**
+     * Проверяет существование отношения или столбца для условных обратных выражений журнала.
+     */
+    private boolean exists(String relation, String column) throws SQLException {
+        PreparedStatement preparedStatement = prepare(column == null ? RELATION_EXISTS_SQL : COLUMN_EXISTS_SQL);
+        preparedStatement.setString(1, relation);
+        if (column != null) {
+            preparedStatement.setString(2, column);
+        }
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
 
+    private static void execute(Statement statement, int number, String sql, MigrationTimer timer)
+            throws SQLException {
+        StatementTimer statementTimer = timer != null ? timer.startStatement(number, sql) : null;
+        long rows = -1;
+        try {
+            if (!statement.execute(sql)) {
+                rows = statement.getUpdateCount();
+            }
+        } finally {
+            if (statementTimer != null) {
+                statementTimer.stop(rows);
+            }
+        }
+    }
+
+    private static void executeBatch(Statement statement, int firstNumber, int size, MigrationTimer timer)
+            throws SQLException {
+        StatementTimer statementTimer = timer != null
+                ? timer.startStatement(firstNumber, "batch of " + size + " statements")
+                : null;
+        long rows = -1;
+        try {
+            long total = 0;
+            for (int count : statement.executeBatch()) {
+                if (count > 0) {
+                    total += count;
+                }
+            }
+            rows = total;
+        } finally {
+            if (statementTimer != null) {
+                statementTimer.stop(rows);
+            }
+        }
+    }
+
+    private boolean isBatchEnabled() {
+        return batchSize > 1;
+    }
+
+    /**
+     * Источник контрольной суммы, который запрашивается после выполнения выражений миграции.
+     */
+    @FunctionalInterface
+    private interface ChecksumSource {
+        String get() throws IOException;
+    }
+}
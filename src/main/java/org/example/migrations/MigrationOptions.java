@@ -0,0 +1,138 @@
+package org.example.migrations;
+
+import org.example.migrations.parallel.ParallelMigrationScheduler;
+
+import java.util.Objects;
+
+/**
+ * Необязательные параметры {@link MigrationTool}: параллельное применение, исполнитель миграций вне
+ * транзакции, границы транзакций и повторы после временных ошибок.
+ * <p>
+ * Экземпляры неизменяемы и собираются через {@link #builder()}; незаданные параметры принимают значения
+ * {@link #DEFAULT}.
+ * </p>
+ */
+public final class MigrationOptions {
+    /** Последовательное применение в одной транзакции без повторов и без миграций вне транзакции. */
+    public static final MigrationOptions DEFAULT = builder().build();
+
+    private final ParallelMigrationScheduler scheduler;
+    private final OutOfTransactionExecutor outOfTransactionExecutor;
+    private final TransactionPolicy transactionPolicy;
+    private final RetryPolicy retryPolicy;
+
+    private MigrationOptions(Builder builder) {
+        this.scheduler = builder.scheduler;
+        this.outOfTransactionExecutor = builder.outOfTransactionExecutor;
+        this.transactionPolicy = builder.transactionPolicy;
+        this.retryPolicy = builder.retryPolicy;
+    }
+
+    /**
+     * Создает построитель параметров со значениями по умолчанию.
+     *
+     * @return построитель параметров
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Создает построитель, заполненный значениями этих параметров.
+     *
+     * @return построитель параметров
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .scheduler(scheduler)
+                .outOfTransactionExecutor(outOfTransactionExecutor)
+                .transactionPolicy(transactionPolicy)
+                .retryPolicy(retryPolicy);
+    }
+
+    /**
+     * @return планировщик параллельного применения миграций или null для последовательного режима
+     */
+    public ParallelMigrationScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return исполнитель миграций, помеченных как {@code -- transactional: false},
+     * или null, если такие миграции не поддерживаются
+     */
+    public OutOfTransactionExecutor getOutOfTransactionExecutor() {
+        return outOfTransactionExecutor;
+    }
+
+    /**
+     * @return режим фиксации транзакций последовательного применения
+     */
+    public TransactionPolicy getTransactionPolicy() {
+        return transactionPolicy;
+    }
+
+    /**
+     * @return повторы и ограничения времени выражений при последовательном применении
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Построитель {@link MigrationOptions}.
+     */
+    public static final class Builder {
+        private ParallelMigrationScheduler scheduler;
+        private OutOfTransactionExecutor outOfTransactionExecutor;
+        private TransactionPolicy transactionPolicy = TransactionPolicy.SINGLE;
+        private RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+        private Builder() {
+        }
+
+        /**
+         * @param scheduler планировщик параллельного применения миграций или null для последовательного режима
+         * @return этот построитель
+         */
+        public Builder scheduler(ParallelMigrationScheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * @param outOfTransactionExecutor исполнитель миграций вне транзакции или null, если такие миграции
+         *                                 не поддерживаются
+         * @return этот построитель
+         */
+        public Builder outOfTransactionExecutor(OutOfTransactionExecutor outOfTransactionExecutor) {
+            this.outOfTransactionExecutor = outOfTransactionExecutor;
+            return this;
+        }
+
+        /**
+         * @param transactionPolicy режим фиксации транзакций; параллельный режим всегда фиксирует миграции по одной
+         * @return этот построитель
+         */
+        public Builder transactionPolicy(TransactionPolicy transactionPolicy) {
+            this.transactionPolicy = Objects.requireNonNull(transactionPolicy, "transactionPolicy");
+            return this;
+        }
+
+        /**
+         * @param retryPolicy повторы и ограничения времени выражений при последовательном применении
+         * @return этот построитель
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy");
+            return this;
+        }
+
+        /**
+         * @return неизменяемые параметры
+         */
+        public MigrationOptions build() {
+            return new MigrationOptions(this);
+        }
+    }
+}
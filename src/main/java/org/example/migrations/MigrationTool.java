@@ -1,19 +1,37 @@
 package org.example.migrations;
 
+import org.example.migrations.fileReader.MigrationCatalog;
 import org.example.migrations.fileReader.MigrationFile;
 import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationVersion;
+import org.example.migrations.lock.MigrationLock;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.metrics.MigrationMetrics.Phase;
+import org.example.migrations.metrics.MigrationStats;
+import org.example.migrations.metrics.PhaseTimer;
+import org.example.migrations.parallel.ParallelMigrationScheduler;
+import org.example.migrations.plan.MigrationPlanner;
+import org.example.migrations.plan.StatementPlan;
 import org.example.migrations.report.MigrationReport;
-import org.example.migrations.report.MigrationReportGenerator;
+import org.example.migrations.report.MigrationReportSink;
+import org.example.migrations.report.MigrationReportWriter;
+import org.example.migrations.rollback.RollbackJournal;
+import org.example.migrations.sql.SqlStatementReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Scanner;
 
 /**
@@ -26,21 +44,44 @@ import java.util.Scanner;
  * </p>
  */
 public class MigrationTool {
+    public static final String CSV_REPORT_PATH = "src/main/resources/reports/migration_report.csv";
+    public static final String JSON_REPORT_PATH = "src/main/resources/reports/migration_report.json";
+
     private final MigrationExecutor migrationExecutor;
     private final Connection connection;
     private static final Logger logger = LoggerFactory.getLogger(MigrationTool.class);
-    private final MigrationFileReader migrationFileReader = new MigrationFileReader();
-    List<MigrationReport> reports = new ArrayList<>();
+    private final MigrationFileReader migrationFileReader;
+    private final MigrationLock migrationLock;
+    private final ParallelMigrationScheduler scheduler;
+    private final OutOfTransactionExecutor outOfTransactionExecutor;
+    private final MigrationMetrics metrics;
+    private final TransactionPolicy transactionPolicy;
+    private final RetryPolicy retryPolicy;
 
     /**
-     * Конструирует инструмент MigrationTool с указанным исполнителем MigrationExecutor и подключением к базе данных.
+     * Конструирует инструмент MigrationTool.
+     * <p>
+     * Миграции, помеченные как {@code -- transactional: false}, требуют отдельного соединения, поэтому
+     * без {@link MigrationOptions#getOutOfTransactionExecutor()} инструмент отказывается их применять.
+     * </p>
      *
-     * @param migrationExecutor исполнитель, отвечающий за применение миграций и управление версионированием схем
-     * @param connection        соединение с базой данных, используемое для выполнения SQL-команд
+     * @param migrationExecutor   исполнитель, отвечающий за применение миграций и управление версионированием схем
+     * @param connection          соединение с базой данных, используемое для выполнения SQL-команд
+     * @param migrationFileReader устройство чтения файлов миграции и отката
+     * @param migrationLock       блокировка, исключающая одновременную миграцию схемы несколькими процессами
+     * @param options             параллельное применение, миграции вне транзакции, границы транзакций и повторы
      */
-    public MigrationTool(MigrationExecutor migrationExecutor, Connection connection) {
+    public MigrationTool(MigrationExecutor migrationExecutor, Connection connection, MigrationFileReader migrationFileReader,
+                         MigrationLock migrationLock, MigrationOptions options) {
         this.migrationExecutor = migrationExecutor;
         this.connection = connection;
+        this.migrationFileReader = migrationFileReader;
+        this.migrationLock = migrationLock;
+        this.scheduler = options.getScheduler();
+        this.outOfTransactionExecutor = options.getOutOfTransactionExecutor();
+        this.metrics = migrationExecutor.getMetrics();
+        this.transactionPolicy = options.getTransactionPolicy();
+        this.retryPolicy = options.getRetryPolicy();
     }
 
     /**
@@ -56,66 +97,414 @@ public class MigrationTool {
      * @throws SQLException, если во время миграции или отката произошла ошибка базы данных
      */
     public void executeMigration() throws SQLException, IOException {
+        try (MigrationReportWriter reportWriter = openReportWriter()) {
+            applyPendingMigrations(migrationFileReader.getMigrationCatalog(), reportWriter);
+        }
+    }
 
-        migrationExecutor.initializeSchemaTable();
-        migrationExecutor.initializeMigrationLockTable();
-        String lockedBy = "user-" + System.getProperty("user.name") + "-"
-                          + System.currentTimeMillis();
+    /**
+     * Применяет ожидающие миграции из уже построенного каталога и передает отчеты указанному получателю.
+     * <p>
+     * Каталог может разделяться между несколькими экземплярами MigrationTool, например при применении
+     * одного набора миграций к нескольким схемам: файлы миграций читаются и хешируются один раз.
+     * Отчеты об успешных миграциях передаются после фиксации транзакции; при ошибке передается
+     * отчет о миграции, на которой она произошла.
+     * </p>
+     * <p>
+     * Границы транзакций задает {@link TransactionPolicy}. В режимах per-migration и grouped миграции,
+     * зафиксированные до ошибки, сохраняются, и повторный запуск продолжает с первой незафиксированной.
+     * Транзакционная миграция, прерванная временной ошибкой, повторяется по {@link RetryPolicy}
+     * после отката к точке сохранения перед ней.
+     * </p>
+     * <p>
+     * Миграция с директивой {@code -- transactional: false} выполняется вне транзакции через
+     * {@link OutOfTransactionExecutor}; перед ней фиксируются все предшествующие миграции.
+     * </p>
+     *
+     * <p>
+     * Если головная запись schema_state совпадает с локальным каталогом, схема уже актуальна и метод
+     * возвращается после одного запроса, не создавая служебные таблицы и не захватывая блокировку.
+     * Иначе после успешного применения головная запись обновляется в той же транзакции.
+     * </p>
+     * <p>
+     * Время захвата блокировки, чтения файлов и передачи отчетов, а также длительность каждой миграции
+     * записываются в метрики исполнителя; отчеты об успешных миграциях содержат их длительность.
+     * </p>
+     *
+     * @param catalog каталог миграций
+     * @param reportSink получатель отчетов
+     * @return число примененных миграций
+     * @throws SQLException, если во время миграции произошла ошибка базы данных
+     * @throws IOException, если файлы миграций не удалось прочитать
+     */
+    public int applyPendingMigrations(MigrationCatalog catalog, MigrationReportSink reportSink)
+            throws SQLException, IOException {
+        List<MigrationFile> pendingMigrations = List.of();
+        MigrationStats[] stats = new MigrationStats[0];
+        int reported = 0;
+        MigrationFile current = null;
+        // Точка сохранения перед миграцией с номером savepointIndex в режиме grouped
+        Savepoint savepoint = null;
+        int savepointIndex = 0;
+        MigrationReportSink timedSink = timed(reportSink);
 
-        if (migrationExecutor.isLocked()) {
-            logger.error("Migration is already locked by another process.");
-            throw new IllegalStateException("Migration is locked. Another process is currently performing a migration.");
+        if (isUpToDate(catalog)) {
+            logger.info("Database is up to date: schema_state matches the migration catalog");
+            return 0;
+        }
+        PhaseTimer timer = metrics.startPhase(Phase.LOCK_ACQUIRE);
+        try {
+            migrationLock.acquire();
+        } finally {
+            timer.close();
+        }
+        // Служебные таблицы создаются и дополняются под блокировкой, чтобы процессы не выполняли DDL одновременно;
+        // табличная блокировка сама создает migration_lock перед захватом
+        try {
+            migrationExecutor.initializeSchemaTable();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                migrationLock.release();
+            } catch (SQLException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
         }
-        migrationExecutor.lockMigration(lockedBy);
         logger.info("Migration starts");
+        if (scheduler != null) {
+            return applyInParallel(catalog, timedSink);
+        }
 
         try {
+            applyStatementTimeouts();
             connection.setAutoCommit(false);
 
-            String currentVersion = migrationExecutor.getCurrentVersion();
+            MigrationVersion currentVersion = migrationExecutor.readCurrentVersion();
             logger.info("Current database version: " + currentVersion);
 
-            List<MigrationFile> migrationFiles = migrationFileReader.getMigrationFiles();
-            for (MigrationFile migrationFile : migrationFiles) {
-                if (currentVersion == null || migrationFile.getVersion().compareTo(currentVersion) > 0) {
-                    migrationExecutor.applyMigration(
-                            migrationFile.getVersion(),
-                            migrationFile.getDescription(),
-                            migrationFile.getSql(),
-                            "V" + migrationFile.getVersion() + "__rollback.sql"
-                    );
-                    reports.add(new MigrationReport(
-                            migrationFile.getVersion(),
-                            migrationFile.getDescription(),
-                            true,
-                            LocalDateTime.now().toString(),
-                            null
-                    ));
+            // Ожидающие миграции определяются по именам файлов; заголовки читаются заранее, сценарии - при выполнении
+            pendingMigrations = catalog.getPending(currentVersion);
+            stats = new MigrationStats[pendingMigrations.size()];
+            preloadHeaders(pendingMigrations);
+            if (outOfTransactionExecutor == null) {
+                for (MigrationFile migrationFile : pendingMigrations) {
+                    if (!migrationFile.isTransactional()) {
+                        throw new IllegalStateException("Migration " + migrationFile
+                                + " must run outside of a transaction, but no connection source is configured for it");
+                    }
+                }
+            }
+            if (pendingMigrations.isEmpty()) {
+                logger.info("Database is up to date");
+            } else {
+                // Промежуточные фиксации не обновляют schema_state, поэтому запись удаляется до первой из них
+                migrationExecutor.clearSchemaState();
+            }
+
+            long groupStarted = System.nanoTime();
+            for (int i = 0; i < pendingMigrations.size(); i++) {
+                MigrationFile migrationFile = pendingMigrations.get(i);
+                current = migrationFile;
+                if (!migrationFile.isTransactional()) {
+                    // Предшествующие миграции фиксируются, чтобы сценарий вне транзакции видел их изменения
+                    migrationExecutor.flushBatch();
+                    connection.commit();
+                    savepoint = null;
+                    reported = report(pendingMigrations, stats, reported, i, timedSink);
+                    stats[i] = outOfTransactionExecutor.apply(migrationFile);
+                    reported = report(pendingMigrations, stats, reported, i + 1, timedSink);
+                    groupStarted = System.nanoTime();
+                    continue;
+                }
+                Savepoint migrationStart = null;
+                if (transactionPolicy.usesSavepoints() || retryPolicy.isEnabled()) {
+                    // Записи applied_migration предыдущих миграций должны оказаться до точки сохранения
+                    migrationExecutor.flushBatch();
+                    if (savepoint != null) {
+                        // Для фиксации при ошибке нужна только точка сохранения перед текущей миграцией
+                        connection.releaseSavepoint(savepoint);
+                        savepoint = null;
+                    }
+                    migrationStart = connection.setSavepoint();
+                    if (transactionPolicy.usesSavepoints()) {
+                        savepoint = migrationStart;
+                        savepointIndex = i;
+                    }
+                }
+                stats[i] = applyWithRetry(migrationFile, migrationStart);
+                if (migrationStart != null && migrationStart != savepoint) {
+                    connection.releaseSavepoint(migrationStart);
+                }
+                if (i + 1 < pendingMigrations.size() && transactionPolicy.shouldCommit(i + 1 - reported, groupStarted)) {
+                    migrationExecutor.flushBatch();
+                    connection.commit();
+                    savepoint = null;
+                    logger.info("Committed migrations up to version {}", migrationFile.getVersion());
+                    reported = report(pendingMigrations, stats, reported, i + 1, timedSink);
+                    groupStarted = System.nanoTime();
                 }
             }
+            current = null;
+            migrationExecutor.flushBatch();
+            migrationExecutor.updateSchemaState(pendingMigrations.isEmpty() ? currentVersion
+                    : pendingMigrations.get(pendingMigrations.size() - 1).getMigrationVersion(), catalog.getDigest());
             connection.commit();
             logger.info("All migrations applied successfully");
 
 
         } catch (SQLException | IOException e) {
-
-            connection.rollback();
+            try {
+                if (savepoint != null && commitBefore(savepoint, e)) {
+                    logger.info("Committed {} migrations preceding the failure", savepointIndex - reported);
+                    reported = report(pendingMigrations, stats, reported, savepointIndex, timedSink);
+                } else {
+                    connection.rollback();
+                }
+            } finally {
+                // Записи неудачных миграций, не отправленные на сервер, не должны попасть в следующий пакет
+                migrationExecutor.clearBatch();
+            }
             logger.info("Migration process failed: {}", e.getMessage(), e);
+            if (current != null) {
+                metrics.recordFailed();
+                timedSink.accept(MigrationReport.of(current, e.getMessage()));
+            }
             throw new SQLException("Migration process failed", e);
         } finally {
             connection.setAutoCommit(true);
-            migrationExecutor.unlockMigration();
+            resetStatementTimeouts();
+            migrationLock.release();
         }
-        MigrationReportGenerator reportGenerator = new MigrationReportGenerator();
-        reportGenerator.generateCsvReport(reports, "src/main/resources/reports/migration_report.csv");
-        reportGenerator.generateJsonReport(reports, "src/main/resources/reports/migration_report.json");
+        report(pendingMigrations, stats, reported, pendingMigrations.size(), timedSink);
+        return pendingMigrations.size();
+    }
+
+    /**
+     * Применяет миграцию, повторяя ее после временных ошибок по {@link RetryPolicy}.
+     *
+     * @param migrationFile файл миграции
+     * @param migrationStart точка сохранения перед миграцией или null, если повторы выключены
+     * @return измерения успешной попытки
+     */
+    private MigrationStats applyWithRetry(MigrationFile migrationFile, Savepoint migrationStart)
+            throws SQLException, IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return migrationExecutor.applyMigration(migrationFile);
+            } catch (SQLException e) {
+                if (migrationStart == null || attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(e)) {
+                    throw e;
+                }
+                try {
+                    // Точка сохранения остается действительной после отката к ней и служит следующим попыткам
+                    connection.rollback(migrationStart);
+                } finally {
+                    migrationExecutor.clearBatch();
+                }
+                long delay = retryPolicy.backoffMillis(attempt);
+                logger.warn("Migration {} failed with SQLState {}, retrying in {} ms (attempt {} of {}): {}",
+                        migrationFile.getVersion(), e.getSQLState(), delay, attempt + 1,
+                        retryPolicy.getMaxAttempts(), e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(interrupted);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Устанавливает lock_timeout и statement_timeout сеанса до начала транзакции миграции:
+     * значение, установленное внутри транзакции, было бы отменено ее откатом.
+     */
+    private void applyStatementTimeouts() throws SQLException {
+        if (retryPolicy.getLockTimeoutMillis() == 0 && retryPolicy.getStatementTimeoutMillis() == 0) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (retryPolicy.getLockTimeoutMillis() > 0) {
+                statement.execute("SET lock_timeout = " + retryPolicy.getLockTimeoutMillis());
+            }
+            if (retryPolicy.getStatementTimeoutMillis() > 0) {
+                statement.execute("SET statement_timeout = " + retryPolicy.getStatementTimeoutMillis());
+            }
+        }
+    }
+
+    /**
+     * Возвращает значения lock_timeout и statement_timeout сеанса по умолчанию. Ошибка только
+     * записывается в журнал, чтобы не скрыть исключение миграции.
+     */
+    private void resetStatementTimeouts() {
+        if (retryPolicy.getLockTimeoutMillis() == 0 && retryPolicy.getStatementTimeoutMillis() == 0) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("RESET lock_timeout");
+            statement.execute("RESET statement_timeout");
+        } catch (SQLException e) {
+            logger.warn("Failed to reset statement timeouts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Откатывает транзакцию до точки сохранения и фиксирует миграции, примененные до нее.
+     *
+     * @return true, если миграции до точки сохранения зафиксированы
+     */
+    private boolean commitBefore(Savepoint savepoint, Exception failure) {
+        try {
+            connection.rollback(savepoint);
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+            return false;
+        }
+    }
+
+    /**
+     * Проверяет по головной записи schema_state, что каталог уже полностью применен.
+     * Проверка выполняется только в режиме автофиксации, в котором ошибка чтения не прерывает транзакцию.
+     */
+    private boolean isUpToDate(MigrationCatalog catalog) throws SQLException {
+        if (catalog.isEmpty() || !connection.getAutoCommit()) {
+            return false;
+        }
+        SchemaState state = migrationExecutor.readSchemaState();
+        return state != null && state.matches(catalog);
+    }
+
+    /**
+     * Передает отчеты об успешно зафиксированных миграциях с номерами [from, to).
+     *
+     * @return номер первой миграции, отчет о которой еще не передан
+     */
+    private int report(List<MigrationFile> migrations, MigrationStats[] stats, int from, int to,
+                       MigrationReportSink reportSink) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (stats[i] != null) {
+                metrics.recordCommitted(stats[i]);
+            }
+            reportSink.accept(MigrationReport.of(migrations.get(i), null, stats[i]));
+        }
+        return to;
+    }
+
+    /**
+     * Возвращает получателя отчетов, измеряющего время их записи.
+     */
+    private MigrationReportSink timed(MigrationReportSink reportSink) {
+        return report -> {
+            PhaseTimer timer = metrics.startPhase(Phase.REPORT_WRITE);
+            try {
+                reportSink.accept(report);
+            } finally {
+                timer.close();
+            }
+        };
+    }
+
+    private void preload(List<MigrationFile> migrationFiles) throws IOException {
+        PhaseTimer timer = metrics.startPhase(Phase.FILE_LOAD);
+        try {
+            migrationFileReader.preload(migrationFiles);
+        } finally {
+            timer.close();
+        }
+    }
+
+    private void preloadHeaders(List<MigrationFile> migrationFiles) throws IOException {
+        PhaseTimer timer = metrics.startPhase(Phase.FILE_LOAD);
+        try {
+            migrationFileReader.preloadHeaders(migrationFiles);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Проверяет, что сценарии уже примененных миграций не были изменены после применения.
+     * <p>
+     * Контрольные суммы файлов на диске сравниваются с сохраненными в applied_migration. Файлы читаются
+     * параллельно, а для неизмененных файлов контрольная сумма берется из локального кэша без повторного чтения.
+     * Миграции, примененные до появления столбца checksum, считаются корректными.
+     * </p>
+     *
+     * @return по одному отчету на каждую примененную миграцию; неуспешные отчеты описывают расхождение
+     * @throws SQLException, если при чтении applied_migration произошла ошибка базы данных
+     * @throws IOException, если файлы миграций не удалось прочитать
+     */
+    public List<MigrationReport> validate() throws SQLException, IOException {
+        migrationExecutor.initializeSchemaTable();
+        Map<MigrationVersion, String> appliedChecksums = migrationExecutor.getAppliedChecksums();
+        MigrationCatalog catalog = migrationFileReader.getMigrationCatalog();
+
+        List<MigrationFile> appliedFiles = new ArrayList<>();
+        for (MigrationVersion version : appliedChecksums.keySet()) {
+            MigrationFile migrationFile = catalog.find(version);
+            if (migrationFile != null) {
+                appliedFiles.add(migrationFile);
+            }
+        }
+        preload(appliedFiles);
+
+        List<MigrationReport> results = new ArrayList<>();
+        for (Map.Entry<MigrationVersion, String> applied : appliedChecksums.entrySet()) {
+            MigrationFile migrationFile = catalog.find(applied.getKey());
+            String recorded = applied.getValue();
+            String error = null;
+            if (migrationFile == null) {
+                error = "Applied migration is missing on disk";
+            } else if (recorded != null && !recorded.equals(migrationFile.getChecksum())) {
+                error = "Checksum mismatch: recorded " + recorded + ", on disk " + migrationFile.getChecksum();
+            }
+            if (error != null) {
+                logger.error("Validation failed for version {}: {}", applied.getKey(), error);
+            }
+            results.add(new MigrationReport(
+                    applied.getKey().toString(),
+                    migrationFile != null ? migrationFile.getDescription() : null,
+                    error == null,
+                    LocalDateTime.now().toString(),
+                    error
+            ));
+        }
+        return results;
+    }
+
+    /**
+     * Оценивает ожидающие миграции, не применяя их.
+     * <p>
+     * Для DML-выражений выполняется EXPLAIN без ANALYZE, изменяющие схему выражения классифицируются
+     * по уровню блокировки. Все выполняется в транзакции, которая затем откатывается; блокировка
+     * миграций не захватывается. Таблицы отслеживания не создаются и не обновляются: если их нет,
+     * считается, что миграции не применялись.
+     * </p>
+     * <p>
+     * Изменяющие схему выражения не выполняются, поэтому DML над таблицами и столбцами, которые создают
+     * более ранние ожидающие миграции, остается неоцененным и помечается как {@code not explained}.
+     * </p>
+     *
+     * @return оценки выражений ожидающих миграций в порядке их выполнения
+     * @throws SQLException, если при обращении к базе данных произошла ошибка
+     * @throws IOException, если файлы миграций не удалось прочитать
+     */
+    public List<StatementPlan> plan() throws SQLException, IOException {
+        MigrationVersion currentVersion = migrationExecutor.peekCurrentVersion();
+        List<MigrationFile> pendingMigrations = migrationFileReader.getMigrationCatalog().getPending(currentVersion);
+        logger.info("Planning {} pending migrations after version {}", pendingMigrations.size(), currentVersion);
+        return new MigrationPlanner(connection).plan(pendingMigrations);
     }
 
     /**
      * Откатывает схему базы данных к определенной целевой версии.
      * <p>
-     * Этот метод считывает файлы отката, определяет сценарии, которые необходимо выполнить
-     * для отката к целевой версии, и применяет их в обратном порядке.
+     * Миграции новее целевой версии откатываются от новой к старой: по журналу обратных выражений,
+     * сохраненному при применении, а если журнал неполный - по сценарию отката.
      * Все примененные миграции с версиями выше, чем
      * целевой версии, удаляются из таблицы отслеживания.
      * </p>
@@ -123,52 +512,80 @@ public class MigrationTool {
      * @throws SQLException, если во время отката или очистки произошла ошибка базы данных
      */
     public void executeRollback() throws SQLException, IOException {
-
         Scanner scanner = new Scanner(System.in);
 
         System.out.println("Select the rollback version: ");
-        String targetVersion = scanner.nextLine();
+        executeRollback(scanner.nextLine().trim());
+    }
+
+    /**
+     * Откатывает схему базы данных к указанной версии без взаимодействия с пользователем.
+     * <p>
+     * Журналы обратных выражений ({@link RollbackJournal}) читаются из applied_migration одним запросом,
+     * и их выражения выполняются от новой миграции к старой одним JDBC-пакетом без чтения каталога
+     * rollbacks. Для миграций без полного журнала выполняется сценарий отката соответствующей версии;
+     * накопленный к этому моменту пакет отправляется перед ним, чтобы сохранить порядок. Если нет ни
+     * журнала, ни сценария, откат не выполняется. Все изменения выполняются в одной транзакции.
+     * </p>
+     *
+     * @param targetVersion версия, к которой выполняется откат
+     * @throws SQLException, если во время отката или очистки произошла ошибка базы данных
+     *                      или для миграции нет ни журнала, ни сценария отката
+     * @throws IOException, если файлы отката не удалось прочитать или отчет не удалось сохранить
+     * @throws IllegalArgumentException, если версия имеет неверный формат
+     */
+    public void executeRollback(String targetVersion) throws SQLException, IOException {
+        List<MigrationReport> reports = new ArrayList<>();
+        MigrationVersion target = MigrationVersion.parse(targetVersion);
         logger.info("Rollback starts for target version: " + targetVersion);
 
+        migrationExecutor.initializeSchemaTable();
         try {
             connection.setAutoCommit(false);
 
-            String currentVersion = migrationExecutor.getCurrentVersion();
-            if (currentVersion == null || targetVersion.compareTo(currentVersion) >= 0) {
-                logger.info("No rollback needed. Target version: " + targetVersion + ", Current version: " + currentVersion);
+            NavigableMap<MigrationVersion, byte[]> journals = migrationExecutor.getRollbackJournalsAfter(target);
+            if (journals.isEmpty()) {
+                logger.info("No rollback needed. Target version: " + targetVersion + ", Current version: "
+                        + migrationExecutor.findCurrentVersion());
                 return;
             }
-
+            MigrationVersion currentVersion = journals.firstKey();
             logger.info("Current database version: " + currentVersion);
 
-            // Получаем файлы отката для диапазона (targetVersion, currentVersion)
-            List<MigrationFile> rollbackFiles = migrationFileReader.getRollbackFiles(targetVersion, currentVersion);
-            for (MigrationFile rollbackFile : rollbackFiles) {
-                logger.info("Executing rollback for version: " + rollbackFile.getVersion());
-                logger.info("SQL to execute: " + rollbackFile.getSql());
-                migrationExecutor.rollbackMigration(
-                        rollbackFile.getDescription(),
-                        rollbackFile.getSql(),
-                        rollbackFile.getVersion()
-                );
-                reports.add(new MigrationReport(
-                        rollbackFile.getVersion(),
-                        rollbackFile.getDescription(),
-                        true,
-                        LocalDateTime.now().toString(),
-                        null
-
-                ));
-
-                System.out.println(rollbackFile.getDescription() + rollbackFile.getSql() + rollbackFile.getVersion());
+            Map<MigrationVersion, MigrationFile> rollbackFiles = null;
+            List<String> batch = new ArrayList<>();
+            for (Map.Entry<MigrationVersion, byte[]> entry : journals.entrySet()) {
+                MigrationVersion version = entry.getKey();
+                if (entry.getValue() != null) {
+                    batch.addAll(RollbackJournal.fromBytes(entry.getValue()).getRollbackStatements());
+                    reports.add(rollbackReport(version, "rollback_journal"));
+                    continue;
+                }
+                if (rollbackFiles == null) {
+                    // Каталог rollbacks читается, только если хотя бы одна миграция не имеет журнала
+                    rollbackFiles = new HashMap<>();
+                    for (MigrationFile file : migrationFileReader.getRollbackFiles(targetVersion, currentVersion.toString())) {
+                        rollbackFiles.put(file.getMigrationVersion(), file);
+                    }
+                }
+                MigrationFile rollbackFile = rollbackFiles.get(version);
+                if (rollbackFile == null) {
+                    throw new SQLException("Version " + version
+                            + " has no rollback journal and no rollback script, rollback is not possible");
+                }
+                migrationExecutor.replayRollbackJournal(batch);
+                batch.clear();
+                logger.info("Executing rollback script for version: " + version);
+                try (SqlStatementReader statements = rollbackFile.openStatements()) {
+                    migrationExecutor.rollbackMigration(rollbackFile.getVersion(), statements);
+                }
+                reports.add(rollbackReport(version, rollbackFile.getDescription()));
             }
+            migrationExecutor.replayRollbackJournal(batch);
 
             // Удалите записи applied_migration для версий выше целевой версии
-            String deleteVersionsSql = "DELETE FROM applied_migration WHERE version > ?";
-            try (PreparedStatement preparedStatement = connection.prepareStatement(deleteVersionsSql)) {
-                preparedStatement.setString(1, targetVersion);
-                preparedStatement.executeUpdate();
-            }
+            migrationExecutor.removeAppliedMigrationsAfter(target);
+            migrationExecutor.clearSchemaState();
 
             connection.commit();
             logger.info("Rollback completed successfully to version: " + targetVersion);
@@ -179,11 +596,61 @@ public class MigrationTool {
         } finally {
             connection.setAutoCommit(true);
         }
-        MigrationReportGenerator reportGenerator = new MigrationReportGenerator();
-        reportGenerator.generateCsvReport(reports, "src/main/resources/reports/migration_report.csv");
-        reportGenerator.generateJsonReport(reports, "src/main/resources/reports/migration_report.json");
+        try (MigrationReportWriter reportWriter = openReportWriter()) {
+            MigrationReportSink timedSink = timed(reportWriter);
+            for (MigrationReport report : reports) {
+                timedSink.accept(report);
+            }
+        }
         logger.debug("Migration process ends");
     }
+
+    private static MigrationReport rollbackReport(MigrationVersion version, String description) {
+        return new MigrationReport(version.toString(), description, true, LocalDateTime.now().toString(), null);
+    }
+
+    /**
+     * Применяет ожидающие миграции через планировщик: каждая миграция фиксируется отдельно
+     * на собственном соединении, а основное соединение только удерживает блокировку.
+     */
+    private int applyInParallel(MigrationCatalog catalog, MigrationReportSink reportSink)
+            throws SQLException, IOException {
+        try {
+            // Миграции фиксируются по одной и не по порядку версий: после сбоя одной из них более новые соседние
+            // могут быть уже применены, поэтому ожидающие определяются по applied_migration, а не по наибольшей версии
+            List<MigrationVersion> appliedVersions = migrationExecutor.getAppliedVersions();
+            MigrationVersion currentVersion = appliedVersions.isEmpty()
+                    ? null : appliedVersions.get(appliedVersions.size() - 1);
+            logger.info("Current database version: " + currentVersion);
+            List<MigrationFile> pendingMigrations = catalog.getUnapplied(appliedVersions);
+            if (pendingMigrations.isEmpty()) {
+                logger.info("Database is up to date");
+                migrationExecutor.updateSchemaState(currentVersion, catalog.getDigest());
+                return 0;
+            }
+            if (currentVersion != null && !pendingMigrations.get(0).getMigrationVersion().isNewerThan(currentVersion)) {
+                logger.warn("Applying {} migrations skipped below version {} by an interrupted parallel run",
+                        pendingMigrations.stream().filter(file -> !file.getMigrationVersion().isNewerThan(currentVersion))
+                                .count(), currentVersion);
+            }
+            // Граф зависимостей строится по заголовкам, поэтому они читаются заранее
+            preloadHeaders(pendingMigrations);
+            // До завершения запуска schema_state не должна указывать на старую версию
+            migrationExecutor.clearSchemaState();
+            int applied = scheduler.apply(pendingMigrations, catalog, reportSink);
+            MigrationVersion latest = pendingMigrations.get(pendingMigrations.size() - 1).getMigrationVersion();
+            migrationExecutor.updateSchemaState(latest.isNewerThan(currentVersion) ? latest : currentVersion,
+                    catalog.getDigest());
+            return applied;
+        } finally {
+            migrationLock.release();
+        }
+    }
+
+    private static MigrationReportWriter openReportWriter() throws IOException {
+        return MigrationReportWriter.open(Path.of(CSV_REPORT_PATH), Path.of(JSON_REPORT_PATH));
+    }
+
 }
 
 
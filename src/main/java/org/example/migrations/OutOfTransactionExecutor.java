@@ -0,0 +1,116 @@
+package org.example.migrations;
+
+import org.example.db.ConnectionSupplier;
+import org.example.migrations.chunked.ChunkedMigrationRunner;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationType;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.metrics.MigrationStats;
+import org.example.migrations.progress.MigrationProgressMonitor;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Выполняет миграции, помеченные в заголовке как {@code -- transactional: false}, и порционные
+ * обновления данных ({@code .chunked}).
+ * <p>
+ * Такая миграция выполняется в режиме автофиксации на собственном соединении, поэтому
+ * {@code CREATE INDEX CONCURRENTLY} и подобные выражения допустимы, а блокировки не удерживаются
+ * до конца всего выпуска. Пока сценарий выполняется, ход построения индексов и перестройки таблиц
+ * опрашивается через отдельное соединение ({@link MigrationProgressMonitor}). Запись в applied_migration
+ * добавляется после успешного выполнения всех выражений.
+ * </p>
+ * <p>
+ * Выражения, выполненные до ошибки, остаются примененными, поэтому такие сценарии следует писать
+ * повторно выполнимыми (например, {@code CREATE INDEX CONCURRENTLY IF NOT EXISTS}); прерванный
+ * {@code CREATE INDEX CONCURRENTLY} оставляет индекс в состоянии INVALID, который нужно удалить.
+ * </p>
+ * <p>
+ * Порционные обновления передаются {@link ChunkedMigrationRunner}, который сам фиксирует каждую порцию
+ * и ведет контрольную точку для продолжения после сбоя.
+ * </p>
+ */
+public class OutOfTransactionExecutor {
+    public static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 5000;
+    private static final Logger logger = LoggerFactory.getLogger(OutOfTransactionExecutor.class);
+
+    private final ConnectionSupplier connections;
+    private final MigrationFileReader migrationFileReader;
+    private final long progressIntervalMillis;
+    private final MigrationMetrics metrics;
+
+    /**
+     * Создает исполнитель миграций вне транзакции.
+     *
+     * @param connections источник соединений для выполнения и опроса прогресса
+     * @param migrationFileReader устройство чтения файлов миграций
+     * @param progressIntervalMillis интервал опроса прогресса
+     */
+    public OutOfTransactionExecutor(ConnectionSupplier connections, MigrationFileReader migrationFileReader,
+                                    long progressIntervalMillis) {
+        this(connections, migrationFileReader, progressIntervalMillis, MigrationMetrics.DISABLED);
+    }
+
+    /**
+     * Создает исполнитель миграций вне транзакции, записывающий измерения в указанные метрики.
+     *
+     * @param connections источник соединений для выполнения и опроса прогресса
+     * @param migrationFileReader устройство чтения файлов миграций
+     * @param progressIntervalMillis интервал опроса прогресса
+     * @param metrics метрики миграций
+     */
+    public OutOfTransactionExecutor(ConnectionSupplier connections, MigrationFileReader migrationFileReader,
+                                    long progressIntervalMillis, MigrationMetrics metrics) {
+        this.connections = Objects.requireNonNull(connections, "connections");
+        this.migrationFileReader = migrationFileReader;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Выполняет миграцию на отдельном соединении в режиме автофиксации (порционное обновление - порциями)
+     * и записывает ее в applied_migration.
+     * <p>
+     * Соединение берется из источника соединений и закрывается после выполнения; изменения вызывающего
+     * кода, которые сценарий должен видеть, необходимо зафиксировать заранее.
+     * </p>
+     *
+     * @param migrationFile миграция
+     * @return измерения миграции
+     * @throws SQLException, если при выполнении миграции произошла ошибка базы данных
+     * @throws IOException, если сценарий не удалось прочитать
+     */
+    public MigrationStats apply(MigrationFile migrationFile) throws SQLException, IOException {
+        logger.info("Applying {} outside of a transaction", migrationFile);
+        try (Connection worker = connections.get()) {
+            if (migrationFile.getType() == MigrationType.CHUNKED) {
+                return new ChunkedMigrationRunner(worker, migrationFileReader, progressIntervalMillis, metrics)
+                        .apply(migrationFile);
+            }
+            MigrationProgressMonitor monitor = startMonitor(worker, migrationFile);
+            try {
+                worker.setAutoCommit(true);
+                return new MigrationExecutor(worker, migrationFileReader, 0, metrics).applyMigration(migrationFile);
+            } finally {
+                if (monitor != null) {
+                    monitor.close();
+                }
+            }
+        }
+    }
+
+    private MigrationProgressMonitor startMonitor(Connection worker, MigrationFile migrationFile) throws SQLException {
+        if (!worker.isWrapperFor(PGConnection.class)) {
+            return null;
+        }
+        int backendPid = worker.unwrap(PGConnection.class).getBackendPID();
+        return MigrationProgressMonitor.start(connections, backendPid, migrationFile.toString(), progressIntervalMillis);
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.migrations;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Повторное применение миграции после временных ошибок базы данных.
+ * <p>
+ * Временными считаются ошибки с кодами SQLState из {@link #DEFAULT_SQL_STATES}: сбой сериализации
+ * (40001), взаимоблокировка (40P01) и превышение {@code lock_timeout} (55P03). Перед повтором
+ * транзакция откатывается к точке сохранения, созданной перед миграцией, поэтому миграции, уже
+ * примененные в той же транзакции, не выполняются повторно. Паузы между попытками растут
+ * экспоненциально от {@code backoffMillis} до {@code maxBackoffMillis}; случайная составляющая
+ * разводит во времени повторы нескольких процессов, столкнувшихся на одной блокировке.
+ * </p>
+ * <p>
+ * Ограничения {@code lock_timeout} и {@code statement_timeout} действуют на каждое выражение миграции:
+ * короткое ожидание блокировки с повтором меньше мешает рабочей нагрузке, чем одно долгое ожидание,
+ * за которым выстраивается очередь запросов.
+ * </p>
+ */
+public final class RetryPolicy {
+    /** Коды SQLState PostgreSQL, после которых миграция повторяется по умолчанию. */
+    public static final Set<String> DEFAULT_SQL_STATES = Set.of("40001", "40P01", "55P03");
+    /** Политика без повторов и без ограничений времени выражений. */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0, 0, DEFAULT_SQL_STATES);
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final long lockTimeoutMillis;
+    private final long statementTimeoutMillis;
+    private final Set<String> sqlStates;
+
+    /**
+     * Создает политику повторов.
+     *
+     * @param maxAttempts максимальное число попыток применения миграции, включая первую
+     * @param backoffMillis пауза перед первым повтором (мс)
+     * @param maxBackoffMillis максимальная пауза между попытками (мс)
+     * @param lockTimeoutMillis {@code lock_timeout} выражений миграции (мс); 0 - значение сервера
+     * @param statementTimeoutMillis {@code statement_timeout} выражений миграции (мс); 0 - значение сервера
+     * @param sqlStates коды SQLState временных ошибок
+     * @throws IllegalArgumentException, если число попыток меньше 1 или задана отрицательная длительность
+     */
+    public RetryPolicy(int maxAttempts, long backoffMillis, long maxBackoffMillis, long lockTimeoutMillis,
+                       long statementTimeoutMillis, Set<String> sqlStates) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry attempts must be positive: " + maxAttempts);
+        }
+        if (backoffMillis < 0 || maxBackoffMillis < 0 || lockTimeoutMillis < 0 || statementTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Retry durations must not be negative");
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = Math.max(backoffMillis, maxBackoffMillis);
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        this.statementTimeoutMillis = statementTimeoutMillis;
+        this.sqlStates = Set.copyOf(sqlStates);
+    }
+
+    /**
+     * Разбирает список кодов SQLState, например {@code 40001, 40P01, 55P03}.
+     *
+     * @param value значение параметра конфигурации или null
+     * @return коды SQLState; {@link #DEFAULT_SQL_STATES}, если значение не задано
+     */
+    public static Set<String> parseSqlStates(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_SQL_STATES;
+        }
+        return Arrays.stream(value.split(","))
+                .map(code -> code.trim().toUpperCase(Locale.ROOT))
+                .filter(code -> !code.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getLockTimeoutMillis() {
+        return lockTimeoutMillis;
+    }
+
+    public long getStatementTimeoutMillis() {
+        return statementTimeoutMillis;
+    }
+
+    /**
+     * Проверяет, допускает ли политика повторные попытки.
+     *
+     * @return true, если разрешено больше одной попытки
+     */
+    public boolean isEnabled() {
+        return maxAttempts > 1;
+    }
+
+    /**
+     * Проверяет, является ли ошибка временной. Просматриваются цепочка причин и цепочка
+     * {@link SQLException#getNextException()}, в которой драйвер сообщает ошибки пакетов.
+     *
+     * @param e ошибка базы данных
+     * @return true, если код SQLState ошибки или одной из ее причин входит в список временных
+     */
+    public boolean isRetryable(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                for (SQLException next = sqlException; next != null; next = next.getNextException()) {
+                    if (next.getSQLState() != null && sqlStates.contains(next.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Вычисляет паузу перед повтором: половина экспоненциально растущей паузы фиксирована,
+     * вторая половина выбирается случайно.
+     *
+     * @param attempt номер неудачной попытки, начиная с 1
+     * @return пауза в миллисекундах
+     */
+    public long backoffMillis(int attempt) {
+        long delay = maxBackoffMillis;
+        if (attempt - 1 < Long.SIZE - 1 && backoffMillis <= maxBackoffMillis >> (attempt - 1)) {
+            delay = backoffMillis << (attempt - 1);
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{attempts=" + maxAttempts + ", backoff=" + backoffMillis + ".." + maxBackoffMillis
+                + " ms, lock_timeout=" + lockTimeoutMillis + " ms, statement_timeout=" + statementTimeoutMillis
+                + " ms, sqlStates=" + sqlStates + "}";
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.migrations;
+
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationVersion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Головная запись таблицы {@code schema_state}: состояние схемы после последнего успешного запуска миграций.
+ * <p>
+ * Запись обновляется в той же транзакции, что и applied_migration, и хранит текущую версию, отпечаток
+ * каталога, с которым выполнялся запуск, и время запуска. Если отпечаток совпадает с отпечатком
+ * локального каталога, ожидающих миграций нет и остальные служебные запросы не нужны.
+ * </p>
+ */
+public final class SchemaState {
+    private final String version;
+    private final String catalogDigest;
+    private final LocalDateTime lastRunAt;
+
+    public SchemaState(String version, String catalogDigest, LocalDateTime lastRunAt) {
+        this.version = version;
+        this.catalogDigest = catalogDigest;
+        this.lastRunAt = lastRunAt;
+    }
+
+    /**
+     * Проверяет, что схема уже приведена к последней версии указанного каталога.
+     *
+     * @param catalog локальный каталог миграций
+     * @return true, если каталог не изменился с последнего запуска и его последняя версия применена
+     */
+    public boolean matches(MigrationCatalog catalog) {
+        MigrationFile latest = catalog.getLatest();
+        return latest != null && version != null && latest.getMigrationVersion().equals(MigrationVersion.parse(version))
+                && catalog.getDigest().equals(catalogDigest);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getCatalogDigest() {
+        return catalogDigest;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    @Override
+    public String toString() {
+        return "version " + version + ", catalog " + catalogDigest + ", last run " + lastRunAt;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.migrations;
+
+import java.util.Locale;
+
+/**
+ * Границы транзакций при последовательном применении миграций.
+ * <p>
+ * {@link Mode#SINGLE} - все ожидающие миграции применяются в одной транзакции: при ошибке схема
+ * остается в исходном состоянии. {@link Mode#PER_MIGRATION} - каждая миграция фиксируется отдельно,
+ * поэтому блокировки и WAL удерживаются только на время одной миграции. {@link Mode#GROUPED} -
+ * транзакция фиксируется каждые {@code groupSize} миграций или через {@code groupMillis} мс; перед
+ * каждой миграцией группы создается точка сохранения, и при ошибке фиксируются миграции группы,
+ * завершенные до нее.
+ * </p>
+ * <p>
+ * Во всех режимах, кроме {@link Mode#SINGLE}, повторный запуск после ошибки продолжает применение
+ * с первой незафиксированной миграции.
+ * </p>
+ */
+public final class TransactionPolicy {
+    /** Все ожидающие миграции в одной транзакции. */
+    public static final TransactionPolicy SINGLE = new TransactionPolicy(Mode.SINGLE, 0, 0);
+    /** Отдельная транзакция для каждой миграции. */
+    public static final TransactionPolicy PER_MIGRATION = new TransactionPolicy(Mode.PER_MIGRATION, 0, 0);
+
+    /**
+     * Режим фиксации транзакций.
+     */
+    public enum Mode {
+        PER_MIGRATION,
+        SINGLE,
+        GROUPED;
+
+        /**
+         * Разбирает значение параметра конфигурации, например {@code per-migration} или {@code grouped}.
+         *
+         * @param value значение параметра или null
+         * @return режим; {@link #SINGLE}, если значение не задано
+         */
+        public static Mode parse(String value) {
+            if (value == null || value.isBlank()) {
+                return SINGLE;
+            }
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final Mode mode;
+    private final int groupSize;
+    private final long groupMillis;
+
+    private TransactionPolicy(Mode mode, int groupSize, long groupMillis) {
+        this.mode = mode;
+        this.groupSize = groupSize;
+        this.groupMillis = groupMillis;
+    }
+
+    /**
+     * Создает политику с фиксацией групп миграций.
+     *
+     * @param groupSize число миграций в группе; 0 - без ограничения по числу
+     * @param groupMillis время (мс), после которого группа фиксируется; 0 - без ограничения по времени
+     * @return политика режима {@link Mode#GROUPED}
+     * @throws IllegalArgumentException, если ограничение отрицательно
+     */
+    public static TransactionPolicy grouped(int groupSize, long groupMillis) {
+        if (groupSize < 0 || groupMillis < 0) {
+            throw new IllegalArgumentException("Transaction group limits must not be negative: "
+                    + groupSize + ", " + groupMillis);
+        }
+        return new TransactionPolicy(Mode.GROUPED, groupSize, groupMillis);
+    }
+
+    /**
+     * Создает политику по параметрам конфигурации.
+     *
+     * @param mode значение параметра migration.transaction.mode или null
+     * @param groupSize число миграций в группе для режима {@code grouped}
+     * @param groupMillis время (мс) группы для режима {@code grouped}
+     * @return политика транзакций
+     */
+    public static TransactionPolicy of(String mode, int groupSize, long groupMillis) {
+        return switch (Mode.parse(mode)) {
+            case SINGLE -> SINGLE;
+            case PER_MIGRATION -> PER_MIGRATION;
+            case GROUPED -> grouped(groupSize, groupMillis);
+        };
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Проверяет, создаются ли точки сохранения перед миграциями.
+     *
+     * @return true для режима {@link Mode#GROUPED}
+     */
+    public boolean usesSavepoints() {
+        return mode == Mode.GROUPED;
+    }
+
+    /**
+     * Проверяет, нужно ли зафиксировать транзакцию после очередной миграции.
+     *
+     * @param uncommitted число примененных, но еще не зафиксированных миграций
+     * @param groupStartedNanos момент начала группы по {@link System#nanoTime()}
+     * @return true, если транзакцию нужно зафиксировать
+     */
+    public boolean shouldCommit(int uncommitted, long groupStartedNanos) {
+        return switch (mode) {
+            case SINGLE -> false;
+            case PER_MIGRATION -> true;
+            case GROUPED -> groupSize > 0 && uncommitted >= groupSize
+                    || groupMillis > 0 && System.nanoTime() - groupStartedNanos >= groupMillis * 1_000_000;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.GROUPED ? mode + "(" + groupSize + " migrations, " + groupMillis + " ms)" : mode.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.migrations.chunked;
+
+/**
+ * Подбирает размер следующей порции по измеренной длительности предыдущей.
+ * <p>
+ * Размер масштабируется пропорционально отношению желаемой длительности к фактической, но не более
+ * чем вдвое за шаг, чтобы единичный всплеск нагрузки не обрушивал размер порции, и остается в пределах
+ * [chunk.min, chunk.max].
+ * </p>
+ */
+public class AdaptiveChunkSizer {
+    private static final double MAX_STEP = 2.0;
+
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long targetLatencyMillis;
+    private int chunkSize;
+
+    /**
+     * Создает подборщик размера порции с параметрами из описания миграции.
+     *
+     * @param spec описание порционного обновления
+     */
+    public AdaptiveChunkSizer(ChunkedMigrationSpec spec) {
+        this.minChunkSize = spec.getMinChunkSize();
+        this.maxChunkSize = spec.getMaxChunkSize();
+        this.targetLatencyMillis = spec.getTargetLatencyMillis();
+        this.chunkSize = spec.getChunkSize();
+    }
+
+    /**
+     * Возвращает размер следующей порции.
+     *
+     * @return размер порции в строках
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Учитывает длительность выполненной порции и пересчитывает размер следующей.
+     *
+     * @param latencyMillis длительность порции, включая фиксацию
+     * @return новый размер порции
+     */
+    public int record(long latencyMillis) {
+        double factor = latencyMillis <= 0 ? MAX_STEP : (double) targetLatencyMillis / latencyMillis;
+        factor = Math.max(1 / MAX_STEP, Math.min(MAX_STEP, factor));
+        long next = Math.round(chunkSize * factor);
+        chunkSize = (int) Math.max(minChunkSize, Math.min(maxChunkSize, next));
+        return chunkSize;
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.migrations.chunked;
+
+import org.example.db.StatementCache;
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.metrics.MigrationStats;
+import org.example.migrations.metrics.MigrationTimer;
+import org.example.migrations.metrics.StatementTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Выполняет порционное обновление большой таблицы, описанное файлом {@code .chunked}.
+ * <p>
+ * Таблица обходится по диапазонам ключа, каждая порция фиксируется отдельной транзакцией, поэтому
+ * блокировки строк удерживаются недолго, а репликация и VACUUM успевают за миграцией. Вместе с порцией
+ * в той же транзакции обновляется контрольная точка в таблице {@code migration_checkpoint}, которая
+ * находится рядом с applied_migration: прерванная миграция при следующем запуске продолжается с
+ * последней зафиксированной порции, а не с начала таблицы. В контрольной точке сохраняется контрольная
+ * сумма файла миграции: если файл изменился после прерванного запуска, продолжение отклоняется, так как
+ * уже обновленные строки обработаны прежним выражением.
+ * </p>
+ * <p>
+ * Размер порции подстраивается под измеренную длительность ({@link AdaptiveChunkSizer}); при заданном
+ * {@code pause.ratio} после каждой порции выдерживается пауза, пропорциональная ее длительности.
+ * После обработки последней порции миграция записывается в applied_migration, а контрольная точка
+ * удаляется в одной транзакции.
+ * </p>
+ */
+public class ChunkedMigrationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedMigrationRunner.class);
+    private static final String LOAD_CHECKPOINT_SQL =
+            "SELECT last_key, rows_done, chunk_size, spec_checksum FROM migration_checkpoint WHERE version = ?";
+    private static final String SAVE_CHECKPOINT_SQL = """
+            INSERT INTO migration_checkpoint (version, last_key, rows_done, chunk_size, spec_checksum, updated_at)
+            VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT (version) DO UPDATE
+            SET last_key = EXCLUDED.last_key, rows_done = EXCLUDED.rows_done, chunk_size = EXCLUDED.chunk_size,
+                spec_checksum = EXCLUDED.spec_checksum, updated_at = EXCLUDED.updated_at
+            """;
+    private static final String DELETE_CHECKPOINT_SQL = "DELETE FROM migration_checkpoint WHERE version = ?";
+
+    private final Connection connection;
+    private final MigrationFileReader migrationFileReader;
+    private final long progressIntervalMillis;
+    private final MigrationMetrics metrics;
+
+    /**
+     * Создает исполнитель порционных обновлений.
+     *
+     * @param connection соединение, которое не используется другими миграциями; каждая порция фиксируется на нем
+     * @param migrationFileReader устройство чтения файлов миграций
+     * @param progressIntervalMillis интервал, с которым ход обновления выводится в журнал
+     * @param metrics метрики, в которые записываются измерения миграции; каждая порция измеряется как выражение
+     */
+    public ChunkedMigrationRunner(Connection connection, MigrationFileReader migrationFileReader,
+                                  long progressIntervalMillis, MigrationMetrics metrics) {
+        this.connection = connection;
+        this.migrationFileReader = migrationFileReader;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Создает таблицу migration_checkpoint, если она еще не существует.
+     *
+     * @param connection соединение с базой данных
+     * @throws SQLException, если при создании таблицы возникла ошибка базы данных
+     */
+    public static void initializeCheckpointTable(Connection connection) throws SQLException {
+        String sql = """
+                CREATE TABLE IF NOT EXISTS migration_checkpoint (
+                    version VARCHAR(50) PRIMARY KEY,
+                    last_key BIGINT NOT NULL,
+                    rows_done BIGINT NOT NULL,
+                    chunk_size INT NOT NULL,
+                    spec_checksum VARCHAR(64),
+                    updated_at TIMESTAMP NOT NULL
+                );
+                """;
+        String addChecksumSql = "ALTER TABLE migration_checkpoint ADD COLUMN IF NOT EXISTS spec_checksum VARCHAR(64)";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            statement.execute(addChecksumSql);
+        }
+    }
+
+    /**
+     * Выполняет порционное обновление, продолжая его с контрольной точки, если она есть,
+     * и записывает миграцию в applied_migration.
+     *
+     * @param migrationFile файл {@code .chunked}
+     * @return измерения этого запуска миграции
+     * @throws SQLException, если порцию не удалось выполнить; зафиксированные порции и контрольная точка сохраняются
+     * @throws IOException, если файл миграции не удалось прочитать
+     * @throws IllegalStateException, если контрольная точка сохранена для другого содержимого файла миграции
+     */
+    public MigrationStats apply(MigrationFile migrationFile) throws SQLException, IOException {
+        ChunkedMigrationSpec spec;
+        try (InputStream input = migrationFile.openContent()) {
+            spec = ChunkedMigrationSpec.read(input);
+        }
+        String version = migrationFile.getVersion();
+        String checksum = migrationFile.getChecksum();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+        initializeCheckpointTable(connection);
+        MigrationTimer timer = metrics.startMigration(version, migrationFile.getDescription(), connection);
+        boolean success = false;
+        MigrationStats stats;
+        connection.setAutoCommit(false);
+        // Выражения порций нужны только этому запуску, поэтому кэш не разделяется с соединением
+        StatementCache statementCache = new StatementCache(connection);
+        try {
+            AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(spec);
+            long lastKey = Long.MIN_VALUE;
+            long rowsDone = 0;
+            PreparedStatement load = statementCache.prepare(LOAD_CHECKPOINT_SQL);
+            load.setString(1, version);
+            try (ResultSet rs = load.executeQuery()) {
+                if (rs.next()) {
+                    String savedChecksum = rs.getString(4);
+                    // Контрольные точки, сохраненные до появления столбца, не содержат суммы
+                    if (savedChecksum != null && !savedChecksum.equals(checksum)) {
+                        throw new IllegalStateException("Migration " + migrationFile
+                                + " changed after it was interrupted (checkpoint checksum " + savedChecksum
+                                + ", file checksum " + checksum + "); restore the file or delete its row from"
+                                + " migration_checkpoint to start over");
+                    }
+                    lastKey = rs.getLong(1);
+                    rowsDone = rs.getLong(2);
+                    sizer = new AdaptiveChunkSizer(resumed(spec, rs.getInt(3)));
+                    logger.info("Resuming {} after key {} ({} rows already updated)", migrationFile, lastKey, rowsDone);
+                }
+            }
+            connection.commit();
+
+            String boundSql = "SELECT MAX(k) FROM (SELECT " + spec.getKeyColumn() + " AS k FROM " + spec.getTable()
+                    + " WHERE " + spec.getKeyColumn() + " > ? ORDER BY " + spec.getKeyColumn() + " LIMIT ?) AS chunk";
+            long chunks = 0;
+            long lastLogged = System.nanoTime();
+            while (true) {
+                long started = System.nanoTime();
+                int chunkSize = sizer.getChunkSize();
+                PreparedStatement bound = statementCache.prepare(boundSql);
+                bound.setLong(1, lastKey);
+                bound.setInt(2, chunkSize);
+                long upperKey;
+                try (ResultSet rs = bound.executeQuery()) {
+                    rs.next();
+                    upperKey = rs.getLong(1);
+                    if (rs.wasNull()) {
+                        break;
+                    }
+                }
+                StatementTimer statementTimer = timer.startStatement((int) chunks + 1,
+                        "chunk (" + lastKey + ", " + upperKey + "]");
+                long rows = -1;
+                try {
+                    PreparedStatement update = statementCache.prepare(spec.getUpdateSql());
+                    update.setLong(1, lastKey);
+                    update.setLong(2, upperKey);
+                    rows = update.executeUpdate();
+                    rowsDone += rows;
+                    PreparedStatement save = statementCache.prepare(SAVE_CHECKPOINT_SQL);
+                    save.setString(1, version);
+                    save.setLong(2, upperKey);
+                    save.setLong(3, rowsDone);
+                    save.setInt(4, chunkSize);
+                    save.setString(5, checksum);
+                    save.executeUpdate();
+                    connection.commit();
+                } finally {
+                    statementTimer.stop(rows);
+                }
+
+                long latencyMillis = (System.nanoTime() - started) / 1_000_000;
+                lastKey = upperKey;
+                chunks++;
+                int nextChunkSize = sizer.record(latencyMillis);
+                logger.debug("{}: chunk up to key {} took {} ms, next chunk size {}", migrationFile, upperKey,
+                        latencyMillis, nextChunkSize);
+                if (System.nanoTime() - lastLogged >= progressIntervalMillis * 1_000_000) {
+                    logger.info("{}: {} rows updated up to key {}, chunk size {}", migrationFile, rowsDone, lastKey,
+                            nextChunkSize);
+                    lastLogged = System.nanoTime();
+                }
+                pause((long) (latencyMillis * spec.getPauseRatio()));
+            }
+
+            MigrationExecutor migrationExecutor = new MigrationExecutor(connection, migrationFileReader);
+            migrationExecutor.recordMigration(version, migrationFile.getDescription(), checksum,
+                    migrationFile.getRollbackFileName());
+            PreparedStatement delete = statementCache.prepare(DELETE_CHECKPOINT_SQL);
+            delete.setString(1, version);
+            delete.executeUpdate();
+            connection.commit();
+            logger.info("{}: {} rows updated in {} chunks", migrationFile, rowsDone, chunks);
+            success = true;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            statementCache.close();
+            connection.setAutoCommit(autoCommit);
+            stats = timer.stop(success);
+        }
+        return stats;
+    }
+
+    /**
+     * Продолжает подбор размера порции с размера, сохраненного в контрольной точке.
+     */
+    private static ChunkedMigrationSpec resumed(ChunkedMigrationSpec spec, int chunkSize) {
+        int size = Math.max(spec.getMinChunkSize(), Math.min(spec.getMaxChunkSize(), chunkSize));
+        return new ChunkedMigrationSpec(spec.getTable(), spec.getKeyColumn(), spec.getUpdateSql(), size,
+                spec.getMinChunkSize(), spec.getMaxChunkSize(), spec.getTargetLatencyMillis(), spec.getPauseRatio());
+    }
+
+    private static void pause(long millis) throws SQLException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while throttling a chunked migration", e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.migrations.chunked;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Описание порционного обновления из файла {@code V<version>__<description>.chunked}.
+ * <p>
+ * Файл имеет формат properties:
+ * <pre>
+ * table=orders
+ * key=id
+ * update=UPDATE orders SET total_cents = total * 100 WHERE id &gt; ? AND id &lt;= ?
+ * chunk.size=1000
+ * chunk.min=100
+ * chunk.max=50000
+ * target.latency=250
+ * pause.ratio=0.5
+ * </pre>
+ * Таблица обходится по возрастанию целочисленного ключа {@code key}. Выражение {@code update}
+ * выполняется для каждой порции с двумя параметрами: ключом, на котором закончилась предыдущая
+ * порция (не включительно), и последним ключом текущей порции (включительно).
+ * </p>
+ */
+public final class ChunkedMigrationSpec {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_MIN_CHUNK_SIZE = 100;
+    public static final int DEFAULT_MAX_CHUNK_SIZE = 50_000;
+    public static final long DEFAULT_TARGET_LATENCY_MILLIS = 250;
+
+    private final String table;
+    private final String keyColumn;
+    private final String updateSql;
+    private final int chunkSize;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long targetLatencyMillis;
+    private final double pauseRatio;
+
+    /**
+     * Создает описание порционного обновления.
+     *
+     * @param table таблица, которая обходится по ключу
+     * @param keyColumn целочисленный столбец, по которому таблица делится на порции
+     * @param updateSql выражение, выполняемое для диапазона ключей {@code (?, ?]}
+     * @param chunkSize начальный размер порции в строках
+     * @param minChunkSize минимальный размер порции
+     * @param maxChunkSize максимальный размер порции
+     * @param targetLatencyMillis желаемая длительность одной порции
+     * @param pauseRatio пауза после порции в долях ее длительности; 0 - без пауз
+     */
+    public ChunkedMigrationSpec(String table, String keyColumn, String updateSql, int chunkSize, int minChunkSize,
+                                int maxChunkSize, long targetLatencyMillis, double pauseRatio) {
+        if (minChunkSize < 1 || maxChunkSize < minChunkSize || chunkSize < minChunkSize || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("Chunk sizes must satisfy 1 <= chunk.min <= chunk.size <= chunk.max: "
+                    + minChunkSize + ", " + chunkSize + ", " + maxChunkSize);
+        }
+        if (targetLatencyMillis < 1) {
+            throw new IllegalArgumentException("Target chunk latency must be positive: " + targetLatencyMillis);
+        }
+        if (pauseRatio < 0) {
+            throw new IllegalArgumentException("Pause ratio must not be negative: " + pauseRatio);
+        }
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.updateSql = updateSql;
+        this.chunkSize = chunkSize;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.pauseRatio = pauseRatio;
+    }
+
+    /**
+     * Читает описание из содержимого файла {@code .chunked}.
+     *
+     * @param input содержимое файла в кодировке UTF-8
+     * @return описание порционного обновления
+     * @throws IOException, если файл не удалось прочитать
+     * @throws IllegalArgumentException, если обязательный параметр не задан или значение некорректно
+     */
+    public static ChunkedMigrationSpec read(InputStream input) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return new ChunkedMigrationSpec(
+                required(properties, "table"),
+                required(properties, "key"),
+                required(properties, "update"),
+                Integer.parseInt(properties.getProperty("chunk.size", String.valueOf(DEFAULT_CHUNK_SIZE)).trim()),
+                Integer.parseInt(properties.getProperty("chunk.min", String.valueOf(DEFAULT_MIN_CHUNK_SIZE)).trim()),
+                Integer.parseInt(properties.getProperty("chunk.max", String.valueOf(DEFAULT_MAX_CHUNK_SIZE)).trim()),
+                Long.parseLong(properties.getProperty("target.latency",
+                        String.valueOf(DEFAULT_TARGET_LATENCY_MILLIS)).trim()),
+                Double.parseDouble(properties.getProperty("pause.ratio", "0").trim())
+        );
+    }
+
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Chunked migration is missing required property: " + key);
+        }
+        return value.trim();
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    public String getUpdateSql() {
+        return updateSql;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    public long getTargetLatencyMillis() {
+        return targetLatencyMillis;
+    }
+
+    public double getPauseRatio() {
+        return pauseRatio;
+    }
+}
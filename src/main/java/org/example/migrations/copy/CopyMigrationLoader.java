@@ -0,0 +1,177 @@
+package org.example.migrations.copy;
+
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationType;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Загружает миграции с данными ({@code .csv} и {@code .tsv}) через протокол COPY PostgreSQL.
+ * <p>
+ * Целевая таблица задается описанием в имени файла: {@code V5__countries.csv} загружается в таблицу
+ * {@code countries}, {@code V6__ref.currencies.tsv} - в {@code ref.currencies}. Первая строка файла
+ * содержит имена столбцов; остальное содержимое передается серверу потоково через {@link CopyManager}
+ * без загрузки файла в память. Контрольная сумма файла вычисляется по байтам, переданным серверу, поэтому
+ * файл читается один раз. CSV разбирается в формате {@code FORMAT csv}, TSV - в текстовом формате
+ * COPY (табуляция между полями, {@code \N} для NULL).
+ * </p>
+ * <p>
+ * Загрузка выполняется на соединении вызывающего кода и фиксируется вместе с остальными миграциями
+ * транзакции, поэтому при ошибке строки файла не остаются в таблице частично.
+ * </p>
+ */
+public class CopyMigrationLoader {
+    private static final Logger logger = LoggerFactory.getLogger(CopyMigrationLoader.class);
+    private static final Pattern PLAIN_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Connection connection;
+
+    /**
+     * Создает загрузчик данных.
+     *
+     * @param connection соединение с PostgreSQL, в транзакции которого выполняется загрузка
+     */
+    public CopyMigrationLoader(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Загружает файл с данными в таблицу, указанную в его описании.
+     *
+     * @param migrationFile файл {@code .csv} или {@code .tsv}
+     * @return число загруженных строк
+     * @throws SQLException, если соединение не является соединением PostgreSQL или сервер отклонил данные
+     * @throws IOException, если файл не удалось прочитать или в нем нет строки с именами столбцов
+     */
+    public long load(MigrationFile migrationFile) throws SQLException, IOException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            throw new SQLException("Data migration " + migrationFile + " requires a PostgreSQL connection for COPY");
+        }
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        boolean csv = migrationFile.getType() == MigrationType.CSV;
+        long started = System.nanoTime();
+        try (InputStream input = new BufferedInputStream(migrationFile.openChecksummedContent(), BUFFER_SIZE)) {
+            String header = readHeaderLine(input);
+            if (header == null || header.isBlank()) {
+                throw new IOException("Data migration " + migrationFile + " has no header line with column names");
+            }
+            String sql = copySql(migrationFile.getDescription(), parseHeader(header, csv), csv);
+            logger.debug("COPY statement for {}: {}", migrationFile, sql);
+            long rows = copyManager.copyIn(sql, input, BUFFER_SIZE);
+            logger.info("Loaded {} rows from {} in {} ms", rows, migrationFile, (System.nanoTime() - started) / 1_000_000);
+            return rows;
+        }
+    }
+
+    /**
+     * Строит выражение COPY для загрузки данных из потока клиента.
+     *
+     * @param table имя таблицы, возможно с указанием схемы через точку
+     * @param columns имена столбцов из строки заголовка
+     * @param csv true для формата CSV, false для текстового формата с табуляциями
+     * @return выражение {@code COPY ... FROM STDIN}
+     */
+    public static String copySql(String table, List<String> columns, boolean csv) {
+        StringBuilder sql = new StringBuilder("COPY ");
+        String[] parts = table.split("\\.");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                sql.append('.');
+            }
+            sql.append(identifier(parts[i]));
+        }
+        sql.append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(identifier(columns.get(i)));
+        }
+        sql.append(") FROM STDIN WITH (FORMAT ").append(csv ? "csv" : "text").append(')');
+        return sql.toString();
+    }
+
+    /**
+     * Разбирает строку заголовка с именами столбцов. В CSV имена могут быть заключены в двойные кавычки.
+     *
+     * @param header первая строка файла без символа конца строки
+     * @param csv true для CSV, false для TSV
+     * @return имена столбцов
+     */
+    public static List<String> parseHeader(String header, boolean csv) {
+        List<String> columns = new ArrayList<>();
+        if (!csv) {
+            for (String column : header.split("\t", -1)) {
+                columns.add(column.trim());
+            }
+            return columns;
+        }
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < header.length() && header.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                columns.add(column.toString().trim());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString().trim());
+        return columns;
+    }
+
+    /**
+     * Читает первую строку потока, оставляя поток позиционированным на начале данных.
+     */
+    private static String readHeaderLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        String header = line.toString(StandardCharsets.UTF_8);
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        if (header.endsWith("\r")) {
+            header = header.substring(0, header.length() - 1);
+        }
+        return header;
+    }
+
+    /**
+     * Имена, допустимые без кавычек, передаются как есть (и приводятся сервером к нижнему регистру,
+     * как в сценариях SQL); остальные заключаются в кавычки.
+     */
+    private static String identifier(String name) {
+        if (PLAIN_IDENTIFIER.matcher(name).matches()) {
+            return name;
+        }
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,279 @@
+package org.example.migrations.fileReader;
+
+import org.example.migrations.sql.SqlStatementReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Источник миграций из двоичного пакета, построенного при сборке {@link MigrationBundleWriter}.
+ * <p>
+ * Файл пакета отображается в память целиком. При построении каталога читается только индекс в начале
+ * файла: версии, описания, типы, размеры и контрольные суммы берутся из него, имена файлов не
+ * разбираются, а сценарии не читаются и не хешируются. Блок сценария читается из отображенного
+ * буфера только при выполнении миграции, поэтому уже примененные миграции не затрагиваются вовсе.
+ * Выражения SQL-сценариев разделены при сборке и возвращаются {@link #openStatements} без повторного
+ * разбора; заголовок сценария читается из первого выражения, которое хранит его вместе с комментариями.
+ * </p>
+ * <p>
+ * Отображение требует обычного файла, поэтому пакет поставляется рядом с jar-файлом, а не внутри него.
+ * </p>
+ */
+public class BundleMigrationSource implements MigrationSource {
+    private final Path bundle;
+    private volatile List<Entry> entries;
+    private ByteBuffer buffer;
+
+    /**
+     * Создает источник для файла пакета. Файл открывается при первом обращении к каталогу.
+     *
+     * @param bundle путь к файлу пакета
+     */
+    public BundleMigrationSource(Path bundle) {
+        this.bundle = bundle;
+    }
+
+    @Override
+    public List<MigrationFile> getMigrations() throws IOException {
+        return list(MigrationBundleWriter.MIGRATION);
+    }
+
+    @Override
+    public List<MigrationFile> getRollbacks() throws IOException {
+        return list(MigrationBundleWriter.ROLLBACK);
+    }
+
+    private List<MigrationFile> list(byte kind) throws IOException {
+        List<MigrationFile> files = new ArrayList<>();
+        for (Entry entry : getEntries()) {
+            if (entry.kind == kind) {
+                files.add(new MigrationFile(entry.version, entry.description, null, entry.type,
+                        entry.size, entry.checksum, entry));
+            }
+        }
+        return files;
+    }
+
+    private synchronized List<Entry> getEntries() throws IOException {
+        List<Entry> result = entries;
+        if (result == null) {
+            try (FileChannel channel = FileChannel.open(bundle, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Migration bundle is too large to map: " + bundle);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            try {
+                result = readIndex(buffer.duplicate());
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Malformed migration bundle: " + bundle, e);
+            }
+            entries = result;
+        }
+        return result;
+    }
+
+    private List<Entry> readIndex(ByteBuffer input) throws IOException {
+        if (input.getInt() != MigrationBundleWriter.MAGIC) {
+            throw new IOException("Not a migration bundle: " + bundle);
+        }
+        int format = input.getInt();
+        if (format != MigrationBundleWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported migration bundle format " + format + ": " + bundle);
+        }
+        int count = input.getInt();
+        long dataStart = input.getLong();
+        List<Entry> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte kind = input.get();
+            byte compression = input.get();
+            String version = readString(input);
+            String description = readString(input);
+            MigrationType type = MigrationType.valueOf(readString(input));
+            String checksum = readString(input);
+            long size = input.getLong();
+            int statements = input.getInt();
+            long offset = dataStart + input.getLong();
+            int length = input.getInt();
+            if (offset + length > input.limit()) {
+                throw new IOException("Migration bundle entry V" + version + " is out of bounds: " + bundle);
+            }
+            result.add(new Entry(kind, compression, version, description, type, checksum, size, statements,
+                    (int) offset, length));
+        }
+        return result;
+    }
+
+    private static String readString(ByteBuffer input) {
+        int length = input.getInt();
+        String value = StandardCharsets.UTF_8.decode(input.slice(input.position(), length)).toString();
+        input.position(input.position() + length);
+        return value;
+    }
+
+    /**
+     * Запись индекса пакета; служит также источником содержимого сценария.
+     */
+    private final class Entry implements MigrationContent {
+        private final byte kind;
+        private final byte compression;
+        private final String version;
+        private final String description;
+        private final MigrationType type;
+        private final String checksum;
+        private final long size;
+        private final int statements;
+        private final int offset;
+        private final int length;
+
+        Entry(byte kind, byte compression, String version, String description, MigrationType type,
+              String checksum, long size, int statements, int offset, int length) {
+            this.kind = kind;
+            this.compression = compression;
+            this.version = version;
+            this.description = description;
+            this.type = type;
+            this.checksum = checksum;
+            this.size = size;
+            this.statements = statements;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Открывает блок записи в отображенном буфере, при необходимости распаковывая его потоково.
+         */
+        private InputStream openBlock() {
+            InputStream input = new ByteBufferInputStream(buffer.slice(offset, length));
+            return compression == MigrationBundleWriter.DEFLATED ? new InflaterInputStream(input) : input;
+        }
+
+        /**
+         * Открывает содержимое сценария. Для SQL-сценария текст собирается из разделенных выражений:
+         * он эквивалентен исходному для выполнения и чтения заголовка, а контрольная сумма исходного
+         * файла хранится в индексе.
+         */
+        @Override
+        public InputStream open() throws IOException {
+            if (statements == MigrationBundleWriter.RAW) {
+                return openBlock();
+            }
+            ByteArrayOutputStream script = new ByteArrayOutputStream();
+            try (SqlStatementReader reader = openStatements()) {
+                String statement;
+                while ((statement = reader.nextStatement()) != null) {
+                    script.write(statement.getBytes(StandardCharsets.UTF_8));
+                    script.write(";\n".getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return new ByteArrayInputStream(script.toByteArray());
+        }
+
+        /**
+         * Читает заголовок из первого выражения, не собирая остальной сценарий: начальные комментарии
+         * сохраняются при разделении в начале первого выражения.
+         */
+        @Override
+        public MigrationHeader readHeader() throws IOException {
+            if (statements == MigrationBundleWriter.RAW) {
+                return MigrationContent.super.readHeader();
+            }
+            try (SqlStatementReader reader = openStatements()) {
+                String first = reader.nextStatement();
+                if (first == null) {
+                    return MigrationHeader.EMPTY;
+                }
+                return MigrationHeader.read(new ByteArrayInputStream(first.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        @Override
+        public SqlStatementReader openStatements() throws IOException {
+            if (statements == MigrationBundleWriter.RAW) {
+                return MigrationContent.super.openStatements();
+            }
+            return new BundleStatementReader(new DataInputStream(openBlock()), statements);
+        }
+    }
+
+    /**
+     * Возвращает выражения, разделенные при сборке пакета, без разбора SQL.
+     */
+    private static final class BundleStatementReader extends SqlStatementReader {
+        private final DataInputStream input;
+        private int remaining;
+
+        BundleStatementReader(DataInputStream input, int statements) {
+            super(Reader.nullReader());
+            this.input = input;
+            this.remaining = statements;
+        }
+
+        @Override
+        public String nextStatement() throws IOException {
+            if (remaining == 0) {
+                return null;
+            }
+            remaining--;
+            int length = input.readInt();
+            byte[] bytes = input.readNBytes(length);
+            if (bytes.length != length) {
+                throw new EOFException("Truncated statement in migration bundle");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    /**
+     * Поток чтения из буфера без копирования блока.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
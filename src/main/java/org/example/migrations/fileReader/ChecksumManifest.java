@@ -0,0 +1,123 @@
+package org.example.migrations.fileReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальный кэш контрольных сумм файлов миграций.
+ * <p>
+ * Для каждого файла хранится размер, время последнего изменения и вычисленная контрольная сумма.
+ * Если размер и время изменения файла совпадают с сохраненными, контрольная сумма берется из кэша
+ * и файл повторно не читается. Кэш хранится в текстовом файле, по одной строке на файл:
+ * {@code <size>\t<mtime>\t<checksum>\t<path>}.
+ * </p>
+ */
+public class ChecksumManifest {
+    private static final Logger logger = LoggerFactory.getLogger(ChecksumManifest.class);
+
+    private final Path manifestFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private record Entry(long size, long modifiedMillis, String checksum) {
+    }
+
+    private ChecksumManifest(Path manifestFile) {
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * Загружает кэш из файла. Отсутствующий или поврежденный файл дает пустой кэш.
+     *
+     * @param manifestFile путь к файлу кэша
+     * @return загруженный кэш контрольных сумм
+     */
+    public static ChecksumManifest load(Path manifestFile) {
+        ChecksumManifest manifest = new ChecksumManifest(manifestFile);
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length == 4) {
+                    manifest.entries.put(fields[3],
+                            new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            logger.debug("Checksum manifest {} does not exist yet", manifestFile);
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Ignoring unreadable checksum manifest {}: {}", manifestFile, e.getMessage());
+            manifest.entries.clear();
+        }
+        return manifest;
+    }
+
+    /**
+     * Ищет контрольную сумму файла с указанными атрибутами.
+     *
+     * @param path путь к файлу
+     * @param size текущий размер файла
+     * @param modifiedMillis текущее время изменения файла
+     * @return сохраненная контрольная сумма или null, если файл новый или изменился
+     */
+    public String lookup(Path path, long size, long modifiedMillis) {
+        Entry entry = entries.get(key(path));
+        return entry != null && entry.size() == size && entry.modifiedMillis() == modifiedMillis ? entry.checksum() : null;
+    }
+
+    /**
+     * Запоминает контрольную сумму файла.
+     *
+     * @param path путь к файлу
+     * @param size размер файла
+     * @param modifiedMillis время изменения файла
+     * @param checksum вычисленная контрольная сумма
+     */
+    public void record(Path path, long size, long modifiedMillis, String checksum) {
+        entries.put(key(path), new Entry(size, modifiedMillis, checksum));
+        dirty = true;
+    }
+
+    /**
+     * Сохраняет кэш на диск, если он изменился. Запись выполняется во временный файл с последующим
+     * атомарным переименованием, чтобы прерванный процесс не оставил поврежденный кэш.
+     *
+     * @throws IOException, если кэш не удалось записать
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Path parent = manifestFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                writer.append(Long.toString(value.size())).append('\t')
+                        .append(Long.toString(value.modifiedMillis())).append('\t')
+                        .append(value.checksum()).append('\t')
+                        .append(entry.getKey()).append('\n');
+            }
+        }
+        Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+}
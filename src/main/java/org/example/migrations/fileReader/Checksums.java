@@ -0,0 +1,47 @@
+package org.example.migrations.fileReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Утилитарный класс для вычисления контрольных сумм сценариев миграций.
+ */
+public final class Checksums {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Checksums() {
+    }
+
+    /**
+     * Вычисляет SHA-256 содержимого потока, читая его блоками фиксированного размера.
+     *
+     * @param input поток байтов; не закрывается этим методом
+     * @return контрольная сумма в шестнадцатеричном виде
+     * @throws IOException, если при чтении потока возникла ошибка
+     */
+    public static String sha256(InputStream input) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Создает новый экземпляр SHA-256.
+     *
+     * @return MessageDigest для алгоритма SHA-256
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.migrations.fileReader;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Источник миграций в ресурсах classpath: каталоги {@code migrations} и {@code rollbacks}.
+ * <p>
+ * Если ресурсы находятся в jar-файле, он открывается как zip-файловая система один раз на процесс,
+ * записи перечисляются по ее каталогу, а содержимое читается потоково из записи без извлечения
+ * на диск. Ресурсы в каталоге (например, target/classes) читаются как обычные файлы.
+ * </p>
+ */
+public class ClasspathMigrationSource implements MigrationSource {
+    private static final String MIGRATION_ROOT = "migrations";
+    private static final String ROLLBACK_ROOT = "rollbacks";
+
+    private final ClassLoader classLoader;
+
+    /**
+     * Создает источник для ресурсов указанного загрузчика классов.
+     *
+     * @param classLoader загрузчик классов, в ресурсах которого лежат миграции
+     */
+    public ClasspathMigrationSource(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public List<MigrationFile> getMigrations() throws IOException {
+        Path migrationDir = resolve(MIGRATION_ROOT);
+        return migrationDir == null ? List.of() : new DirectoryMigrationSource(migrationDir, null).getMigrations();
+    }
+
+    @Override
+    public List<MigrationFile> getRollbacks() throws IOException {
+        Path rollbackDir = resolve(ROLLBACK_ROOT);
+        return rollbackDir == null ? List.of() : new DirectoryMigrationSource(null, rollbackDir).getRollbacks();
+    }
+
+    /**
+     * Находит каталог ресурсов и возвращает его путь в файловой системе каталога или jar-файла.
+     *
+     * @return путь к каталогу или null, если такого ресурса нет
+     */
+    private Path resolve(String root) throws IOException {
+        URL url = classLoader.getResource(root);
+        if (url == null) {
+            return null;
+        }
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try {
+                    FileSystems.newFileSystem(uri, Map.of());
+                } catch (FileSystemAlreadyExistsException e) {
+                    // jar-файл уже открыт другим источником, используется существующая файловая система
+                }
+            }
+            return Path.of(uri);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid resource location: " + url, e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.migrations.fileReader;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Источник миграций в каталогах файловой системы.
+ * <p>
+ * Каталоги могут принадлежать любой {@link java.nio.file.FileSystem}, в том числе zip-файловой системе
+ * jar-файла: содержимое тогда читается потоково прямо из записи архива без распаковки.
+ * </p>
+ */
+public class DirectoryMigrationSource implements MigrationSource {
+    static final String DEFAULT_MIGRATION_DIR = "src/main/resources/migrations";
+    static final String DEFAULT_ROLLBACK_DIR = "src/main/resources/rollbacks";
+    static final String ROLLBACK_GLOB = "V*__rollback.sql";
+
+    private final Path migrationDir;
+    private final Path rollbackDir;
+
+    /**
+     * Создает источник для указанных каталогов миграций и откатов.
+     *
+     * @param migrationDir каталог с файлами миграций
+     * @param rollbackDir каталог с файлами отката
+     */
+    public DirectoryMigrationSource(Path migrationDir, Path rollbackDir) {
+        this.migrationDir = migrationDir;
+        this.rollbackDir = rollbackDir;
+    }
+
+    @Override
+    public List<MigrationFile> getMigrations() throws IOException {
+        List<MigrationFile> migrations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(migrationDir, MigrationType.directoryGlob())) {
+            for (Path file : files) {
+                migrations.add(toMigrationFile(file));
+            }
+        }
+        return migrations;
+    }
+
+    @Override
+    public List<MigrationFile> getRollbacks() throws IOException {
+        List<MigrationFile> rollbacks = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(rollbackDir, ROLLBACK_GLOB)) {
+            for (Path file : files) {
+                rollbacks.add(toRollbackFile(file));
+            }
+        }
+        return rollbacks;
+    }
+
+    @Override
+    public Path getMigrationDir() {
+        return migrationDir;
+    }
+
+    /**
+     * Создает дескриптор миграции для файла вида «V<version>__<description>.<расширение>».
+     * Содержимое файла не читается.
+     */
+    static MigrationFile toMigrationFile(Path file) {
+        String fileName = file.getFileName().toString();
+        return new MigrationFile(versionOf(fileName), descriptionOf(fileName), file);
+    }
+
+    static MigrationFile toRollbackFile(Path file) {
+        return new MigrationFile(versionOf(file.getFileName().toString()), "rollback_file", file);
+    }
+
+    /**
+     * Извлекает версию: часть имени после «V» и до «__».
+     */
+    static String versionOf(String fileName) {
+        return fileName.split("__")[0].replace("V", "");
+    }
+
+    /**
+     * Извлекает описание: часть имени после «__» без расширения.
+     */
+    static String descriptionOf(String fileName) {
+        String description = fileName.split("__")[1];
+        int extension = description.lastIndexOf('.');
+        return extension < 0 ? description : description.substring(0, extension);
+    }
+}
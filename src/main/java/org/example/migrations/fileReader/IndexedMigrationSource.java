@@ -0,0 +1,107 @@
+package org.example.migrations.fileReader;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Источник миграций по индексу, построенному при сборке {@link MigrationIndexGenerator}.
+ * <p>
+ * Индекс - текстовый ресурс, по одной строке на сценарий:
+ * {@code <migration|rollback>\t<size>\t<sha256>\t<resource>}. Каталог строится только из индекса:
+ * каталоги ресурсов не перечисляются, а размер и контрольная сумма известны заранее, поэтому при
+ * запуске сценарии не читаются и не хешируются. Содержимое открывается как ресурс загрузчика классов,
+ * который читает запись уже открытого jar-файла потоково.
+ * </p>
+ */
+public class IndexedMigrationSource implements MigrationSource {
+    /** Ресурс индекса по умолчанию. */
+    public static final String DEFAULT_INDEX = "META-INF/migrations.index";
+    static final String MIGRATION = "migration";
+    static final String ROLLBACK = "rollback";
+
+    private final ClassLoader classLoader;
+    private final String indexResource;
+    private volatile List<String[]> entries;
+
+    /**
+     * Создает источник для индекса по умолчанию.
+     *
+     * @param classLoader загрузчик классов, в ресурсах которого лежат индекс и сценарии
+     */
+    public IndexedMigrationSource(ClassLoader classLoader) {
+        this(classLoader, DEFAULT_INDEX);
+    }
+
+    /**
+     * Создает источник для указанного ресурса индекса.
+     *
+     * @param classLoader загрузчик классов, в ресурсах которого лежат индекс и сценарии
+     * @param indexResource имя ресурса индекса
+     */
+    public IndexedMigrationSource(ClassLoader classLoader, String indexResource) {
+        this.classLoader = classLoader;
+        this.indexResource = indexResource;
+    }
+
+    @Override
+    public List<MigrationFile> getMigrations() throws IOException {
+        return list(MIGRATION);
+    }
+
+    @Override
+    public List<MigrationFile> getRollbacks() throws IOException {
+        return list(ROLLBACK);
+    }
+
+    private List<MigrationFile> list(String kind) throws IOException {
+        List<MigrationFile> files = new ArrayList<>();
+        for (String[] entry : getEntries()) {
+            if (!kind.equals(entry[0])) {
+                continue;
+            }
+            String resource = entry[3];
+            String fileName = resource.substring(resource.lastIndexOf('/') + 1);
+            String description = ROLLBACK.equals(kind) ? "rollback_file" : DirectoryMigrationSource.descriptionOf(fileName);
+            files.add(new MigrationFile(DirectoryMigrationSource.versionOf(fileName), description, null,
+                    MigrationType.of(fileName), Long.parseLong(entry[1]), entry[2], () -> open(resource)));
+        }
+        return files;
+    }
+
+    private List<String[]> getEntries() throws IOException {
+        List<String[]> result = entries;
+        if (result == null) {
+            result = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(indexResource),
+                    StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] entry = line.split("\t", 4);
+                    if (entry.length != 4) {
+                        throw new IOException("Malformed migration index line in " + indexResource + ": " + line);
+                    }
+                    result.add(entry);
+                }
+            }
+            entries = result;
+        }
+        return result;
+    }
+
+    private InputStream open(String resource) throws IOException {
+        InputStream input = classLoader.getResourceAsStream(resource);
+        if (input == null) {
+            throw new FileNotFoundException("Migration resource not found: " + resource);
+        }
+        return input;
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.migrations.fileReader;
+
+import org.example.migrations.sql.SqlStatementReader;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Строит при сборке двоичный пакет миграций для {@link BundleMigrationSource}.
+ * <p>
+ * Формат пакета (целые числа в порядке big-endian, строки - длина int и байты UTF-8):
+ * <pre>
+ * заголовок: magic "MIGB", версия формата int, число записей int, смещение области данных long
+ * индекс:    для каждой записи - вид byte (0 миграция, 1 откат), сжатие byte (0 нет, 1 deflate),
+ *            версия, описание, тип, контрольная сумма, размер исходного сценария long,
+ *            число выражений int (-1 для CSV, TSV и chunked, которые хранятся как есть),
+ *            смещение блока от начала области данных long, длина блока int
+ * данные:    блоки записей подряд; блок SQL-сценария - выражения, уже разделенные
+ *            {@link SqlStatementReader}, в виде длина int и байты UTF-8
+ * </pre>
+ * Записи индекса упорядочены по версии. Сжатие применяется к блоку целиком и только если оно
+ * уменьшает его размер.
+ * </p>
+ */
+public final class MigrationBundleWriter {
+    /** Файл пакета по умолчанию. */
+    public static final String DEFAULT_BUNDLE = "migrations.bundle";
+    static final int MAGIC = 0x4D494742;
+    static final int FORMAT_VERSION = 1;
+    static final byte MIGRATION = 0;
+    static final byte ROLLBACK = 1;
+    static final byte STORED = 0;
+    static final byte DEFLATED = 1;
+    static final int RAW = -1;
+
+    private MigrationBundleWriter() {
+    }
+
+    /**
+     * Записывает пакет по каталогам migrations и rollbacks каталога скомпилированных ресурсов.
+     *
+     * @param args каталог скомпилированных ресурсов, путь к файлу пакета и необязательный
+     *             способ сжатия {@code none} или {@code deflate}
+     * @throws IOException, если сценарии не удалось прочитать или пакет не удалось записать
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            throw new IllegalArgumentException(
+                    "Usage: MigrationBundleWriter <classes directory> <bundle file> [none|deflate]");
+        }
+        boolean compress = args.length == 3 && parseCompression(args[2]);
+        write(Paths.get(args[0]), Paths.get(args[1]), compress);
+    }
+
+    /**
+     * Записывает пакет сценариев из каталогов migrations и rollbacks указанного корня ресурсов.
+     * Если каталогов нет, записывается пустой пакет.
+     *
+     * @param classes корень ресурсов
+     * @param bundle путь к файлу пакета; файл заменяется атомарно
+     * @param compress true, чтобы сжимать блоки сценариев
+     * @throws IOException, если сценарии не удалось прочитать или пакет не удалось записать
+     */
+    public static void write(Path classes, Path bundle, boolean compress) throws IOException {
+        Path migrationDir = classes.resolve("migrations");
+        Path rollbackDir = classes.resolve("rollbacks");
+        DirectoryMigrationSource source = new DirectoryMigrationSource(migrationDir, rollbackDir);
+        List<Entry> entries = new ArrayList<>();
+        if (Files.isDirectory(migrationDir)) {
+            add(entries, MIGRATION, source.getMigrations(), compress);
+        }
+        if (Files.isDirectory(rollbackDir)) {
+            add(entries, ROLLBACK, source.getRollbacks(), compress);
+        }
+
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOutput = new DataOutputStream(index);
+        long offset = 0;
+        for (Entry entry : entries) {
+            entry.writeIndex(indexOutput, offset);
+            offset += entry.data.length;
+        }
+        indexOutput.flush();
+
+        Path parent = bundle.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = bundle.resolveSibling(bundle.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(entries.size());
+            output.writeLong(Integer.BYTES * 3 + Long.BYTES + index.size());
+            index.writeTo(output);
+            for (Entry entry : entries) {
+                output.write(entry.data);
+            }
+        }
+        Files.move(temp, bundle, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void add(List<Entry> entries, byte kind, List<MigrationFile> files, boolean compress)
+            throws IOException {
+        files.sort(Comparator.comparing(MigrationFile::getMigrationVersion));
+        for (MigrationFile file : files) {
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            int statements = RAW;
+            if (file.getType() == MigrationType.SQL) {
+                statements = 0;
+                DataOutputStream output = new DataOutputStream(block);
+                try (SqlStatementReader reader = file.openStatements()) {
+                    String statement;
+                    while ((statement = reader.nextStatement()) != null) {
+                        byte[] bytes = statement.getBytes(StandardCharsets.UTF_8);
+                        output.writeInt(bytes.length);
+                        output.write(bytes);
+                        statements++;
+                    }
+                }
+            } else {
+                try (InputStream input = file.openContent()) {
+                    input.transferTo(block);
+                }
+            }
+            byte[] data = block.toByteArray();
+            byte compression = STORED;
+            if (compress) {
+                byte[] deflated = deflate(data);
+                if (deflated.length < data.length) {
+                    data = deflated;
+                    compression = DEFLATED;
+                }
+            }
+            entries.add(new Entry(kind, compression, file, statements, data));
+        }
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 2 + 16);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OutputStream output = new DeflaterOutputStream(result, deflater)) {
+            output.write(data);
+        } finally {
+            deflater.end();
+        }
+        return result.toByteArray();
+    }
+
+    private static boolean parseCompression(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "", "none" -> false;
+            case "deflate" -> true;
+            default -> throw new IllegalArgumentException("Unknown bundle compression: " + value);
+        };
+    }
+
+    private record Entry(byte kind, byte compression, MigrationFile file, int statements, byte[] data) {
+
+        void writeIndex(DataOutputStream output, long offset) throws IOException {
+            output.writeByte(kind);
+            output.writeByte(compression);
+            writeString(output, file.getVersion());
+            writeString(output, file.getDescription());
+            writeString(output, file.getType().name());
+            writeString(output, file.getChecksum());
+            output.writeLong(file.getSize());
+            output.writeInt(statements);
+            output.writeLong(offset);
+            output.writeInt(data.length);
+        }
+
+        private static void writeString(DataOutputStream output, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+}
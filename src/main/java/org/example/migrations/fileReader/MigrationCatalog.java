@@ -0,0 +1,200 @@
+package org.example.migrations.fileReader;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Каталог миграций, упорядоченный по версии.
+ * <p>
+ * Дескрипторы хранятся в массиве, отсортированном по {@link MigrationVersion}, поэтому поиск
+ * ожидающих миграций и диапазонов для отката выполняется двоичным поиском без полного перебора
+ * и без сравнения строк.
+ * </p>
+ */
+public class MigrationCatalog {
+    private final MigrationFile[] files;
+    private volatile String digest;
+
+    private MigrationCatalog(MigrationFile[] files) {
+        this.files = files;
+    }
+
+    /**
+     * Строит каталог из набора дескрипторов миграций.
+     *
+     * @param migrationFiles дескрипторы миграций в произвольном порядке
+     * @return каталог, упорядоченный по версии
+     * @throws IllegalStateException, если в наборе есть две миграции с одинаковой версией
+     */
+    public static MigrationCatalog of(Collection<MigrationFile> migrationFiles) {
+        MigrationFile[] files = migrationFiles.toArray(new MigrationFile[0]);
+        Arrays.sort(files, Comparator.comparing(MigrationFile::getMigrationVersion));
+        for (int i = 1; i < files.length; i++) {
+            if (files[i - 1].getMigrationVersion().equals(files[i].getMigrationVersion())) {
+                throw new IllegalStateException("Duplicate migration version: " + files[i - 1] + " and " + files[i]);
+            }
+        }
+        return new MigrationCatalog(files);
+    }
+
+    /**
+     * Возвращает все миграции каталога в порядке возрастания версии.
+     *
+     * @return неизменяемый список миграций
+     */
+    public List<MigrationFile> getFiles() {
+        return Collections.unmodifiableList(Arrays.asList(files));
+    }
+
+    /**
+     * Возвращает миграции, версия которых строго больше текущей версии базы данных.
+     *
+     * @param currentVersion текущая версия или null, если миграции еще не применялись
+     * @return ожидающие миграции в порядке возрастания версии
+     */
+    public List<MigrationFile> getPending(MigrationVersion currentVersion) {
+        int from = currentVersion == null ? 0 : upperBound(currentVersion);
+        return getFiles().subList(from, files.length);
+    }
+
+    /**
+     * Возвращает миграции каталога, которых нет среди примененных версий.
+     * <p>
+     * В отличие от {@link #getPending(MigrationVersion)}, учитываются и пропуски ниже наибольшей примененной
+     * версии, которые остаются после сбоя параллельного применения.
+     * </p>
+     *
+     * @param appliedVersions версии из applied_migration
+     * @return неприменные миграции в порядке возрастания версии
+     */
+    public List<MigrationFile> getUnapplied(Collection<MigrationVersion> appliedVersions) {
+        Set<MigrationVersion> applied = new HashSet<>(appliedVersions);
+        List<MigrationFile> result = new ArrayList<>();
+        for (MigrationFile file : files) {
+            if (!applied.contains(file.getMigrationVersion())) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает миграции с версиями в диапазоне {@code [from, to]} включительно.
+     *
+     * @param from нижняя граница диапазона
+     * @param to верхняя граница диапазона
+     * @return миграции из диапазона в порядке возрастания версии
+     */
+    public List<MigrationFile> getRange(MigrationVersion from, MigrationVersion to) {
+        int start = lowerBound(from);
+        int end = Math.max(start, upperBound(to));
+        return getFiles().subList(start, end);
+    }
+
+    /**
+     * Возвращает миграции из диапазона {@code [from, to]} в порядке убывания версии.
+     *
+     * @param from нижняя граница диапазона
+     * @param to верхняя граница диапазона
+     * @return миграции из диапазона от новой к старой
+     */
+    public List<MigrationFile> getRangeDescending(MigrationVersion from, MigrationVersion to) {
+        List<MigrationFile> range = new ArrayList<>(getRange(from, to));
+        Collections.reverse(range);
+        return range;
+    }
+
+    /**
+     * Ищет миграцию с указанной версией.
+     *
+     * @param version версия миграции
+     * @return миграция или null, если такой версии в каталоге нет
+     */
+    public MigrationFile find(MigrationVersion version) {
+        int index = lowerBound(version);
+        return index < files.length && files[index].getMigrationVersion().equals(version) ? files[index] : null;
+    }
+
+    /**
+     * Возвращает самую новую миграцию каталога.
+     *
+     * @return миграция с наибольшей версией или null, если каталог пуст
+     */
+    public MigrationFile getLatest() {
+        return files.length == 0 ? null : files[files.length - 1];
+    }
+
+    /**
+     * Возвращает отпечаток состава каталога: SHA-256 версий, описаний и типов всех миграций.
+     * <p>
+     * Содержимое файлов не читается: ожидающие миграции определяются только по версиям, поэтому
+     * совпадение отпечатка с сохраненным в schema_state означает, что применять нечего.
+     * </p>
+     *
+     * @return отпечаток в шестнадцатеричном виде
+     */
+    public String getDigest() {
+        String result = digest;
+        if (result == null) {
+            MessageDigest sha256 = Checksums.newDigest();
+            for (MigrationFile file : files) {
+                sha256.update((file.getVersion() + '\0' + file.getDescription() + '\0'
+                        + file.getType().getExtension() + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            result = HexFormat.of().formatHex(sha256.digest());
+            digest = result;
+        }
+        return result;
+    }
+
+    public int size() {
+        return files.length;
+    }
+
+    public boolean isEmpty() {
+        return files.length == 0;
+    }
+
+    /**
+     * Индекс первой миграции с версией, не меньшей указанной.
+     */
+    private int lowerBound(MigrationVersion version) {
+        int low = 0;
+        int high = files.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (files[mid].getMigrationVersion().compareTo(version) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Индекс первой миграции с версией строго больше указанной.
+     */
+    private int upperBound(MigrationVersion version) {
+        int low = 0;
+        int high = files.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (files[mid].getMigrationVersion().compareTo(version) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
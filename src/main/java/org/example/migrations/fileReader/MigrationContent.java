@@ -0,0 +1,50 @@
+package org.example.migrations.fileReader;
+
+import org.example.migrations.sql.SqlStatementReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Источник содержимого файла миграции, открываемый по требованию.
+ * <p>
+ * Позволяет хранить в каталоге миграций только метаданные и читать байты сценария
+ * лишь тогда, когда миграция действительно выполняется или проверяется.
+ * </p>
+ */
+@FunctionalInterface
+public interface MigrationContent {
+    /**
+     * Открывает новый поток с содержимым сценария.
+     *
+     * @return поток байтов сценария, который необходимо закрыть после использования
+     * @throws IOException, если содержимое не удалось открыть
+     */
+    InputStream open() throws IOException;
+
+    /**
+     * Открывает SQL-сценарий для чтения по одному выражению. По умолчанию содержимое разбирается
+     * {@link SqlStatementReader}; источники с заранее разделенными выражениями переопределяют метод.
+     *
+     * @return SqlStatementReader, который необходимо закрыть после использования
+     * @throws IOException, если содержимое не удалось открыть
+     */
+    default SqlStatementReader openStatements() throws IOException {
+        return new SqlStatementReader(new InputStreamReader(open(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Читает директивы из заголовка сценария. По умолчанию открывается содержимое и читаются только
+     * начальные строки-комментарии; источники, хранящие сценарий в другом виде, переопределяют метод.
+     *
+     * @return директивы заголовка
+     * @throws IOException, если содержимое не удалось открыть
+     */
+    default MigrationHeader readHeader() throws IOException {
+        try (InputStream input = open()) {
+            return MigrationHeader.read(input);
+        }
+    }
+}
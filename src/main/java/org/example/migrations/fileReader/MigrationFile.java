@@ -1,28 +1,91 @@
 package org.example.migrations.fileReader;
+
+import org.example.migrations.sql.SqlStatementReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
 /**
- * Представляет файл миграции или отката с версией, описанием и содержимым SQL.
+ * Представляет файл миграции или отката: легковесный дескриптор с версией, описанием, путем,
+ * размером и контрольной суммой, а также источником содержимого, открываемым по требованию.
  * <p>
- * Этот класс инкапсулирует метаданные и содержимое файла миграции, включая:
+ * Этот класс инкапсулирует метаданные файла миграции, включая:
  * - Версию миграции
  * - Описание
- * - SQL-сценарий, который будет выполняться для миграции или отката
+ * - Путь к SQL-сценарию, который будет выполняться для миграции или отката
+ * - Размер и контрольную сумму SQL-сценария
+ * Для построения каталога и вычисления ожидающих миграций достаточно имени файла. Размер и
+ * контрольная сумма вычисляются при первом обращении, а содержимое читается потоково через
+ * {@link #openStatements()} непосредственно перед выполнением.
  * </p>
  */
 public class MigrationFile {
+    private static final long UNKNOWN_SIZE = -1;
+
     private final String version;
+    private final MigrationVersion migrationVersion;
     private final String description;
-    private final String sql;
+    private final Path path;
+    private final MigrationType type;
+    private final MigrationContent content;
+    private volatile long size;
+    private volatile String checksum;
+    private volatile MigrationHeader header;
     /**
-     * Создает экземпляр MigrationFile с указанной версией, описанием и содержимым SQL.
+     * Создает экземпляр MigrationFile для файла на диске. Размер и контрольная сумма будут
+     * вычислены при первом обращении.
      *
      * @param version версия миграции, обычно извлекаемая из имени файла
      * @param description краткое описание цели миграции
-     * @param sql сценарий SQL, связанный с миграцией или откатом.
+     * @param path путь к SQL-сценарию, связанному с миграцией или откатом.
      */
-    public MigrationFile(String version, String description, String sql) {
+    public MigrationFile(String version, String description, Path path) {
+        this(version, description, path, UNKNOWN_SIZE, null, () -> Files.newInputStream(path));
+    }
+    /**
+     * Создает экземпляр MigrationFile с заранее известными метаданными и собственным источником содержимого.
+     *
+     * @param version версия миграции
+     * @param description краткое описание цели миграции
+     * @param path путь к SQL-сценарию или null, если сценарий хранится не в файле
+     * @param size размер сценария в байтах или отрицательное значение, если он неизвестен
+     * @param checksum контрольная сумма SHA-256 сценария или null, если она неизвестна
+     * @param content источник содержимого сценария
+     */
+    public MigrationFile(String version, String description, Path path, long size, String checksum,
+                         MigrationContent content) {
+        this(version, description, path, MigrationType.of(path), size, checksum, content);
+    }
+    /**
+     * Создает экземпляр MigrationFile с явно заданным видом миграции, например для сценария,
+     * хранящегося в ресурсе или пакете, а не в файле.
+     *
+     * @param version версия миграции
+     * @param description краткое описание цели миграции
+     * @param path путь к сценарию или null, если сценарий хранится не в файле
+     * @param type вид миграции
+     * @param size размер сценария в байтах или отрицательное значение, если он неизвестен
+     * @param checksum контрольная сумма SHA-256 сценария или null, если она неизвестна
+     * @param content источник содержимого сценария
+     */
+    public MigrationFile(String version, String description, Path path, MigrationType type, long size,
+                         String checksum, MigrationContent content) {
         this.version = version;
+        this.migrationVersion = MigrationVersion.parse(version);
         this.description = description;
-        this.sql = sql;
+        this.path = path;
+        this.type = type;
+        this.size = size;
+        this.checksum = checksum;
+        this.content = content;
     }
     /**
      * Возвращает версию миграции.
@@ -32,6 +95,14 @@ public class MigrationFile {
     public String getVersion() {
         return version;
     }
+    /**
+     * Возвращает разобранную версию миграции, используемую для сортировки и сравнения.
+     *
+     * @return версия миграции
+     */
+    public MigrationVersion getMigrationVersion() {
+        return migrationVersion;
+    }
     /**
      * Возвращает описание миграции.
      *
@@ -41,11 +112,193 @@ public class MigrationFile {
         return description;
     }
     /**
-     * Возвращает SQL-содержимое миграции.
+     * Возвращает имя файла отката, соответствующего этой миграции.
+     *
+     * @return имя файла в виде «V<version>__rollback.sql»
+     */
+    public String getRollbackFileName() {
+        return "V" + version + "__rollback.sql";
+    }
+    /**
+     * Возвращает путь к SQL-сценарию миграции.
+     *
+     * @return путь к файлу миграции или отката.
+     */
+    public Path getPath() {
+        return path;
+    }
+    /**
+     * Возвращает вид миграции, определенный по расширению файла.
+     *
+     * @return вид миграции
+     */
+    public MigrationType getType() {
+        return type;
+    }
+    /**
+     * Проверяет, должна ли миграция выполняться внутри общей транзакции выпуска.
+     * Порционные обновления и сценарии с директивой {@code -- transactional: false}
+     * выполняются вне ее.
+     *
+     * @return true, если миграцию можно выполнить в транзакции
+     * @throws IOException, если заголовок сценария не удалось прочитать
+     */
+    public boolean isTransactional() throws IOException {
+        return type != MigrationType.CHUNKED && getHeader().isTransactional();
+    }
+    /**
+     * Возвращает размер сценария в байтах, при необходимости запрашивая его у файловой системы.
+     *
+     * @return размер сценария в байтах
+     * @throws IOException, если размер не удалось определить
+     */
+    public long getSize() throws IOException {
+        long result = size;
+        if (result < 0) {
+            if (path != null) {
+                result = Files.size(path);
+            } else {
+                try (InputStream input = content.open()) {
+                    result = input.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            size = result;
+        }
+        return result;
+    }
+    /**
+     * Возвращает контрольную сумму SHA-256 сценария. При первом обращении содержимое читается целиком
+     * потоково, результат запоминается.
+     *
+     * @return контрольная сумма в шестнадцатеричном виде
+     * @throws IOException, если содержимое не удалось прочитать
+     */
+    public String getChecksum() throws IOException {
+        String result = checksum;
+        if (result == null) {
+            try (InputStream input = content.open()) {
+                result = Checksums.sha256(input);
+            }
+            checksum = result;
+        }
+        return result;
+    }
+    /**
+     * Возвращает директивы из заголовка сценария. При первом обращении читается только заголовок,
+     * результат запоминается.
+     *
+     * @return директивы заголовка
+     * @throws IOException, если содержимое не удалось прочитать
+     */
+    public MigrationHeader getHeader() throws IOException {
+        MigrationHeader result = header;
+        if (result == null) {
+            result = content.readHeader();
+            header = result;
+        }
+        return result;
+    }
+    /**
+     * Сохраняет уже известные метаданные, например полученные из кэша контрольных сумм.
+     *
+     * @param size размер сценария в байтах
+     * @param checksum контрольная сумма сценария или null, если она еще не известна
+     */
+    void cacheMetadata(long size, String checksum) {
+        this.size = size;
+        if (checksum != null) {
+            this.checksum = checksum;
+        }
+    }
+    /**
+     * Проверяет, вычислена ли уже контрольная сумма сценария.
      *
-     * @return SQL-скрипт, связанный с миграцией или откатом.
+     * @return true, если контрольная сумма известна без чтения содержимого
+     */
+    public boolean hasChecksum() {
+        return checksum != null;
+    }
+    /**
+     * Открывает поток с содержимым сценария.
+     *
+     * @return поток байтов сценария, который необходимо закрыть после использования
+     * @throws IOException, если содержимое не удалось открыть
+     */
+    public InputStream openContent() throws IOException {
+        return content.open();
+    }
+    /**
+     * Открывает поток с содержимым, попутно вычисляя контрольную сумму.
+     * <p>
+     * Если контрольная сумма еще не известна, она вычисляется по прочитанным байтам и запоминается,
+     * когда поток дочитан до конца, поэтому последующий {@link #getChecksum()} не читает файл повторно.
+     * </p>
+     *
+     * @return поток байтов сценария, который необходимо закрыть после использования
+     * @throws IOException, если содержимое не удалось открыть
+     */
+    public InputStream openChecksummedContent() throws IOException {
+        if (checksum != null) {
+            return content.open();
+        }
+        return new ChecksumInputStream(content.open(), Checksums.newDigest());
+    }
+    /**
+     * Открывает SQL-сценарий для потокового чтения по одному выражению.
+     * <p>
+     * Если контрольная сумма еще не известна, она вычисляется по байтам, прочитанным при разборе,
+     * и запоминается, когда сценарий дочитан до конца. Так применение миграции читает файл один раз.
+     * </p>
+     *
+     * @return SqlStatementReader, который необходимо закрыть после использования
+     * @throws IOException, если файл не удалось открыть
+     */
+    public SqlStatementReader openStatements() throws IOException {
+        if (checksum != null) {
+            return content.openStatements();
+        }
+        InputStream input = new ChecksumInputStream(content.open(), Checksums.newDigest());
+        return new SqlStatementReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + "__" + description;
+    }
+
+    /**
+     * Поток, запоминающий контрольную сумму сценария по достижении конца содержимого.
      */
-    public String getSql() {
-        return sql;
+    private final class ChecksumInputStream extends DigestInputStream {
+        private boolean complete;
+
+        ChecksumInputStream(InputStream input, MessageDigest digest) {
+            super(input, digest);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result == -1) {
+                complete();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int result = super.read(buffer, offset, length);
+            if (result == -1) {
+                complete();
+            }
+            return result;
+        }
+
+        private void complete() {
+            if (!complete) {
+                complete = true;
+                checksum = HexFormat.of().formatHex(getMessageDigest().digest());
+            }
+        }
     }
 }
@@ -0,0 +1,170 @@
+package org.example.migrations.fileReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Параллельная загрузка метаданных файлов миграций.
+ * <p>
+ * Для каждого дескриптора запрашивает размер и читает содержимое для вычисления контрольной суммы
+ * в ограниченном пуле потоков, так что задержки файловой системы (например, сетевого тома в CI)
+ * перекрываются, а не складываются. Результаты сохраняются в самих дескрипторах, поэтому порядок
+ * каталога по версиям не меняется.
+ * </p>
+ */
+public class MigrationFileLoader {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationFileLoader.class);
+    private final int parallelism;
+    private final ChecksumManifest manifest;
+
+    /**
+     * Создает загрузчик с указанным числом потоков.
+     *
+     * @param parallelism максимальное число одновременно читаемых файлов; 1 означает чтение в вызывающем потоке
+     */
+    public MigrationFileLoader(int parallelism) {
+        this(parallelism, null);
+    }
+    /**
+     * Создает загрузчик с кэшем контрольных сумм.
+     * <p>
+     * Файлы, размер и время изменения которых совпадают с записью в кэше, не читаются повторно.
+     * </p>
+     *
+     * @param parallelism максимальное число одновременно читаемых файлов; 1 означает чтение в вызывающем потоке
+     * @param manifest кэш контрольных сумм или null, если кэширование не используется
+     */
+    public MigrationFileLoader(int parallelism, ChecksumManifest manifest) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Loader parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Вычисляет размер и контрольную сумму для всех указанных миграций.
+     *
+     * @param files дескрипторы миграций
+     * @throws IOException, если хотя бы один файл не удалось прочитать
+     */
+    public void preload(List<MigrationFile> files) throws IOException {
+        long started = System.nanoTime();
+        int threads = forEach(files, this::load);
+        if (manifest != null) {
+            manifest.save();
+        }
+        logger.debug("Loaded {} migration files with {} threads in {} ms",
+                files.size(), threads, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Определяет размер и читает заголовок для всех указанных миграций, не вычисляя контрольную сумму.
+     * <p>
+     * Используется перед применением миграций: контрольная сумма вычисляется позже, во время потокового
+     * чтения сценария, а заголовки нужны заранее, чтобы разделить миграции в транзакции и вне ее.
+     * </p>
+     *
+     * @param files дескрипторы миграций
+     * @throws IOException, если хотя бы один файл не удалось прочитать
+     */
+    public void preloadHeaders(List<MigrationFile> files) throws IOException {
+        long started = System.nanoTime();
+        int threads = forEach(files, file -> {
+            file.getSize();
+            file.getHeader();
+        });
+        logger.debug("Read headers of {} migration files with {} threads in {} ms",
+                files.size(), threads, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private int forEach(List<MigrationFile> files, FileTask task) throws IOException {
+        int threads = Math.min(parallelism, files.size());
+        if (threads <= 1) {
+            for (MigrationFile file : files) {
+                task.run(file);
+            }
+            return 1;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads, daemonThreads());
+        try {
+            List<Future<?>> futures = new ArrayList<>(files.size());
+            for (MigrationFile file : files) {
+                futures.add(pool.submit(() -> {
+                    try {
+                        task.run(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                await(future);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return threads;
+    }
+
+    private void load(MigrationFile file) throws IOException {
+        Path path = file.getPath();
+        if (manifest == null || path == null || file.hasChecksum()) {
+            file.getSize();
+            file.getChecksum();
+            return;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        String cached = manifest.lookup(path, attributes.size(), modified);
+        if (cached != null) {
+            file.cacheMetadata(attributes.size(), cached);
+            return;
+        }
+        file.cacheMetadata(attributes.size(), null);
+        manifest.record(path, attributes.size(), modified, file.getChecksum());
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading migration files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Failed to load migration file", cause);
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "migration-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface FileTask {
+        void run(MigrationFile file) throws IOException;
+    }
+}
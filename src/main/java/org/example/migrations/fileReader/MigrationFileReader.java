@@ -4,9 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.file.*;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 /**
  * Этот класс отвечает за чтение файлов миграции и отката.
@@ -15,41 +14,125 @@ import java.util.List;
  * Он обрабатывает SQL-файлы на предмет миграций и откатов.
  * версии, описания и содержания, а также сортирует их по мере необходимости.
  * </p>
+ * <p>
+ * Сценарии перечисляются через {@link MigrationSource}: каталог файловой системы (по умолчанию
+ * src/main/resources/migrations и rollbacks), ресурсы classpath или индекс, построенный при сборке.
+ * </p>
  */
 
 public class MigrationFileReader {
-    private final Path migrationDir = Paths.get("src/main/resources/migrations");
-    private final Path rollbackDir = Paths.get("src/main/resources/rollbacks");
+    private static final Path DEFAULT_MIGRATION_DIR = Paths.get(DirectoryMigrationSource.DEFAULT_MIGRATION_DIR);
+    private static final Path DEFAULT_ROLLBACK_DIR = Paths.get(DirectoryMigrationSource.DEFAULT_ROLLBACK_DIR);
+    private final MigrationSource source;
+    private final MigrationFileLoader loader;
     private static final Logger logger = LoggerFactory.getLogger(MigrationFileReader.class);
 
+    /**
+     * Создает MigrationFileReader, читающий файлы в вызывающем потоке.
+     */
+    public MigrationFileReader() {
+        this(1);
+    }
+    /**
+     * Создает MigrationFileReader с параллельной загрузкой содержимого файлов.
+     *
+     * @param loaderThreads число потоков для чтения и хеширования файлов
+     */
+    public MigrationFileReader(int loaderThreads) {
+        this(new MigrationFileLoader(loaderThreads));
+    }
+    /**
+     * Создает MigrationFileReader с указанным загрузчиком содержимого файлов.
+     *
+     * @param loader загрузчик, читающий и хеширующий файлы миграций
+     */
+    public MigrationFileReader(MigrationFileLoader loader) {
+        this(DEFAULT_MIGRATION_DIR, DEFAULT_ROLLBACK_DIR, loader);
+    }
+    /**
+     * Создает MigrationFileReader для указанных каталогов миграций и откатов.
+     *
+     * @param migrationDir каталог с файлами миграций
+     * @param rollbackDir каталог с файлами отката
+     * @param loader загрузчик, читающий и хеширующий файлы миграций
+     */
+    public MigrationFileReader(Path migrationDir, Path rollbackDir, MigrationFileLoader loader) {
+        this(new DirectoryMigrationSource(migrationDir, rollbackDir), loader);
+    }
+    /**
+     * Создает MigrationFileReader для указанного источника сценариев.
+     *
+     * @param source источник миграций и откатов
+     * @param loader загрузчик, читающий и хеширующий файлы миграций
+     */
+    public MigrationFileReader(MigrationSource source, MigrationFileLoader loader) {
+        this.source = source;
+        this.loader = loader;
+    }
+
 
     /**
      * Считывает и обрабатывает все файлы миграции из каталога migrations.
      * <p>
-     * Ожидается, что каждый файл будет иметь имя «V<version>__<description>.sql».
+     * Ожидается, что каждый файл будет иметь имя «V<version>__<description>.sql», для порционных
+     * обновлений данных - «V<version>__<description>.chunked», для загрузки данных - «V<version>__<table>.csv»
+     * или «V<version>__<table>.tsv».
      * Файлы сортируются по номеру версии в порядке возрастания.
      * </p>
      *
      * @retur список объектов MigrationFile, содержащих версию, описание,
-     * и SQL-содержимое файлов миграции.
+     * и путь к SQL-сценарию. Содержимое файлов на этом этапе не читается.
      * @throws IOException, если при доступе к файлам возникла ошибка.
      */
 
     public List<MigrationFile> getMigrationFiles() throws IOException {
-        DirectoryStream<Path> migrationFiles = Files.newDirectoryStream(migrationDir, "*.sql");
-        List<MigrationFile> sortedMigrations = new ArrayList<>();
-
-        for (Path file : migrationFiles) {
-            String fileName = file.getFileName().toString();
-            String version = extractVersion(fileName);
-            String description = extractDescription(fileName);
-            String sqlContent = Files.readString(file);
-
-            sortedMigrations.add(new MigrationFile(version, description, sqlContent));
-        }
-
-        sortedMigrations.sort(Comparator.comparing(MigrationFile::getVersion));
-        return sortedMigrations;
+        return getMigrationCatalog().getFiles();
+    }
+    /**
+     * Строит каталог миграций из каталога migrations, упорядоченный по версии.
+     *
+     * @return каталог миграций
+     * @throws IOException, если при доступе к файлам возникла ошибка.
+     */
+    public MigrationCatalog getMigrationCatalog() throws IOException {
+        return MigrationCatalog.of(source.getMigrations());
+    }
+    /**
+     * Создает дескриптор миграции для файла из каталога migrations. Содержимое файла не читается.
+     *
+     * @param file путь к файлу вида «V<version>__<description>.<расширение>»
+     * @return дескриптор миграции
+     */
+    public MigrationFile toMigrationFile(Path file) {
+        return DirectoryMigrationSource.toMigrationFile(file);
+    }
+    /**
+     * Возвращает каталог, из которого читаются файлы миграций.
+     *
+     * @return каталог migrations или null, если источник не использует каталог файловой системы
+     */
+    public Path getMigrationDir() {
+        return source.getMigrationDir();
+    }
+    /**
+     * Заранее читает указанные миграции: определяет размер и вычисляет контрольную сумму
+     * параллельно в ограниченном пуле потоков.
+     *
+     * @param migrationFiles миграции, которые предстоит выполнить или проверить
+     * @throws IOException, если хотя бы один файл не удалось прочитать
+     */
+    public void preload(List<MigrationFile> migrationFiles) throws IOException {
+        loader.preload(migrationFiles);
+    }
+    /**
+     * Заранее определяет размер и читает заголовки указанных миграций параллельно в ограниченном пуле потоков.
+     * Контрольная сумма не вычисляется: при применении она считается во время чтения сценария.
+     *
+     * @param migrationFiles миграции, которые предстоит выполнить
+     * @throws IOException, если хотя бы один файл не удалось прочитать
+     */
+    public void preloadHeaders(List<MigrationFile> migrationFiles) throws IOException {
+        loader.preloadHeaders(migrationFiles);
     }
     /**
      * Считывает и обрабатывает файлы отката из каталога rollbacks, которые соответствуют
@@ -63,30 +146,16 @@ public class MigrationFileReader {
      * @param targetVersion целевая версия для отката.
      * @param currentVersion текущая версия приложения.
      * @return список объектов {@code MigrationFile}, содержащих версию, описание,
-     * и SQL-содержимое файлов отката.
+     * и путь к SQL-сценарию отката.
      * @throws IOException, если при доступе к файлам возникла ошибка.
      */
     public List<MigrationFile> getRollbackFiles(String targetVersion, String currentVersion) throws IOException {
         logger.info("Fetching rollback files for target version: " + targetVersion + ", current version: " + currentVersion);
-        DirectoryStream<Path> rollbackFiles = Files.newDirectoryStream(rollbackDir, "V*__rollback.sql");
-        List<MigrationFile> filteredRollbacks = new ArrayList<>();
-
-        for (Path file : rollbackFiles) {
-            String fileName = file.getFileName().toString();
-            String version = extractVersion(fileName);
-
-            // Обрабатывает список файлов отката, фильтруя их по целевой и текущей версиям.
-            if (version.compareTo(targetVersion) >= 0 && version.compareTo(currentVersion) <= 0) {
-                logger.debug("Including rollback file: " + fileName);
-                String sqlContent = Files.readString(file);
-                filteredRollbacks.add(new MigrationFile(version, "rollback_file", sqlContent));
-            } else {
-                logger.debug("Excluding rollback file: " + fileName);
-            }
-        }
+        List<MigrationFile> rollbacks = source.getRollbacks();
 
-        // Сортируйте файлы отката в порядке убывания, чтобы применить их в обратном порядке
-        filteredRollbacks.sort(Comparator.comparing(MigrationFile::getVersion).reversed());
+        // Файлы в диапазоне [targetVersion, currentVersion] в порядке убывания, чтобы применить их в обратном порядке
+        List<MigrationFile> filteredRollbacks = MigrationCatalog.of(rollbacks)
+                .getRangeDescending(MigrationVersion.parse(targetVersion), MigrationVersion.parse(currentVersion));
         logger.info("Filtered and sorted rollback files: " + filteredRollbacks);
         return filteredRollbacks;
     }
@@ -103,19 +172,19 @@ public class MigrationFileReader {
      * @return извлеченная версия в виде строки.
      */
     public String extractVersion(String fileName) {
-        return fileName.split("__")[0].replace("V", "");
+        return DirectoryMigrationSource.versionOf(fileName);
     }
     /**
      * Извлекает описание из имени файла.
      * <p>
      * Ожидается, что описание - это часть имени файла, которая следует за
-     * «__» и предшествует «.sql».
+     * «__» и предшествует расширению файла.
      * </p>
      *
      * @param fileName имя файла.
      * @return извлеченное описание в виде строки.
      */
     public String extractDescription(String fileName) {
-        return fileName.split("__")[1].replace(".sql", "");
+        return DirectoryMigrationSource.descriptionOf(fileName);
     }
 }
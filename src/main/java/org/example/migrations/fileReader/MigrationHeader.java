@@ -0,0 +1,121 @@
+package org.example.migrations.fileReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Директивы из заголовка SQL-сценария миграции.
+ * <p>
+ * Заголовок - это строки-комментарии {@code --} в начале файла до первой строки с SQL. Директива
+ * записывается как {@code -- ключ: значение}, например:
+ * </p>
+ * <pre>
+ * -- depends-on: 2, 3
+ * -- transactional: false
+ * CREATE INDEX CONCURRENTLY ...
+ * </pre>
+ * <p>
+ * Строки комментариев, не похожие на директивы, игнорируются. Читается только заголовок, а не весь файл.
+ * </p>
+ */
+public final class MigrationHeader {
+    public static final String DEPENDS_ON = "depends-on";
+    public static final String TRANSACTIONAL = "transactional";
+
+    static final MigrationHeader EMPTY = new MigrationHeader(Map.of());
+    private static final Pattern DIRECTIVE = Pattern.compile("--\\s*([A-Za-z][A-Za-z-]*)\\s*:\\s*(.*?)\\s*");
+
+    private final Map<String, String> directives;
+
+    private MigrationHeader(Map<String, String> directives) {
+        this.directives = directives;
+    }
+
+    /**
+     * Читает заголовок из начала потока. Поток не закрывается.
+     *
+     * @param input содержимое сценария в UTF-8
+     * @return разобранный заголовок
+     * @throws IOException, если содержимое не удалось прочитать
+     */
+    public static MigrationHeader read(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, String> directives = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.startsWith("--")) {
+                break;
+            }
+            Matcher matcher = DIRECTIVE.matcher(trimmed);
+            if (matcher.matches()) {
+                directives.put(matcher.group(1).toLowerCase(Locale.ROOT), matcher.group(2));
+            }
+        }
+        return directives.isEmpty() ? EMPTY : new MigrationHeader(Collections.unmodifiableMap(directives));
+    }
+
+    /**
+     * Возвращает значение директивы.
+     *
+     * @param key имя директивы в нижнем регистре
+     * @return значение или null, если директива не задана
+     */
+    public String get(String key) {
+        return directives.get(key);
+    }
+
+    /**
+     * Возвращает версии, от которых зависит миграция.
+     * <p>
+     * Значение {@code none} означает, что миграция не зависит от других и может выполняться
+     * одновременно с любыми из них.
+     * </p>
+     *
+     * @return список версий или null, если директива {@code depends-on} не задана
+     * @throws IllegalArgumentException, если версия в списке указана неверно
+     */
+    public List<MigrationVersion> getDependsOn() {
+        String value = directives.get(DEPENDS_ON);
+        if (value == null) {
+            return null;
+        }
+        List<MigrationVersion> versions = new ArrayList<>();
+        if (value.equalsIgnoreCase("none")) {
+            return versions;
+        }
+        for (String item : value.split("[,\\s]+")) {
+            if (!item.isEmpty()) {
+                versions.add(MigrationVersion.parse(item.startsWith("V") ? item.substring(1) : item));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Проверяет, должна ли миграция выполняться в транзакции.
+     * <p>
+     * Директива {@code -- transactional: false} нужна для выражений, которые PostgreSQL не выполняет
+     * внутри транзакции, например {@code CREATE INDEX CONCURRENTLY}.
+     * </p>
+     *
+     * @return false, если в заголовке указано {@code transactional: false}
+     */
+    public boolean isTransactional() {
+        return !"false".equalsIgnoreCase(directives.get(TRANSACTIONAL));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.migrations.fileReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Строит при сборке индекс миграций для {@link IndexedMigrationSource}.
+ * <p>
+ * Запускается на фазе process-classes для каталога скомпилированных ресурсов: перечисляет каталоги
+ * migrations и rollbacks, вычисляет размеры и контрольные суммы и записывает
+ * {@value IndexedMigrationSource#DEFAULT_INDEX}. Если каталогов нет, записывается пустой индекс.
+ * </p>
+ */
+public final class MigrationIndexGenerator {
+
+    private MigrationIndexGenerator() {
+    }
+
+    /**
+     * Записывает индекс в каталог скомпилированных ресурсов.
+     *
+     * @param args каталог скомпилированных ресурсов, например target/classes
+     * @throws IOException, если сценарии не удалось прочитать или индекс не удалось записать
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: MigrationIndexGenerator <classes directory>");
+        }
+        Path classes = Paths.get(args[0]);
+        Path index = classes.resolve(IndexedMigrationSource.DEFAULT_INDEX);
+        Files.createDirectories(index.getParent());
+        Path temp = index.resolveSibling(index.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            write(classes, writer);
+        }
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Записывает индекс сценариев из каталогов migrations и rollbacks указанного корня ресурсов.
+     *
+     * @param classes корень ресурсов
+     * @param writer получатель индекса
+     * @throws IOException, если сценарии не удалось прочитать или индекс не удалось записать
+     */
+    public static void write(Path classes, Writer writer) throws IOException {
+        Path migrationDir = classes.resolve("migrations");
+        Path rollbackDir = classes.resolve("rollbacks");
+        DirectoryMigrationSource source = new DirectoryMigrationSource(migrationDir, rollbackDir);
+        writer.write("# <migration|rollback>\t<size>\t<sha256>\t<resource>\n");
+        if (Files.isDirectory(migrationDir)) {
+            write(IndexedMigrationSource.MIGRATION, "migrations/", source.getMigrations(), writer);
+        }
+        if (Files.isDirectory(rollbackDir)) {
+            write(IndexedMigrationSource.ROLLBACK, "rollbacks/", source.getRollbacks(), writer);
+        }
+    }
+
+    private static void write(String kind, String prefix, List<MigrationFile> files, Writer writer)
+            throws IOException {
+        files.sort(Comparator.comparing(MigrationFile::getMigrationVersion));
+        for (MigrationFile file : files) {
+            writer.write(kind + "\t" + file.getSize() + "\t" + file.getChecksum() + "\t"
+                    + prefix + file.getPath().getFileName() + "\n");
+        }
+    }
+}
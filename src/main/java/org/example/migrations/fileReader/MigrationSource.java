@@ -0,0 +1,100 @@
+package org.example.migrations.fileReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Источник дескрипторов миграций и откатов.
+ * <p>
+ * Источник только перечисляет сценарии и описывает, как открыть их содержимое; чтение и хеширование
+ * выполняются позже через {@link MigrationFile}. Реализации: каталог файловой системы
+ * ({@link DirectoryMigrationSource}), ресурсы classpath, в том числе внутри jar-файла
+ * ({@link ClasspathMigrationSource}), и заранее построенный при сборке индекс ресурсов
+ * ({@link IndexedMigrationSource}).
+ * </p>
+ */
+public interface MigrationSource {
+
+    /**
+     * Перечисляет сценарии миграций в произвольном порядке.
+     *
+     * @return дескрипторы миграций
+     * @throws IOException, если источник не удалось прочитать
+     */
+    List<MigrationFile> getMigrations() throws IOException;
+
+    /**
+     * Перечисляет сценарии отката вида {@code V<version>__rollback.sql} в произвольном порядке.
+     *
+     * @return дескрипторы сценариев отката
+     * @throws IOException, если источник не удалось прочитать
+     */
+    List<MigrationFile> getRollbacks() throws IOException;
+
+    /**
+     * Возвращает каталог файловой системы с файлами миграций, если источник его использует.
+     *
+     * @return каталог миграций или null, если сценарии хранятся не в каталоге
+     */
+    default Path getMigrationDir() {
+        return null;
+    }
+
+    /**
+     * Создает источник по значению параметра {@code migration.source}.
+     * <p>
+     * {@code filesystem} - каталоги src/main/resources/migrations и rollbacks; {@code classpath} - каталоги
+     * migrations и rollbacks в classpath; {@code index} - индекс {@value IndexedMigrationSource#DEFAULT_INDEX};
+     * {@code bundle} - двоичный пакет {@value MigrationBundleWriter#DEFAULT_BUNDLE};
+     * {@code auto} - каталог файловой системы, если он существует (запуск из исходников), иначе пакет,
+     * если он существует, иначе индекс, если он есть в classpath, иначе ресурсы classpath.
+     * </p>
+     *
+     * @param kind вид источника или null для {@code auto}
+     * @param classLoader загрузчик классов для ресурсов
+     * @return источник миграций
+     * @throws IllegalArgumentException, если вид источника неизвестен
+     */
+    static MigrationSource create(String kind, ClassLoader classLoader) {
+        return create(kind, Paths.get(MigrationBundleWriter.DEFAULT_BUNDLE), classLoader);
+    }
+
+    /**
+     * Создает источник по значению параметра {@code migration.source} с указанным файлом пакета.
+     *
+     * @param kind вид источника или null для {@code auto}
+     * @param bundle путь к двоичному пакету миграций
+     * @param classLoader загрузчик классов для ресурсов
+     * @return источник миграций
+     * @throws IllegalArgumentException, если вид источника неизвестен
+     * @see #create(String, ClassLoader)
+     */
+    static MigrationSource create(String kind, Path bundle, ClassLoader classLoader) {
+        Path migrationDir = Paths.get(DirectoryMigrationSource.DEFAULT_MIGRATION_DIR);
+        Path rollbackDir = Paths.get(DirectoryMigrationSource.DEFAULT_ROLLBACK_DIR);
+        String value = kind == null || kind.isBlank() ? "auto" : kind.trim().toLowerCase(Locale.ROOT);
+        return switch (value) {
+            case "filesystem" -> new DirectoryMigrationSource(migrationDir, rollbackDir);
+            case "classpath" -> new ClasspathMigrationSource(classLoader);
+            case "index" -> new IndexedMigrationSource(classLoader);
+            case "bundle" -> new BundleMigrationSource(bundle);
+            case "auto" -> {
+                if (Files.isDirectory(migrationDir)) {
+                    yield new DirectoryMigrationSource(migrationDir, rollbackDir);
+                }
+                if (Files.isRegularFile(bundle)) {
+                    yield new BundleMigrationSource(bundle);
+                }
+                if (classLoader.getResource(IndexedMigrationSource.DEFAULT_INDEX) != null) {
+                    yield new IndexedMigrationSource(classLoader);
+                }
+                yield new ClasspathMigrationSource(classLoader);
+            }
+            default -> throw new IllegalArgumentException("Unknown migration source: " + kind);
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.migrations.fileReader;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Вид миграции, определяемый расширением файла.
+ */
+public enum MigrationType {
+    /**
+     * SQL-сценарий ({@code .sql}), выражения которого выполняются по порядку.
+     */
+    SQL("sql"),
+    /**
+     * Декларативное описание порционного обновления большой таблицы ({@code .chunked}),
+     * выполняемого множеством коротких транзакций.
+     */
+    CHUNKED("chunked"),
+    /**
+     * Данные в формате CSV ({@code .csv}) с именами столбцов в первой строке, загружаемые через COPY.
+     */
+    CSV("csv"),
+    /**
+     * Данные, разделенные табуляцией ({@code .tsv}), с именами столбцов в первой строке, загружаемые через COPY.
+     */
+    TSV("tsv");
+
+    private final String extension;
+
+    MigrationType(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Возвращает расширение файлов этого вида без точки.
+     *
+     * @return расширение файла
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Возвращает шаблон для поиска файлов миграций всех видов в каталоге.
+     *
+     * @return шаблон вида {@code *.{sql,chunked,csv,tsv}}
+     */
+    public static String directoryGlob() {
+        StringBuilder glob = new StringBuilder("*.{");
+        for (MigrationType type : values()) {
+            if (type.ordinal() > 0) {
+                glob.append(',');
+            }
+            glob.append(type.extension);
+        }
+        return glob.append('}').toString();
+    }
+
+    /**
+     * Определяет вид миграции по имени файла.
+     *
+     * @param path путь к файлу или null, если содержимое хранится не в файле
+     * @return вид миграции; {@link #SQL}, если расширение не распознано или путь не задан
+     */
+    public static MigrationType of(Path path) {
+        return path == null ? SQL : of(path.getFileName().toString());
+    }
+
+    /**
+     * Определяет вид миграции по имени файла или ресурса.
+     *
+     * @param fileName имя файла, например {@code V3__orders.chunked}
+     * @return вид миграции; {@link #SQL}, если расширение не распознано
+     */
+    public static MigrationType of(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        for (MigrationType type : values()) {
+            if (name.endsWith("." + type.extension)) {
+                return type;
+            }
+        }
+        return SQL;
+    }
+}
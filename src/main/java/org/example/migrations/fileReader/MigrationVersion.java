@@ -0,0 +1,116 @@
+package org.example.migrations.fileReader;
+
+import java.util.Arrays;
+
+/**
+ * Версия миграции, разобранная на числовые компоненты.
+ * <p>
+ * Поддерживаются как простые номера ({@code 1}, {@code 10}), так и составные версии
+ * с разделителями {@code .} или {@code _} ({@code 1.2.10}, {@code 2_1}). Сравнение выполняется
+ * покомпонентно по числам, поэтому {@code 2 < 10} и {@code 1.2.9 < 1.2.10}; недостающие
+ * компоненты считаются нулями ({@code 1 == 1.0}).
+ * </p>
+ */
+public final class MigrationVersion implements Comparable<MigrationVersion> {
+    private final int[] parts;
+    private final String text;
+
+    private MigrationVersion(int[] parts, String text) {
+        this.parts = parts;
+        this.text = text;
+    }
+
+    /**
+     * Разбирает строковое представление версии.
+     *
+     * @param version версия, например {@code 3} или {@code 1.2.10}
+     * @return разобранная версия
+     * @throws IllegalArgumentException, если строка не является корректной версией
+     */
+    public static MigrationVersion parse(String version) {
+        if (version == null || version.isBlank()) {
+            throw new IllegalArgumentException("Migration version must not be empty");
+        }
+        String text = version.trim();
+        String[] tokens = text.split("[._]", -1);
+        int[] parts = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            try {
+                parts[i] = Integer.parseInt(tokens[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid migration version: " + version, e);
+            }
+            if (parts[i] < 0) {
+                throw new IllegalArgumentException("Invalid migration version: " + version);
+            }
+        }
+        return new MigrationVersion(parts, text);
+    }
+
+    @Override
+    public int compareTo(MigrationVersion other) {
+        int length = Math.max(parts.length, other.parts.length);
+        for (int i = 0; i < length; i++) {
+            int left = i < parts.length ? parts[i] : 0;
+            int right = i < other.parts.length ? other.parts[i] : 0;
+            if (left != right) {
+                return Integer.compare(left, right);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Проверяет, что эта версия строго новее указанной.
+     *
+     * @param other версия для сравнения; null считается отсутствием версии
+     * @return true, если эта версия больше указанной
+     */
+    public boolean isNewerThan(MigrationVersion other) {
+        return other == null || compareTo(other) > 0;
+    }
+
+    /**
+     * Возвращает ключ сортировки версии: числовые компоненты без завершающих нулей.
+     * <p>
+     * Массивы PostgreSQL сравниваются поэлементно, а более короткий массив с тем же началом меньше,
+     * поэтому ключи упорядочены так же, как версии, а {@code 1} и {@code 1.0} дают один ключ {@code {1}}.
+     * Ключ хранится в applied_migration, чтобы наибольшая версия находилась по индексу на стороне базы данных.
+     * </p>
+     *
+     * @return компоненты версии для столбца {@code INTEGER ARRAY}
+     */
+    public Integer[] toSortKey() {
+        int length = parts.length;
+        while (length > 1 && parts[length - 1] == 0) {
+            length--;
+        }
+        Integer[] key = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            key[i] = parts[i];
+        }
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MigrationVersion other && compareTo(other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int length = parts.length;
+        while (length > 1 && parts[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.hashCode(Arrays.copyOf(parts, length));
+    }
+
+    /**
+     * Возвращает версию в исходном строковом виде, в котором она хранится в applied_migration.
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
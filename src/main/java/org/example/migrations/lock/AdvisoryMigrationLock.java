@@ -0,0 +1,79 @@
+package org.example.migrations.lock;
+
+import org.example.db.StatementCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Блокировка миграций на основе сеансовых advisory-блокировок PostgreSQL.
+ * <p>
+ * Ключ блокировки вычисляется из имени текущей схемы, поэтому миграции разных схем одной базы
+ * не мешают друг другу. Захват выполняется одним запросом {@code pg_try_advisory_lock}, который
+ * не ждет на сервере; ожидание реализовано опросом с ограниченным временем. Сеансовая блокировка
+ * снимается сервером при разрыве соединения, поэтому аварийно завершенный процесс не оставляет
+ * схему заблокированной.
+ * </p>
+ */
+public class AdvisoryMigrationLock extends PollingMigrationLock {
+    private static final Logger logger = LoggerFactory.getLogger(AdvisoryMigrationLock.class);
+    private static final String TRY_LOCK_SQL = """
+            SELECT pg_try_advisory_lock(lock_key), lock_key
+            FROM (SELECT hashtext('migration_lock:' || current_schema())::bigint AS lock_key) AS k
+            """;
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(?)";
+
+    private final Connection connection;
+    private StatementCache statementCache;
+    private Long lockKey;
+
+    /**
+     * Создает advisory-блокировку для схемы, установленной у соединения.
+     *
+     * @param connection соединение, на котором выполняются миграции; блокировка удерживается его сеансом
+     * @param waitMillis максимальное время ожидания занятой блокировки
+     */
+    public AdvisoryMigrationLock(Connection connection, long waitMillis) {
+        super(waitMillis);
+        this.connection = connection;
+    }
+
+    @Override
+    protected boolean tryAcquire() throws SQLException {
+        try (ResultSet resultSet = prepare(TRY_LOCK_SQL).executeQuery()) {
+            resultSet.next();
+            if (!resultSet.getBoolean(1)) {
+                return false;
+            }
+            lockKey = resultSet.getLong(2);
+            logger.debug("Acquired advisory migration lock {}", lockKey);
+            return true;
+        }
+    }
+
+    @Override
+    public void release() throws SQLException {
+        if (lockKey == null) {
+            return;
+        }
+        PreparedStatement preparedStatement = prepare(UNLOCK_SQL);
+        preparedStatement.setLong(1, lockKey);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (resultSet.next() && !resultSet.getBoolean(1)) {
+                logger.warn("Advisory migration lock {} was not held by this session", lockKey);
+            }
+        }
+        lockKey = null;
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        if (statementCache == null) {
+            statementCache = StatementCache.forConnection(connection);
+        }
+        return statementCache.prepare(sql);
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.migrations.lock;
+
+import java.sql.SQLException;
+
+/**
+ * Блокировка, гарантирующая, что миграции одной схемы выполняет только один процесс.
+ * <p>
+ * Реализации захватывают блокировку одним обращением к серверу и при занятой блокировке
+ * ожидают ее освобождения не дольше заданного времени.
+ * </p>
+ */
+public interface MigrationLock {
+
+    /**
+     * Захватывает блокировку, при необходимости ожидая ее освобождения.
+     *
+     * @throws IllegalStateException, если блокировка не освободилась за отведенное время
+     * @throws SQLException, если при взаимодействии с базой данных произошла ошибка
+     */
+    void acquire() throws SQLException;
+
+    /**
+     * Освобождает блокировку, захваченную этим экземпляром. Повторный вызов ничего не делает.
+     *
+     * @throws SQLException, если при взаимодействии с базой данных произошла ошибка
+     */
+    void release() throws SQLException;
+}
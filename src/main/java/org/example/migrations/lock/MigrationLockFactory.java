@@ -0,0 +1,54 @@
+package org.example.migrations.lock;
+
+import org.example.db.ConnectionSupplier;
+
+import java.sql.Connection;
+import java.util.Locale;
+
+/**
+ * Создает блокировки миграций выбранной стратегии.
+ * <p>
+ * Стратегия {@code advisory} использует advisory-блокировки PostgreSQL, стратегия {@code table} -
+ * таблицу migration_lock с арендой.
+ * </p>
+ */
+public class MigrationLockFactory {
+    public static final String ADVISORY = "advisory";
+    public static final String TABLE = "table";
+
+    private final String strategy;
+    private final long waitMillis;
+    private final long leaseMillis;
+
+    /**
+     * Создает фабрику блокировок.
+     *
+     * @param strategy {@code advisory} или {@code table}
+     * @param waitMillis максимальное время ожидания занятой блокировки
+     * @param leaseMillis срок аренды табличной блокировки
+     */
+    public MigrationLockFactory(String strategy, long waitMillis, long leaseMillis) {
+        String normalized = strategy == null ? ADVISORY : strategy.trim().toLowerCase(Locale.ROOT);
+        if (!ADVISORY.equals(normalized) && !TABLE.equals(normalized)) {
+            throw new IllegalArgumentException("Unknown migration lock strategy: " + strategy);
+        }
+        this.strategy = normalized;
+        this.waitMillis = waitMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Создает блокировку для соединения, на котором выполняются миграции.
+     *
+     * @param connection соединение миграции
+     * @param heartbeatConnections источник отдельного соединения для продления аренды табличной блокировки
+     *                           или null, если аренда не продлевается
+     * @return блокировка миграций
+     */
+    public MigrationLock create(Connection connection, ConnectionSupplier heartbeatConnections) {
+        if (ADVISORY.equals(strategy)) {
+            return new AdvisoryMigrationLock(connection, waitMillis);
+        }
+        return new TableMigrationLock(connection, leaseMillis, waitMillis, heartbeatConnections);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.migrations.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Базовая реализация ожидания блокировки.
+ * <p>
+ * Неблокирующая попытка захвата повторяется с экспоненциально растущим интервалом со случайным
+ * разбросом, чтобы одновременно запущенные процессы не опрашивали сервер синхронно. Ожидание не
+ * удерживает соединение в блокирующем вызове и ограничено заданным временем.
+ * </p>
+ */
+public abstract class PollingMigrationLock implements MigrationLock {
+    private static final Logger logger = LoggerFactory.getLogger(PollingMigrationLock.class);
+    private static final long MIN_POLL_MILLIS = 50;
+    private static final long MAX_POLL_MILLIS = 1000;
+
+    private final long waitMillis;
+
+    /**
+     * @param waitMillis максимальное время ожидания занятой блокировки; 0 означает одну попытку
+     */
+    protected PollingMigrationLock(long waitMillis) {
+        this.waitMillis = Math.max(0, waitMillis);
+    }
+
+    /**
+     * Выполняет одну неблокирующую попытку захвата.
+     *
+     * @return true, если блокировка захвачена
+     * @throws SQLException, если при взаимодействии с базой данных произошла ошибка
+     */
+    protected abstract boolean tryAcquire() throws SQLException;
+
+    /**
+     * Захватывает блокировку, повторяя попытки до истечения времени ожидания.
+     *
+     * @throws IllegalStateException, если блокировка осталась занятой по истечении времени ожидания
+     * @throws SQLException, если попытка захвата завершилась ошибкой или ожидание было прервано
+     */
+    @Override
+    public void acquire() throws SQLException {
+        long deadline = System.nanoTime() + waitMillis * 1_000_000;
+        for (int attempt = 1; !tryAcquire(); attempt++) {
+            long remaining = (deadline - System.nanoTime()) / 1_000_000;
+            if (remaining <= 0) {
+                logger.error("Migration is already locked by another process.");
+                throw new IllegalStateException("Migration is locked. Another process is currently performing a migration.");
+            }
+            long pause = Math.min(remaining, backoffMillis(attempt));
+            logger.debug("Migration lock is busy, retrying in {} ms", pause);
+            try {
+                sleep(pause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the migration lock", e);
+            }
+        }
+    }
+
+    /**
+     * Вычисляет паузу после неудачной попытки: интервал удваивается от 50 до 1000 мс,
+     * а пауза выбирается случайно между половиной интервала и полным интервалом.
+     *
+     * @param attempt номер неудачной попытки, начиная с 1
+     * @return пауза перед следующей попыткой (мс)
+     */
+    public static long backoffMillis(int attempt) {
+        long interval = MIN_POLL_MILLIS << Math.min(attempt - 1, 10);
+        interval = Math.min(MAX_POLL_MILLIS, interval);
+        return ThreadLocalRandom.current().nextLong(interval / 2, interval + 1);
+    }
+
+    /**
+     * Приостанавливает поток между попытками захвата.
+     *
+     * @param millis длительность паузы (мс)
+     * @throws InterruptedException, если ожидание было прервано
+     */
+    protected void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+}
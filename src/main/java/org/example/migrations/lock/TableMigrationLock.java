@@ -0,0 +1,186 @@
+package org.example.migrations.lock;
+
+import org.example.db.ConnectionSupplier;
+import org.example.db.StatementCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Блокировка миграций на основе таблицы {@code migration_lock} с арендой.
+ * <p>
+ * Захват выполняется одним выражением {@code INSERT ... ON CONFLICT DO UPDATE}, которое срабатывает,
+ * только если блокировка свободна или срок ее аренды истек, поэтому проверка и захват не разделены
+ * во времени. Блокировка, оставленная аварийно завершенным процессом, освобождается по истечении аренды.
+ * </p>
+ * <p>
+ * Пока блокировка удерживается, аренда продлевается фоновым потоком через отдельное соединение:
+ * соединение миграции находится в открытой транзакции, и изменения, сделанные через него,
+ * не видны другим процессам до фиксации. Без соединения для продления миграция должна укладываться
+ * в срок аренды.
+ * </p>
+ */
+public class TableMigrationLock extends PollingMigrationLock {
+    private static final Logger logger = LoggerFactory.getLogger(TableMigrationLock.class);
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO migration_lock (id, locked, locked_at, locked_by, lease_until)
+            VALUES (1, TRUE, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond')
+            ON CONFLICT (id) DO UPDATE
+            SET locked = TRUE, locked_at = EXCLUDED.locked_at, locked_by = EXCLUDED.locked_by,
+                lease_until = EXCLUDED.lease_until
+            WHERE NOT migration_lock.locked
+               OR COALESCE(migration_lock.lease_until,
+                           migration_lock.locked_at + ? * INTERVAL '1 millisecond') < CURRENT_TIMESTAMP
+            """;
+    private static final String RENEW_SQL =
+            "UPDATE migration_lock SET lease_until = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' WHERE id = 1 AND locked_by = ?";
+    private static final String RELEASE_SQL =
+            "UPDATE migration_lock SET locked = FALSE, locked_at = NULL, locked_by = NULL, lease_until = NULL WHERE id = 1 AND locked_by = ?";
+
+    private final Connection connection;
+    private final long leaseMillis;
+    private final ConnectionSupplier heartbeatConnections;
+    private StatementCache statementCache;
+    private boolean tableInitialized;
+    private String lockedBy;
+    private Connection heartbeatConnection;
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * Создает табличную блокировку.
+     *
+     * @param connection соединение, на котором выполняются миграции
+     * @param leaseMillis срок аренды блокировки
+     * @param waitMillis максимальное время ожидания занятой блокировки
+     * @param heartbeatConnections источник соединения для продления аренды или null, если аренда не продлевается
+     */
+    public TableMigrationLock(Connection connection, long leaseMillis, long waitMillis,
+                              ConnectionSupplier heartbeatConnections) {
+        super(waitMillis);
+        if (leaseMillis < 1) {
+            throw new IllegalArgumentException("Lock lease must be positive: " + leaseMillis);
+        }
+        this.connection = connection;
+        this.leaseMillis = leaseMillis;
+        this.heartbeatConnections = heartbeatConnections;
+    }
+
+    /**
+     * Создает таблицу migration_lock, если она еще не существует, и добавляет столбец lease_until
+     * в таблицу, созданную предыдущими версиями инструмента.
+     *
+     * @param connection соединение с базой данных
+     * @throws SQLException, если при создании таблицы возникла ошибка базы данных
+     */
+    public static void initializeTable(Connection connection) throws SQLException {
+        String sql = """
+                CREATE TABLE IF NOT EXISTS migration_lock (
+                      id INT PRIMARY KEY,
+                      locked BOOLEAN NOT NULL,
+                      locked_at TIMESTAMP,
+                      locked_by VARCHAR(255),
+                      lease_until TIMESTAMP
+                  );
+                """;
+        String addLeaseSql = "ALTER TABLE migration_lock ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            statement.execute(addLeaseSql);
+        }
+    }
+
+    @Override
+    public void acquire() throws SQLException {
+        if (!tableInitialized) {
+            initializeTable(connection);
+            tableInitialized = true;
+        }
+        lockedBy = "user-" + System.getProperty("user.name") + "-" + System.currentTimeMillis();
+        super.acquire();
+        startHeartbeat();
+    }
+
+    @Override
+    protected boolean tryAcquire() throws SQLException {
+        PreparedStatement preparedStatement = prepare(ACQUIRE_SQL);
+        preparedStatement.setString(1, lockedBy);
+        preparedStatement.setLong(2, leaseMillis);
+        preparedStatement.setLong(3, leaseMillis);
+        return preparedStatement.executeUpdate() > 0;
+    }
+
+    @Override
+    public void release() throws SQLException {
+        if (lockedBy == null) {
+            return;
+        }
+        stopHeartbeat();
+        PreparedStatement preparedStatement = prepare(RELEASE_SQL);
+        preparedStatement.setString(1, lockedBy);
+        if (preparedStatement.executeUpdate() == 0) {
+            logger.warn("Migration lock held by {} had already been taken over", lockedBy);
+        }
+        lockedBy = null;
+    }
+
+    private void startHeartbeat() throws SQLException {
+        if (heartbeatConnections == null) {
+            return;
+        }
+        heartbeatConnection = heartbeatConnections.get();
+        heartbeatConnection.setAutoCommit(true);
+        String owner = lockedBy;
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "migration-lock-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leaseMillis / 3);
+        heartbeat.scheduleWithFixedDelay(() -> renew(owner), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(String owner) {
+        try (PreparedStatement preparedStatement = heartbeatConnection.prepareStatement(RENEW_SQL)) {
+            preparedStatement.setLong(1, leaseMillis);
+            preparedStatement.setString(2, owner);
+            if (preparedStatement.executeUpdate() == 0) {
+                logger.warn("Migration lock held by {} was lost before it could be renewed", owner);
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to renew migration lock lease: {}", e.getMessage());
+        }
+    }
+
+    private void stopHeartbeat() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdownNow();
+        try {
+            heartbeat.awaitTermination(leaseMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        heartbeat = null;
+        try {
+            heartbeatConnection.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close heartbeat connection: {}", e.getMessage());
+        }
+        heartbeatConnection = null;
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        if (statementCache == null) {
+            statementCache = StatementCache.forConnection(connection);
+        }
+        return statementCache.prepare(sql);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.migrations.metrics;
+
+/**
+ * Измеряет время, которое соединение провело в ожидании блокировок во время выполнения выражения.
+ */
+public interface LockWaitProbe {
+    /**
+     * Пробник для соединений, ожидание блокировок которых не измеряется.
+     */
+    LockWaitProbe NONE = new LockWaitProbe() {
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public long end() {
+            return 0;
+        }
+    };
+
+    /**
+     * Начинает измерение перед выполнением выражения.
+     */
+    void begin();
+
+    /**
+     * Завершает измерение после выполнения выражения.
+     *
+     * @return время ожидания блокировок в наносекундах
+     */
+    long end();
+}
@@ -0,0 +1,143 @@
+package org.example.migrations.metrics;
+
+import org.example.db.ConnectionSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Оценивает время ожидания блокировок выражениями миграций опросом {@code pg_stat_activity}.
+ * <p>
+ * JDBC не сообщает, сколько выражение ждало блокировку, поэтому отдельный поток через собственное
+ * соединение с заданным интервалом проверяет, какие из выполняющих выражения сеансов находятся в
+ * состоянии {@code wait_event_type = 'Lock'}, и начисляет им интервал опроса. Точность измерения
+ * равна интервалу; пока ни одно выражение не выполняется, запросы не отправляются.
+ * Один поток и одно соединение обслуживают все сеансы процесса.
+ * </p>
+ */
+public class LockWaitSampler implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(LockWaitSampler.class);
+    private static final String WAITING_SQL =
+            "SELECT pid FROM pg_stat_activity WHERE pid = ANY (?) AND wait_event_type = 'Lock'";
+
+    private final ConnectionSupplier connections;
+    private final long intervalMillis;
+    private final Map<Integer, LongAdder> active = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sampler;
+    private Connection connection;
+    private PreparedStatement waiting;
+
+    /**
+     * Создает опрашивающий поток; он запускается при первом измерении.
+     *
+     * @param connections источник соединения для опроса pg_stat_activity
+     * @param intervalMillis интервал опроса
+     */
+    public LockWaitSampler(ConnectionSupplier connections, long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Lock wait sample interval must be positive: " + intervalMillis);
+        }
+        this.connections = connections;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Возвращает пробник для сеанса PostgreSQL.
+     *
+     * @param backendPid идентификатор серверного процесса сеанса
+     * @return пробник, измеряющий ожидание блокировок этим сеансом
+     */
+    public LockWaitProbe probe(int backendPid) {
+        return new LockWaitProbe() {
+            @Override
+            public void begin() {
+                active.put(backendPid, new LongAdder());
+                ensureStarted();
+            }
+
+            @Override
+            public long end() {
+                LongAdder waited = active.remove(backendPid);
+                return waited == null ? 0 : waited.sum();
+            }
+        };
+    }
+
+    private synchronized void ensureStarted() {
+        if (sampler != null) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "migration-lock-wait-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() {
+        if (active.isEmpty()) {
+            return;
+        }
+        try {
+            if (connection == null) {
+                connection = connections.get();
+                connection.setAutoCommit(true);
+                waiting = connection.prepareStatement(WAITING_SQL);
+            }
+            Array pids = connection.createArrayOf("integer", active.keySet().toArray());
+            waiting.setArray(1, pids);
+            long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            try (ResultSet rs = waiting.executeQuery()) {
+                while (rs.next()) {
+                    LongAdder waited = active.get(rs.getInt(1));
+                    if (waited != null) {
+                        waited.add(intervalNanos);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.debug("Lock wait sampling failed: {}", e.getMessage());
+            closeConnection();
+        }
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close lock wait sampling connection: {}", e.getMessage());
+        }
+        connection = null;
+        waiting = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            try {
+                sampler.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sampler = null;
+        }
+        closeConnection();
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.migrations.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR о применении одной миграции.
+ */
+@Name("org.example.migrations.Migration")
+@Label("Migration")
+@Category({"Database Migration"})
+@Description("Application of one migration file")
+final class MigrationEvent extends jdk.jfr.Event {
+    @Label("Version")
+    String version;
+
+    @Label("Description")
+    String description;
+
+    @Label("Rows Affected")
+    long rowsAffected;
+
+    @Label("Statements")
+    long statements;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long lockWait;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,408 @@
+package org.example.migrations.metrics;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.db.ConnectionSupplier;
+import org.postgresql.PGConnection;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Собирает измерения миграций: время, число измененных строк и время ожидания блокировок для каждой
+ * миграции и каждого выражения, а также длительность захвата блокировки миграций, чтения файлов и
+ * записи отчетов.
+ * <p>
+ * Каждое измерение публикуется как событие JFR ({@code org.example.migrations.*}, категория
+ * «Database Migration»), поэтому запись {@code -XX:StartFlightRecording} показывает медленные миграции
+ * на временной шкале вместе с GC и вводом-выводом. Итоговые значения накапливаются в памяти и
+ * выгружаются методом {@link #writeTo(Path)} в текстовом формате Prometheus или в JSON.
+ * </p>
+ * <p>
+ * Объем памяти не зависит от числа миграций: по зафиксированным миграциям хранятся счетчики и гистограмма
+ * длительности, а отдельно - только {@link #SLOWEST_LIMIT} самых долгих миграций. Миграция учитывается
+ * после фиксации ее транзакции ({@link #recordCommitted(MigrationStats)}); попытки, откатанные из-за ошибки
+ * или перед повтором, учитываются только счетчиком ошибок и в итогах выражений.
+ * </p>
+ * <p>
+ * Время ожидания блокировок выражениями измеряется, только если задан интервал опроса
+ * ({@link LockWaitSampler}); иначе оно равно нулю. Экземпляр безопасен для использования из нескольких потоков.
+ * </p>
+ */
+public class MigrationMetrics implements Closeable {
+
+    /**
+     * Служебный этап миграции.
+     */
+    public enum Phase {
+        LOCK_ACQUIRE("lock_acquire"),
+        FILE_LOAD("file_load"),
+        REPORT_WRITE("report_write");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Возвращает имя этапа, используемое в метриках.
+         *
+         * @return имя этапа в нижнем регистре
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /** Число самых долгих миграций, сохраняемых с версией. */
+    public static final int SLOWEST_LIMIT = 10;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    /** Верхние границы корзин гистограммы длительности миграций в секундах. */
+    private static final double[] DURATION_BUCKETS = {0.01, 0.1, 1, 10, 60, 300, 1800};
+    private static final Comparator<MigrationStats> BY_DURATION =
+            Comparator.comparingLong(MigrationStats::getDurationNanos);
+    /**
+     * Метрики, которые ничего не накапливают: для исполнителей, созданных без общих метрик процесса.
+     * События JFR при этом публикуются.
+     */
+    public static final MigrationMetrics DISABLED = new MigrationMetrics(null, 0, false);
+
+    private final boolean enabled;
+    private final LockWaitSampler lockWaitSampler;
+    private final LongAdder[] durationBuckets = new LongAdder[DURATION_BUCKETS.length];
+    private final LongAdder committedCount = new LongAdder();
+    private final LongAdder committedNanos = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final LongAdder migrationLockWaitNanos = new LongAdder();
+    private final LongAdder migrationStatements = new LongAdder();
+    /** Самые долгие миграции; в вершине кучи - самая короткая из них. */
+    private final PriorityQueue<MigrationStats> slowest = new PriorityQueue<>(SLOWEST_LIMIT + 1, BY_DURATION);
+    private final LongAdder statementCount = new LongAdder();
+    private final LongAdder statementNanos = new LongAdder();
+    private final LongAdder statementLockWaitNanos = new LongAdder();
+    private final Map<Phase, LongAdder> phaseCounts = new EnumMap<>(Phase.class);
+    private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+
+    /**
+     * Создает набор метрик без измерения ожидания блокировок выражениями.
+     */
+    public MigrationMetrics() {
+        this(null, 0);
+    }
+
+    /**
+     * Создает набор метрик.
+     *
+     * @param lockWaitConnections источник соединения для опроса ожидания блокировок или null
+     * @param lockWaitSampleMillis интервал опроса ожидания блокировок; 0 отключает измерение
+     */
+    public MigrationMetrics(ConnectionSupplier lockWaitConnections, long lockWaitSampleMillis) {
+        this(lockWaitConnections, lockWaitSampleMillis, true);
+    }
+
+    private MigrationMetrics(ConnectionSupplier lockWaitConnections, long lockWaitSampleMillis, boolean enabled) {
+        this.enabled = enabled;
+        this.lockWaitSampler = lockWaitConnections != null && lockWaitSampleMillis > 0
+                ? new LockWaitSampler(lockWaitConnections, lockWaitSampleMillis)
+                : null;
+        for (int i = 0; i < durationBuckets.length; i++) {
+            durationBuckets[i] = new LongAdder();
+        }
+        for (Phase phase : Phase.values()) {
+            phaseCounts.put(phase, new LongAdder());
+            phaseNanos.put(phase, new LongAdder());
+        }
+    }
+
+    /**
+     * Начинает измерение миграции, выполняемой на указанном соединении.
+     *
+     * @param version версия миграции
+     * @param description описание миграции
+     * @param connection соединение, на котором выполняются выражения миграции
+     * @return измеритель миграции
+     * @throws SQLException, если не удалось определить серверный процесс соединения
+     */
+    public MigrationTimer startMigration(String version, String description, Connection connection)
+            throws SQLException {
+        LockWaitProbe probe = LockWaitProbe.NONE;
+        if (lockWaitSampler != null && connection.isWrapperFor(PGConnection.class)) {
+            probe = lockWaitSampler.probe(connection.unwrap(PGConnection.class).getBackendPID());
+        }
+        return new MigrationTimer(this, version, description, probe);
+    }
+
+    /**
+     * Начинает измерение служебного этапа.
+     *
+     * @param phase этап
+     * @return измеритель, завершающий измерение при закрытии
+     */
+    public PhaseTimer startPhase(Phase phase) {
+        return new PhaseTimer(this, phase);
+    }
+
+    void recordStatement(long nanos, long lockWaitNanos) {
+        if (!enabled) {
+            return;
+        }
+        statementCount.increment();
+        statementNanos.add(nanos);
+        statementLockWaitNanos.add(lockWaitNanos);
+    }
+
+    /**
+     * Учитывает миграцию, транзакция которой зафиксирована.
+     *
+     * @param stats измерения миграции
+     */
+    public void recordCommitted(MigrationStats stats) {
+        if (!enabled) {
+            return;
+        }
+        committedCount.increment();
+        committedNanos.add(stats.getDurationNanos());
+        rowsAffected.add(stats.getRowsAffected());
+        migrationLockWaitNanos.add(stats.getLockWaitNanos());
+        migrationStatements.add(stats.getStatements());
+        double seconds = stats.getDurationNanos() / 1e9;
+        for (int i = 0; i < DURATION_BUCKETS.length; i++) {
+            if (seconds <= DURATION_BUCKETS[i]) {
+                durationBuckets[i].increment();
+                break;
+            }
+        }
+        synchronized (slowest) {
+            if (slowest.size() < SLOWEST_LIMIT) {
+                slowest.add(stats);
+            } else if (BY_DURATION.compare(stats, slowest.peek()) > 0) {
+                slowest.poll();
+                slowest.add(stats);
+            }
+        }
+    }
+
+    /**
+     * Учитывает миграцию, завершившуюся ошибкой и откатанную.
+     */
+    public void recordFailed() {
+        if (enabled) {
+            failedCount.increment();
+        }
+    }
+
+    void recordPhase(Phase phase, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        phaseCounts.get(phase).increment();
+        phaseNanos.get(phase).add(nanos);
+    }
+
+    /**
+     * Возвращает не более {@link #SLOWEST_LIMIT} самых долгих зафиксированных миграций.
+     *
+     * @return измерения миграций в порядке убывания длительности
+     */
+    public List<MigrationStats> getSlowestMigrations() {
+        List<MigrationStats> result;
+        synchronized (slowest) {
+            result = new ArrayList<>(slowest);
+        }
+        result.sort(BY_DURATION.reversed());
+        return result;
+    }
+
+    /**
+     * Возвращает число зафиксированных миграций.
+     *
+     * @return число миграций
+     */
+    public long getCommittedCount() {
+        return committedCount.sum();
+    }
+
+    /**
+     * Возвращает число миграций, завершившихся ошибкой.
+     *
+     * @return число миграций
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * Возвращает суммарную длительность этапа.
+     *
+     * @param phase этап
+     * @return длительность в наносекундах
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos.get(phase).sum();
+    }
+
+    /**
+     * Сохраняет метрики в файл: в формате JSON, если имя файла оканчивается на {@code .json},
+     * иначе в текстовом формате Prometheus (подходит для textfile collector node_exporter).
+     * Запись выполняется во временный файл с последующим атомарным переименованием.
+     *
+     * @param file путь к файлу метрик
+     * @throws IOException, если файл не удалось записать
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getFileName().toString().endsWith(".json")) {
+            writeJson(temp);
+        } else {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writePrometheus(writer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Записывает метрики в текстовом формате Prometheus.
+     *
+     * @param writer получатель текста
+     * @throws IOException, если текст не удалось записать
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+        writer.write("# HELP migration_duration_seconds Wall time of committed migrations.\n");
+        writer.write("# TYPE migration_duration_seconds histogram\n");
+        long cumulative = 0;
+        for (int i = 0; i < DURATION_BUCKETS.length; i++) {
+            cumulative += durationBuckets[i].sum();
+            writer.write("migration_duration_seconds_bucket{le=\"" + DURATION_BUCKETS[i] + "\"} " + cumulative + "\n");
+        }
+        long committed = committedCount.sum();
+        writer.write("migration_duration_seconds_bucket{le=\"+Inf\"} " + committed + "\n");
+        writer.write("migration_duration_seconds_sum " + seconds(committedNanos.sum()) + "\n");
+        writer.write("migration_duration_seconds_count " + committed + "\n");
+        counter(writer, "migration_failures_total", "Migrations that failed and were rolled back.",
+                Long.toString(failedCount.sum()));
+        counter(writer, "migration_rows_affected_total", "Rows changed by the statements of committed migrations.",
+                Long.toString(rowsAffected.sum()));
+        counter(writer, "migration_lock_wait_seconds_total", "Time the statements of committed migrations waited for locks.",
+                seconds(migrationLockWaitNanos.sum()));
+        counter(writer, "migration_statements_total", "Statements or JDBC batches executed by committed migrations.",
+                Long.toString(migrationStatements.sum()));
+
+        writer.write("# HELP migration_slowest_duration_seconds Wall time of the " + SLOWEST_LIMIT
+                + " slowest committed migrations.\n");
+        writer.write("# TYPE migration_slowest_duration_seconds gauge\n");
+        for (MigrationStats stats : getSlowestMigrations()) {
+            writer.write("migration_slowest_duration_seconds{version=\"" + escape(stats.getVersion()) + "\"} "
+                    + seconds(stats.getDurationNanos()) + "\n");
+        }
+
+        writer.write("# HELP migration_statement_duration_seconds Wall time of all migration statements.\n");
+        writer.write("# TYPE migration_statement_duration_seconds summary\n");
+        writer.write("migration_statement_duration_seconds_count " + statementCount.sum() + "\n");
+        writer.write("migration_statement_duration_seconds_sum " + seconds(statementNanos.sum()) + "\n");
+        writer.write("# HELP migration_statement_lock_wait_seconds_total Time all migration statements waited for locks.\n");
+        writer.write("# TYPE migration_statement_lock_wait_seconds_total counter\n");
+        writer.write("migration_statement_lock_wait_seconds_total " + seconds(statementLockWaitNanos.sum()) + "\n");
+
+        writer.write("# HELP migration_phase_duration_seconds Wall time of lock acquisition, file loading and report writing.\n");
+        writer.write("# TYPE migration_phase_duration_seconds summary\n");
+        for (Phase phase : Phase.values()) {
+            String labels = "{phase=\"" + phase.getName() + "\"}";
+            writer.write("migration_phase_duration_seconds_count" + labels + " " + phaseCounts.get(phase).sum() + "\n");
+            writer.write("migration_phase_duration_seconds_sum" + labels + " " + seconds(phaseNanos.get(phase).sum()) + "\n");
+        }
+    }
+
+    private void writeJson(Path file) throws IOException {
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeObjectFieldStart("migrations");
+            json.writeNumberField("committed", committedCount.sum());
+            json.writeNumberField("failed", failedCount.sum());
+            json.writeNumberField("totalMillis", committedNanos.sum() / 1_000_000);
+            json.writeNumberField("rowsAffected", rowsAffected.sum());
+            json.writeNumberField("lockWaitMillis", migrationLockWaitNanos.sum() / 1_000_000);
+            json.writeNumberField("statements", migrationStatements.sum());
+            json.writeEndObject();
+            json.writeArrayFieldStart("slowest");
+            for (MigrationStats stats : getSlowestMigrations()) {
+                json.writeStartObject();
+                json.writeStringField("version", stats.getVersion());
+                json.writeStringField("description", stats.getDescription());
+                json.writeNumberField("durationMillis", stats.getDurationMillis());
+                json.writeNumberField("rowsAffected", stats.getRowsAffected());
+                json.writeNumberField("lockWaitMillis", stats.getLockWaitMillis());
+                json.writeNumberField("statements", stats.getStatements());
+                json.writeNumberField("slowestStatementMillis", stats.getSlowestStatementNanos() / 1_000_000);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeObjectFieldStart("statements");
+            json.writeNumberField("count", statementCount.sum());
+            json.writeNumberField("totalMillis", statementNanos.sum() / 1_000_000);
+            json.writeNumberField("lockWaitMillis", statementLockWaitNanos.sum() / 1_000_000);
+            json.writeEndObject();
+            json.writeObjectFieldStart("phases");
+            for (Phase phase : Phase.values()) {
+                json.writeObjectFieldStart(phase.getName());
+                json.writeNumberField("count", phaseCounts.get(phase).sum());
+                json.writeNumberField("totalMillis", phaseNanos.get(phase).sum() / 1_000_000);
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    private static void counter(Writer writer, String name, String help, String value) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " counter\n");
+        writer.write(name + " " + value + "\n");
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+    }
+
+    private static String escape(String label) {
+        if (label == null) {
+            return "";
+        }
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Останавливает опрос ожидания блокировок и закрывает его соединение.
+     */
+    @Override
+    public void close() {
+        if (lockWaitSampler != null) {
+            lockWaitSampler.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.migrations.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измерения одной примененной (или завершившейся ошибкой) миграции.
+ */
+public class MigrationStats {
+    private final String version;
+    private final String description;
+    private final boolean success;
+    private final long durationNanos;
+    private final long rowsAffected;
+    private final long lockWaitNanos;
+    private final long statements;
+    private final long slowestStatementNanos;
+
+    /**
+     * Создает измерения миграции.
+     *
+     * @param version версия миграции
+     * @param description описание миграции
+     * @param success true, если миграция выполнена без ошибок
+     * @param durationNanos общее время выполнения
+     * @param rowsAffected число строк, измененных выражениями миграции
+     * @param lockWaitNanos время ожидания блокировок выражениями миграции
+     * @param statements число выполненных выражений или пакетов
+     * @param slowestStatementNanos время самого долгого выражения
+     */
+    public MigrationStats(String version, String description, boolean success, long durationNanos, long rowsAffected,
+                          long lockWaitNanos, long statements, long slowestStatementNanos) {
+        this.version = version;
+        this.description = description;
+        this.success = success;
+        this.durationNanos = durationNanos;
+        this.rowsAffected = rowsAffected;
+        this.lockWaitNanos = lockWaitNanos;
+        this.statements = statements;
+        this.slowestStatementNanos = slowestStatementNanos;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    public long getRowsAffected() {
+        return rowsAffected;
+    }
+
+    public long getLockWaitNanos() {
+        return lockWaitNanos;
+    }
+
+    public long getLockWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lockWaitNanos);
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getSlowestStatementNanos() {
+        return slowestStatementNanos;
+    }
+}
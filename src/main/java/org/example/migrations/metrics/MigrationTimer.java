@@ -0,0 +1,82 @@
+package org.example.migrations.metrics;
+
+/**
+ * Измеряет применение одной миграции и ее выражений. Используется одним потоком.
+ */
+public final class MigrationTimer {
+    private static final int MAX_SQL_LENGTH = 512;
+
+    private final MigrationMetrics metrics;
+    private final LockWaitProbe lockWaitProbe;
+    private final MigrationEvent event = new MigrationEvent();
+    private final long started;
+    private long rowsAffected;
+    private long lockWaitNanos;
+    private long statements;
+    private long slowestStatementNanos;
+
+    MigrationTimer(MigrationMetrics metrics, String version, String description, LockWaitProbe lockWaitProbe) {
+        this.metrics = metrics;
+        this.lockWaitProbe = lockWaitProbe;
+        event.version = version;
+        event.description = description;
+        event.begin();
+        started = System.nanoTime();
+    }
+
+    /**
+     * Начинает измерение выражения или пакета выражений.
+     *
+     * @param statementNumber номер выражения в миграции, начиная с 1
+     * @param sql текст выражения или описание пакета
+     * @return измеритель выражения
+     */
+    public StatementTimer startStatement(int statementNumber, String sql) {
+        StatementEvent statementEvent = new StatementEvent();
+        if (statementEvent.isEnabled()) {
+            statementEvent.version = event.version;
+            statementEvent.statementNumber = statementNumber;
+            statementEvent.sql = sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql;
+        }
+        statementEvent.begin();
+        lockWaitProbe.begin();
+        return new StatementTimer(this, statementEvent, System.nanoTime());
+    }
+
+    void statementFinished(StatementEvent statementEvent, long startedNanos, long rows) {
+        long elapsed = System.nanoTime() - startedNanos;
+        long lockWait = lockWaitProbe.end();
+        statementEvent.end();
+        if (statementEvent.shouldCommit()) {
+            statementEvent.rowsAffected = rows;
+            statementEvent.lockWait = lockWait;
+            statementEvent.commit();
+        }
+        rowsAffected += Math.max(0, rows);
+        lockWaitNanos += lockWait;
+        statements++;
+        slowestStatementNanos = Math.max(slowestStatementNanos, elapsed);
+        metrics.recordStatement(elapsed, lockWait);
+    }
+
+    /**
+     * Завершает измерение миграции. В итоги метрик миграция попадает после фиксации транзакции
+     * через {@link MigrationMetrics#recordCommitted(MigrationStats)}.
+     *
+     * @param success true, если миграция выполнена без ошибок
+     * @return измерения миграции
+     */
+    public MigrationStats stop(boolean success) {
+        long elapsed = System.nanoTime() - started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rowsAffected = rowsAffected;
+            event.statements = statements;
+            event.lockWait = lockWaitNanos;
+            event.success = success;
+            event.commit();
+        }
+        return new MigrationStats(event.version, event.description, success, elapsed, rowsAffected,
+                lockWaitNanos, statements, slowestStatementNanos);
+    }
+}
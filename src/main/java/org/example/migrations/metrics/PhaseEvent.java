@@ -0,0 +1,18 @@
+package org.example.migrations.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR о служебном этапе миграции: захвате блокировки, чтении файлов или записи отчетов.
+ */
+@Name("org.example.migrations.Phase")
+@Label("Migration Phase")
+@Category({"Database Migration"})
+@Description("Lock acquisition, file loading or report writing")
+final class PhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+}
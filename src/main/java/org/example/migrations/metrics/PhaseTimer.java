@@ -0,0 +1,26 @@
+package org.example.migrations.metrics;
+
+/**
+ * Измеряет служебный этап миграции; измерение завершается закрытием.
+ */
+public final class PhaseTimer implements AutoCloseable {
+    private final MigrationMetrics metrics;
+    private final MigrationMetrics.Phase phase;
+    private final PhaseEvent event = new PhaseEvent();
+    private final long started;
+
+    PhaseTimer(MigrationMetrics metrics, MigrationMetrics.Phase phase) {
+        this.metrics = metrics;
+        this.phase = phase;
+        event.phase = phase.getName();
+        event.begin();
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        long elapsed = System.nanoTime() - started;
+        event.commit();
+        metrics.recordPhase(phase, elapsed);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.migrations.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR о выполнении одного выражения миграции или пакета выражений.
+ */
+@Name("org.example.migrations.Statement")
+@Label("Migration Statement")
+@Category({"Database Migration"})
+@Description("Execution of one migration statement or JDBC batch")
+final class StatementEvent extends jdk.jfr.Event {
+    @Label("Version")
+    String version;
+
+    @Label("Statement Number")
+    int statementNumber;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows Affected")
+    long rowsAffected;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long lockWait;
+}
@@ -0,0 +1,25 @@
+package org.example.migrations.metrics;
+
+/**
+ * Измеряет выполнение одного выражения миграции.
+ */
+public final class StatementTimer {
+    private final MigrationTimer migrationTimer;
+    private final StatementEvent event;
+    private final long started;
+
+    StatementTimer(MigrationTimer migrationTimer, StatementEvent event, long started) {
+        this.migrationTimer = migrationTimer;
+        this.event = event;
+        this.started = started;
+    }
+
+    /**
+     * Завершает измерение выражения.
+     *
+     * @param rowsAffected число измененных строк или отрицательное значение, если оно неизвестно
+     */
+    public void stop(long rowsAffected) {
+        migrationTimer.statementFinished(event, started, rowsAffected);
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.migrations.parallel;
+
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationVersion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Граф зависимостей между ожидающими миграциями.
+ * <p>
+ * Зависимости задаются директивой {@code -- depends-on:} в заголовке сценария и могут ссылаться
+ * только на более ранние версии, поэтому граф всегда ацикличен, а порядок версий является
+ * топологическим. Миграция без директивы зависит от всех более ранних ожидающих миграций, то есть
+ * сохраняет последовательную семантику. Зависимости от уже примененных версий считаются выполненными.
+ * </p>
+ */
+public final class MigrationGraph {
+    private final List<MigrationFile> files;
+    private final int[][] dependencies;
+    private final int[][] dependents;
+
+    private MigrationGraph(List<MigrationFile> files, int[][] dependencies, int[][] dependents) {
+        this.files = files;
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+    }
+
+    /**
+     * Строит граф для ожидающих миграций, читая заголовки сценариев.
+     *
+     * @param pending ожидающие миграции в порядке возрастания версий
+     * @param catalog полный каталог миграций, по которому проверяются ссылки на уже примененные версии
+     * @return граф зависимостей
+     * @throws IOException, если заголовок сценария не удалось прочитать
+     * @throws IllegalStateException, если миграция ссылается на неизвестную или не более раннюю версию
+     */
+    public static MigrationGraph build(List<MigrationFile> pending, MigrationCatalog catalog) throws IOException {
+        int size = pending.size();
+        Map<MigrationVersion, Integer> indexes = new HashMap<>();
+        List<List<Integer>> dependentLists = new ArrayList<>(size);
+        int[][] dependencies = new int[size][];
+        // Миграции, от которых пока никто не зависит: зависимость от них покрывает все более ранние миграции
+        Set<Integer> sinks = new LinkedHashSet<>();
+
+        for (int i = 0; i < size; i++) {
+            MigrationFile file = pending.get(i);
+            List<MigrationVersion> declared = file.getHeader().getDependsOn();
+            Set<Integer> direct = new LinkedHashSet<>();
+            if (declared == null) {
+                direct.addAll(sinks);
+            } else {
+                for (MigrationVersion version : declared) {
+                    if (version.compareTo(file.getMigrationVersion()) >= 0) {
+                        throw new IllegalStateException("Migration " + file + " depends on V" + version
+                                + ", which is not an earlier version");
+                    }
+                    Integer index = indexes.get(version);
+                    if (index != null) {
+                        direct.add(index);
+                    } else if (catalog.find(version) == null) {
+                        throw new IllegalStateException("Migration " + file + " depends on unknown migration V" + version);
+                    }
+                }
+            }
+            dependencies[i] = direct.stream().mapToInt(Integer::intValue).toArray();
+            for (int dependency : dependencies[i]) {
+                dependentLists.get(dependency).add(i);
+                sinks.remove(dependency);
+            }
+            sinks.add(i);
+            indexes.put(file.getMigrationVersion(), i);
+            dependentLists.add(new ArrayList<>());
+        }
+
+        int[][] dependents = new int[size][];
+        for (int i = 0; i < size; i++) {
+            dependents[i] = dependentLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new MigrationGraph(List.copyOf(pending), dependencies, dependents);
+    }
+
+    /**
+     * Возвращает число миграций в графе.
+     *
+     * @return число миграций
+     */
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * Возвращает миграцию по номеру.
+     *
+     * @param index номер миграции в порядке версий
+     * @return миграция
+     */
+    public MigrationFile getFile(int index) {
+        return files.get(index);
+    }
+
+    /**
+     * Возвращает непосредственные зависимости миграции.
+     *
+     * @param index номер миграции в порядке версий
+     * @return номера миграций, которые должны быть применены раньше нее
+     */
+    public int[] getDependencies(int index) {
+        return dependencies[index].clone();
+    }
+
+    /**
+     * Возвращает миграции, непосредственно зависящие от указанной.
+     *
+     * @param index номер миграции в порядке версий
+     * @return номера миграций, ожидающих ее применения
+     */
+    public int[] getDependents(int index) {
+        return dependents[index].clone();
+    }
+}
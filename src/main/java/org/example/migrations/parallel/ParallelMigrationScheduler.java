@@ -0,0 +1,208 @@
+package org.example.migrations.parallel;
+
+import org.example.db.ConnectionSupplier;
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.OutOfTransactionExecutor;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.metrics.MigrationStats;
+import org.example.migrations.report.MigrationReport;
+import org.example.migrations.report.MigrationReportSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Параллельное применение независимых миграций по графу зависимостей.
+ * <p>
+ * Миграция запускается, как только применены все ее зависимости ({@link MigrationGraph}); одновременно
+ * выполняется не больше заданного числа миграций. Каждая миграция выполняется в собственной транзакции
+ * на отдельном соединении, вместе с записью в applied_migration, поэтому отчет о ней передается
+ * сразу после фиксации. Миграции, помеченные как {@code -- transactional: false}, выполняются
+ * через {@link OutOfTransactionExecutor}.
+ * </p>
+ * <p>
+ * После первой ошибки новые миграции не запускаются, уже начатые завершаются. В отличие от
+ * последовательного режима, миграции, зафиксированные до ошибки, остаются примененными.
+ * </p>
+ */
+public class ParallelMigrationScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelMigrationScheduler.class);
+
+    private final ConnectionSupplier connections;
+    private final MigrationFileReader migrationFileReader;
+    private final int parallelism;
+    private final int batchSize;
+    private final OutOfTransactionExecutor outOfTransactionExecutor;
+    private final MigrationMetrics metrics;
+
+    private record Outcome(int index, Exception error, MigrationStats stats) {
+    }
+
+    /**
+     * Создает планировщик.
+     *
+     * @param connections источник соединений для выполнения миграций, обычно пул
+     * @param migrationFileReader устройство чтения файлов миграций
+     * @param parallelism максимальное число одновременно выполняемых миграций
+     * @param batchSize размер JDBC-пакета для исполнителя каждой миграции
+     * @param outOfTransactionExecutor исполнитель миграций, помеченных как {@code -- transactional: false},
+     *                                 с собственным источником соединений
+     * @param metrics метрики, в которые записываются измерения миграций всех рабочих потоков
+     */
+    public ParallelMigrationScheduler(ConnectionSupplier connections, MigrationFileReader migrationFileReader,
+                                      int parallelism, int batchSize, OutOfTransactionExecutor outOfTransactionExecutor,
+                                      MigrationMetrics metrics) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Migration parallelism must be positive: " + parallelism);
+        }
+        this.connections = connections;
+        this.migrationFileReader = migrationFileReader;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.outOfTransactionExecutor = outOfTransactionExecutor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Применяет ожидающие миграции с учетом зависимостей.
+     *
+     * @param pending ожидающие миграции в порядке возрастания версий
+     * @param catalog полный каталог миграций
+     * @param reportSink получатель отчетов; вызывается только из потока, вызвавшего этот метод
+     * @return число примененных миграций
+     * @throws SQLException, если хотя бы одна миграция завершилась ошибкой
+     * @throws IOException, если сценарий не удалось прочитать или отчет не удалось сохранить
+     */
+    public int apply(List<MigrationFile> pending, MigrationCatalog catalog, MigrationReportSink reportSink)
+            throws SQLException, IOException {
+        MigrationGraph graph = MigrationGraph.build(pending, catalog);
+        int[] remaining = new int[graph.size()];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < graph.size(); i++) {
+            remaining[i] = graph.getDependencies(i).length;
+            if (remaining[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, graph.size())),
+                daemonThreads());
+        CompletionService<Outcome> completions = new ExecutorCompletionService<>(pool);
+        int running = 0;
+        int applied = 0;
+        Outcome failure = null;
+        try {
+            while (true) {
+                while (failure == null && running < parallelism && !ready.isEmpty()) {
+                    int index = ready.poll();
+                    completions.submit(() -> applyOne(index, graph.getFile(index)));
+                    running++;
+                }
+                if (running == 0) {
+                    break;
+                }
+                Outcome outcome = take(completions);
+                running--;
+                MigrationFile file = graph.getFile(outcome.index());
+                if (outcome.error() != null) {
+                    logger.error("Migration {} failed: {}", file, outcome.error().getMessage(), outcome.error());
+                    metrics.recordFailed();
+                    reportSink.accept(MigrationReport.of(file, outcome.error().getMessage()));
+                    if (failure == null) {
+                        failure = outcome;
+                    }
+                    continue;
+                }
+                applied++;
+                if (outcome.stats() != null) {
+                    metrics.recordCommitted(outcome.stats());
+                }
+                reportSink.accept(MigrationReport.of(file, null, outcome.stats()));
+                for (int dependent : graph.getDependents(outcome.index())) {
+                    if (--remaining[dependent] == 0) {
+                        ready.add(dependent);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure != null) {
+            throw new SQLException("Migration " + graph.getFile(failure.index()) + " failed; "
+                    + applied + " migrations were applied", failure.error());
+        }
+        logger.info("Applied {} migrations with up to {} in parallel", applied, parallelism);
+        return applied;
+    }
+
+    private Outcome applyOne(int index, MigrationFile migrationFile) {
+        if (outOfTransactionExecutor != null) {
+            try {
+                if (!migrationFile.isTransactional()) {
+                    return new Outcome(index, null, outOfTransactionExecutor.apply(migrationFile));
+                }
+            } catch (Exception e) {
+                return new Outcome(index, e, null);
+            }
+        }
+        try (Connection connection = connections.get()) {
+            connection.setAutoCommit(false);
+            MigrationExecutor migrationExecutor = new MigrationExecutor(connection, migrationFileReader, batchSize, metrics);
+            MigrationStats stats;
+            try {
+                stats = migrationExecutor.applyMigration(migrationFile);
+                migrationExecutor.flushBatch();
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } finally {
+                    migrationExecutor.clearBatch();
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            logger.debug("Migration {} applied on {}", migrationFile, Thread.currentThread().getName());
+            return new Outcome(index, null, stats);
+        } catch (Exception e) {
+            return new Outcome(index, e, null);
+        }
+    }
+
+    private static Outcome take(CompletionService<Outcome> completions) throws SQLException {
+        try {
+            return completions.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while applying migrations", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected failure while applying a migration", e.getCause());
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "migration-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
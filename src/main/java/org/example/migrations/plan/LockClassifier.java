@@ -0,0 +1,101 @@
+package org.example.migrations.plan;
+
+import org.example.migrations.sql.SqlStatementKind;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Определяет уровень табличной блокировки, который возьмет выражение, по его тексту.
+ * <p>
+ * Классификация следует таблице блокировок из документации PostgreSQL для распространенных
+ * выражений миграций. Для нераспознанных изменяющих схему выражений и блоков {@code DO}
+ * предполагается самый строгий режим ACCESS EXCLUSIVE, чтобы план не занижал риск.
+ * </p>
+ */
+public final class LockClassifier {
+    private static final Pattern LOCK_MODE = Pattern.compile("^LOCK (?:TABLE )?.*? IN (.+) MODE");
+
+    private LockClassifier() {
+    }
+
+    /**
+     * Определяет уровень блокировки для одного SQL-выражения.
+     *
+     * @param sql текст выражения
+     * @return самый строгий уровень блокировки, который выражение берет на существующую таблицу
+     */
+    public static LockLevel classify(String sql) {
+        String s = normalize(sql);
+        if (s.startsWith("SELECT") || s.startsWith("VALUES") || s.startsWith("TABLE ") || s.startsWith("SHOW")
+                || s.startsWith("EXPLAIN")) {
+            return s.contains(" FOR UPDATE") || s.contains(" FOR SHARE") || s.contains(" FOR NO KEY UPDATE")
+                    || s.contains(" FOR KEY SHARE") ? LockLevel.ROW_SHARE : LockLevel.ACCESS_SHARE;
+        }
+        if (s.startsWith("WITH")) {
+            return s.matches(".*\\b(INSERT|UPDATE|DELETE|MERGE)\\b.*") ? LockLevel.ROW_EXCLUSIVE : LockLevel.ACCESS_SHARE;
+        }
+        if (s.startsWith("INSERT") || s.startsWith("UPDATE") || s.startsWith("DELETE") || s.startsWith("MERGE")
+                || s.startsWith("COPY")) {
+            return LockLevel.ROW_EXCLUSIVE;
+        }
+        if (s.startsWith("CREATE INDEX") || s.startsWith("CREATE UNIQUE INDEX")) {
+            return s.contains(" CONCURRENTLY ") ? LockLevel.SHARE_UPDATE_EXCLUSIVE : LockLevel.SHARE;
+        }
+        if (s.startsWith("CREATE TRIGGER") || s.startsWith("CREATE CONSTRAINT TRIGGER")
+                || s.startsWith("CREATE OR REPLACE TRIGGER")) {
+            return LockLevel.SHARE_ROW_EXCLUSIVE;
+        }
+        if (s.startsWith("CREATE")) {
+            // Новая таблица блокирует только таблицы, на которые ссылаются ее внешние ключи
+            return s.contains(" REFERENCES ") ? LockLevel.SHARE_ROW_EXCLUSIVE : LockLevel.NONE;
+        }
+        if (s.startsWith("DROP INDEX CONCURRENTLY")) {
+            return LockLevel.SHARE_UPDATE_EXCLUSIVE;
+        }
+        if (s.startsWith("DROP") || s.startsWith("TRUNCATE") || s.startsWith("CLUSTER") || s.startsWith("VACUUM FULL")) {
+            return LockLevel.ACCESS_EXCLUSIVE;
+        }
+        if (s.startsWith("VACUUM") || s.startsWith("ANALYZE") || s.startsWith("COMMENT")) {
+            return LockLevel.SHARE_UPDATE_EXCLUSIVE;
+        }
+        if (s.startsWith("REINDEX")) {
+            return s.contains("CONCURRENTLY") ? LockLevel.SHARE_UPDATE_EXCLUSIVE : LockLevel.ACCESS_EXCLUSIVE;
+        }
+        if (s.startsWith("REFRESH MATERIALIZED VIEW")) {
+            return s.contains(" CONCURRENTLY ") ? LockLevel.EXCLUSIVE : LockLevel.ACCESS_EXCLUSIVE;
+        }
+        if (s.startsWith("ALTER TABLE")) {
+            return classifyAlterTable(s);
+        }
+        if (s.startsWith("LOCK")) {
+            Matcher matcher = LOCK_MODE.matcher(s);
+            LockLevel level = matcher.find() ? LockLevel.fromSqlName(matcher.group(1)) : null;
+            return level != null ? level : LockLevel.ACCESS_EXCLUSIVE;
+        }
+        if (s.startsWith("GRANT") || s.startsWith("REVOKE") || s.startsWith("SET") || s.startsWith("RESET")) {
+            return LockLevel.NONE;
+        }
+        return LockLevel.ACCESS_EXCLUSIVE;
+    }
+
+    private static LockLevel classifyAlterTable(String s) {
+        if (s.contains(" VALIDATE CONSTRAINT ") || s.contains(" SET STATISTICS ")
+                || (s.contains(" DETACH PARTITION ") && s.endsWith(" CONCURRENTLY"))) {
+            return LockLevel.SHARE_UPDATE_EXCLUSIVE;
+        }
+        if (s.contains(" FOREIGN KEY ") || s.contains(" ENABLE TRIGGER ") || s.contains(" DISABLE TRIGGER ")) {
+            return LockLevel.SHARE_ROW_EXCLUSIVE;
+        }
+        return LockLevel.ACCESS_EXCLUSIVE;
+    }
+
+    /**
+     * Удаляет ведущие комментарии, схлопывает пробелы и приводит выражение к верхнему регистру.
+     */
+    private static String normalize(String sql) {
+        String body = sql.substring(SqlStatementKind.skipCommentsAndWhitespace(sql, 0));
+        return body.replaceAll("\\s+", " ").trim().toUpperCase(Locale.ROOT);
+    }
+}
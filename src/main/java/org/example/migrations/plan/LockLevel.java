@@ -0,0 +1,73 @@
+package org.example.migrations.plan;
+
+/**
+ * Уровень табличной блокировки PostgreSQL, который берет выражение, в порядке возрастания строгости.
+ */
+public enum LockLevel {
+    /**
+     * Выражение не блокирует существующие таблицы (например, создает новую таблицу).
+     */
+    NONE("none"),
+    ACCESS_SHARE("ACCESS SHARE"),
+    ROW_SHARE("ROW SHARE"),
+    ROW_EXCLUSIVE("ROW EXCLUSIVE"),
+    SHARE_UPDATE_EXCLUSIVE("SHARE UPDATE EXCLUSIVE"),
+    SHARE("SHARE"),
+    SHARE_ROW_EXCLUSIVE("SHARE ROW EXCLUSIVE"),
+    EXCLUSIVE("EXCLUSIVE"),
+    ACCESS_EXCLUSIVE("ACCESS EXCLUSIVE");
+
+    private final String sqlName;
+
+    LockLevel(String sqlName) {
+        this.sqlName = sqlName;
+    }
+
+    /**
+     * Возвращает имя режима блокировки в том виде, в каком оно записывается в SQL.
+     *
+     * @return имя режима, например {@code SHARE ROW EXCLUSIVE}
+     */
+    public String getSqlName() {
+        return sqlName;
+    }
+
+    /**
+     * Проверяет, блокирует ли режим запись в таблицу (INSERT, UPDATE, DELETE).
+     *
+     * @return true для SHARE и более строгих режимов
+     */
+    public boolean blocksWrites() {
+        return compareTo(SHARE) >= 0;
+    }
+
+    /**
+     * Проверяет, блокирует ли режим чтение таблицы.
+     *
+     * @return true только для ACCESS EXCLUSIVE
+     */
+    public boolean blocksReads() {
+        return this == ACCESS_EXCLUSIVE;
+    }
+
+    /**
+     * Находит режим по его имени в SQL.
+     *
+     * @param sqlName имя режима в любом регистре, например {@code share row exclusive}
+     * @return режим блокировки или null, если имя не распознано
+     */
+    public static LockLevel fromSqlName(String sqlName) {
+        String normalized = sqlName.trim().replaceAll("\\s+", " ");
+        for (LockLevel level : values()) {
+            if (level.sqlName.equalsIgnoreCase(normalized)) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return sqlName;
+    }
+}
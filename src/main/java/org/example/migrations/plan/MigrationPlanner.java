@@ -0,0 +1,156 @@
+package org.example.migrations.plan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.migrations.chunked.ChunkedMigrationSpec;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.sql.SqlStatementKind;
+import org.example.migrations.sql.SqlStatementReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строит план ожидающих миграций без их применения.
+ * <p>
+ * Каждая миграция разбирается на выражения. DML-выражения и запросы оцениваются через
+ * {@code EXPLAIN (FORMAT JSON)} без ANALYZE, то есть не выполняются; изменяющие схему выражения
+ * не выполняются вовсе, а классифицируются по уровню табличной блокировки ({@link LockClassifier}).
+ * Все происходит в одной транзакции, которая в конце откатывается; каждый EXPLAIN выполняется
+ * под собственной точкой сохранения, поэтому выражение над еще не созданной таблицей не прерывает
+ * планирование остальных. Ожидание блокировок планировщиком ограничено {@code lock_timeout}.
+ * </p>
+ * <p>
+ * Поскольку изменения схемы не выполняются, выражение над таблицей или столбцом, которые создает более
+ * ранняя ожидающая миграция, не оценивается; такая оценка помечается {@link #NOT_EXPLAINED} с пояснением.
+ * </p>
+ */
+public class MigrationPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationPlanner.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String PLAN_LOCK_TIMEOUT = "2s";
+    /** Префикс примечания к выражению, для которого EXPLAIN не удалось выполнить. */
+    public static final String NOT_EXPLAINED = "not explained";
+    /** SQLState PostgreSQL для обращения к несуществующим таблице и столбцу. */
+    private static final String UNDEFINED_TABLE = "42P01";
+    private static final String UNDEFINED_COLUMN = "42703";
+
+    private final Connection connection;
+
+    /**
+     * Создает планировщик.
+     *
+     * @param connection соединение с базой данных, в которой нет незафиксированных изменений
+     */
+    public MigrationPlanner(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Оценивает выражения указанных миграций.
+     *
+     * @param migrationFiles ожидающие миграции в порядке применения
+     * @return оценки выражений в порядке их выполнения
+     * @throws SQLException, если транзакцию планирования не удалось начать или откатить
+     * @throws IOException, если файл миграции не удалось прочитать
+     */
+    public List<StatementPlan> plan(List<MigrationFile> migrationFiles) throws SQLException, IOException {
+        List<StatementPlan> plans = new ArrayList<>();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL lock_timeout = '" + PLAN_LOCK_TIMEOUT + "'");
+            }
+            for (MigrationFile migrationFile : migrationFiles) {
+                switch (migrationFile.getType()) {
+                    case SQL -> planScript(migrationFile, plans);
+                    case CHUNKED -> planChunked(migrationFile, plans);
+                    case CSV, TSV -> plans.add(new StatementPlan(migrationFile.toString(), 1,
+                            "COPY " + migrationFile.getDescription() + " FROM STDIN", LockLevel.ROW_EXCLUSIVE,
+                            null, null, migrationFile.getSize() + " bytes"));
+                }
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        }
+        logger.info("Planned {} statements of {} migrations", plans.size(), migrationFiles.size());
+        return plans;
+    }
+
+    private void planScript(MigrationFile migrationFile, List<StatementPlan> plans) throws SQLException, IOException {
+        String note = migrationFile.isTransactional() ? null : "outside of a transaction";
+        try (SqlStatementReader statements = migrationFile.openStatements()) {
+            int number = 0;
+            String sql;
+            while ((sql = statements.nextStatement()) != null) {
+                number++;
+                LockLevel lockLevel = LockClassifier.classify(sql);
+                if (isExplainable(sql)) {
+                    plans.add(explain(migrationFile, number, sql, lockLevel, note, new Object[0]));
+                } else {
+                    plans.add(new StatementPlan(migrationFile.toString(), number, sql, lockLevel, null, null, note));
+                }
+            }
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        SqlStatementKind kind = SqlStatementKind.of(sql);
+        String keyword = SqlStatementKind.firstKeyword(sql);
+        return kind == SqlStatementKind.DML
+                || kind == SqlStatementKind.QUERY && !"EXPLAIN".equals(keyword) && !"SHOW".equals(keyword);
+    }
+
+    /**
+     * Порционное обновление оценивается как одно выражение над всем диапазоном ключей.
+     */
+    private void planChunked(MigrationFile migrationFile, List<StatementPlan> plans) throws SQLException, IOException {
+        ChunkedMigrationSpec spec;
+        try (InputStream input = migrationFile.openContent()) {
+            spec = ChunkedMigrationSpec.read(input);
+        }
+        String note = "committed in chunks of " + spec.getMinChunkSize() + ".." + spec.getMaxChunkSize() + " rows";
+        plans.add(explain(migrationFile, 1, spec.getUpdateSql(), LockLevel.ROW_EXCLUSIVE, note,
+                new Object[]{Long.MIN_VALUE, Long.MAX_VALUE}));
+    }
+
+    private StatementPlan explain(MigrationFile migrationFile, int number, String sql, LockLevel lockLevel,
+                                  String note, Object[] parameters) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                ps.setObject(i + 1, parameters[i]);
+            }
+            JsonNode plan;
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                plan = OBJECT_MAPPER.readTree(rs.getString(1)).path(0).path("Plan");
+            }
+            connection.releaseSavepoint(savepoint);
+            return new StatementPlan(migrationFile.toString(), number, sql, lockLevel,
+                    plan.path("Total Cost").asDouble(), plan.path("Plan Rows").asLong(), note);
+        } catch (SQLException | IOException e) {
+            connection.rollback(savepoint);
+            logger.debug("EXPLAIN failed for {} #{}: {}", migrationFile, number, e.getMessage());
+            String reason = NOT_EXPLAINED + ": " + e.getMessage();
+            if (e instanceof SQLException sqlException && (UNDEFINED_TABLE.equals(sqlException.getSQLState())
+                    || UNDEFINED_COLUMN.equals(sqlException.getSQLState()))) {
+                reason += " (may be created by an earlier pending migration)";
+            }
+            return new StatementPlan(migrationFile.toString(), number, sql, lockLevel, null, null,
+                    note == null ? reason : note + "; " + reason);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.migrations.plan;
+
+import java.util.Locale;
+
+/**
+ * Оценка одного выражения ожидающей миграции: стоимость по EXPLAIN и уровень блокировки.
+ */
+public class StatementPlan {
+    private static final int MAX_STATEMENT_LENGTH = 80;
+
+    private final String migration;
+    private final int statementNumber;
+    private final String statement;
+    private final LockLevel lockLevel;
+    private final Double estimatedCost;
+    private final Long estimatedRows;
+    private final String note;
+
+    /**
+     * Создает оценку выражения.
+     *
+     * @param migration миграция, к которой относится выражение
+     * @param statementNumber номер выражения в миграции, начиная с 1
+     * @param statement текст выражения или краткое описание действия миграции
+     * @param lockLevel уровень табличной блокировки
+     * @param estimatedCost оценка стоимости планировщика или null, если EXPLAIN неприменим
+     * @param estimatedRows оценка числа строк или null, если EXPLAIN неприменим
+     * @param note пояснение, например причина, по которой EXPLAIN не выполнен, или null
+     */
+    public StatementPlan(String migration, int statementNumber, String statement, LockLevel lockLevel,
+                         Double estimatedCost, Long estimatedRows, String note) {
+        this.migration = migration;
+        this.statementNumber = statementNumber;
+        this.statement = statement;
+        this.lockLevel = lockLevel;
+        this.estimatedCost = estimatedCost;
+        this.estimatedRows = estimatedRows;
+        this.note = note;
+    }
+
+    public String getMigration() {
+        return migration;
+    }
+
+    public int getStatementNumber() {
+        return statementNumber;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public LockLevel getLockLevel() {
+        return lockLevel;
+    }
+
+    public Double getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    public Long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    @Override
+    public String toString() {
+        String text = statement.replaceAll("\\s+", " ").trim();
+        if (text.length() > MAX_STATEMENT_LENGTH) {
+            text = text.substring(0, MAX_STATEMENT_LENGTH - 3) + "...";
+        }
+        StringBuilder line = new StringBuilder()
+                .append(migration).append(" #").append(statementNumber)
+                .append(" [").append(lockLevel).append(']');
+        if (estimatedCost != null) {
+            line.append(String.format(Locale.ROOT, " cost=%.2f rows=%d", estimatedCost, estimatedRows));
+        }
+        line.append(' ').append(text);
+        if (note != null) {
+            line.append(" (").append(note).append(')');
+        }
+        return line.toString();
+    }
+}
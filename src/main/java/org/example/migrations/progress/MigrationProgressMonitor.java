@@ -0,0 +1,144 @@
+package org.example.migrations.progress;
+
+import org.example.db.ConnectionSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически сообщает о ходе долгих операций PostgreSQL, выполняемых другим сеансом.
+ * <p>
+ * По идентификатору серверного процесса опрашиваются представления {@code pg_stat_progress_create_index}
+ * (в том числе {@code CREATE INDEX CONCURRENTLY} и {@code REINDEX}) и {@code pg_stat_progress_cluster}
+ * ({@code CLUSTER} и {@code VACUUM FULL}). Опрос выполняется через отдельное соединение, которое
+ * открывается при первом опросе и закрывается вместе с монитором. Изменения фазы и прогресса
+ * записываются в журнал.
+ * </p>
+ */
+public class MigrationProgressMonitor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationProgressMonitor.class);
+    private static final String PROGRESS_SQL = """
+            SELECT command, phase, blocks_done, blocks_total, tuples_done, tuples_total
+            FROM pg_stat_progress_create_index WHERE pid = ?
+            UNION ALL
+            SELECT command, phase, heap_blks_scanned, heap_blks_total, heap_tuples_written, NULL::bigint
+            FROM pg_stat_progress_cluster WHERE pid = ?
+            """;
+
+    private final ConnectionSupplier connections;
+    private final int backendPid;
+    private final String label;
+    private final ScheduledExecutorService poller;
+    private Connection connection;
+    private volatile String lastProgress;
+
+    private MigrationProgressMonitor(ConnectionSupplier connections, int backendPid, String label, long intervalMillis) {
+        this.connections = connections;
+        this.backendPid = backendPid;
+        this.label = label;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "migration-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Запускает опрос прогресса для сеанса с указанным идентификатором серверного процесса.
+     *
+     * @param connections источник соединения для опроса
+     * @param backendPid идентификатор серверного процесса, выполняющего миграцию
+     * @param label имя миграции для журнала
+     * @param intervalMillis интервал опроса
+     * @return запущенный монитор, который необходимо закрыть
+     */
+    public static MigrationProgressMonitor start(ConnectionSupplier connections, int backendPid, String label,
+                                                 long intervalMillis) {
+        return new MigrationProgressMonitor(connections, backendPid, label, Math.max(1, intervalMillis));
+    }
+
+    /**
+     * Возвращает последнее полученное описание прогресса.
+     *
+     * @return описание прогресса или null, если долгая операция еще не наблюдалась
+     */
+    public String getLastProgress() {
+        return lastProgress;
+    }
+
+    private void poll() {
+        try {
+            if (connection == null) {
+                connection = connections.get();
+                connection.setAutoCommit(true);
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(PROGRESS_SQL)) {
+                preparedStatement.setInt(1, backendPid);
+                preparedStatement.setInt(2, backendPid);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        report(describe(resultSet));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.debug("Failed to poll progress of {}: {}", label, e.getMessage());
+        }
+    }
+
+    private void report(String progress) {
+        if (!progress.equals(lastProgress)) {
+            lastProgress = progress;
+            logger.info("{}: {}", label, progress);
+        }
+    }
+
+    private static String describe(ResultSet resultSet) throws SQLException {
+        StringBuilder progress = new StringBuilder()
+                .append(resultSet.getString("command")).append(", ").append(resultSet.getString("phase"));
+        appendRatio(progress, "blocks", resultSet.getLong(3), resultSet.getLong(4));
+        long tuplesDone = resultSet.getLong(5);
+        long tuplesTotal = resultSet.getLong(6);
+        if (resultSet.wasNull()) {
+            progress.append(", tuples ").append(tuplesDone);
+        } else {
+            appendRatio(progress, "tuples", tuplesDone, tuplesTotal);
+        }
+        return progress.toString();
+    }
+
+    private static void appendRatio(StringBuilder progress, String unit, long done, long total) {
+        progress.append(", ").append(unit).append(' ').append(done);
+        if (total > 0) {
+            progress.append('/').append(total).append(" (").append(done * 100 / total).append("%)");
+        }
+    }
+
+    /**
+     * Останавливает опрос и закрывает соединение опроса.
+     */
+    @Override
+    public void close() {
+        poller.shutdownNow();
+        try {
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Failed to close progress connection: {}", e.getMessage());
+            }
+        }
+    }
+}
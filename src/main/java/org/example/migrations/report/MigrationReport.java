@@ -1,9 +1,16 @@
 package org.example.migrations.report;
+
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.metrics.MigrationStats;
+
+import java.time.LocalDateTime;
+
 /**
  * Представляет отчет по одной операции миграции, включая ее детали и результат.
  * <p>
  * Этот класс хранит информацию о миграции, такую как версия, описание,
- * была ли миграция успешной, временная метка операции и сообщение об ошибке, если применимо.
+ * была ли миграция успешной, временная метка операции и сообщение об ошибке, если применимо,
+ * а также длительность, число измененных строк и время ожидания блокировок, если они измерены.
  * Он используется в основном для создания отчетов о миграции в форматах JSON или CSV.
  * </p>
  */
@@ -13,13 +20,82 @@ public class MigrationReport {
     private final boolean success;
     private final String timestamp;
     private final String errorMessage;
+    private final String target;
+    private final Long durationMillis;
+    private final Long rowsAffected;
+    private final Long lockWaitMillis;
 
     public MigrationReport(String version, String description, boolean success, String timestamp, String errorMessage) {
+        this(version, description, success, timestamp, errorMessage, null);
+    }
+
+    /**
+     * Создает отчет об операции миграции для конкретной цели (схемы или базы данных).
+     *
+     * @param target имя цели, к которой применялась миграция, или null для единственной базы данных
+     */
+    public MigrationReport(String version, String description, boolean success, String timestamp, String errorMessage,
+                           String target) {
+        this(version, description, success, timestamp, errorMessage, target, null, null, null);
+    }
+
+    /**
+     * Создает отчет об операции миграции с результатами измерений.
+     *
+     * @param target имя цели, к которой применялась миграция, или null для единственной базы данных
+     * @param durationMillis длительность миграции или null, если она не измерялась
+     * @param rowsAffected число измененных строк или null, если оно не измерялось
+     * @param lockWaitMillis время ожидания блокировок или null, если оно не измерялось
+     */
+    public MigrationReport(String version, String description, boolean success, String timestamp, String errorMessage,
+                           String target, Long durationMillis, Long rowsAffected, Long lockWaitMillis) {
         this.version = version;
         this.description = description;
         this.success = success;
         this.timestamp = timestamp;
         this.errorMessage = errorMessage;
+        this.target = target;
+        this.durationMillis = durationMillis;
+        this.rowsAffected = rowsAffected;
+        this.lockWaitMillis = lockWaitMillis;
+    }
+
+    /**
+     * Создает отчет о выполнении файла миграции или отката с текущей временной меткой.
+     *
+     * @param migrationFile выполненный файл
+     * @param errorMessage сообщение об ошибке или null, если файл выполнен успешно
+     * @return отчет о миграции
+     */
+    public static MigrationReport of(MigrationFile migrationFile, String errorMessage) {
+        return of(migrationFile, errorMessage, null);
+    }
+
+    /**
+     * Создает отчет о выполнении файла миграции с результатами измерений.
+     *
+     * @param migrationFile выполненный файл
+     * @param errorMessage сообщение об ошибке или null, если файл выполнен успешно
+     * @param stats измерения миграции или null, если они недоступны
+     * @return отчет о миграции
+     */
+    public static MigrationReport of(MigrationFile migrationFile, String errorMessage, MigrationStats stats) {
+        return new MigrationReport(migrationFile.getVersion(), migrationFile.getDescription(), errorMessage == null,
+                LocalDateTime.now().toString(), errorMessage, null,
+                stats != null ? stats.getDurationMillis() : null,
+                stats != null ? stats.getRowsAffected() : null,
+                stats != null ? stats.getLockWaitMillis() : null);
+    }
+
+    /**
+     * Возвращает копию отчета, привязанную к указанной цели.
+     *
+     * @param target имя схемы или базы данных
+     * @return новый отчет с тем же содержимым и указанной целью
+     */
+    public MigrationReport forTarget(String target) {
+        return new MigrationReport(version, description, success, timestamp, errorMessage, target,
+                durationMillis, rowsAffected, lockWaitMillis);
     }
     public String getVersion() {
         return version;
@@ -40,4 +116,20 @@ public class MigrationReport {
     public String getErrorMessage() {
         return errorMessage;
     }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public Long getRowsAffected() {
+        return rowsAffected;
+    }
+
+    public Long getLockWaitMillis() {
+        return lockWaitMillis;
+    }
 }
\ No newline at end of file
@@ -1,38 +1,38 @@
 package org.example.migrations.report;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 /**
  * Класс-утилита для создания отчетов о миграции в форматах CSV и JSON.
  * <p>
  * Этот класс предоставляет методы для создания отчетов из списка объектов MigrationReport
- * и сохранять их в файлы в нужном формате.
+ * и сохранять их в файлы в нужном формате. Запись выполняется через {@link MigrationReportWriter},
+ * которым также можно пользоваться напрямую, чтобы дописывать отчеты по мере выполнения миграций.
  * </p>
  */
 
 public class MigrationReportGenerator {
+    // ObjectMapper потокобезопасен после настройки, поэтому создается один раз
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     // Генерация CSV
     public void generateCsvReport(List<MigrationReport> reports, String filePath) throws IOException {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writer.append("Version,Description,Success,Timestamp,ErrorMessage\n");
-            for (MigrationReport report : reports) {
-                writer.append(report.getVersion()).append(", ")
-                        .append(report.getDescription()).append(", ")
-                        .append(String.valueOf(report.isSuccess())).append("," )
-                        .append(report.getTimestamp()).append(", ")
-                        .append(report.getErrorMessage() != null ? report.getErrorMessage() : "").append("\n");
-            }
-        }
+        write(reports, Path.of(filePath), null);
     }
 
     // Генерация JSON
     public void generateJsonReport(List<MigrationReport> reports, String filePath) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        objectMapper.writeValue(new FileWriter(filePath), reports);
+        write(reports, null, Path.of(filePath));
+    }
+
+    private static void write(List<MigrationReport> reports, Path csvPath, Path jsonPath) throws IOException {
+        try (MigrationReportWriter writer = MigrationReportWriter.open(csvPath, jsonPath, Integer.MAX_VALUE)) {
+            for (MigrationReport report : reports) {
+                writer.accept(report);
+            }
+        }
     }
-}
\ No newline at end of file
+}
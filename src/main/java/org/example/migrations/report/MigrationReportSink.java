@@ -0,0 +1,18 @@
+package org.example.migrations.report;
+
+import java.io.IOException;
+
+/**
+ * Получатель отчетов о миграциях, принимающий результаты по мере их появления.
+ */
+@FunctionalInterface
+public interface MigrationReportSink {
+
+    /**
+     * Принимает отчет об одной операции миграции.
+     *
+     * @param report отчет о миграции
+     * @throws IOException, если отчет не удалось сохранить
+     */
+    void accept(MigrationReport report) throws IOException;
+}
@@ -0,0 +1,220 @@
+package org.example.migrations.report;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Потоковая запись отчетов о миграциях в форматы CSV и JSON.
+ * <p>
+ * Каждый отчет дописывается в файлы сразу после получения, поэтому расход памяти не зависит от числа
+ * миграций. Буферы сбрасываются на диск с {@code fsync} каждые {@value #DEFAULT_FLUSH_EVERY} отчетов,
+ * а фоновый таймер сбрасывает оставшиеся отчеты не позже чем через секунду после записи, даже если новых
+ * отчетов не поступает: после аварийного завершения процесса в файлах остаются все отчеты, записанные
+ * до последнего сброса. JSON-файл в этом случае содержит незакрытый массив из целых объектов.
+ * </p>
+ * <p>
+ * Метод {@link #accept(MigrationReport)} синхронизирован и может вызываться из нескольких потоков.
+ * </p>
+ */
+public class MigrationReportWriter implements MigrationReportSink, Closeable {
+    static final int DEFAULT_FLUSH_EVERY = 64;
+    static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    private static final Logger logger = LoggerFactory.getLogger(MigrationReportWriter.class);
+
+    private final FileOutputStream csvFile;
+    private final BufferedWriter csv;
+    private final FileOutputStream jsonFile;
+    private final JsonGenerator json;
+    private final int flushEvery;
+    private final ScheduledExecutorService flusher;
+    private int unflushed;
+
+    private MigrationReportWriter(FileOutputStream csvFile, FileOutputStream jsonFile, int flushEvery,
+                                  long flushIntervalMillis) throws IOException {
+        this.csvFile = csvFile;
+        this.jsonFile = jsonFile;
+        this.flushEvery = flushEvery;
+        if (csvFile != null) {
+            csv = new BufferedWriter(new OutputStreamWriter(csvFile, StandardCharsets.UTF_8));
+            csv.append("Version,Description,Success,Timestamp,ErrorMessage,Target,DurationMs,RowsAffected,LockWaitMs\n");
+        } else {
+            csv = null;
+        }
+        if (jsonFile != null) {
+            json = MigrationReportGenerator.OBJECT_MAPPER.createGenerator(new BufferedOutputStream(jsonFile));
+            json.useDefaultPrettyPrinter();
+            json.writeStartArray();
+        } else {
+            json = null;
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "migration-report-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushPending, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Создает файлы отчетов (перезаписывая существующие) и начинает запись.
+     *
+     * @param csvPath путь к CSV-отчету или null, если CSV не нужен
+     * @param jsonPath путь к JSON-отчету или null, если JSON не нужен
+     * @return открытый писатель отчетов, который необходимо закрыть
+     * @throws IOException, если файлы не удалось создать
+     */
+    public static MigrationReportWriter open(Path csvPath, Path jsonPath) throws IOException {
+        return open(csvPath, jsonPath, DEFAULT_FLUSH_EVERY);
+    }
+
+    /**
+     * Создает файлы отчетов с указанной частотой сброса на диск.
+     *
+     * @param csvPath путь к CSV-отчету или null, если CSV не нужен
+     * @param jsonPath путь к JSON-отчету или null, если JSON не нужен
+     * @param flushEvery число отчетов, после которого буферы сбрасываются на диск
+     * @return открытый писатель отчетов, который необходимо закрыть
+     * @throws IOException, если файлы не удалось создать
+     */
+    public static MigrationReportWriter open(Path csvPath, Path jsonPath, int flushEvery) throws IOException {
+        return open(csvPath, jsonPath, flushEvery, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Создает файлы отчетов с указанными частотой сброса и интервалом фонового сброса на диск.
+     *
+     * @param csvPath путь к CSV-отчету или null, если CSV не нужен
+     * @param jsonPath путь к JSON-отчету или null, если JSON не нужен
+     * @param flushEvery число отчетов, после которого буферы сбрасываются на диск
+     * @param flushIntervalMillis наибольшее время (мс), в течение которого записанный отчет остается в буфере
+     * @return открытый писатель отчетов, который необходимо закрыть
+     * @throws IOException, если файлы не удалось создать
+     */
+    public static MigrationReportWriter open(Path csvPath, Path jsonPath, int flushEvery, long flushIntervalMillis)
+            throws IOException {
+        FileOutputStream csvFile = null;
+        try {
+            csvFile = create(csvPath);
+            return new MigrationReportWriter(csvFile, create(jsonPath), Math.max(1, flushEvery),
+                    Math.max(1, flushIntervalMillis));
+        } catch (IOException e) {
+            if (csvFile != null) {
+                csvFile.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Дописывает отчет в файлы и при необходимости сбрасывает буферы на диск.
+     *
+     * @param report отчет о миграции
+     * @throws IOException, если отчет не удалось записать
+     */
+    @Override
+    public synchronized void accept(MigrationReport report) throws IOException {
+        if (csv != null) {
+            csv.append(String.valueOf(report.getVersion())).append(", ")
+                    .append(String.valueOf(report.getDescription())).append(", ")
+                    .append(String.valueOf(report.isSuccess())).append(",")
+                    .append(report.getTimestamp()).append(", ")
+                    .append(report.getErrorMessage() != null ? report.getErrorMessage() : "").append(", ")
+                    .append(report.getTarget() != null ? report.getTarget() : "").append(", ")
+                    .append(report.getDurationMillis() != null ? report.getDurationMillis().toString() : "").append(", ")
+                    .append(report.getRowsAffected() != null ? report.getRowsAffected().toString() : "").append(", ")
+                    .append(report.getLockWaitMillis() != null ? report.getLockWaitMillis().toString() : "").append("\n");
+        }
+        if (json != null) {
+            json.writeObject(report);
+        }
+        unflushed++;
+        if (unflushed >= flushEvery) {
+            flush();
+        }
+    }
+
+    /**
+     * Сбрасывает буферы и синхронизирует файлы отчетов с диском.
+     *
+     * @throws IOException, если данные не удалось записать
+     */
+    public synchronized void flush() throws IOException {
+        if (csv != null) {
+            csv.flush();
+            force(csvFile.getChannel());
+        }
+        if (json != null) {
+            json.flush();
+            force(jsonFile.getChannel());
+        }
+        unflushed = 0;
+    }
+
+    /**
+     * Сбрасывает отчеты, оставшиеся в буферах; вызывается таймером.
+     */
+    private synchronized void flushPending() {
+        if (unflushed == 0) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.warn("Failed to flush migration reports: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Завершает JSON-массив, сбрасывает буферы на диск и закрывает файлы.
+     *
+     * @throws IOException, если данные не удалось записать
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flusher.shutdownNow();
+        try {
+            if (json != null) {
+                json.writeEndArray();
+            }
+            flush();
+        } finally {
+            if (json != null) {
+                json.close();
+            }
+            if (csv != null) {
+                csv.close();
+            }
+        }
+    }
+
+    private static FileOutputStream create(Path path) throws IOException {
+        if (path == null) {
+            return null;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return new FileOutputStream(path.toFile());
+    }
+
+    private static void force(FileChannel channel) throws IOException {
+        channel.force(false);
+    }
+}
@@ -0,0 +1,246 @@
+package org.example.migrations.rollback;
+
+import org.example.migrations.sql.SqlStatementKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Строит обратное выражение для распространенных DDL-выражений миграций.
+ * <p>
+ * Поддерживаются создание таблиц, индексов, последовательностей, представлений, схем, типов и доменов,
+ * а также однократные действия {@code ALTER TABLE}: добавление столбца или ограничения и переименования.
+ * Для остальных выражений обратное выражение не строится: удаление объектов и изменение данных
+ * нельзя отменить без сохранения прежнего состояния.
+ * </p>
+ * <p>
+ * Выражение с {@code IF NOT EXISTS} могло ничего не изменить, поэтому его обратное выражение
+ * условно: оно записывается, только если объекта не было до выполнения выражения.
+ * </p>
+ */
+final class InverseDdl {
+    private static final String IDENT = "(?:\"(?:[^\"]|\"\")+\"|[A-Za-z_][A-Za-z0-9_$]*)";
+    private static final String QNAME = IDENT + "(?:\\s*\\.\\s*" + IDENT + ")*";
+    private static final String IF_NOT_EXISTS = "(IF\\s+NOT\\s+EXISTS\\s+)?";
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+    private static final Pattern IDENTIFIER = Pattern.compile(IDENT);
+    private static final Pattern CREATE_TABLE = Pattern.compile("CREATE\\s+(?:(?:GLOBAL|LOCAL)\\s+)?"
+            + "(?:(?:TEMPORARY|TEMP|UNLOGGED)\\s+)?TABLE\\s+" + IF_NOT_EXISTS + "(" + QNAME + ")", FLAGS);
+    private static final Pattern CREATE_INDEX = Pattern.compile("CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+"
+            + "(?:CONCURRENTLY\\s+)?" + IF_NOT_EXISTS + "(" + IDENT + ")\\s+ON\\s+(?:ONLY\\s+)?(" + QNAME + ")", FLAGS);
+    private static final Pattern CREATE_OBJECT = Pattern.compile("CREATE\\s+(SEQUENCE|MATERIALIZED\\s+VIEW|VIEW|"
+            + "SCHEMA|TYPE|DOMAIN)\\s+" + IF_NOT_EXISTS + "(" + QNAME + ")", FLAGS);
+    private static final Pattern SCHEMA_REST = Pattern.compile("(?:\\s+AUTHORIZATION\\s+" + IDENT + ")?\\s*", FLAGS);
+    private static final Pattern ALTER_TABLE = Pattern.compile("ALTER\\s+TABLE\\s+(IF\\s+EXISTS\\s+)?(?:ONLY\\s+)?("
+            + QNAME + ")\\s+(.*)", FLAGS);
+    private static final Pattern ADD_CONSTRAINT = Pattern.compile("ADD\\s+CONSTRAINT\\s+(" + IDENT + ")\\s", FLAGS);
+    private static final Pattern ADD_COLUMN = Pattern.compile("ADD\\s+(?:COLUMN\\s+)?" + IF_NOT_EXISTS
+            + "(" + IDENT + ")\\s", FLAGS);
+    private static final Pattern RENAME_TABLE = Pattern.compile("RENAME\\s+TO\\s+(" + IDENT + ")\\s*", FLAGS);
+    private static final Pattern RENAME_CONSTRAINT = Pattern.compile("RENAME\\s+CONSTRAINT\\s+(" + IDENT
+            + ")\\s+TO\\s+(" + IDENT + ")\\s*", FLAGS);
+    private static final Pattern RENAME_COLUMN = Pattern.compile("RENAME\\s+(?:COLUMN\\s+)?(" + IDENT
+            + ")\\s+TO\\s+(" + IDENT + ")\\s*", FLAGS);
+    private static final Pattern DML_TARGET = Pattern.compile("(?:INSERT\\s+INTO|UPDATE(?:\\s+ONLY)?|"
+            + "DELETE\\s+FROM(?:\\s+ONLY)?)\\s+(" + QNAME + ")", FLAGS);
+
+    /** Слова, с которых начинается определение ограничения, а не столбца, в {@code ADD}. */
+    private static final Set<String> CONSTRAINT_KEYWORDS = Set.of("CONSTRAINT", "PRIMARY", "UNIQUE", "CHECK",
+            "FOREIGN", "EXCLUDE");
+    /** Выражения, не изменяющие схему и данные. */
+    private static final Set<String> NEUTRAL_KEYWORDS = Set.of("SET", "RESET", "ANALYZE", "COMMENT");
+
+    /**
+     * Обратное выражение.
+     *
+     * @param statement выражение, отменяющее исходное
+     * @param relation отношение, которое проверяется перед выполнением выражения {@code IF NOT EXISTS},
+     *                 или null, если обратное выражение безусловно
+     * @param column столбец отношения для {@code ADD COLUMN IF NOT EXISTS} или null
+     * @param createdTable каноническое имя созданной таблицы или null
+     */
+    record Inverse(String statement, String relation, String column, String createdTable) {
+
+        boolean isConditional() {
+            return relation != null;
+        }
+    }
+
+    private InverseDdl() {
+    }
+
+    /**
+     * Строит обратное выражение.
+     *
+     * @param sql текст одного выражения
+     * @return обратное выражение или null, если выражение не поддерживается
+     */
+    static Inverse of(String sql) {
+        String body = sql.substring(SqlStatementKind.skipCommentsAndWhitespace(sql, 0)).strip();
+        Matcher m = CREATE_TABLE.matcher(body);
+        if (m.lookingAt()) {
+            String table = m.group(2);
+            return new Inverse("DROP TABLE " + table, m.group(1) != null ? table : null, null, canonical(table));
+        }
+        m = CREATE_INDEX.matcher(body);
+        if (m.lookingAt()) {
+            // Индекс создается в схеме своей таблицы
+            List<String> table = parts(m.group(3));
+            String index = table.size() > 1
+                    ? String.join(".", table.subList(0, table.size() - 1)) + "." + m.group(2)
+                    : m.group(2);
+            return new Inverse("DROP INDEX " + index, m.group(1) != null ? index : null, null, null);
+        }
+        m = CREATE_OBJECT.matcher(body);
+        if (m.lookingAt()) {
+            return createObject(body, m);
+        }
+        m = ALTER_TABLE.matcher(body);
+        if (m.matches() && m.group(1) == null) {
+            return alterTable(m.group(2), m.group(3));
+        }
+        return null;
+    }
+
+    private static Inverse createObject(String body, Matcher m) {
+        String kind = m.group(1).replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+        String name = m.group(3);
+        boolean ifNotExists = m.group(2) != null;
+        if (kind.equals("SCHEMA")) {
+            // Схема с вложенными объектами или без имени (AUTHORIZATION роль) не поддерживается
+            if (ifNotExists || name.equalsIgnoreCase("AUTHORIZATION")
+                    || !SCHEMA_REST.matcher(body.substring(m.end())).matches()) {
+                return null;
+            }
+        } else if (ifNotExists && !kind.equals("SEQUENCE") && !kind.equals("MATERIALIZED VIEW")) {
+            return null;
+        }
+        return new Inverse("DROP " + kind + " " + name, ifNotExists ? name : null, null, null);
+    }
+
+    private static Inverse alterTable(String table, String action) {
+        if (hasTopLevelComma(action)) {
+            return null;
+        }
+        Matcher m = RENAME_TABLE.matcher(action);
+        if (m.matches()) {
+            List<String> from = parts(table);
+            String renamed = from.size() > 1
+                    ? String.join(".", from.subList(0, from.size() - 1)) + "." + m.group(1)
+                    : m.group(1);
+            return new Inverse("ALTER TABLE " + renamed + " RENAME TO " + from.get(from.size() - 1), null, null, null);
+        }
+        m = RENAME_CONSTRAINT.matcher(action);
+        if (m.matches()) {
+            return new Inverse("ALTER TABLE " + table + " RENAME CONSTRAINT " + m.group(2) + " TO " + m.group(1),
+                    null, null, null);
+        }
+        m = RENAME_COLUMN.matcher(action);
+        if (m.matches() && !m.group(1).equalsIgnoreCase("CONSTRAINT")) {
+            return new Inverse("ALTER TABLE " + table + " RENAME COLUMN " + m.group(2) + " TO " + m.group(1),
+                    null, null, null);
+        }
+        m = ADD_CONSTRAINT.matcher(action + " ");
+        if (m.lookingAt()) {
+            return new Inverse("ALTER TABLE " + table + " DROP CONSTRAINT " + m.group(1), null, null, null);
+        }
+        m = ADD_COLUMN.matcher(action + " ");
+        if (m.lookingAt() && !CONSTRAINT_KEYWORDS.contains(m.group(2).toUpperCase(Locale.ROOT))) {
+            String column = m.group(2);
+            return new Inverse("ALTER TABLE " + table + " DROP COLUMN " + column,
+                    m.group(1) != null ? table : null, m.group(1) != null ? canonical(column) : null, null);
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет, что выражение не изменяет схему и данные: запросы, параметры сеанса, сбор статистики
+     * и комментарии к объектам (прежний комментарий не восстанавливается).
+     * <p>
+     * {@code SELECT ... INTO} создает таблицу, а смена {@code search_path} меняет схему, в которой
+     * разрешаются имена последующих выражений, поэтому журнал не смог бы их отменить.
+     * </p>
+     *
+     * @param sql текст одного выражения
+     * @return true, если выражение не требует обратного
+     */
+    static boolean isNeutral(String sql) {
+        String keyword = SqlStatementKind.firstKeyword(sql);
+        if (SqlStatementKind.of(sql) == SqlStatementKind.QUERY) {
+            return !keyword.equals("SELECT") || !SqlStatementKind.containsKeyword(sql, "INTO");
+        }
+        return NEUTRAL_KEYWORDS.contains(keyword) && !changesSearchPath(keyword, sql);
+    }
+
+    private static boolean changesSearchPath(String keyword, String sql) {
+        return SqlStatementKind.containsKeyword(sql, "search_path")
+                || keyword.equals("SET") && SqlStatementKind.containsKeyword(sql, "SCHEMA")
+                || keyword.equals("RESET") && SqlStatementKind.containsKeyword(sql, "ALL");
+    }
+
+    /**
+     * Возвращает каноническое имя таблицы, которую изменяет DML-выражение.
+     *
+     * @param sql текст одного выражения
+     * @return имя таблицы или null, если выражение не является простым INSERT, UPDATE или DELETE
+     */
+    static String dmlTarget(String sql) {
+        String body = sql.substring(SqlStatementKind.skipCommentsAndWhitespace(sql, 0));
+        Matcher m = DML_TARGET.matcher(body);
+        return m.lookingAt() ? canonical(m.group(1)) : null;
+    }
+
+    /**
+     * Приводит имя к виду, в котором его хранит PostgreSQL: имена без кавычек - в нижнем регистре,
+     * в кавычках - без изменений.
+     */
+    static String canonical(String name) {
+        List<String> result = new ArrayList<>();
+        for (String part : parts(name)) {
+            result.add(part.startsWith("\"")
+                    ? part.substring(1, part.length() - 1).replace("\"\"", "\"")
+                    : part.toLowerCase(Locale.ROOT));
+        }
+        return String.join(".", result);
+    }
+
+    private static List<String> parts(String name) {
+        List<String> parts = new ArrayList<>();
+        Matcher m = IDENTIFIER.matcher(name);
+        while (m.find()) {
+            parts.add(m.group());
+        }
+        return parts;
+    }
+
+    /**
+     * Проверяет, перечислено ли в {@code ALTER TABLE} несколько действий через запятую
+     * вне скобок, строк и идентификаторов в кавычках.
+     */
+    private static boolean hasTopLevelComma(String action) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < action.length(); i++) {
+            char c = action.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.migrations.rollback;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Журнал обратных выражений одной миграции, который ведется по мере ее применения.
+ * <p>
+ * Для каждого выражения миграции записывается обратное выражение ({@code CREATE TABLE} - {@code DROP TABLE},
+ * {@code ADD COLUMN} - {@code DROP COLUMN} и т.д.). Запросы, параметры сеанса и изменения данных таблиц,
+ * созданных этой же миграцией, обратного выражения не требуют. Если встречается выражение, которое нельзя
+ * отменить автоматически, журнал становится неполным: такую миграцию откатывает только сценарий отката.
+ * </p>
+ * <p>
+ * Полный журнал хранится в applied_migration в сжатом двоичном виде: версия формата, число выражений и
+ * выражения в порядке отката (длина и байты UTF-8), сжатые deflate.
+ * </p>
+ */
+public final class RollbackJournal {
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Проверяет существование объекта перед выполнением выражения {@code IF NOT EXISTS}.
+     */
+    @FunctionalInterface
+    public interface ExistenceCheck {
+        /**
+         * Проверяет, существует ли отношение или его столбец.
+         *
+         * @param relation имя отношения в синтаксисе SQL, возможно с указанием схемы
+         * @param column имя столбца или null, если проверяется отношение
+         * @return true, если объект существует
+         * @throws SQLException, если проверку не удалось выполнить
+         */
+        boolean exists(String relation, String column) throws SQLException;
+    }
+
+    private final List<String> statements = new ArrayList<>();
+    private final Set<String> createdTables = new HashSet<>();
+    private String irreversibleStatement;
+
+    /**
+     * Создает пустой журнал для новой миграции.
+     */
+    public RollbackJournal() {
+    }
+
+    private RollbackJournal(List<String> rollbackStatements) {
+        statements.addAll(rollbackStatements);
+        Collections.reverse(statements);
+    }
+
+    /**
+     * Записывает обратное выражение для выражения миграции. Вызывается до выполнения выражения,
+     * чтобы проверка {@code IF NOT EXISTS} видела состояние до него.
+     *
+     * @param sql выражение миграции
+     * @param existing проверка существования объектов
+     * @throws SQLException, если проверку существования не удалось выполнить
+     */
+    public void record(String sql, ExistenceCheck existing) throws SQLException {
+        if (!isComplete() || InverseDdl.isNeutral(sql)) {
+            return;
+        }
+        String target = InverseDdl.dmlTarget(sql);
+        if (target != null) {
+            // Изменения данных новой таблицы отменяются ее удалением
+            if (!createdTables.contains(target)) {
+                irreversibleStatement = sql;
+            }
+            return;
+        }
+        InverseDdl.Inverse inverse = InverseDdl.of(sql);
+        if (inverse == null) {
+            irreversibleStatement = sql;
+            return;
+        }
+        if (inverse.isConditional() && existing.exists(inverse.relation(), inverse.column())) {
+            // IF NOT EXISTS для существующего объекта ничего не изменит
+            return;
+        }
+        statements.add(inverse.statement());
+        if (inverse.createdTable() != null) {
+            createdTables.add(inverse.createdTable());
+        }
+    }
+
+    /**
+     * Проверяет, можно ли откатить миграцию только по журналу.
+     *
+     * @return true, если для всех выражений миграции записаны обратные
+     */
+    public boolean isComplete() {
+        return irreversibleStatement == null;
+    }
+
+    /**
+     * Возвращает первое выражение миграции, которое нельзя отменить автоматически.
+     *
+     * @return выражение или null, если журнал полный
+     */
+    public String getIrreversibleStatement() {
+        return irreversibleStatement;
+    }
+
+    /**
+     * Возвращает обратные выражения в порядке отката: от последнего выражения миграции к первому.
+     *
+     * @return выражения отката
+     */
+    public List<String> getRollbackStatements() {
+        List<String> result = new ArrayList<>(statements);
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Сериализует полный журнал в сжатый двоичный вид.
+     *
+     * @return байты журнала
+     * @throws IllegalStateException, если журнал неполный
+     */
+    public byte[] toBytes() {
+        if (!isComplete()) {
+            throw new IllegalStateException("Rollback journal is incomplete: " + irreversibleStatement);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            List<String> rollbackStatements = getRollbackStatements();
+            output.writeByte(FORMAT_VERSION);
+            output.writeInt(rollbackStatements.size());
+            for (String statement : rollbackStatements) {
+                byte[] utf8 = statement.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(utf8.length);
+                output.write(utf8);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize rollback journal", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Восстанавливает журнал, сохраненный {@link #toBytes()}.
+     *
+     * @param bytes байты журнала
+     * @return журнал
+     * @throws IOException, если данные повреждены или записаны в неизвестном формате
+     */
+    public static RollbackJournal fromBytes(byte[] bytes) throws IOException {
+        try (DataInputStream input = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            int format = input.readUnsignedByte();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported rollback journal format: " + format);
+            }
+            int count = input.readInt();
+            if (count < 0) {
+                throw new IOException("Malformed rollback journal");
+            }
+            List<String> rollbackStatements = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int length = input.readInt();
+                if (length < 0) {
+                    throw new IOException("Malformed rollback journal");
+                }
+                byte[] utf8 = new byte[length];
+                input.readFully(utf8);
+                rollbackStatements.add(new String(utf8, StandardCharsets.UTF_8));
+            }
+            return new RollbackJournal(rollbackStatements);
+        }
+    }
+}
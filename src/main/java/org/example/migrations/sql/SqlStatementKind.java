@@ -0,0 +1,205 @@
+package org.example.migrations.sql;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Вид SQL-выражения, определяемый по его первому ключевому слову.
+ * <p>
+ * Используется исполнителем миграций, чтобы решить, можно ли отправить выражение в составе
+ * JDBC-пакета ({@code addBatch}/{@code executeBatch}) или его нужно выполнить отдельно.
+ * </p>
+ */
+public enum SqlStatementKind {
+    DML,
+    DDL,
+    QUERY,
+    OTHER;
+
+    private static final Set<String> DML_KEYWORDS = Set.of("INSERT", "UPDATE", "DELETE", "MERGE");
+    private static final Set<String> DDL_KEYWORDS = Set.of("CREATE", "ALTER", "DROP", "TRUNCATE", "COMMENT",
+            "GRANT", "REVOKE");
+    private static final Set<String> QUERY_KEYWORDS = Set.of("SELECT", "VALUES", "TABLE", "SHOW", "EXPLAIN");
+
+    /**
+     * Определяет вид выражения, пропуская ведущие пробелы и комментарии.
+     *
+     * @param sql текст одного SQL-выражения
+     * @return вид выражения; {@link #OTHER}, если ключевое слово не распознано
+     */
+    public static SqlStatementKind of(String sql) {
+        String keyword = firstKeyword(sql);
+        if (DML_KEYWORDS.contains(keyword)) {
+            return DML;
+        }
+        if (DDL_KEYWORDS.contains(keyword)) {
+            return DDL;
+        }
+        if (QUERY_KEYWORDS.contains(keyword)) {
+            return QUERY;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Проверяет, можно ли выполнить выражение в составе JDBC-пакета.
+     * <p>
+     * В пакет допускаются только DML-выражения, не возвращающие результат ({@code RETURNING}).
+     * Слово {@code RETURNING} в строковых литералах, идентификаторах в кавычках и комментариях не учитывается.
+     * </p>
+     *
+     * @param sql текст одного SQL-выражения
+     * @return true, если выражение можно добавить в пакет
+     */
+    public static boolean isBatchable(String sql) {
+        return of(sql) == DML && !containsKeyword(sql, "RETURNING");
+    }
+
+    /**
+     * Проверяет, встречается ли ключевое слово в тексте выражения как отдельное слово.
+     * <p>
+     * Разбор следует правилам {@link SqlStatementReader}: строковые литералы (включая {@code E'...'}
+     * с экранированием обратной косой чертой), идентификаторы в кавычках, комментарии {@code --}
+     * и вложенные {@code /* *}{@code /}, а также блоки в долларовых кавычках пропускаются.
+     * </p>
+     *
+     * @param sql текст одного SQL-выражения
+     * @param keyword ключевое слово без учета регистра
+     * @return true, если слово найдено вне литералов и комментариев
+     */
+    public static boolean containsKeyword(String sql, String keyword) {
+        int i = 0;
+        int tagEnd;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                boolean escapes = i > 0 && (sql.charAt(i - 1) == 'E' || sql.charAt(i - 1) == 'e')
+                        && (i == 1 || !isWordPart(sql.charAt(i - 2)));
+                i = skipQuoted(sql, i, '\'', escapes);
+            } else if (c == '"') {
+                i = skipQuoted(sql, i, '"', false);
+            } else if (sql.startsWith("--", i) || sql.startsWith("/*", i)) {
+                i = skipComment(sql, i);
+            } else if (c == '$' && (tagEnd = dollarTagEnd(sql, i)) > 0) {
+                String tag = sql.substring(i, tagEnd + 1);
+                int end = sql.indexOf(tag, i + tag.length());
+                i = end < 0 ? sql.length() : end + tag.length();
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < sql.length() && isWordPart(sql.charAt(i))) {
+                    i++;
+                }
+                if (i - start == keyword.length() && sql.regionMatches(true, start, keyword, 0, keyword.length())) {
+                    return true;
+                }
+            } else {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает первое ключевое слово выражения в верхнем регистре.
+     *
+     * @param sql текст одного SQL-выражения
+     * @return первое слово выражения или пустая строка
+     */
+    public static String firstKeyword(String sql) {
+        int i = skipCommentsAndWhitespace(sql, 0);
+        int start = i;
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return sql.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Пропускает пробелы и комментарии начиная с указанной позиции.
+     *
+     * @param sql текст SQL-выражения
+     * @param from позиция, с которой начинается поиск
+     * @return позиция первого значимого символа или длина строки
+     */
+    public static int skipCommentsAndWhitespace(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (sql.startsWith("--", i) || sql.startsWith("/*", i)) {
+                i = skipComment(sql, i);
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Пропускает комментарий {@code --} до конца строки или вложенный комментарий {@code /* *}{@code /}.
+     */
+    private static int skipComment(String sql, int from) {
+        if (sql.startsWith("--", from)) {
+            int end = sql.indexOf('\n', from);
+            return end < 0 ? sql.length() : end + 1;
+        }
+        int depth = 0;
+        int i = from;
+        while (i < sql.length()) {
+            if (sql.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            } else if (sql.startsWith("*/", i)) {
+                i += 2;
+                if (--depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Пропускает литерал в кавычках; удвоенная кавычка внутри литерала не завершает его.
+     */
+    private static int skipQuoted(String sql, int from, char quote, boolean backslashEscapes) {
+        int i = from + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Возвращает позицию закрывающего {@code $} тега долларовой кавычки, начинающегося в {@code from},
+     * или -1, если это не тег (например, параметр {@code $1}).
+     */
+    private static int dollarTagEnd(String sql, int from) {
+        int i = from + 1;
+        if (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+            return -1;
+        }
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            i++;
+        }
+        return i < sql.length() && sql.charAt(i) == '$' ? i : -1;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,268 @@
+package org.example.migrations.sql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Потоковый разбор SQL-скрипта на отдельные выражения.
+ * <p>
+ * Класс читает скрипт порциями через буфер фиксированного размера и возвращает выражения по одному,
+ * поэтому объём занимаемой памяти не зависит от размера файла и ограничен длиной самого большого выражения.
+ * Разделителем считается символ {@code ;} вне строковых литералов, идентификаторов в кавычках,
+ * комментариев ({@code --} и вложенных {@code /* *}{@code /}) и блоков в долларовых кавычках ({@code $tag$ ... $tag$}).
+ * Выражения, состоящие только из пробелов и комментариев, пропускаются.
+ * </p>
+ */
+public class SqlStatementReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int NO_PUSHBACK = -2;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int pushback = NO_PUSHBACK;
+
+    /**
+     * Создает SqlStatementReader поверх указанного источника символов.
+     *
+     * @param reader источник текста SQL-скрипта; закрывается вместе с этим объектом
+     */
+    public SqlStatementReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Открывает SQL-файл для потокового чтения в кодировке UTF-8.
+     *
+     * @param file путь к SQL-файлу
+     * @return SqlStatementReader, читающий выражения из файла
+     * @throws IOException, если файл не удалось открыть
+     */
+    public static SqlStatementReader open(Path file) throws IOException {
+        return new SqlStatementReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Создает SqlStatementReader для SQL-текста, уже находящегося в памяти.
+     *
+     * @param sql текст SQL-скрипта
+     * @return SqlStatementReader, читающий выражения из строки
+     */
+    public static SqlStatementReader of(String sql) {
+        return new SqlStatementReader(new StringReader(sql));
+    }
+
+    /**
+     * Читает следующее выражение скрипта.
+     *
+     * @return текст выражения без завершающего {@code ;} и крайних пробелов или null, если скрипт закончился
+     * @throws IOException, если при чтении источника возникла ошибка
+     */
+    public String nextStatement() throws IOException {
+        StringBuilder statement = new StringBuilder();
+        boolean hasContent = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == ';') {
+                if (hasContent) {
+                    return statement.toString().trim();
+                }
+                statement.setLength(0);
+                continue;
+            }
+            statement.append((char) c);
+            switch (c) {
+                case '\'' -> {
+                    hasContent = true;
+                    readQuoted(statement, '\'', isEscapeStringPrefix(statement));
+                }
+                case '"' -> {
+                    hasContent = true;
+                    readQuoted(statement, '"', false);
+                }
+                case '-' -> {
+                    int next = read();
+                    if (next == '-') {
+                        statement.append('-');
+                        readLineComment(statement);
+                    } else {
+                        hasContent = true;
+                        unread(next);
+                    }
+                }
+                case '/' -> {
+                    int next = read();
+                    if (next == '*') {
+                        statement.append('*');
+                        readBlockComment(statement);
+                    } else {
+                        hasContent = true;
+                        unread(next);
+                    }
+                }
+                case '$' -> {
+                    hasContent = true;
+                    if (!isIdentifierPart(charBefore(statement, 1))) {
+                        readDollarQuoted(statement);
+                    }
+                }
+                default -> {
+                    if (!Character.isWhitespace(c)) {
+                        hasContent = true;
+                    }
+                }
+            }
+        }
+        return hasContent ? statement.toString().trim() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readQuoted(StringBuilder statement, char quote, boolean backslashEscapes) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            statement.append((char) c);
+            if (backslashEscapes && c == '\\') {
+                int escaped = read();
+                if (escaped == -1) {
+                    return;
+                }
+                statement.append((char) escaped);
+            } else if (c == quote) {
+                int next = read();
+                if (next != quote) {
+                    unread(next);
+                    return;
+                }
+                statement.append((char) next);
+            }
+        }
+    }
+
+    private void readLineComment(StringBuilder statement) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            statement.append((char) c);
+            if (c == '\n') {
+                return;
+            }
+        }
+    }
+
+    private void readBlockComment(StringBuilder statement) throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != -1) {
+            statement.append((char) c);
+            if (c == '*' || c == '/') {
+                int next = read();
+                if (c == '*' && next == '/') {
+                    depth--;
+                    statement.append('/');
+                } else if (c == '/' && next == '*') {
+                    depth++;
+                    statement.append('*');
+                } else {
+                    unread(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Читает тег долларовой кавычки после уже прочитанного {@code $} и, если тег корректен,
+     * всё содержимое до закрывающего {@code $tag$}. Иначе символ {@code $} считается обычным
+     * (например, в параметре {@code $1}).
+     */
+    private void readDollarQuoted(StringBuilder statement) throws IOException {
+        StringBuilder tag = new StringBuilder();
+        int c;
+        while ((c = read()) != -1 && c != '$') {
+            boolean valid = tag.isEmpty() ? isIdentifierStart(c) : isIdentifierPart(c);
+            if (!valid) {
+                statement.append(tag);
+                unread(c);
+                return;
+            }
+            tag.append((char) c);
+        }
+        statement.append(tag);
+        if (c == -1) {
+            return;
+        }
+        statement.append('$');
+
+        while ((c = read()) != -1) {
+            statement.append((char) c);
+            if (c == '$' && matchesClosingTag(statement, tag)) {
+                return;
+            }
+        }
+    }
+
+    private boolean matchesClosingTag(StringBuilder statement, CharSequence tag) throws IOException {
+        for (int i = 0; i < tag.length(); i++) {
+            int c = read();
+            if (c != tag.charAt(i)) {
+                unread(c);
+                return false;
+            }
+            statement.append((char) c);
+        }
+        int c = read();
+        if (c != '$') {
+            unread(c);
+            return false;
+        }
+        statement.append('$');
+        return true;
+    }
+
+    private boolean isEscapeStringPrefix(StringBuilder statement) {
+        int prefix = charBefore(statement, 1);
+        return (prefix == 'E' || prefix == 'e') && !isIdentifierPart(charBefore(statement, 2));
+    }
+
+    private static int charBefore(StringBuilder statement, int offset) {
+        int index = statement.length() - 1 - offset;
+        return index >= 0 ? statement.charAt(index) : -1;
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return c == '_' || Character.isLetter(c);
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return c == '_' || c == '$' || Character.isLetterOrDigit(c);
+    }
+
+    private int read() throws IOException {
+        if (pushback != NO_PUSHBACK) {
+            int c = pushback;
+            pushback = NO_PUSHBACK;
+            return c;
+        }
+        if (position == limit) {
+            limit = reader.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+}
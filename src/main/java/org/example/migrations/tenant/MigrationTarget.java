@@ -0,0 +1,97 @@
+package org.example.migrations.tenant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Цель применения миграций: отдельная схема в основной базе данных или отдельная база данных.
+ * <p>
+ * Цель задается либо именем схемы (соединение открывается к {@code db.url}, а затем для него
+ * устанавливается схема), либо JDBC URL другой базы данных. Таблицы applied_migration и
+ * migration_lock создаются в каждой цели отдельно, поэтому версии и блокировки у целей независимы.
+ * </p>
+ */
+public final class MigrationTarget {
+    private final String name;
+    private final String url;
+    private final String schema;
+
+    private MigrationTarget(String name, String url, String schema) {
+        this.name = name;
+        this.url = url;
+        this.schema = schema;
+    }
+
+    /**
+     * Создает цель для схемы в основной базе данных.
+     *
+     * @param schema имя схемы
+     * @return цель миграции
+     */
+    public static MigrationTarget schema(String schema) {
+        return new MigrationTarget(schema, null, schema);
+    }
+
+    /**
+     * Создает цель для отдельной базы данных.
+     *
+     * @param url JDBC URL базы данных
+     * @return цель миграции
+     */
+    public static MigrationTarget database(String url) {
+        return new MigrationTarget(url, url, null);
+    }
+
+    /**
+     * Разбирает список целей, разделенных запятыми. Элементы, начинающиеся с {@code jdbc:},
+     * считаются URL баз данных, остальные - именами схем.
+     *
+     * @param targets список целей, например {@code tenant_1,tenant_2,jdbc:postgresql://host/db}
+     * @return цели в порядке перечисления; пустой список, если строка пуста или равна null
+     */
+    public static List<MigrationTarget> parseList(String targets) {
+        List<MigrationTarget> result = new ArrayList<>();
+        if (targets == null) {
+            return result;
+        }
+        for (String item : targets.split(",")) {
+            String value = item.trim();
+            if (!value.isEmpty()) {
+                result.add(value.startsWith("jdbc:") ? database(value) : schema(value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает имя цели, используемое в журналах и отчетах.
+     *
+     * @return имя схемы или URL базы данных
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Возвращает JDBC URL отдельной базы данных.
+     *
+     * @return URL или null, если цель находится в основной базе данных
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Возвращает схему, которую нужно установить для соединения.
+     *
+     * @return имя схемы или null, если используется схема по умолчанию
+     */
+    public String getSchema() {
+        return schema;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
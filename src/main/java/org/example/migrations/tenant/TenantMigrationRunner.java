@@ -0,0 +1,229 @@
+package org.example.migrations.tenant;
+
+import org.example.db.ConnectionSupplier;
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.OutOfTransactionExecutor;
+import org.example.migrations.MigrationTool;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.lock.MigrationLockFactory;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.report.MigrationReport;
+import org.example.migrations.report.MigrationReportSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Применяет один набор миграций к нескольким схемам или базам данных одновременно.
+ * <p>
+ * Каталог миграций строится и хешируется один раз, после чего каждая цель обрабатывается
+ * в ограниченном пуле потоков собственным {@link MigrationTool} на отдельном соединении:
+ * блокировка, транзакция и таблица applied_migration у каждой цели свои. Отчеты всех целей
+ * передаются одному получателю по мере завершения целей.
+ * </p>
+ * <p>
+ * При политике {@link FailurePolicy#FAIL_FAST} после первой ошибки новые цели не запускаются
+ * (уже начатые завершаются), а для пропущенных целей формируется неуспешный отчет.
+ * При политике {@link FailurePolicy#CONTINUE} обрабатываются все цели.
+ * </p>
+ */
+public class TenantMigrationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(TenantMigrationRunner.class);
+
+    /**
+     * Поведение при ошибке миграции одной из целей.
+     */
+    public enum FailurePolicy {
+        FAIL_FAST,
+        CONTINUE;
+
+        /**
+         * Разбирает значение параметра конфигурации, например {@code fail-fast} или {@code continue}.
+         *
+         * @param value значение параметра или null
+         * @return политика; {@link #FAIL_FAST}, если значение не задано
+         */
+        public static FailurePolicy parse(String value) {
+            if (value == null || value.isBlank()) {
+                return FAIL_FAST;
+            }
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Открывает соединение с целью миграции.
+     */
+    @FunctionalInterface
+    public interface TargetConnector {
+        Connection connect(MigrationTarget target) throws SQLException;
+    }
+
+    private final TargetConnector connector;
+    private final MigrationFileReader migrationFileReader;
+    private final int parallelism;
+    private final FailurePolicy failurePolicy;
+    private final int batchSize;
+    private final MigrationLockFactory lockFactory;
+    private final MigrationMetrics metrics;
+    private final MigrationOptions options;
+
+    /**
+     * Создает исполнитель миграций для нескольких целей.
+     * <p>
+     * Границы транзакций и повторы из {@code options} действуют в каждой цели. Цели применяют миграции
+     * последовательно, а исполнитель миграций вне транзакции создается для каждой цели на ее соединениях,
+     * поэтому планировщик и исполнитель из {@code options} не используются.
+     * </p>
+     *
+     * @param connector источник соединений с целями
+     * @param migrationFileReader устройство чтения файлов миграций, общее для всех целей
+     * @param parallelism максимальное число целей, обрабатываемых одновременно
+     * @param failurePolicy поведение при ошибке одной из целей
+     * @param batchSize размер JDBC-пакета для исполнителя миграций каждой цели
+     * @param lockFactory фабрика блокировок, захватываемых в каждой цели
+     * @param metrics метрики миграций, общие для всех целей
+     * @param options параметры применения миграций в каждой цели
+     */
+    public TenantMigrationRunner(TargetConnector connector, MigrationFileReader migrationFileReader, int parallelism,
+                                 FailurePolicy failurePolicy, int batchSize, MigrationLockFactory lockFactory,
+                                 MigrationMetrics metrics, MigrationOptions options) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Fan-out parallelism must be positive: " + parallelism);
+        }
+        this.connector = connector;
+        this.migrationFileReader = migrationFileReader;
+        this.parallelism = parallelism;
+        this.failurePolicy = failurePolicy;
+        this.batchSize = batchSize;
+        this.lockFactory = lockFactory;
+        this.metrics = metrics;
+        this.options = options.toBuilder().scheduler(null).outOfTransactionExecutor(null).build();
+    }
+
+    /**
+     * Применяет ожидающие миграции ко всем целям.
+     *
+     * @param targets цели миграции
+     * @param reportSink получатель отчетов всех целей; должен допускать вызовы из нескольких потоков.
+     *                   Ошибка цели описывается неуспешным отчетом, а не исключением
+     * @return число целей, миграция которых завершилась ошибкой или была пропущена
+     * @throws IOException, если файлы миграций не удалось прочитать или отчет не удалось сохранить
+     */
+    public int migrateAll(List<MigrationTarget> targets, MigrationReportSink reportSink) throws IOException {
+        long started = System.nanoTime();
+        MigrationCatalog catalog = migrationFileReader.getMigrationCatalog();
+        migrationFileReader.preload(catalog.getFiles());
+
+        AtomicBoolean failed = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, targets.size())),
+                daemonThreads());
+        int failures = 0;
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(targets.size());
+            for (MigrationTarget target : targets) {
+                futures.add(pool.submit(() -> migrate(target, catalog, failed, reportSink)));
+            }
+            for (Future<Boolean> future : futures) {
+                if (!await(future)) {
+                    failures++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        logger.info("Migrated {} targets in {} ms, failed: {}", targets.size(),
+                (System.nanoTime() - started) / 1_000_000, failures);
+        return failures;
+    }
+
+    /**
+     * Находит схемы-цели с помощью запроса, возвращающего имена схем в первом столбце.
+     *
+     * @param connection соединение с основной базой данных
+     * @param query запрос, например {@code SELECT nspname FROM pg_namespace WHERE nspname LIKE 'tenant_%'}
+     * @return цели для найденных схем
+     * @throws SQLException, если запрос не удалось выполнить
+     */
+    public static List<MigrationTarget> discoverSchemas(Connection connection, String query) throws SQLException {
+        List<MigrationTarget> targets = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(query);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                targets.add(MigrationTarget.schema(rs.getString(1)));
+            }
+        }
+        return targets;
+    }
+
+    private boolean migrate(MigrationTarget target, MigrationCatalog catalog, AtomicBoolean failed,
+                            MigrationReportSink reportSink) throws IOException {
+        if (failurePolicy == FailurePolicy.FAIL_FAST && failed.get()) {
+            reportSink.accept(failure(target, "Skipped after a failure in another target"));
+            return false;
+        }
+        try (Connection connection = connector.connect(target)) {
+            MigrationExecutor migrationExecutor = new MigrationExecutor(connection, migrationFileReader, batchSize, metrics);
+            ConnectionSupplier targetConnections = () -> connector.connect(target);
+            MigrationTool migrationTool = new MigrationTool(migrationExecutor, connection, migrationFileReader,
+                    lockFactory.create(connection, targetConnections), options.toBuilder()
+                    .outOfTransactionExecutor(new OutOfTransactionExecutor(targetConnections, migrationFileReader,
+                            OutOfTransactionExecutor.DEFAULT_PROGRESS_INTERVAL_MILLIS, metrics))
+                    .build());
+            int applied = migrationTool.applyPendingMigrations(catalog,
+                    report -> reportSink.accept(report.forTarget(target.getName())));
+            logger.info("Target {}: applied {} migrations", target, applied);
+            return true;
+        } catch (SQLException | IOException | RuntimeException e) {
+            failed.set(true);
+            logger.error("Target {}: migration failed: {}", target, e.getMessage(), e);
+            reportSink.accept(failure(target, e.getMessage()));
+            return false;
+        }
+    }
+
+    private static MigrationReport failure(MigrationTarget target, String errorMessage) {
+        return new MigrationReport(null, null, false, LocalDateTime.now().toString(), errorMessage, target.getName());
+    }
+
+    private static boolean await(Future<Boolean> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while migrating targets", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException("Unexpected failure while migrating a target", e.getCause());
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "migration-tenant-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.migrations.watch;
+
+import org.example.migrations.MigrationTool;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationType;
+import org.example.migrations.report.MigrationReportSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Режим наблюдения за каталогом миграций для сред разработки.
+ * <p>
+ * Соединение, {@link MigrationTool} и разобранный каталог миграций сохраняются между применениями.
+ * Каталог migrations отслеживается через {@link WatchService}: после серии изменений, затихшей на
+ * {@code debounceMillis}, в каталог добавляются только созданные или измененные файлы, и ожидающие
+ * миграции применяются без повторного обхода каталога. Полный обход выполняется только при
+ * переполнении очереди событий.
+ * </p>
+ * <p>
+ * Ошибка миграции или некорректный файл не останавливают наблюдение: после исправления файла
+ * его изменение снова запускает применение.
+ * </p>
+ */
+public class MigrationWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationWatcher.class);
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+    private final MigrationTool migrationTool;
+    private final MigrationFileReader migrationFileReader;
+    private final MigrationReportSink reportSink;
+    private final long debounceMillis;
+    private final PathMatcher migrationFiles =
+            FileSystems.getDefault().getPathMatcher("glob:" + MigrationType.directoryGlob());
+    private final Map<Path, MigrationFile> files = new HashMap<>();
+    private volatile WatchService watchService;
+    private volatile boolean closed;
+
+    /**
+     * Создает наблюдатель за каталогом миграций.
+     *
+     * @param migrationTool инструмент миграции с постоянным соединением
+     * @param migrationFileReader устройство чтения файлов миграций, задающее наблюдаемый каталог
+     * @param reportSink получатель отчетов о применении
+     * @param debounceMillis время затишья после последнего события перед применением изменений
+     */
+    public MigrationWatcher(MigrationTool migrationTool, MigrationFileReader migrationFileReader,
+                            MigrationReportSink reportSink, long debounceMillis) {
+        this.migrationTool = migrationTool;
+        this.migrationFileReader = migrationFileReader;
+        this.reportSink = reportSink;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Применяет ожидающие миграции и затем применяет новые файлы по мере их появления,
+     * пока наблюдатель не будет закрыт или поток не будет прерван.
+     *
+     * @throws IOException, если каталог миграций не удалось прочитать или отслеживать
+     */
+    public void run() throws IOException {
+        Path directory = migrationFileReader.getMigrationDir();
+        if (directory == null) {
+            throw new IOException("Watch mode requires migrations in a filesystem directory (migration.source=filesystem)");
+        }
+        try (WatchService service = directory.getFileSystem().newWatchService()) {
+            watchService = service;
+            if (closed) {
+                return;
+            }
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            refresh(directory, null);
+            logger.info("Watching {} for new migrations", directory);
+
+            while (!closed) {
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = drain(service.take(), changed);
+                // Редакторы и копирование создают несколько событий подряд: ждем, пока они затихнут
+                WatchKey key;
+                while ((key = service.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= drain(key, changed);
+                }
+                if (overflow) {
+                    logger.warn("Watch events overflowed, rescanning {}", directory);
+                }
+                refresh(directory, overflow ? null : changed);
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.info("Migration watcher stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Migration watcher interrupted");
+        } finally {
+            watchService = null;
+        }
+    }
+
+    /**
+     * Собирает имена измененных файлов миграций из ключа и возвращает ключ в очередь.
+     *
+     * @return true, если часть событий была потеряна
+     */
+    private boolean drain(WatchKey key, Set<Path> changed) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (event.context() instanceof Path name && isMigrationFile(name)) {
+                changed.add(name);
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    private boolean isMigrationFile(Path name) {
+        return migrationFiles.matches(name) && name.toString().startsWith("V") && name.toString().contains("__");
+    }
+
+    /**
+     * Обновляет каталог и применяет ожидающие миграции. Любая ошибка цикла (некорректное имя файла,
+     * файл, удаленный между событием и чтением, ошибка базы данных) записывается в журнал,
+     * и наблюдение продолжается до следующего изменения.
+     *
+     * @param changed имена измененных файлов или null для полного обхода каталога
+     */
+    private void refresh(Path directory, Set<Path> changed) {
+        try {
+            if (changed == null) {
+                rescan(directory);
+            } else {
+                update(directory, changed);
+            }
+            apply();
+        } catch (SQLException e) {
+            logger.error("Migration failed, waiting for changes: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.error("Failed to read migrations, waiting for changes: {}", e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.error("Invalid migration catalog, waiting for changes: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Migration watcher cycle failed, waiting for changes", e);
+        }
+    }
+
+    private void rescan(Path directory) throws IOException {
+        files.clear();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (isMigrationFile(file.getFileName())) {
+                    put(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Обновляет каталог только по измененным файлам: новый дескриптор сбрасывает
+     * закэшированные размер и контрольную сумму, удаленный файл убирается из каталога.
+     */
+    private void update(Path directory, Set<Path> changed) {
+        for (Path name : changed) {
+            Path file = directory.resolve(name);
+            if (Files.isRegularFile(file)) {
+                if (put(file)) {
+                    logger.info("Migration file changed: {}", name);
+                }
+            } else if (files.remove(name) != null) {
+                logger.info("Migration file removed: {}", name);
+            }
+        }
+    }
+
+    /**
+     * Добавляет дескриптор файла в каталог. Файл с некорректным именем пропускается до его исправления.
+     *
+     * @return true, если файл добавлен
+     */
+    private boolean put(Path file) {
+        Path name = file.getFileName();
+        try {
+            files.put(name, migrationFileReader.toMigrationFile(file));
+            return true;
+        } catch (IllegalArgumentException e) {
+            files.remove(name);
+            logger.error("Skipping migration file {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void apply() throws SQLException, IOException {
+        MigrationCatalog catalog = MigrationCatalog.of(files.values());
+        long started = System.nanoTime();
+        int applied = migrationTool.applyPendingMigrations(catalog, reportSink);
+        if (applied > 0) {
+            logger.info("Applied {} migrations in {} ms", applied, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Останавливает наблюдение. Применение, начатое до вызова, завершается.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        WatchService service = watchService;
+        if (service != null) {
+            service.close();
+        }
+    }
+}
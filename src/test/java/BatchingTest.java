@@ -0,0 +1,102 @@
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.sql.SqlStatementKind;
+import org.example.migrations.sql.SqlStatementReader;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BatchingTest {
+
+    @Test
+    void testOnlyDmlWithoutReturningIsBatchable() {
+        assertTrue(SqlStatementKind.isBatchable("INSERT INTO t VALUES (1)"));
+        assertTrue(SqlStatementKind.isBatchable("-- comment\nUPDATE t SET c = 1"));
+        assertFalse(SqlStatementKind.isBatchable("INSERT INTO t VALUES (1) RETURNING id"));
+        assertFalse(SqlStatementKind.isBatchable("delete from t returning *"));
+        assertFalse(SqlStatementKind.isBatchable("CREATE TABLE t (id INT)"));
+        assertFalse(SqlStatementKind.isBatchable("SELECT 1"));
+    }
+
+    @Test
+    void testReturningInLiteralsAndCommentsIsIgnored() {
+        assertTrue(SqlStatementKind.isBatchable("INSERT INTO t VALUES ('RETURNING')"));
+        assertTrue(SqlStatementKind.isBatchable("INSERT INTO t VALUES ('it''s returning')"));
+        assertTrue(SqlStatementKind.isBatchable("INSERT INTO t VALUES (E'\\' returning')"));
+        assertTrue(SqlStatementKind.isBatchable("UPDATE t SET \"returning\" = 1"));
+        assertTrue(SqlStatementKind.isBatchable("UPDATE t SET c = 1 -- returning id"));
+        assertTrue(SqlStatementKind.isBatchable("UPDATE t SET c = 1 /* outer /* returning */ returning */"));
+        assertTrue(SqlStatementKind.isBatchable("INSERT INTO t VALUES ($body$ returning $body$)"));
+        assertTrue(SqlStatementKind.isBatchable("UPDATE t SET returning_count = 1"));
+        assertFalse(SqlStatementKind.isBatchable("INSERT INTO t VALUES ($1) RETURNING id"));
+    }
+
+    @Test
+    void testBatchIsFlushedAtSizeAndBeforeOtherStatements() throws SQLException, IOException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        when(statement.executeBatch()).thenReturn(new int[]{1, 1});
+        MigrationExecutor executor = new MigrationExecutor(connection, new MigrationFileReader(), 2);
+        String sql = """
+                INSERT INTO a VALUES (1);
+                INSERT INTO a VALUES (2);
+                INSERT INTO a VALUES (3);
+                CREATE TABLE b (id INT);
+                UPDATE a SET id = 4 RETURNING id;
+                DELETE FROM a;
+                """;
+
+        executor.applyMigration("1", "batch", "checksum", SqlStatementReader.of(sql), "V1__rollback.sql");
+
+        InOrder order = inOrder(statement);
+        order.verify(statement).addBatch("INSERT INTO a VALUES (1)");
+        order.verify(statement).addBatch("INSERT INTO a VALUES (2)");
+        order.verify(statement).executeBatch();
+        order.verify(statement).addBatch("INSERT INTO a VALUES (3)");
+        order.verify(statement).executeBatch();
+        order.verify(statement).execute("CREATE TABLE b (id INT)");
+        order.verify(statement).execute("UPDATE a SET id = 4 RETURNING id");
+        order.verify(statement).addBatch("DELETE FROM a");
+        order.verify(statement).executeBatch();
+        verify(statement, times(3)).executeBatch();
+    }
+
+    @Test
+    void testVersionRecordsAreBatchedUntilFlushOrCleared() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(insert);
+        MigrationExecutor executor = new MigrationExecutor(connection, new MigrationFileReader(), 2);
+
+        executor.recordMigration("1", "one", "c1", "V1__rollback.sql");
+        verify(insert, never()).executeBatch();
+        executor.recordMigration("2", "two", "c2", "V2__rollback.sql");
+        verify(insert, times(1)).executeBatch();
+
+        executor.recordMigration("3", "three", "c3", "V3__rollback.sql");
+        executor.clearBatch();
+        executor.flushBatch();
+        InOrder order = inOrder(insert);
+        order.verify(insert, calls(2)).addBatch();
+        order.verify(insert).executeBatch();
+        order.verify(insert).addBatch();
+        order.verify(insert).clearBatch();
+        verify(insert, times(1)).executeBatch();
+
+        executor.recordMigration("4", "four", "c4", "V4__rollback.sql");
+        executor.flushBatch();
+        verify(insert, times(2)).executeBatch();
+        verify(insert, times(4)).addBatch();
+    }
+}
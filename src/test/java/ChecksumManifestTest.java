@@ -0,0 +1,44 @@
+import org.example.migrations.fileReader.ChecksumManifest;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumManifestTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testUnchangedFilesAreNotRehashed() throws IOException {
+        Path script = tempDir.resolve("V1__test.sql");
+        Path manifestFile = tempDir.resolve("manifest");
+        Files.writeString(script, "SELECT 1;");
+        FileTime modified = Files.getLastModifiedTime(script);
+
+        MigrationFile first = new MigrationFile("1", "test", script);
+        new MigrationFileLoader(1, ChecksumManifest.load(manifestFile)).preload(List.of(first));
+        assertTrue(Files.exists(manifestFile));
+
+        // Тот же размер и время изменения: контрольная сумма должна быть взята из кэша без чтения файла
+        Files.writeString(script, "SELECT 2;");
+        Files.setLastModifiedTime(script, modified);
+        MigrationFile cached = new MigrationFile("1", "test", script);
+        new MigrationFileLoader(1, ChecksumManifest.load(manifestFile)).preload(List.of(cached));
+        assertEquals(first.getChecksum(), cached.getChecksum());
+
+        // Изменилось время изменения: файл хешируется заново
+        Files.setLastModifiedTime(script, FileTime.fromMillis(modified.toMillis() + 1000));
+        MigrationFile changed = new MigrationFile("1", "test", script);
+        new MigrationFileLoader(1, ChecksumManifest.load(manifestFile)).preload(List.of(changed));
+        assertNotEquals(first.getChecksum(), changed.getChecksum());
+    }
+}
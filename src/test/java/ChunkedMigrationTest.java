@@ -0,0 +1,168 @@
+import org.example.migrations.chunked.AdaptiveChunkSizer;
+import org.example.migrations.chunked.ChunkedMigrationRunner;
+import org.example.migrations.chunked.ChunkedMigrationSpec;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationType;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+class ChunkedMigrationTest {
+
+    private static ChunkedMigrationSpec spec(String content) throws IOException {
+        return ChunkedMigrationSpec.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testSpecIsParsedWithDefaults() throws IOException {
+        ChunkedMigrationSpec spec = spec("""
+                table=orders
+                key=id
+                update=UPDATE orders SET total_cents = total * 100 WHERE id > ? AND id <= ?
+                chunk.size=500
+                """);
+
+        assertEquals("orders", spec.getTable());
+        assertEquals("id", spec.getKeyColumn());
+        assertEquals(500, spec.getChunkSize());
+        assertEquals(ChunkedMigrationSpec.DEFAULT_MAX_CHUNK_SIZE, spec.getMaxChunkSize());
+        assertEquals(0.0, spec.getPauseRatio());
+        assertThrows(IllegalArgumentException.class, () -> spec("table=orders\nkey=id\n"));
+    }
+
+    @Test
+    void testChunkSizeFollowsLatency() throws IOException {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(spec("""
+                table=t
+                key=id
+                update=UPDATE t SET x = 1 WHERE id > ? AND id <= ?
+                chunk.size=1000
+                chunk.min=100
+                chunk.max=3000
+                target.latency=100
+                """));
+
+        assertEquals(2000, sizer.record(10));
+        assertEquals(3000, sizer.record(10));
+        assertEquals(1500, sizer.record(1000));
+        assertEquals(1000, sizer.record(150));
+    }
+
+    @Test
+    void testChunkedFilesAreCataloged(@TempDir Path migrations) throws IOException {
+        Files.writeString(migrations.resolve("V1__create_orders.sql"), "CREATE TABLE orders (id BIGINT);");
+        Files.writeString(migrations.resolve("V2__backfill_totals.chunked"), "table=orders\n");
+
+        List<MigrationFile> files = new MigrationFileReader(migrations, migrations, new MigrationFileLoader(1, null))
+                .getMigrationFiles();
+
+        assertEquals(2, files.size());
+        assertEquals(MigrationType.SQL, files.get(0).getType());
+        assertTrue(files.get(0).isTransactional());
+        assertEquals("backfill_totals", files.get(1).getDescription());
+        assertEquals(MigrationType.CHUNKED, files.get(1).getType());
+        assertFalse(files.get(1).isTransactional());
+    }
+
+    @Test
+    void testMigrationResumesFromCheckpoint(@TempDir Path migrations) throws Exception {
+        MigrationFile migrationFile = chunkedMigration(migrations);
+        Connection connection = connection();
+        PreparedStatement load = statement(connection, "SELECT last_key");
+        ResultSet checkpoint = load.executeQuery();
+        when(checkpoint.next()).thenReturn(true);
+        when(checkpoint.getLong(1)).thenReturn(100L);
+        when(checkpoint.getLong(2)).thenReturn(50L);
+        when(checkpoint.getInt(3)).thenReturn(200);
+        when(checkpoint.getString(4)).thenReturn(migrationFile.getChecksum());
+        ResultSet bounds = statement(connection, "SELECT MAX(k)").executeQuery();
+        when(bounds.next()).thenReturn(true);
+        when(bounds.getLong(1)).thenReturn(150L, 0L);
+        when(bounds.wasNull()).thenReturn(false, true);
+        PreparedStatement update = statement(connection, "UPDATE orders");
+        when(update.executeUpdate()).thenReturn(30);
+        PreparedStatement save = statement(connection, "INSERT INTO migration_checkpoint");
+        PreparedStatement delete = statement(connection, "DELETE FROM migration_checkpoint");
+
+        new ChunkedMigrationRunner(connection, new MigrationFileReader(), 1000, MigrationMetrics.DISABLED)
+                .apply(migrationFile);
+
+        verify(update).setLong(1, 100L);
+        verify(update).setLong(2, 150L);
+        verify(save).setLong(2, 150L);
+        verify(save).setLong(3, 80L);
+        verify(save).setInt(4, 200);
+        verify(save).setString(5, migrationFile.getChecksum());
+        verify(delete).setString(1, "2");
+        verify(delete).executeUpdate();
+        // Выражения порций закрываются вместе с кэшем исполнителя
+        for (PreparedStatement statement : List.of(load, update, save, delete)) {
+            verify(statement).close();
+        }
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void testChangedMigrationIsNotResumed(@TempDir Path migrations) throws Exception {
+        MigrationFile migrationFile = chunkedMigration(migrations);
+        Connection connection = connection();
+        PreparedStatement load = statement(connection, "SELECT last_key");
+        ResultSet checkpoint = load.executeQuery();
+        when(checkpoint.next()).thenReturn(true);
+        when(checkpoint.getLong(1)).thenReturn(100L);
+        when(checkpoint.getString(4)).thenReturn("0".repeat(64));
+        PreparedStatement update = statement(connection, "UPDATE orders");
+
+        ChunkedMigrationRunner runner =
+                new ChunkedMigrationRunner(connection, new MigrationFileReader(), 1000, MigrationMetrics.DISABLED);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> runner.apply(migrationFile));
+
+        assertTrue(e.getMessage().contains("migration_checkpoint"));
+        verify(update, never()).executeUpdate();
+        verify(connection).rollback();
+        verify(load).close();
+    }
+
+    private static MigrationFile chunkedMigration(Path migrations) throws IOException {
+        Files.writeString(migrations.resolve("V2__backfill_totals.chunked"), """
+                table=orders
+                key=id
+                update=UPDATE orders SET total_cents = total * 100 WHERE id > ? AND id <= ?
+                """);
+        return new MigrationFileReader(migrations, migrations, new MigrationFileLoader(1, null))
+                .getMigrationFiles().get(0);
+    }
+
+    private static Connection connection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        return connection;
+    }
+
+    private static PreparedStatement statement(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+        when(connection.prepareStatement(contains(sql))).thenReturn(statement);
+        return statement;
+    }
+}
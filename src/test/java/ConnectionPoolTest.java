@@ -0,0 +1,152 @@
+import org.example.db.ConnectionPool;
+import org.example.db.StatementCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ConnectionPoolTest {
+    private static final String URL = "jdbc:pooltest:db";
+
+    private final FakeDriver driver = new FakeDriver();
+
+    @BeforeEach
+    void registerDriver() throws SQLException {
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterEach
+    void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    private ConnectionPool pool(int size, long acquireTimeoutMillis) {
+        return new ConnectionPool(URL, new Properties(), size, 1, 60_000, acquireTimeoutMillis);
+    }
+
+    @Test
+    void testReturnedConnectionIsReused() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1_000)) {
+            Connection first = pool.getConnection();
+            StatementCache statementCache = first.unwrap(StatementCache.class);
+            first.close();
+            first.close();
+            Connection second = pool.getConnection();
+
+            assertEquals(1, driver.opened.size());
+            assertTrue(first.isClosed());
+            assertFalse(second.isClosed());
+            assertSame(statementCache, second.unwrap(StatementCache.class));
+            assertThrows(SQLException.class, first::createStatement);
+            verify(driver.opened.get(0), never()).close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testReturnResetsTransactionAndSchema() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1_000)) {
+            Connection connection = pool.getConnection();
+            Connection physical = driver.opened.get(0);
+            when(physical.getSchema()).thenReturn("public");
+            when(physical.getAutoCommit()).thenReturn(false);
+
+            connection.setAutoCommit(false);
+            connection.setSchema("tenant_1");
+            connection.close();
+
+            verify(physical).rollback();
+            verify(physical).setAutoCommit(true);
+            verify(physical).setSchema("public");
+        }
+    }
+
+    @Test
+    void testAcquireTimesOutWhenPoolIsExhausted() throws SQLException {
+        try (ConnectionPool pool = pool(1, 50)) {
+            Connection connection = pool.getConnection();
+
+            assertThrows(SQLException.class, pool::getConnection);
+            connection.close();
+            pool.getConnection().close();
+            assertEquals(1, driver.opened.size());
+        }
+    }
+
+    @Test
+    void testCloseDiscardsIdleConnectionsAndStatements() throws SQLException {
+        ConnectionPool pool = pool(2, 1_000);
+        Connection connection = pool.getConnection();
+        PreparedStatement statement = connection.unwrap(StatementCache.class).prepare("SELECT 1");
+        connection.close();
+
+        pool.close();
+
+        verify(statement).close();
+        verify(driver.opened.get(0)).close();
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+
+    /**
+     * Драйвер, выдающий заглушки соединений для адресов jdbc:pooltest.
+     */
+    static final class FakeDriver implements Driver {
+        final List<Connection> opened = new ArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(true);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+            opened.add(connection);
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:pooltest:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
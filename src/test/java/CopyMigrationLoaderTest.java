@@ -0,0 +1,90 @@
+import org.example.migrations.copy.CopyMigrationLoader;
+import org.example.migrations.fileReader.Checksums;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CopyMigrationLoaderTest {
+
+    @Test
+    void testCsvHeaderWithQuotedColumns() {
+        List<String> columns = CopyMigrationLoader.parseHeader("code, \"Display Name\",\"a\"\"b\"", true);
+
+        assertEquals(List.of("code", "Display Name", "a\"b"), columns);
+        assertEquals("COPY ref.countries (code, \"Display Name\", \"a\"\"b\") FROM STDIN WITH (FORMAT csv)",
+                CopyMigrationLoader.copySql("ref.countries", columns, true));
+    }
+
+    @Test
+    void testTsvHeader() {
+        List<String> columns = CopyMigrationLoader.parseHeader("code\tname", false);
+
+        assertEquals("COPY currencies (code, name) FROM STDIN WITH (FORMAT text)",
+                CopyMigrationLoader.copySql("currencies", columns, false));
+    }
+
+    @Test
+    void testDataFilesAreCatalogedAsTransactional(@TempDir Path migrations) throws IOException {
+        Files.writeString(migrations.resolve("V1__create_countries.sql"), "CREATE TABLE countries (code TEXT);");
+        Files.writeString(migrations.resolve("V2__countries.csv"), "code\nDE\nFR\n");
+        Files.writeString(migrations.resolve("V3__currencies.tsv"), "code\nEUR\n");
+
+        List<MigrationFile> files = new MigrationFileReader(migrations, migrations, new MigrationFileLoader(1))
+                .getMigrationFiles();
+
+        assertEquals(3, files.size());
+        assertEquals("countries", files.get(1).getDescription());
+        assertEquals(MigrationType.CSV, files.get(1).getType());
+        assertEquals(MigrationType.TSV, files.get(2).getType());
+        assertTrue(files.get(2).isTransactional());
+    }
+
+    @Test
+    void testChecksumIsComputedWhileCopying() throws Exception {
+        byte[] data = "code,name\nRU,Russia\nFR,France\n".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger opened = new AtomicInteger();
+        MigrationFile migrationFile = new MigrationFile("5", "countries", null, MigrationType.CSV, data.length, null,
+                () -> {
+                    opened.incrementAndGet();
+                    return new ByteArrayInputStream(data);
+                });
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(InputStream.class), anyInt())).thenAnswer(invocation -> {
+            ((InputStream) invocation.getArgument(1)).transferTo(OutputStream.nullOutputStream());
+            return 2L;
+        });
+
+        assertEquals(2, new CopyMigrationLoader(connection).load(migrationFile));
+
+        assertTrue(migrationFile.hasChecksum());
+        assertEquals(Checksums.sha256(new ByteArrayInputStream(data)), migrationFile.getChecksum());
+        assertEquals(1, opened.get());
+    }
+}
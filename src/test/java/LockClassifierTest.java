@@ -0,0 +1,39 @@
+import org.example.migrations.plan.LockClassifier;
+import org.example.migrations.plan.LockLevel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockClassifierTest {
+
+    @Test
+    void testDmlAndQueries() {
+        assertEquals(LockLevel.ACCESS_SHARE, LockClassifier.classify("SELECT * FROM users"));
+        assertEquals(LockLevel.ROW_SHARE, LockClassifier.classify("SELECT * FROM users FOR UPDATE"));
+        assertEquals(LockLevel.ROW_EXCLUSIVE, LockClassifier.classify("-- backfill\nUPDATE users SET active = true"));
+        assertEquals(LockLevel.ROW_EXCLUSIVE, LockClassifier.classify("WITH d AS (DELETE FROM t RETURNING id) SELECT 1"));
+    }
+
+    @Test
+    void testIndexesAndTables() {
+        assertEquals(LockLevel.SHARE, LockClassifier.classify("CREATE INDEX idx ON users (email)"));
+        assertEquals(LockLevel.SHARE_UPDATE_EXCLUSIVE,
+                LockClassifier.classify("create unique index concurrently idx on users (email)"));
+        assertEquals(LockLevel.NONE, LockClassifier.classify("CREATE TABLE t (id BIGINT PRIMARY KEY)"));
+        assertEquals(LockLevel.SHARE_ROW_EXCLUSIVE,
+                LockClassifier.classify("CREATE TABLE t (user_id BIGINT REFERENCES users (id))"));
+        assertEquals(LockLevel.ACCESS_EXCLUSIVE, LockClassifier.classify("DROP TABLE t"));
+        assertEquals(LockLevel.SHARE_UPDATE_EXCLUSIVE, LockClassifier.classify("DROP INDEX CONCURRENTLY idx"));
+    }
+
+    @Test
+    void testAlterTable() {
+        assertEquals(LockLevel.ACCESS_EXCLUSIVE, LockClassifier.classify("ALTER TABLE users ADD COLUMN age INT"));
+        assertEquals(LockLevel.SHARE_ROW_EXCLUSIVE, LockClassifier.classify(
+                "ALTER TABLE orders ADD CONSTRAINT fk FOREIGN KEY (user_id) REFERENCES users (id) NOT VALID"));
+        assertEquals(LockLevel.SHARE_UPDATE_EXCLUSIVE, LockClassifier.classify("ALTER TABLE orders VALIDATE CONSTRAINT fk"));
+        assertEquals(LockLevel.EXCLUSIVE, LockClassifier.classify("LOCK TABLE users IN EXCLUSIVE MODE"));
+        assertTrue(LockLevel.SHARE.blocksWrites());
+        assertFalse(LockLevel.SHARE_UPDATE_EXCLUSIVE.blocksWrites());
+    }
+}
@@ -0,0 +1,124 @@
+import org.example.migrations.fileReader.BundleMigrationSource;
+import org.example.migrations.fileReader.Checksums;
+import org.example.migrations.fileReader.MigrationBundleWriter;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationType;
+import org.example.migrations.sql.SqlStatementReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationBundleTest {
+    private static final String INIT = """
+            -- transactional: false
+            CREATE TABLE a (id INT, name TEXT);
+            INSERT INTO a VALUES (1, 'a;b');
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBundleStreamsPreSplitStatements() throws IOException {
+        for (boolean compress : new boolean[]{false, true}) {
+            Path bundle = writeBundle(compress);
+            MigrationCatalog catalog = MigrationCatalog.of(new BundleMigrationSource(bundle).getMigrations());
+            MigrationFile init = catalog.getFiles().get(0);
+            MigrationFile seed = catalog.getLatest();
+
+            assertNull(init.getPath());
+            assertEquals("init", init.getDescription());
+            assertEquals(sha256(INIT), init.getChecksum());
+            assertEquals(INIT.getBytes(StandardCharsets.UTF_8).length, init.getSize());
+            assertFalse(init.getHeader().isTransactional());
+            assertEquals(List.of("-- transactional: false\nCREATE TABLE a (id INT, name TEXT)",
+                    "INSERT INTO a VALUES (1, 'a;b')"), statements(init));
+
+            assertEquals(MigrationType.CSV, seed.getType());
+            try (InputStream input = seed.openContent()) {
+                assertEquals("id\n1\n", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void testBundleContainsRollbacks() throws IOException {
+        List<MigrationFile> rollbacks = new BundleMigrationSource(writeBundle(false)).getRollbacks();
+
+        assertEquals(1, rollbacks.size());
+        assertEquals("2", rollbacks.get(0).getVersion());
+        assertEquals(List.of("DELETE FROM a"), statements(rollbacks.get(0)));
+    }
+
+    @Test
+    void testHeaderIsReadFromFirstStatementOnly() throws IOException {
+        Path bundle = writeBundle(false);
+        // Портим длину второго выражения: полная сборка сценария завершится ошибкой, а чтение заголовка - нет
+        byte[] bytes = Files.readAllBytes(bundle);
+        byte[] first = "CREATE TABLE a (id INT, name TEXT)".getBytes(StandardCharsets.UTF_8);
+        int second = indexOf(bytes, first) + first.length;
+        bytes[second] = 0x7F;
+        Files.write(bundle, bytes);
+        MigrationFile init = new BundleMigrationSource(bundle).getMigrations().get(0);
+
+        assertFalse(init.isTransactional());
+        assertEquals("false", init.getHeader().get("transactional"));
+        assertThrows(IOException.class, () -> statements(init));
+    }
+
+    @Test
+    void testMalformedBundleIsRejected() throws IOException {
+        Path bundle = directory.resolve("broken.bundle");
+        Files.writeString(bundle, "not a bundle");
+
+        assertThrows(IOException.class, () -> new BundleMigrationSource(bundle).getMigrations());
+    }
+
+    private Path writeBundle(boolean compress) throws IOException {
+        Path classes = directory.resolve("classes");
+        Files.createDirectories(classes.resolve("migrations"));
+        Files.createDirectories(classes.resolve("rollbacks"));
+        Files.writeString(classes.resolve("migrations/V1__init.sql"), INIT);
+        Files.writeString(classes.resolve("migrations/V2__seed.csv"), "id\n1\n");
+        Files.writeString(classes.resolve("rollbacks/V2__rollback.sql"), "DELETE FROM a;");
+        Path bundle = directory.resolve(compress ? "deflated.bundle" : "stored.bundle");
+        MigrationBundleWriter.main(new String[]{classes.toString(), bundle.toString(), compress ? "deflate" : "none"});
+        return bundle;
+    }
+
+    private static List<String> statements(MigrationFile file) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (SqlStatementReader reader = file.openStatements()) {
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        for (int i = 0; i + part.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Statement is not stored in the bundle");
+    }
+
+    private static String sha256(String content) throws IOException {
+        return Checksums.sha256(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,30 @@
+import org.example.main.MigrationCLI;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+import picocli.CommandLine.ParseResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationCLITest {
+
+    @Test
+    void testRollbackTargetIsParsed() {
+        ParseResult parseResult = new CommandLine(MigrationCLI.createSpec()).parseArgs("rollback", "--to", "1.2");
+
+        assertEquals("rollback", parseResult.subcommand().commandSpec().name());
+        assertEquals("1.2", parseResult.subcommand().matchedOptionValue("--to", null));
+    }
+
+    @Test
+    void testUsageErrorsDoNotConnect() {
+        assertEquals(0, MigrationCLI.execute(new String[]{"migrate", "--help"}));
+        assertEquals(2, MigrationCLI.execute(new String[]{"rollback"}));
+        assertEquals(2, MigrationCLI.execute(new String[]{"unknown"}));
+        assertEquals(2, MigrationCLI.execute(new String[0]));
+    }
+
+    @Test
+    void testCatalogRunsWithoutDatabase() {
+        assertEquals(0, MigrationCLI.execute(new String[]{"catalog"}));
+    }
+}
@@ -1,9 +1,14 @@
+import org.example.migrations.fileReader.Checksums;
 import org.example.migrations.fileReader.MigrationFile;
 import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.sql.SqlStatementReader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,6 +30,83 @@ class MigrationFileReaderTest {
         assertTrue(migrationFiles.size() > 0);
     }
 
+    @Test
+    void testMigrationFilesAreReadLazily() throws IOException {
+        List<MigrationFile> migrationFiles = migrationFileReader.getMigrationFiles();
+        MigrationFile first = migrationFiles.get(0);
+
+        assertFalse(first.hasChecksum());
+        assertEquals(64, first.getChecksum().length());
+        assertTrue(first.hasChecksum());
+        assertTrue(first.getSize() > 0);
+    }
+
+    @Test
+    void testParallelPreloadComputesChecksums() throws IOException {
+        MigrationFileReader parallelReader = new MigrationFileReader(4);
+        List<MigrationFile> migrationFiles = parallelReader.getMigrationFiles();
+
+        parallelReader.preload(migrationFiles);
+
+        for (MigrationFile migrationFile : migrationFiles) {
+            assertTrue(migrationFile.hasChecksum());
+        }
+    }
+
+    @Test
+    void testHeaderPreloadDoesNotComputeChecksums() throws IOException {
+        byte[] content = "-- transactional: false\nCREATE INDEX CONCURRENTLY i ON t (c);".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger opened = new AtomicInteger();
+        List<MigrationFile> migrationFiles = List.of("1", "2", "3").stream()
+                .map(version -> new MigrationFile(version, "index", null, content.length, null, () -> {
+                    opened.incrementAndGet();
+                    return new ByteArrayInputStream(content);
+                }))
+                .toList();
+
+        new MigrationFileReader(4).preloadHeaders(migrationFiles);
+
+        assertEquals(3, opened.get());
+        for (MigrationFile migrationFile : migrationFiles) {
+            assertFalse(migrationFile.isTransactional());
+            assertFalse(migrationFile.hasChecksum());
+        }
+        assertEquals(3, opened.get());
+    }
+
+    @Test
+    void testChecksumIsComputedWhileStreamingStatements() throws IOException {
+        byte[] content = "CREATE TABLE a (id INT);\nINSERT INTO a VALUES (1);\n".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger opened = new AtomicInteger();
+        MigrationFile migrationFile = new MigrationFile("1", "create", null, content.length, null, () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(content);
+        });
+
+        try (SqlStatementReader statements = migrationFile.openStatements()) {
+            assertEquals("CREATE TABLE a (id INT)", statements.nextStatement());
+            assertFalse(migrationFile.hasChecksum());
+            assertEquals("INSERT INTO a VALUES (1)", statements.nextStatement());
+            assertNull(statements.nextStatement());
+        }
+
+        assertTrue(migrationFile.hasChecksum());
+        assertEquals(Checksums.sha256(new ByteArrayInputStream(content)), migrationFile.getChecksum());
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void testHeaderDirectivesAreParsed() throws IOException {
+        byte[] content = "-- build index online\n-- transactional: false\n-- depends-on: 1\nCREATE INDEX CONCURRENTLY i ON t (c);"
+                .getBytes(StandardCharsets.UTF_8);
+        MigrationFile migrationFile = new MigrationFile("2", "index", null, content.length, null,
+                () -> new ByteArrayInputStream(content));
+
+        assertFalse(migrationFile.getHeader().isTransactional());
+        assertEquals(1, migrationFile.getHeader().getDependsOn().size());
+        assertTrue(migrationFileReader.getMigrationFiles().get(0).getHeader().isTransactional());
+    }
+
     @Test
     void testExtractVersion() {
         String version = migrationFileReader.extractVersion("V1__Initial_Migration.sql");
@@ -0,0 +1,141 @@
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.MigrationTool;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationVersion;
+import org.example.migrations.lock.MigrationLock;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.parallel.MigrationGraph;
+import org.example.migrations.parallel.ParallelMigrationScheduler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class MigrationGraphTest {
+
+    private static MigrationFile migration(String version, String sql) {
+        byte[] content = sql.getBytes(StandardCharsets.UTF_8);
+        return new MigrationFile(version, "m" + version, null, content.length, null,
+                () -> new ByteArrayInputStream(content));
+    }
+
+    @Test
+    void testMigrationsWithoutHeaderStaySequential() throws IOException {
+        List<MigrationFile> files = List.of(
+                migration("1", "CREATE TABLE a (id INT);"),
+                migration("2", "CREATE TABLE b (id INT);"),
+                migration("3", "CREATE TABLE c (id INT);"));
+
+        MigrationGraph graph = MigrationGraph.build(files, MigrationCatalog.of(files));
+
+        assertArrayEquals(new int[0], graph.getDependencies(0));
+        assertArrayEquals(new int[]{0}, graph.getDependencies(1));
+        assertArrayEquals(new int[]{1}, graph.getDependencies(2));
+    }
+
+    @Test
+    void testDeclaredDependenciesAllowParallelBranches() throws IOException {
+        List<MigrationFile> files = List.of(
+                migration("1", "CREATE TABLE a (id INT);"),
+                migration("2", "-- index on a\n-- depends-on: 1\nCREATE INDEX ia ON a (id);"),
+                migration("3", "-- depends-on: none\nCREATE TABLE c (id INT);"),
+                migration("4", "CREATE VIEW v AS SELECT 1;"));
+
+        MigrationGraph graph = MigrationGraph.build(files, MigrationCatalog.of(files));
+
+        assertArrayEquals(new int[]{0}, graph.getDependencies(1));
+        assertArrayEquals(new int[0], graph.getDependencies(2));
+        // Миграция без директивы ждет все ветви, еще не покрытые другими зависимостями
+        assertArrayEquals(new int[]{1, 2}, graph.getDependencies(3));
+        assertArrayEquals(new int[]{1}, graph.getDependents(0));
+    }
+
+    @Test
+    void testDependencyOnAppliedVersionIsSatisfied() throws IOException {
+        MigrationFile applied = migration("1", "CREATE TABLE a (id INT);");
+        MigrationFile pending = migration("2", "-- depends-on: V1\nCREATE INDEX ia ON a (id);");
+
+        MigrationGraph graph = MigrationGraph.build(List.of(pending), MigrationCatalog.of(List.of(applied, pending)));
+
+        assertArrayEquals(new int[0], graph.getDependencies(0));
+    }
+
+    @Test
+    void testForwardDependencyIsRejected() {
+        List<MigrationFile> files = List.of(
+                migration("1", "-- depends-on: 2\nCREATE TABLE a (id INT);"),
+                migration("2", "CREATE TABLE b (id INT);"));
+
+        assertThrows(IllegalStateException.class, () -> MigrationGraph.build(files, MigrationCatalog.of(files)));
+    }
+
+    @Test
+    void testSkippedSiblingIsAppliedWhenParallelRunResumes(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("V1__create.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(directory.resolve("V2__fill_a.sql"), "-- depends-on: 1\nUPDATE a SET id = 2;");
+        Files.writeString(directory.resolve("V3__fill_b.sql"), "-- depends-on: 1\nUPDATE b SET id = 3;");
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failV2 = new AtomicBoolean(true);
+        ParallelMigrationScheduler scheduler = new ParallelMigrationScheduler(() -> {
+            Connection connection = mock(Connection.class);
+            Statement statement = mock(Statement.class);
+            when(connection.createStatement()).thenReturn(statement);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+            when(statement.execute(anyString())).thenAnswer(invocation -> {
+                String sql = invocation.getArgument(0);
+                if (sql.contains("UPDATE a") && failV2.get()) {
+                    throw new SQLException("deadlock detected", "40P01");
+                }
+                executed.add(sql);
+                return false;
+            });
+            return connection;
+        }, reader, 2, 0, null, MigrationMetrics.DISABLED);
+        MigrationExecutor executor = mock(MigrationExecutor.class);
+        when(executor.getMetrics()).thenReturn(new MigrationMetrics());
+        MigrationTool tool = new MigrationTool(executor, mock(Connection.class), reader, mock(MigrationLock.class),
+                MigrationOptions.builder().scheduler(scheduler).build());
+
+        // V3 фиксируется, V2 завершается ошибкой
+        when(executor.getAppliedVersions()).thenReturn(List.of(MigrationVersion.parse("1")));
+        assertThrows(SQLException.class, () -> tool.applyPendingMigrations(reader.getMigrationCatalog(), report -> { }));
+        assertEquals(List.of("UPDATE b SET id = 3"), stripHeaders(executed));
+
+        // Наибольшая примененная версия - 3, но V2 все еще ожидает применения
+        executed.clear();
+        failV2.set(false);
+        when(executor.getAppliedVersions()).thenReturn(List.of(MigrationVersion.parse("1"), MigrationVersion.parse("3")));
+        assertEquals(1, tool.applyPendingMigrations(reader.getMigrationCatalog(), report -> { }));
+        assertEquals(List.of("UPDATE a SET id = 2"), stripHeaders(executed));
+        verify(executor).updateSchemaState(MigrationVersion.parse("3"), reader.getMigrationCatalog().getDigest());
+    }
+
+    private static List<String> stripHeaders(List<String> statements) {
+        List<String> result = new ArrayList<>();
+        for (String statement : statements) {
+            result.add(statement.substring(statement.lastIndexOf('\n') + 1));
+        }
+        return result;
+    }
+}
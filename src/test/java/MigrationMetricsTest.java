@@ -0,0 +1,102 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.metrics.MigrationMetrics.Phase;
+import org.example.migrations.metrics.MigrationStats;
+import org.example.migrations.metrics.MigrationTimer;
+import org.example.migrations.metrics.PhaseTimer;
+import org.example.migrations.report.MigrationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testStatementsAreAggregatedPerMigration() throws SQLException, IOException {
+        MigrationMetrics metrics = new MigrationMetrics();
+        MigrationTimer timer = metrics.startMigration("3", "add \"orders\"", null);
+        timer.startStatement(1, "UPDATE orders SET total = 0").stop(5);
+        timer.startStatement(2, "DELETE FROM orders").stop(2);
+        timer.startStatement(3, "CREATE INDEX orders_total ON orders (total)").stop(-1);
+        MigrationStats stats = timer.stop(true);
+
+        assertEquals(7, stats.getRowsAffected());
+        assertEquals(3, stats.getStatements());
+        assertEquals(0, stats.getLockWaitNanos());
+        assertTrue(stats.getSlowestStatementNanos() <= stats.getDurationNanos());
+        // Миграция попадает в итоги только после фиксации
+        assertEquals(0, metrics.getCommittedCount());
+        metrics.recordCommitted(stats);
+        assertEquals(1, metrics.getCommittedCount());
+
+        StringWriter text = new StringWriter();
+        metrics.writePrometheus(text);
+        assertTrue(text.toString().contains("migration_rows_affected_total 7\n"));
+        assertTrue(text.toString().contains("migration_duration_seconds_bucket{le=\"+Inf\"} 1\n"));
+        assertTrue(text.toString().contains("migration_slowest_duration_seconds{version=\"3\"} "));
+        assertFalse(text.toString().contains("description"));
+        assertTrue(text.toString().contains("migration_statement_duration_seconds_count 3\n"));
+    }
+
+    @Test
+    void testOnlySlowestMigrationsAreKept() {
+        MigrationMetrics metrics = new MigrationMetrics();
+        for (int i = 1; i <= 1_000; i++) {
+            metrics.recordCommitted(new MigrationStats(Integer.toString(i), "m" + i, true, i, 1, 0, 1, i));
+        }
+
+        assertEquals(1_000, metrics.getCommittedCount());
+        assertEquals(MigrationMetrics.SLOWEST_LIMIT, metrics.getSlowestMigrations().size());
+        assertEquals("1000", metrics.getSlowestMigrations().get(0).getVersion());
+        assertEquals("991", metrics.getSlowestMigrations().get(MigrationMetrics.SLOWEST_LIMIT - 1).getVersion());
+
+        MigrationMetrics.DISABLED.recordCommitted(new MigrationStats("1", "m", true, 1, 1, 0, 1, 1));
+        assertEquals(0, MigrationMetrics.DISABLED.getCommittedCount());
+    }
+
+    @Test
+    void testPhasesAreWrittenToJson() throws SQLException, IOException {
+        MigrationMetrics metrics = new MigrationMetrics();
+        PhaseTimer timer = metrics.startPhase(Phase.LOCK_ACQUIRE);
+        try {
+            metrics.startMigration("1", "init", null).stop(false);
+            metrics.recordFailed();
+        } finally {
+            timer.close();
+        }
+        Path file = directory.resolve("metrics.json");
+        metrics.writeTo(file);
+
+        JsonNode json = new ObjectMapper().readTree(file.toFile());
+        assertEquals(1, json.get("phases").get("lock_acquire").get("count").asInt());
+        assertEquals(0, json.get("phases").get("report_write").get("count").asInt());
+        assertEquals(1, json.get("migrations").get("failed").asInt());
+        assertEquals(0, json.get("migrations").get("committed").asInt());
+        assertEquals(0, json.get("slowest").size());
+        assertFalse(Files.exists(directory.resolve("metrics.json.tmp")));
+    }
+
+    @Test
+    void testReportCarriesMigrationStats() {
+        MigrationStats stats = new MigrationStats("2", "seed", true, 1_500_000_000L, 42, 3_000_000L, 4, 900_000_000L);
+        MigrationReport report = MigrationReport.of(new MigrationFile("2", "seed", directory.resolve("V2__seed.sql")),
+                null, stats);
+
+        assertEquals(1500L, report.getDurationMillis());
+        assertEquals(42L, report.getRowsAffected());
+        assertEquals(3L, report.getLockWaitMillis());
+        assertEquals(report.getDurationMillis(), report.forTarget("tenant_1").getDurationMillis());
+    }
+}
@@ -0,0 +1,56 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.migrations.report.MigrationReport;
+import org.example.migrations.report.MigrationReportWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationReportWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReportsAreWrittenIncrementally() throws IOException {
+        Path csv = directory.resolve("report.csv");
+        Path json = directory.resolve("report.json");
+
+        try (MigrationReportWriter writer = MigrationReportWriter.open(csv, json, 2)) {
+            writer.accept(new MigrationReport("1", "first", true, "2024-01-01T00:00:00", null));
+            writer.accept(new MigrationReport("2", "second", false, "2024-01-01T00:00:01", "boom", "tenant_1"));
+
+            // После сброса отчеты уже на диске, хотя писатель еще открыт
+            assertEquals(3, Files.readAllLines(csv).size());
+            assertTrue(Files.readString(json).contains("\"second\""));
+        }
+
+        JsonNode reports = new ObjectMapper().readTree(json.toFile());
+        assertEquals(2, reports.size());
+        assertEquals("tenant_1", reports.get(1).get("target").asText());
+        assertTrue(Files.readAllLines(csv).get(2).startsWith("2, second, false"));
+    }
+
+    @Test
+    void testPendingReportsAreFlushedByTimer() throws Exception {
+        Path csv = directory.resolve("report.csv");
+        Path json = directory.resolve("report.json");
+
+        try (MigrationReportWriter writer = MigrationReportWriter.open(csv, json, 1000, 20)) {
+            writer.accept(new MigrationReport("1", "first", true, "2024-01-01T00:00:00", null));
+
+            // Новых отчетов нет, но таймер сбрасывает записанный отчет на диск
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (Files.readAllLines(csv).size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, Files.readAllLines(csv).size());
+            assertTrue(Files.readString(json).contains("\"first\""));
+        }
+    }
+}
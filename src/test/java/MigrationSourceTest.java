@@ -0,0 +1,86 @@
+import org.example.migrations.fileReader.ClasspathMigrationSource;
+import org.example.migrations.fileReader.IndexedMigrationSource;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationIndexGenerator;
+import org.example.migrations.fileReader.MigrationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationSourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMigrationsAreReadFromJarWithoutExtraction() throws IOException {
+        Path jar = directory.resolve("migrations.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            // Как и jar/maven-jar-plugin, каталоги записываются отдельными записями
+            entry(zip, "migrations/", "");
+            entry(zip, "rollbacks/", "");
+            entry(zip, "migrations/V1__init.sql", "CREATE TABLE a (id INT);");
+            entry(zip, "migrations/V2__seed.csv", "id\n1\n");
+            entry(zip, "rollbacks/V2__rollback.sql", "DELETE FROM a;");
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+            ClasspathMigrationSource source = new ClasspathMigrationSource(classLoader);
+            MigrationCatalog catalog = MigrationCatalog.of(source.getMigrations());
+
+            assertEquals(List.of("1", "2"), catalog.getFiles().stream().map(MigrationFile::getVersion).toList());
+            assertEquals(MigrationType.CSV, catalog.getLatest().getType());
+            assertEquals("2", source.getRollbacks().get(0).getVersion());
+            assertEquals("jar", catalog.getLatest().getPath().toUri().getScheme());
+            try (InputStream input = catalog.getFiles().get(0).openContent()) {
+                assertEquals("CREATE TABLE a (id INT);", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void testIndexProvidesChecksumsWithoutReading() throws IOException {
+        Path classes = directory.resolve("classes");
+        Files.createDirectories(classes.resolve("migrations"));
+        Files.writeString(classes.resolve("migrations/V1__init.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(classes.resolve("migrations/V10__orders.chunked"), "table=orders");
+        MigrationIndexGenerator.main(new String[]{classes.toString()});
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)) {
+            MigrationCatalog catalog = MigrationCatalog.of(new IndexedMigrationSource(classLoader).getMigrations());
+            MigrationFile first = catalog.getFiles().get(0);
+            MigrationFile latest = catalog.getLatest();
+
+            assertTrue(first.hasChecksum());
+            assertNull(first.getPath());
+            assertEquals(24, first.getSize());
+            assertEquals("10", latest.getVersion());
+            assertEquals("orders", latest.getDescription());
+            assertEquals(MigrationType.CHUNKED, latest.getType());
+            Files.delete(classes.resolve("migrations/V1__init.sql"));
+            assertNotNull(first.getChecksum());
+            assertThrows(IOException.class, first::getHeader);
+        }
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        OutputStream output = zip;
+        output.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
@@ -1,6 +1,8 @@
 import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
 import org.example.migrations.fileReader.MigrationFileReader;
 import org.example.migrations.MigrationTool;
+import org.example.migrations.lock.TableMigrationLock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -34,7 +36,8 @@ public class MigrationToolTest {
         migrationExecutor = new MigrationExecutor(connection, migrationFileReader);
 
         // Создаем объект MigrationTool
-        migrationTool = new MigrationTool(migrationExecutor, connection);
+        migrationTool = new MigrationTool(migrationExecutor, connection, migrationFileReader,
+                new TableMigrationLock(connection, 15 * 60 * 1000, 0, null), MigrationOptions.DEFAULT);
 
         // Инициализация базы данных и таблиц для теста
         migrationExecutor.initializeSchemaTable();
@@ -66,7 +69,8 @@ public class MigrationToolTest {
     public void testExecuteRollback() throws SQLException, IOException {
 
         // Создаем объект MigrationTool
-        MigrationTool migrationTool = new MigrationTool(migrationExecutor, connection);
+        MigrationTool migrationTool = new MigrationTool(migrationExecutor, connection, migrationFileReader,
+                new TableMigrationLock(connection, 15 * 60 * 1000, 0, null), MigrationOptions.DEFAULT);
 
         // Инициализация базы данных и таблиц для теста
         migrationExecutor.initializeSchemaTable();
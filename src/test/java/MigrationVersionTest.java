@@ -0,0 +1,58 @@
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationVersion;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationVersionTest {
+
+    private MigrationFile migration(String version) {
+        return new MigrationFile(version, "test", Path.of("V" + version + "__test.sql"));
+    }
+
+    @Test
+    void testNumericOrdering() {
+        assertTrue(MigrationVersion.parse("10").compareTo(MigrationVersion.parse("2")) > 0);
+        assertTrue(MigrationVersion.parse("1.2.10").compareTo(MigrationVersion.parse("1.2.9")) > 0);
+        assertEquals(MigrationVersion.parse("1"), MigrationVersion.parse("1.0"));
+        assertEquals(MigrationVersion.parse("1_2"), MigrationVersion.parse("1.2"));
+    }
+
+    @Test
+    void testSortKeyMatchesNumericOrdering() {
+        assertArrayEquals(new Integer[]{1}, MigrationVersion.parse("1.0.0").toSortKey());
+        assertArrayEquals(new Integer[]{0}, MigrationVersion.parse("0").toSortKey());
+        assertArrayEquals(new Integer[]{1, 2, 10}, MigrationVersion.parse("1_2_10").toSortKey());
+        assertArrayEquals(MigrationVersion.parse("1").toSortKey(), MigrationVersion.parse("1.0").toSortKey());
+    }
+
+    @Test
+    void testInvalidVersion() {
+        assertThrows(IllegalArgumentException.class, () -> MigrationVersion.parse("1.a"));
+        assertThrows(IllegalArgumentException.class, () -> MigrationVersion.parse(""));
+    }
+
+    @Test
+    void testCatalogPendingAndRange() {
+        MigrationCatalog catalog = MigrationCatalog.of(List.of(migration("10"), migration("2"), migration("1"), migration("3")));
+
+        assertEquals(List.of("1", "2", "3", "10"), catalog.getFiles().stream().map(MigrationFile::getVersion).toList());
+        assertEquals(List.of("3", "10"),
+                catalog.getPending(MigrationVersion.parse("2")).stream().map(MigrationFile::getVersion).toList());
+        assertEquals(4, catalog.getPending(null).size());
+        assertTrue(catalog.getPending(MigrationVersion.parse("10")).isEmpty());
+        assertEquals(List.of("10", "3", "2"), catalog.getRangeDescending(MigrationVersion.parse("2"), MigrationVersion.parse("10"))
+                .stream().map(MigrationFile::getVersion).toList());
+        assertNotNull(catalog.find(MigrationVersion.parse("3")));
+        assertNull(catalog.find(MigrationVersion.parse("4")));
+    }
+
+    @Test
+    void testCatalogRejectsDuplicateVersions() {
+        assertThrows(IllegalStateException.class, () -> MigrationCatalog.of(List.of(migration("1"), migration("1.0"))));
+    }
+}
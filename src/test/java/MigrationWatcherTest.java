@@ -0,0 +1,118 @@
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.MigrationTool;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.lock.MigrationLock;
+import org.example.migrations.report.MigrationReportSink;
+import org.example.migrations.watch.MigrationWatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationWatcherTest {
+
+    private static final MigrationLock NO_LOCK = new MigrationLock() {
+        @Override
+        public void acquire() {
+        }
+
+        @Override
+        public void release() {
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testNewFilesAreAppliedIncrementally() throws Exception {
+        Files.writeString(directory.resolve("V1__init.sql"), "CREATE TABLE a (id INT);");
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        BlockingQueue<List<String>> catalogs = new LinkedBlockingQueue<>();
+        MigrationTool tool = new MigrationTool(new MigrationExecutor(null, reader), null, reader, NO_LOCK,
+                MigrationOptions.DEFAULT) {
+            @Override
+            public int applyPendingMigrations(MigrationCatalog catalog, MigrationReportSink reportSink) {
+                catalogs.add(versions(catalog));
+                return 0;
+            }
+        };
+
+        Thread thread;
+        try (MigrationWatcher watcher = new MigrationWatcher(tool, reader, report -> { }, 50)) {
+            thread = start(watcher);
+
+            assertEquals(List.of("1"), catalogs.poll(10, TimeUnit.SECONDS));
+            Files.writeString(directory.resolve("V2__add.sql"), "ALTER TABLE a ADD COLUMN b INT;");
+            Files.writeString(directory.resolve("notes.txt"), "ignored");
+            assertEquals(List.of("1", "2"), catalogs.poll(10, TimeUnit.SECONDS));
+        }
+        thread.join(10_000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    void testBadFileAndFailedCycleDoNotStopWatching() throws Exception {
+        Files.writeString(directory.resolve("V1__init.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(directory.resolve("Vold__draft.sql"), "SELECT 1;");
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        BlockingQueue<List<String>> catalogs = new LinkedBlockingQueue<>();
+        AtomicInteger cycles = new AtomicInteger();
+        MigrationTool tool = new MigrationTool(new MigrationExecutor(null, reader), null, reader, NO_LOCK,
+                MigrationOptions.DEFAULT) {
+            @Override
+            public int applyPendingMigrations(MigrationCatalog catalog, MigrationReportSink reportSink)
+                    throws IOException {
+                catalogs.add(versions(catalog));
+                if (cycles.incrementAndGet() == 2) {
+                    throw new IOException("V1__init.sql was deleted");
+                }
+                return 0;
+            }
+        };
+
+        Thread thread;
+        try (MigrationWatcher watcher = new MigrationWatcher(tool, reader, report -> { }, 50)) {
+            thread = start(watcher);
+
+            assertEquals(List.of("1"), catalogs.poll(10, TimeUnit.SECONDS));
+            Files.writeString(directory.resolve("Vdraft__x.sql"), "SELECT 1;");
+            assertEquals(List.of("1"), catalogs.poll(10, TimeUnit.SECONDS));
+            Files.writeString(directory.resolve("V2__add.sql"), "ALTER TABLE a ADD COLUMN b INT;");
+            assertEquals(List.of("1", "2"), catalogs.poll(10, TimeUnit.SECONDS));
+            assertTrue(thread.isAlive());
+        }
+        thread.join(10_000);
+        assertFalse(thread.isAlive());
+    }
+
+    private static Thread start(MigrationWatcher watcher) {
+        Thread thread = new Thread(() -> {
+            try {
+                watcher.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static List<String> versions(MigrationCatalog catalog) {
+        return catalog.getFiles().stream().map(MigrationFile::getVersion).toList();
+    }
+}
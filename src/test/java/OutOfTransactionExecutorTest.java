@@ -0,0 +1,164 @@
+import org.example.db.ConnectionSupplier;
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.MigrationTool;
+import org.example.migrations.OutOfTransactionExecutor;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationVersion;
+import org.example.migrations.lock.MigrationLock;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.progress.MigrationProgressMonitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.postgresql.PGConnection;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutOfTransactionExecutorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMonitorReportsProgressOfBackend() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement progress = progressStatement(connection);
+        ResultSet resultSet = progress.executeQuery();
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString("command")).thenReturn("CREATE INDEX CONCURRENTLY");
+        when(resultSet.getString("phase")).thenReturn("building index");
+        when(resultSet.getLong(3)).thenReturn(50L);
+        when(resultSet.getLong(4)).thenReturn(200L);
+        when(resultSet.getLong(5)).thenReturn(10L);
+        when(resultSet.getLong(6)).thenReturn(40L);
+        AtomicInteger opened = new AtomicInteger();
+
+        MigrationProgressMonitor monitor = MigrationProgressMonitor.start(() -> {
+            opened.incrementAndGet();
+            return connection;
+        }, 42, "V2__index", 5);
+        try {
+            awaitProgress(monitor);
+        } finally {
+            monitor.close();
+        }
+
+        assertEquals("CREATE INDEX CONCURRENTLY, building index, blocks 50/200 (25%), tuples 10/40 (25%)",
+                monitor.getLastProgress());
+        assertEquals(1, opened.get());
+        verify(connection).setAutoCommit(true);
+        verify(progress, atLeastOnce()).setInt(1, 42);
+        verify(progress, atLeastOnce()).setInt(2, 42);
+        verify(connection).close();
+    }
+
+    @Test
+    void testMonitorReportsTuplesWithoutTotal() throws Exception {
+        Connection connection = mock(Connection.class);
+        ResultSet resultSet = progressStatement(connection).executeQuery();
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString("command")).thenReturn("CLUSTER");
+        when(resultSet.getString("phase")).thenReturn("seq scanning heap");
+        when(resultSet.getLong(3)).thenReturn(5L);
+        when(resultSet.getLong(5)).thenReturn(7L);
+        when(resultSet.wasNull()).thenReturn(true);
+
+        try (MigrationProgressMonitor monitor = MigrationProgressMonitor.start(() -> connection, 42, "V3__cluster", 5)) {
+            awaitProgress(monitor);
+            assertEquals("CLUSTER, seq scanning heap, blocks 5, tuples 7", monitor.getLastProgress());
+        }
+    }
+
+    @Test
+    void testMigrationRunsOnDedicatedConnectionWithProgressMonitor() throws Exception {
+        Files.writeString(directory.resolve("V2__index.sql"), """
+                -- transactional: false
+                CREATE INDEX CONCURRENTLY idx_a ON a (id);
+                """);
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        MigrationFile migrationFile = reader.getMigrationFiles().get(0);
+
+        Connection worker = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(worker.createStatement()).thenReturn(statement);
+        when(worker.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        when(worker.isWrapperFor(PGConnection.class)).thenReturn(true);
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(pgConnection.getBackendPID()).thenReturn(7);
+        when(worker.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        // Выражение выполняется дольше интервала опроса, чтобы монитор успел обратиться к серверу
+        when(statement.execute(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return false;
+        });
+        Connection monitorConnection = mock(Connection.class);
+        PreparedStatement progress = progressStatement(monitorConnection);
+        ConnectionSupplier connections = mock(ConnectionSupplier.class);
+        when(connections.get()).thenReturn(worker, monitorConnection);
+
+        new OutOfTransactionExecutor(connections, reader, 5, MigrationMetrics.DISABLED).apply(migrationFile);
+
+        verify(worker).setAutoCommit(true);
+        verify(statement).execute(endsWith("CREATE INDEX CONCURRENTLY idx_a ON a (id)"));
+        verify(worker).close();
+        verify(progress, atLeastOnce()).setInt(1, 7);
+        verify(monitorConnection).close();
+    }
+
+    @Test
+    void testConnectionSourceIsRequired() {
+        assertThrows(NullPointerException.class,
+                () -> new OutOfTransactionExecutor(null, new MigrationFileReader(), 5));
+    }
+
+    @Test
+    void testToolWithoutConnectionSourceRejectsNonTransactionalMigration() throws Exception {
+        Files.writeString(directory.resolve("V1__create.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(directory.resolve("V2__index.sql"), """
+                -- transactional: false
+                CREATE INDEX CONCURRENTLY idx_a ON a (id);
+                """);
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        Connection connection = mock(Connection.class);
+        MigrationExecutor executor = mock(MigrationExecutor.class);
+        when(executor.getMetrics()).thenReturn(new MigrationMetrics());
+        when(executor.readCurrentVersion()).thenReturn(MigrationVersion.parse("0"));
+        MigrationLock lock = mock(MigrationLock.class);
+        MigrationTool tool = new MigrationTool(executor, connection, reader, lock, MigrationOptions.DEFAULT);
+
+        assertThrows(IllegalStateException.class,
+                () -> tool.applyPendingMigrations(reader.getMigrationCatalog(), report -> { }));
+
+        verify(executor, never()).applyMigration(any(MigrationFile.class));
+        verify(executor, never()).clearSchemaState();
+        verify(connection, never()).commit();
+        verify(lock).release();
+    }
+
+    private static PreparedStatement progressStatement(Connection connection) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(contains("pg_stat_progress_create_index"))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        return statement;
+    }
+
+    private static void awaitProgress(MigrationProgressMonitor monitor) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (monitor.getLastProgress() == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import org.example.migrations.lock.PollingMigrationLock;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollingMigrationLockTest {
+
+    /**
+     * Блокировка, занятая заданное число попыток; паузы записываются и выполняются на самом деле,
+     * чтобы срок ожидания отсчитывался по реальному времени.
+     */
+    private static final class FakeLock extends PollingMigrationLock {
+        private final int busyAttempts;
+        private final List<Long> pauses = new ArrayList<>();
+        private int attempts;
+
+        FakeLock(long waitMillis, int busyAttempts) {
+            super(waitMillis);
+            this.busyAttempts = busyAttempts;
+        }
+
+        @Override
+        protected boolean tryAcquire() {
+            return ++attempts > busyAttempts;
+        }
+
+        @Override
+        protected void sleep(long millis) throws InterruptedException {
+            pauses.add(millis);
+            super.sleep(millis);
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    @Test
+    void testBackoffDoublesWithJitterUpToLimit() {
+        for (int i = 0; i < 100; i++) {
+            long first = PollingMigrationLock.backoffMillis(1);
+            long second = PollingMigrationLock.backoffMillis(2);
+            long fifth = PollingMigrationLock.backoffMillis(5);
+            long capped = PollingMigrationLock.backoffMillis(50);
+
+            assertTrue(first >= 25 && first <= 50, "first: " + first);
+            assertTrue(second >= 50 && second <= 100, "second: " + second);
+            assertTrue(fifth >= 400 && fifth <= 800, "fifth: " + fifth);
+            assertTrue(capped >= 500 && capped <= 1_000, "capped: " + capped);
+        }
+    }
+
+    @Test
+    void testLockIsAcquiredAfterBusyAttempts() throws SQLException {
+        FakeLock lock = new FakeLock(10_000, 3);
+
+        lock.acquire();
+
+        assertEquals(4, lock.attempts);
+        assertEquals(3, lock.pauses.size());
+        assertTrue(lock.pauses.get(0) >= 25 && lock.pauses.get(0) <= 50, "pauses: " + lock.pauses);
+        assertTrue(lock.pauses.get(1) >= 50 && lock.pauses.get(1) <= 100, "pauses: " + lock.pauses);
+        assertTrue(lock.pauses.get(2) >= 100 && lock.pauses.get(2) <= 200, "pauses: " + lock.pauses);
+    }
+
+    @Test
+    void testBusyLockTimesOut() {
+        FakeLock lock = new FakeLock(300, Integer.MAX_VALUE);
+        long started = System.nanoTime();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, lock::acquire);
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        assertTrue(e.getMessage().contains("locked"));
+        // Оставшееся время округляется вниз до миллисекунд
+        assertTrue(elapsedMillis >= 299, "elapsed: " + elapsedMillis);
+        assertTrue(lock.attempts > 1);
+        assertEquals(lock.attempts - 1, lock.pauses.size());
+        // Последняя пауза не выходит за срок ожидания
+        assertTrue(lock.pauses.stream().mapToLong(Long::longValue).sum() <= 300 + lock.pauses.size());
+    }
+
+    @Test
+    void testZeroWaitMakesSingleAttempt() {
+        FakeLock lock = new FakeLock(0, 1);
+
+        assertThrows(IllegalStateException.class, lock::acquire);
+        assertEquals(1, lock.attempts);
+        assertTrue(lock.pauses.isEmpty());
+    }
+
+    @Test
+    void testInterruptedWaitFails() {
+        FakeLock lock = new FakeLock(10_000, Integer.MAX_VALUE);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(SQLException.class, lock::acquire);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
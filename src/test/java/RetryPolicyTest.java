@@ -0,0 +1,108 @@
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.MigrationTool;
+import org.example.migrations.RetryPolicy;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.lock.MigrationLock;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.report.MigrationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class RetryPolicyTest {
+
+    @TempDir
+    Path directory;
+
+    private final RetryPolicy policy = new RetryPolicy(5, 100, 1_000, 2_000, 0, RetryPolicy.DEFAULT_SQL_STATES);
+
+    @Test
+    void testTransientSqlStatesAreRetryable() {
+        assertTrue(policy.isRetryable(new SQLException("deadlock detected", "40P01")));
+        assertTrue(policy.isRetryable(new SQLException("Migration failed",
+                new SQLException("canceling statement due to lock timeout", "55P03"))));
+
+        BatchUpdateException batch = new BatchUpdateException("Batch entry 0 failed", "40001", new int[0]);
+        batch.setNextException(new SQLException("could not serialize access", "40001"));
+        assertTrue(policy.isRetryable(batch));
+
+        assertFalse(policy.isRetryable(new SQLException("syntax error", "42601")));
+        assertFalse(policy.isRetryable(new SQLException("no state")));
+        assertFalse(RetryPolicy.NONE.isEnabled());
+        assertTrue(policy.isEnabled());
+    }
+
+    @Test
+    void testBackoffGrowsWithJitterUpToLimit() {
+        for (int i = 0; i < 100; i++) {
+            long first = policy.backoffMillis(1);
+            long third = policy.backoffMillis(3);
+            long capped = policy.backoffMillis(40);
+
+            assertTrue(first >= 50 && first <= 100, "first: " + first);
+            assertTrue(third >= 200 && third <= 400, "third: " + third);
+            assertTrue(capped >= 500 && capped <= 1_000, "capped: " + capped);
+        }
+    }
+
+    @Test
+    void testParseSqlStates() {
+        assertEquals(RetryPolicy.DEFAULT_SQL_STATES, RetryPolicy.parseSqlStates(" "));
+        assertEquals(Set.of("40P01", "57014"), RetryPolicy.parseSqlStates("40p01, 57014,"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RetryPolicy(0, 100, 1_000, 0, 0, RetryPolicy.DEFAULT_SQL_STATES));
+    }
+
+    @Test
+    void testMigrationIsRetriedFromItsSavepoint() throws Exception {
+        Files.writeString(directory.resolve("V1__create.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(directory.resolve("V2__update.sql"), "UPDATE a SET id = 1;");
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        Connection connection = mock(Connection.class);
+        Savepoint first = mock(Savepoint.class);
+        Savepoint second = mock(Savepoint.class);
+        when(connection.setSavepoint()).thenReturn(first, second);
+        MigrationExecutor executor = mock(MigrationExecutor.class);
+        when(executor.getMetrics()).thenReturn(new MigrationMetrics());
+        when(executor.applyMigration(argThat((MigrationFile file) -> file.getVersion().equals("2"))))
+                .thenThrow(new SQLException("could not serialize access", "40001"))
+                .thenReturn(null);
+        MigrationLock noLock = mock(MigrationLock.class);
+        MigrationTool tool = new MigrationTool(executor, connection, reader, noLock, MigrationOptions.builder()
+                .retryPolicy(new RetryPolicy(3, 0, 0, 0, 0, RetryPolicy.DEFAULT_SQL_STATES))
+                .build());
+
+        List<MigrationReport> reports = new ArrayList<>();
+        assertEquals(2, tool.applyPendingMigrations(reader.getMigrationCatalog(), reports::add));
+
+        verify(executor, times(3)).applyMigration(any(MigrationFile.class));
+        InOrder order = inOrder(connection, executor);
+        order.verify(connection).releaseSavepoint(first);
+        order.verify(connection).rollback(second);
+        order.verify(executor).applyMigration(argThat((MigrationFile file) -> file.getVersion().equals("2")));
+        order.verify(connection).releaseSavepoint(second);
+        order.verify(connection).commit();
+        verify(connection, never()).rollback(first);
+        verify(connection, never()).rollback();
+        assertEquals(List.of("1", "2"), reports.stream().map(MigrationReport::getVersion).toList());
+        assertTrue(reports.stream().allMatch(MigrationReport::isSuccess));
+    }
+}
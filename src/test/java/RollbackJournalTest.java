@@ -0,0 +1,96 @@
+import org.example.migrations.rollback.RollbackJournal;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollbackJournalTest {
+
+    private static final RollbackJournal.ExistenceCheck NOTHING_EXISTS = (relation, column) -> false;
+
+    @Test
+    void testInverseStatementsAreReplayedInReverse() throws SQLException, IOException {
+        RollbackJournal journal = record(NOTHING_EXISTS,
+                "-- create\nCREATE TABLE app.orders (id INT, total NUMERIC(10, 2))",
+                "CREATE UNIQUE INDEX orders_id ON app.orders (id)",
+                "INSERT INTO APP.Orders VALUES (1, 2.5)",
+                "ALTER TABLE users ADD COLUMN email TEXT DEFAULT ','",
+                "ALTER TABLE users ADD CONSTRAINT users_email_key UNIQUE (email)",
+                "ALTER TABLE users RENAME COLUMN name TO full_name",
+                "ALTER TABLE users RENAME TO accounts",
+                "SET lock_timeout = 1000",
+                "SELECT 1");
+
+        List<String> expected = List.of(
+                "ALTER TABLE accounts RENAME TO users",
+                "ALTER TABLE users RENAME COLUMN full_name TO name",
+                "ALTER TABLE users DROP CONSTRAINT users_email_key",
+                "ALTER TABLE users DROP COLUMN email",
+                "DROP INDEX app.orders_id",
+                "DROP TABLE app.orders");
+        assertTrue(journal.isComplete());
+        assertEquals(expected, journal.getRollbackStatements());
+        assertEquals(expected, RollbackJournal.fromBytes(journal.toBytes()).getRollbackStatements());
+    }
+
+    @Test
+    void testIfNotExistsIsInvertedOnlyForNewObjects() throws SQLException {
+        Set<String> existing = Set.of("users", "users.email");
+        RollbackJournal journal = record((relation, column) ->
+                        existing.contains(column == null ? relation : relation + "." + column),
+                "CREATE TABLE IF NOT EXISTS users (id SERIAL PRIMARY KEY)",
+                "CREATE TABLE IF NOT EXISTS table2 (id INT)",
+                "ALTER TABLE users ADD COLUMN IF NOT EXISTS email TEXT",
+                "ALTER TABLE users ADD COLUMN IF NOT EXISTS phone TEXT");
+
+        assertEquals(List.of("ALTER TABLE users DROP COLUMN phone", "DROP TABLE table2"),
+                journal.getRollbackStatements());
+    }
+
+    @Test
+    void testIrreversibleStatementsMakeJournalIncomplete() throws SQLException {
+        for (String sql : List.of("DROP TABLE users", "UPDATE users SET name = 'x'", "CREATE OR REPLACE VIEW v AS SELECT 1",
+                "ALTER TABLE users ADD COLUMN a INT, ADD COLUMN b INT", "ALTER TABLE users ALTER COLUMN id TYPE BIGINT")) {
+            RollbackJournal journal = record(NOTHING_EXISTS, "CREATE TABLE t (id INT)", sql);
+
+            assertFalse(journal.isComplete(), sql);
+            assertEquals(sql, journal.getIrreversibleStatement());
+            assertThrows(IllegalStateException.class, journal::toBytes);
+        }
+    }
+
+    @Test
+    void testSearchPathChangeMakesJournalIncomplete() throws SQLException {
+        for (String sql : List.of("SET search_path = other, public", "SET LOCAL search_path TO other",
+                "SET SCHEMA 'other'", "RESET search_path", "RESET ALL")) {
+            RollbackJournal journal = record(NOTHING_EXISTS, "CREATE TABLE t (id INT)", sql, "CREATE TABLE t2 (id INT)");
+
+            assertFalse(journal.isComplete(), sql);
+            assertEquals(sql, journal.getIrreversibleStatement());
+        }
+        assertTrue(record(NOTHING_EXISTS, "SET application_name = 'search_path'").isComplete());
+    }
+
+    @Test
+    void testSelectIntoMakesJournalIncomplete() throws SQLException {
+        String sql = "SELECT id, name INTO users_copy FROM users";
+        RollbackJournal journal = record(NOTHING_EXISTS, "CREATE TABLE t (id INT)", sql);
+
+        assertFalse(journal.isComplete());
+        assertEquals(sql, journal.getIrreversibleStatement());
+        assertTrue(record(NOTHING_EXISTS, "SELECT 'into' FROM users WHERE id IN (1, 2)").isComplete());
+    }
+
+    private static RollbackJournal record(RollbackJournal.ExistenceCheck existing, String... statements)
+            throws SQLException {
+        RollbackJournal journal = new RollbackJournal();
+        for (String sql : statements) {
+            journal.record(sql, existing);
+        }
+        return journal;
+    }
+}
@@ -0,0 +1,188 @@
+import org.example.migrations.MigrationExecutor;
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.MigrationTool;
+import org.example.migrations.RetryPolicy;
+import org.example.migrations.SchemaState;
+import org.example.migrations.fileReader.MigrationCatalog;
+import org.example.migrations.fileReader.MigrationFile;
+import org.example.migrations.fileReader.MigrationFileLoader;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.fileReader.MigrationVersion;
+import org.example.migrations.lock.MigrationLock;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.plan.StatementPlan;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+class SchemaStateTest {
+
+    @TempDir
+    Path directory;
+
+    private MigrationFile migration(String version) {
+        return new MigrationFile(version, "test", Path.of("V" + version + "__test.sql"));
+    }
+
+    @Test
+    void testSchemaStateMatchesCatalogDigest() {
+        MigrationCatalog catalog = MigrationCatalog.of(List.of(migration("2"), migration("1")));
+        MigrationCatalog reordered = MigrationCatalog.of(List.of(migration("1"), migration("2")));
+        MigrationCatalog extended = MigrationCatalog.of(List.of(migration("1"), migration("2"), migration("3")));
+
+        assertEquals(catalog.getDigest(), reordered.getDigest());
+        assertNotEquals(catalog.getDigest(), extended.getDigest());
+        assertTrue(new SchemaState("2.0", catalog.getDigest(), null).matches(reordered));
+        assertFalse(new SchemaState("2", catalog.getDigest(), null).matches(extended));
+        assertFalse(new SchemaState("1", catalog.getDigest(), null).matches(catalog));
+    }
+
+    @Test
+    void testCurrentVersionIsReadFromSchemaState() throws SQLException {
+        Connection connection = mock(Connection.class);
+        ResultSet state = resultSet(connection, "schema_state");
+        when(state.next()).thenReturn(true);
+        when(state.getString("version")).thenReturn("7");
+        MigrationExecutor executor = new MigrationExecutor(connection, new MigrationFileReader(), 0);
+
+        assertEquals(MigrationVersion.parse("7"), executor.readCurrentVersion());
+        assertEquals("7", executor.getCurrentVersion());
+        verify(connection, never()).prepareStatement(contains("applied_migration"));
+    }
+
+    @Test
+    void testCurrentVersionFallsBackToAppliedMigrations() throws SQLException {
+        Connection connection = mock(Connection.class);
+        ResultSet state = resultSet(connection, "schema_state");
+        when(state.next()).thenReturn(false);
+        ResultSet applied = resultSet(connection, "applied_migration");
+        when(applied.next()).thenReturn(true);
+        when(applied.getString("version")).thenReturn("1.10");
+        MigrationExecutor executor = new MigrationExecutor(connection, new MigrationFileReader(), 0);
+
+        assertEquals(MigrationVersion.parse("1.10"), executor.readCurrentVersion());
+
+        // Таблица schema_state еще не создана
+        when(state.next()).thenThrow(new SQLException("relation \"schema_state\" does not exist", "42P01"));
+        assertEquals(MigrationVersion.parse("1.10"), executor.readCurrentVersion());
+    }
+
+    @Test
+    void testStateIsClearedBeforeMigrationsAreCommitted() throws Exception {
+        Files.writeString(directory.resolve("V1__create.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(directory.resolve("V2__update.sql"), "UPDATE a SET id = 1;");
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        Connection connection = mock(Connection.class);
+        MigrationExecutor executor = mock(MigrationExecutor.class);
+        when(executor.getMetrics()).thenReturn(new MigrationMetrics());
+        when(executor.readCurrentVersion()).thenReturn(MigrationVersion.parse("1"));
+        MigrationTool tool = new MigrationTool(executor, connection, reader, mock(MigrationLock.class), MigrationOptions.builder()
+                .retryPolicy(new RetryPolicy(1, 0, 0, 0, 0, RetryPolicy.DEFAULT_SQL_STATES))
+                .build());
+
+        assertEquals(1, tool.applyPendingMigrations(reader.getMigrationCatalog(), report -> { }));
+
+        InOrder order = inOrder(connection, executor);
+        order.verify(executor).clearSchemaState();
+        order.verify(executor).applyMigration(argThat((MigrationFile file) -> file.getVersion().equals("2")));
+        order.verify(executor).updateSchemaState(MigrationVersion.parse("2"), reader.getMigrationCatalog().getDigest());
+        order.verify(connection).commit();
+        verify(executor, never()).findCurrentVersion();
+    }
+
+    @Test
+    void testSchemaTablesAreInitializedUnderLock() throws Exception {
+        Files.writeString(directory.resolve("V1__create.sql"), "CREATE TABLE a (id INT);");
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        Connection connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        MigrationExecutor executor = mock(MigrationExecutor.class);
+        when(executor.getMetrics()).thenReturn(new MigrationMetrics());
+        MigrationLock lock = mock(MigrationLock.class);
+        MigrationTool tool = new MigrationTool(executor, connection, reader, lock, MigrationOptions.DEFAULT);
+
+        assertEquals(1, tool.applyPendingMigrations(reader.getMigrationCatalog(), report -> { }));
+        InOrder order = inOrder(lock, executor);
+        order.verify(lock).acquire();
+        order.verify(executor).initializeSchemaTable();
+        order.verify(lock).release();
+
+        doThrow(new SQLException("permission denied for schema public", "42501")).when(executor).initializeSchemaTable();
+        assertThrows(SQLException.class, () -> tool.applyPendingMigrations(reader.getMigrationCatalog(), report -> { }));
+        verify(lock, times(2)).release();
+        verify(executor, times(1)).applyMigration(any(MigrationFile.class));
+    }
+
+    @Test
+    void testVersionIsPeekedWithoutSchemaTables() throws SQLException {
+        Connection connection = mock(Connection.class);
+        MigrationExecutor executor = new MigrationExecutor(connection, new MigrationFileReader());
+        ResultSet state = resultSet(connection, "schema_state");
+        ResultSet applied = resultSet(connection, "applied_migration");
+        when(state.next()).thenThrow(new SQLException("relation \"schema_state\" does not exist", "42P01"));
+        when(applied.next()).thenReturn(true, true, true, false);
+        when(applied.getString("version")).thenReturn("2", "10", "9");
+
+        assertEquals(MigrationVersion.parse("10"), executor.peekCurrentVersion());
+
+        when(applied.next()).thenThrow(new SQLException("relation \"applied_migration\" does not exist", "42P01"));
+        assertNull(executor.peekCurrentVersion());
+        verify(connection, never()).createStatement();
+    }
+
+    @Test
+    void testPlanDoesNotInitializeSchemaTables() throws Exception {
+        Files.writeString(directory.resolve("V1__create.sql"), "CREATE TABLE a (id INT);");
+        Files.writeString(directory.resolve("V2__update.sql"), "UPDATE a SET id = 1;\nUPDATE b SET id = 1;");
+        MigrationFileReader reader = new MigrationFileReader(directory, directory, new MigrationFileLoader(1));
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        PreparedStatement explainA = mock(PreparedStatement.class);
+        ResultSet planA = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(explainA);
+        when(explainA.executeQuery()).thenReturn(planA);
+        when(planA.getString(1)).thenReturn("[{\"Plan\": {\"Total Cost\": 1.5, \"Plan Rows\": 3}}]");
+        PreparedStatement explainB = mock(PreparedStatement.class);
+        when(connection.prepareStatement(contains("UPDATE b"))).thenReturn(explainB);
+        when(explainB.executeQuery()).thenThrow(new SQLException("relation \"b\" does not exist", "42P01"));
+        MigrationExecutor executor = mock(MigrationExecutor.class);
+        when(executor.getMetrics()).thenReturn(new MigrationMetrics());
+        when(executor.peekCurrentVersion()).thenReturn(MigrationVersion.parse("1"));
+        MigrationTool tool = new MigrationTool(executor, connection, reader, mock(MigrationLock.class), MigrationOptions.DEFAULT);
+
+        List<StatementPlan> plans = tool.plan();
+
+        assertEquals(2, plans.size());
+        assertEquals(1.5, plans.get(0).getEstimatedCost());
+        assertNull(plans.get(1).getEstimatedCost());
+        assertTrue(plans.get(1).getNote().startsWith("not explained"));
+        assertTrue(plans.get(1).getNote().contains("earlier pending migration"));
+        verify(executor, never()).initializeSchemaTable();
+        verify(connection, never()).commit();
+        verify(connection).rollback();
+    }
+
+    private static ResultSet resultSet(Connection connection, String table) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(contains("FROM " + table))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        return resultSet;
+    }
+}
@@ -0,0 +1,68 @@
+import org.example.migrations.sql.SqlStatementReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementReaderTest {
+
+    private List<String> split(String sql) throws IOException {
+        List<String> statements = new ArrayList<>();
+        try (SqlStatementReader reader = SqlStatementReader.of(sql)) {
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    @Test
+    void testSplitsOnSemicolons() throws IOException {
+        List<String> statements = split("CREATE TABLE a (id INT);\nINSERT INTO a VALUES (1);\nSELECT 1");
+
+        assertEquals(List.of("CREATE TABLE a (id INT)", "INSERT INTO a VALUES (1)", "SELECT 1"), statements);
+    }
+
+    @Test
+    void testIgnoresSemicolonsInLiteralsAndComments() throws IOException {
+        List<String> statements = split("""
+                INSERT INTO a VALUES ('x;y', 'it''s;');
+                -- comment; not a statement
+                SELECT "weird;name" FROM a /* block; /* nested; */ still comment; */;
+                SELECT E'back\\';slash';
+                """);
+
+        assertEquals(3, statements.size());
+        assertEquals("INSERT INTO a VALUES ('x;y', 'it''s;')", statements.get(0));
+        assertTrue(statements.get(1).endsWith("still comment; */"));
+        assertEquals("SELECT E'back\\';slash'", statements.get(2));
+    }
+
+    @Test
+    void testDollarQuotedBodies() throws IOException {
+        List<String> statements = split("""
+                CREATE FUNCTION f() RETURNS INT AS $body$
+                BEGIN
+                    PERFORM 1; RETURN $$nested;$$::INT;
+                END;
+                $body$ LANGUAGE plpgsql;
+                SELECT $1, a$b FROM t;
+                """);
+
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0).endsWith("$body$ LANGUAGE plpgsql"));
+        assertEquals("SELECT $1, a$b FROM t", statements.get(1));
+    }
+
+    @Test
+    void testSkipsEmptyAndCommentOnlyStatements() throws IOException {
+        List<String> statements = split(";;\n-- header\nSELECT 1;\n;\n/* trailing */\n");
+
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).endsWith("SELECT 1"));
+    }
+}
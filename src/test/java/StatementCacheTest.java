@@ -0,0 +1,66 @@
+import org.example.db.StatementCache;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class StatementCacheTest {
+
+    private static Connection connection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        return connection;
+    }
+
+    @Test
+    void testStatementIsReusedWithClearedState() throws SQLException {
+        Connection connection = connection();
+        StatementCache statementCache = new StatementCache(connection);
+
+        PreparedStatement first = statementCache.prepare("INSERT INTO t VALUES (?)");
+        PreparedStatement second = statementCache.prepare("INSERT INTO t VALUES (?)");
+
+        assertSame(first, second);
+        verify(connection, times(1)).prepareStatement("INSERT INTO t VALUES (?)");
+        verify(first).clearParameters();
+        verify(first).clearBatch();
+    }
+
+    @Test
+    void testLeastRecentlyUsedStatementIsEvicted() throws SQLException {
+        StatementCache statementCache = new StatementCache(connection());
+        PreparedStatement oldest = statementCache.prepare("SELECT 0");
+        PreparedStatement recent = statementCache.prepare("SELECT 1");
+        for (int i = 2; i < 64; i++) {
+            statementCache.prepare("SELECT " + i);
+        }
+        statementCache.prepare("SELECT 1");
+        verify(oldest, never()).close();
+
+        statementCache.prepare("SELECT 64");
+
+        verify(oldest).close();
+        verify(recent, never()).close();
+    }
+
+    @Test
+    void testAttachedCacheIsSharedAndClosedWithConnection() throws SQLException {
+        Connection physical = connection();
+        Connection connection = StatementCache.attach(physical);
+
+        StatementCache statementCache = StatementCache.forConnection(connection);
+        assertSame(statementCache, StatementCache.forConnection(connection));
+        PreparedStatement statement = statementCache.prepare("SELECT 1");
+
+        connection.close();
+
+        verify(statement).close();
+        verify(physical).close();
+        assertNotSame(StatementCache.forConnection(physical), StatementCache.forConnection(physical));
+    }
+}
@@ -0,0 +1,70 @@
+import org.example.migrations.MigrationOptions;
+import org.example.migrations.fileReader.MigrationFileReader;
+import org.example.migrations.lock.MigrationLockFactory;
+import org.example.migrations.metrics.MigrationMetrics;
+import org.example.migrations.report.MigrationReport;
+import org.example.migrations.tenant.MigrationTarget;
+import org.example.migrations.tenant.TenantMigrationRunner;
+import org.example.migrations.tenant.TenantMigrationRunner.FailurePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantMigrationRunnerTest {
+
+    private static final MigrationLockFactory LOCKS = new MigrationLockFactory("advisory", 0, 60_000);
+
+    @Test
+    void testParseTargetList() {
+        List<MigrationTarget> targets = MigrationTarget.parseList(" tenant_1, ,jdbc:postgresql://host/db ");
+
+        assertEquals(2, targets.size());
+        assertEquals("tenant_1", targets.get(0).getSchema());
+        assertNull(targets.get(0).getUrl());
+        assertEquals("jdbc:postgresql://host/db", targets.get(1).getUrl());
+        assertNull(targets.get(1).getSchema());
+    }
+
+    @Test
+    void testFailFastSkipsRemainingTargets() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        TenantMigrationRunner runner = new TenantMigrationRunner(target -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Connection refused");
+        }, new MigrationFileReader(), 1, FailurePolicy.parse("fail-fast"), 0, LOCKS,
+                MigrationMetrics.DISABLED, MigrationOptions.DEFAULT);
+
+        List<MigrationReport> reports = new ArrayList<>();
+        int failures = runner.migrateAll(MigrationTarget.parseList("a,b,c"), reports::add);
+
+        assertEquals(1, attempts.get());
+        assertEquals(3, failures);
+        assertEquals(3, reports.size());
+        assertEquals("Connection refused", reports.get(0).getErrorMessage());
+        assertEquals("c", reports.get(2).getTarget());
+        assertTrue(reports.stream().noneMatch(MigrationReport::isSuccess));
+    }
+
+    @Test
+    void testContinueAttemptsEveryTarget() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        TenantMigrationRunner runner = new TenantMigrationRunner(target -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Connection refused");
+        }, new MigrationFileReader(), 2, FailurePolicy.parse("continue"), 0, LOCKS,
+                MigrationMetrics.DISABLED, MigrationOptions.DEFAULT);
+
+        List<MigrationReport> reports = Collections.synchronizedList(new ArrayList<>());
+        runner.migrateAll(MigrationTarget.parseList("a,b,c"), reports::add);
+
+        assertEquals(3, attempts.get());
+        assertEquals(List.of("a", "b", "c"), reports.stream().map(MigrationReport::getTarget).sorted().toList());
+    }
+}
@@ -0,0 +1,36 @@
+import org.example.migrations.TransactionPolicy;
+import org.example.migrations.TransactionPolicy.Mode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionPolicyTest {
+
+    @Test
+    void testParseModes() {
+        assertSame(TransactionPolicy.SINGLE, TransactionPolicy.of(null, 10, 0));
+        assertSame(TransactionPolicy.PER_MIGRATION, TransactionPolicy.of("per-migration", 10, 0));
+        assertEquals(Mode.GROUPED, TransactionPolicy.of(" Grouped ", 10, 0).getMode());
+        assertThrows(IllegalArgumentException.class, () -> TransactionPolicy.of("nested", 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> TransactionPolicy.grouped(-1, 0));
+    }
+
+    @Test
+    void testCommitBoundaries() {
+        long now = System.nanoTime();
+
+        assertFalse(TransactionPolicy.SINGLE.shouldCommit(1_000, now - 3_600_000_000_000L));
+        assertTrue(TransactionPolicy.PER_MIGRATION.shouldCommit(1, now));
+        assertFalse(TransactionPolicy.SINGLE.usesSavepoints());
+        assertFalse(TransactionPolicy.PER_MIGRATION.usesSavepoints());
+
+        TransactionPolicy bySize = TransactionPolicy.grouped(3, 0);
+        assertTrue(bySize.usesSavepoints());
+        assertFalse(bySize.shouldCommit(2, now - 3_600_000_000_000L));
+        assertTrue(bySize.shouldCommit(3, now));
+
+        TransactionPolicy byTime = TransactionPolicy.grouped(0, 1_000);
+        assertFalse(byTime.shouldCommit(1_000, now));
+        assertTrue(byTime.shouldCommit(1, now - 2_000_000_000L));
+    }
+}